@@ -0,0 +1,26 @@
+package com.englishvocab.config;
+
+import com.englishvocab.config.properties.ActiveSessionProperties;
+import com.englishvocab.service.session.ActiveSessionStore;
+import com.englishvocab.service.session.InMemoryActiveSessionStore;
+import com.englishvocab.service.session.RedisActiveSessionStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * Chọn nơi lưu trạng thái session đang học theo app.learning.active-sessions.store
+ */
+@Configuration
+public class ActiveSessionConfig {
+
+    @Bean
+    public ActiveSessionStore activeSessionStore(ActiveSessionProperties properties,
+                                                 ObjectProvider<StringRedisTemplate> redisTemplate) {
+        return switch (properties.getStore()) {
+            case MEMORY -> new InMemoryActiveSessionStore();
+            case REDIS -> new RedisActiveSessionStore(redisTemplate.getObject(), properties.getTtl());
+        };
+    }
+}
@@ -0,0 +1,28 @@
+package com.englishvocab.config;
+
+import com.englishvocab.config.properties.CatalogSyncProperties;
+import com.englishvocab.service.CatalogSync;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Nhận thông báo thay đổi catalog từ các node khác khi bật app.catalog.sync.redis
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.catalog.sync", name = "redis", havingValue = "true")
+public class CatalogSyncConfig {
+
+    @Bean
+    public RedisMessageListenerContainer catalogSyncListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                      CatalogSync catalogSync,
+                                                                      CatalogSyncProperties properties) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(catalogSync, new ChannelTopic(properties.getChannel()));
+        return container;
+    }
+}
@@ -0,0 +1,27 @@
+package com.englishvocab.config;
+
+import com.englishvocab.config.properties.DueQueueProperties;
+import com.englishvocab.service.due.DueQueueStore;
+import com.englishvocab.service.due.InMemoryDueQueueStore;
+import com.englishvocab.service.due.RedisDueQueueStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.RedisTemplate;
+
+/**
+ * Chọn nơi lưu hàng đợi từ đến hạn theo app.review.due-queue.store
+ */
+@Configuration
+public class DueQueueConfig {
+
+    @Bean
+    public DueQueueStore dueQueueStore(DueQueueProperties properties,
+                                       ObjectProvider<RedisTemplate<String, Object>> redisTemplate) {
+        return switch (properties.getStore()) {
+            case MEMORY -> new InMemoryDueQueueStore(properties.getMaxUsers());
+            case REDIS -> new RedisDueQueueStore(redisTemplate.getObject(), properties.getTtl(),
+                properties.getGenerationCacheTtl());
+        };
+    }
+}
@@ -0,0 +1,28 @@
+package com.englishvocab.config;
+
+import com.englishvocab.config.properties.ReviewQuestionProperties;
+import com.englishvocab.service.review.InMemoryReviewQuestionStore;
+import com.englishvocab.service.review.RedisReviewQuestionStore;
+import com.englishvocab.service.review.ReviewQuestionStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.RedisTemplate;
+
+/**
+ * Chọn nơi lưu bộ câu hỏi tạm theo app.review.questions.store
+ */
+@Configuration
+public class ReviewQuestionConfig {
+
+    @Bean
+    public ReviewQuestionStore reviewQuestionStore(ReviewQuestionProperties properties,
+                                                   ObjectProvider<RedisTemplate<String, Object>> redisTemplate,
+                                                   ObjectMapper objectMapper) {
+        return switch (properties.getStore()) {
+            case MEMORY -> new InMemoryReviewQuestionStore(properties.getTtl());
+            case REDIS -> new RedisReviewQuestionStore(redisTemplate.getObject(), objectMapper, properties.getTtl());
+        };
+    }
+}
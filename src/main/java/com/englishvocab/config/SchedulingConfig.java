@@ -0,0 +1,12 @@
+package com.englishvocab.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Bật các job @Scheduled (auto-complete session hết hạn, dọn session cũ, flush progress)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
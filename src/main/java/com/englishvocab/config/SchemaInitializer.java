@@ -0,0 +1,140 @@
+package com.englishvocab.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Bảo trì schema mà ddl-auto=update không tự làm (sequence, ràng buộc, backfill dữ liệu).
+ *
+ * Chạy một lần khi khởi động, trước {@link DataInitializer}. Mỗi bước idempotent: chạy lại
+ * trên DB đã được sửa không thay đổi gì. Bước lỗi chỉ được log, không chặn khởi động, trừ
+ * unique constraint của user_vocab_progress mà upsert progress bắt buộc phải có.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+@Slf4j
+public class SchemaInitializer implements CommandLineRunner {
+
+    /**
+     * review_items chuyển từ IDENTITY sang sequence: đẩy sequence vượt qua id đã có
+     * để id cấp từ sequence không trùng với id được tạo khi cột còn dùng IDENTITY
+     */
+    private static final String ALIGN_REVIEW_ITEMS_SEQ_SQL =
+        "SELECT setval('review_items_seq', GREATEST(" +
+        "(SELECT last_value FROM review_items_seq), " +
+        "(SELECT COALESCE(MAX(review_item_id), 0) FROM review_items)))";
+
+    /**
+     * Kết quả của câu hỏi tạm (chế độ EPHEMERAL) không có review_item_id; ddl-auto=update
+     * không tự bỏ NOT NULL của cột được tạo trước đó
+     */
+    private static final String DROP_REVIEW_ITEM_NOT_NULL_SQL =
+        "ALTER TABLE review_item_results ALTER COLUMN review_item_id DROP NOT NULL";
+
+    private static final String CONSTRAINT_EXISTS_SQL =
+        "SELECT COUNT(*) FROM pg_constraint WHERE conname = ?";
+
+    /**
+     * Bản ghi trùng (user_id, vocab_id) tạo ra trước khi có unique constraint:
+     * giữ hàng được cập nhật gần nhất, xóa các hàng còn lại
+     */
+    private static final String DEDUPE_USER_VOCAB_PROGRESS_SQL =
+        "DELETE FROM user_vocab_progress WHERE vocab_progress_id IN (" +
+        "SELECT vocab_progress_id FROM (SELECT vocab_progress_id, ROW_NUMBER() OVER (" +
+        "PARTITION BY user_id, vocab_id ORDER BY updated_at DESC NULLS LAST, vocab_progress_id DESC) AS rn " +
+        "FROM user_vocab_progress) ranked WHERE rn > 1)";
+
+    private static final String ADD_UK_USER_VOCAB_SQL =
+        "ALTER TABLE user_vocab_progress ADD CONSTRAINT uk_uvp_user_vocab UNIQUE (user_id, vocab_id)";
+
+    /**
+     * Attempt đã nộp trước khi có review_attempt_summaries: tính summary từ review_item_results
+     * giống ReviewService.calculateReviewResults. Attempt đã có summary không bị đụng tới.
+     */
+    private static final String BACKFILL_ATTEMPT_SUMMARIES_SQL =
+        "INSERT INTO review_attempt_summaries (review_attempt_id, user_id, total_correct, total_questions, " +
+        "mastered_words, need_review_words, duration_sec, submitted_at) " +
+        "SELECT ra.review_attempt_id, ra.user_id, " +
+        "COUNT(rir.review_item_result_id) FILTER (WHERE rir.is_correct), ra.max_score, " +
+        "COALESCE(string_agg(COALESCE(v.word, iv.word, cv.name, 'Unknown'), E'\\n' " +
+        "ORDER BY rir.review_item_result_id) FILTER (WHERE rir.is_correct), ''), " +
+        "COALESCE(string_agg(COALESCE(v.word, iv.word, cv.name, 'Unknown'), E'\\n' " +
+        "ORDER BY rir.review_item_result_id) FILTER (WHERE NOT rir.is_correct), ''), " +
+        "ra.duration_sec, ra.submitted_at " +
+        "FROM review_attempts ra " +
+        "LEFT JOIN review_item_results rir ON rir.review_attempt_id = ra.review_attempt_id " +
+        "LEFT JOIN vocab v ON v.vocab_id = rir.vocab_id " +
+        "LEFT JOIN review_items ri ON ri.review_item_id = rir.review_item_id " +
+        "LEFT JOIN vocab iv ON iv.vocab_id = ri.vocab_id " +
+        "LEFT JOIN user_custom_vocab cv ON cv.custom_vocab_id = ri.custom_vocab_id " +
+        "WHERE ra.submitted_at IS NOT NULL AND NOT EXISTS (" +
+        "SELECT 1 FROM review_attempt_summaries s WHERE s.review_attempt_id = ra.review_attempt_id) " +
+        "GROUP BY ra.review_attempt_id " +
+        "ON CONFLICT (review_attempt_id) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public void run(String... args) {
+        step("align review_items_seq", () -> {
+            Long value = jdbcTemplate.queryForObject(ALIGN_REVIEW_ITEMS_SEQ_SQL, Long.class);
+            log.info("Schema: review_items_seq aligned at {}", value);
+        });
+        step("drop review_item_results.review_item_id NOT NULL", () -> {
+            jdbcTemplate.execute(DROP_REVIEW_ITEM_NOT_NULL_SQL);
+            log.info("Schema: review_item_results.review_item_id is nullable");
+        });
+        addUserVocabConstraint();
+        step("backfill review_attempt_summaries", () -> {
+            int inserted = jdbcTemplate.update(BACKFILL_ATTEMPT_SUMMARIES_SQL);
+            if (inserted > 0) {
+                log.info("Schema: backfilled {} review attempt summaries", inserted);
+            }
+        });
+    }
+
+    /**
+     * ddl-auto=update bỏ qua constraint này khi bảng đã có bản ghi trùng. Xóa trùng và thêm constraint
+     * trong một transaction (lỗi thì không mất hàng nào); thiếu constraint thì dừng khởi động vì
+     * ON CONFLICT (user_id, vocab_id) của upsert progress sẽ lỗi ở mọi câu trả lời.
+     */
+    private void addUserVocabConstraint() {
+        if (constraintExists("uk_uvp_user_vocab")) {
+            return;
+        }
+        try {
+            int removed = transactionTemplate.execute(status -> {
+                int deleted = jdbcTemplate.update(DEDUPE_USER_VOCAB_PROGRESS_SQL);
+                jdbcTemplate.execute(ADD_UK_USER_VOCAB_SQL);
+                return deleted;
+            });
+            log.info("Schema: uk_uvp_user_vocab added after removing {} duplicate progress rows", removed);
+        } catch (RuntimeException e) {
+            // Node khác có thể vừa thêm constraint cùng lúc
+            if (!constraintExists("uk_uvp_user_vocab")) {
+                throw new IllegalStateException("Cannot add unique constraint uk_uvp_user_vocab on user_vocab_progress", e);
+            }
+        }
+    }
+
+    private boolean constraintExists(String name) {
+        Long count = jdbcTemplate.queryForObject(CONSTRAINT_EXISTS_SQL, Long.class, name);
+        return count != null && count > 0;
+    }
+
+    private void step(String name, Runnable action) {
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            log.warn("Schema step '{}' failed: {}", name, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.englishvocab.config;
+
+import com.englishvocab.config.properties.SrsProperties;
+import com.englishvocab.service.srs.SrsScheduler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Chọn thuật toán SRS theo app.srs.algorithm
+ */
+@Configuration
+public class SrsConfig {
+
+    @Bean
+    public SrsScheduler srsScheduler(SrsProperties properties) {
+        return properties.getAlgorithm().newScheduler();
+    }
+}
@@ -0,0 +1,40 @@
+package com.englishvocab.config.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.learning.active-sessions")
+public class ActiveSessionProperties {
+
+    /**
+     * Record flashcard answers in the active-session store and write them to the database at checkpoints.
+     * Off by default: answers are then written to the database as they arrive.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Where active-session state lives: MEMORY (single node, or sticky routing so every request of a
+     * session reaches the same node) or REDIS (shared by all nodes).
+     */
+    private Store store = Store.MEMORY;
+
+    /**
+     * Delay between periodic checkpoints that write pending answers to the database, in milliseconds.
+     */
+    private long checkpointIntervalMs = 10000;
+
+    /**
+     * Idle time after which a session's Redis state expires.
+     */
+    private Duration ttl = Duration.ofHours(2);
+
+    public enum Store {
+        MEMORY,
+        REDIS
+    }
+}
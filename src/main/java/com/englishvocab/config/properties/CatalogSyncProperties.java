@@ -0,0 +1,30 @@
+package com.englishvocab.config.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.catalog.sync")
+public class CatalogSyncProperties {
+
+    /**
+     * Relay vocabulary, dictionary and topic changes to the other nodes over Redis pub/sub so their
+     * in-memory catalog caches and search indexes are refreshed. Required when more than one node serves traffic.
+     */
+    private boolean redis = false;
+
+    /**
+     * Redis channel carrying the change notifications.
+     */
+    private String channel = "catalog:changed";
+
+    /**
+     * Drop every in-memory catalog cache and search index at least this often so a missed notification
+     * (Redis outage, direct database edits) is not served forever. Zero disables the periodic reload.
+     */
+    private Duration maxAge = Duration.ZERO;
+}
@@ -0,0 +1,34 @@
+package com.englishvocab.config.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.diagnostics.trace")
+public class DiagnosticTraceProperties {
+
+    /**
+     * Buffer per-request diagnostic events and log them only for failed or sampled requests.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Events kept per request; older events are overwritten once the buffer is full.
+     */
+    private int capacity = 200;
+
+    /**
+     * Fraction of successful requests (0.0 - 1.0) whose trace is logged anyway.
+     */
+    private double sampleRate = 0.0;
+
+    /**
+     * Request paths (Ant-style) that are traced.
+     */
+    private List<String> paths = new ArrayList<>(List.of("/learn/**"));
+}
@@ -0,0 +1,39 @@
+package com.englishvocab.config.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.review.due-queue")
+public class DueQueueProperties {
+
+    /**
+     * Where per-user due queues live: MEMORY (single node, tests) or REDIS (shared by all nodes).
+     */
+    private Store store = Store.MEMORY;
+
+    /**
+     * Users whose queue is kept in memory; least recently used queues are dropped and reloaded on demand.
+     */
+    private int maxUsers = 10000;
+
+    /**
+     * Idle time after which a user's Redis queue expires and is rebuilt from the database.
+     */
+    private Duration ttl = Duration.ofDays(7);
+
+    /**
+     * How long a node reuses the Redis queue generation before reading it again; a bulk invalidation
+     * made on another node becomes visible here after at most this long.
+     */
+    private Duration generationCacheTtl = Duration.ofSeconds(5);
+
+    public enum Store {
+        MEMORY,
+        REDIS
+    }
+}
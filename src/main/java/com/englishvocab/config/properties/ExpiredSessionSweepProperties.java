@@ -0,0 +1,26 @@
+package com.englishvocab.config.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.learning.expired-sweep")
+public class ExpiredSessionSweepProperties {
+
+    /**
+     * Delay between sweeps that complete expired learning sessions, in milliseconds.
+     */
+    private long intervalMs = 300000;
+
+    /**
+     * Sessions claimed and completed per transaction; rows locked by another node are skipped.
+     */
+    private int chunkSize = 200;
+
+    /**
+     * Workers claiming chunks concurrently on this node.
+     */
+    private int parallelism = 2;
+}
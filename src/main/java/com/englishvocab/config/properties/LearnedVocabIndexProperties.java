@@ -0,0 +1,28 @@
+package com.englishvocab.config.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.progress.learned-index")
+public class LearnedVocabIndexProperties {
+
+    /**
+     * Select new words with an in-memory bitmap of each user's learned vocab ids; when disabled a NOT EXISTS query is used.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Maximum number of users whose bitmaps are kept; the least recently used one is dropped first.
+     */
+    private int maxUsers = 10000;
+
+    /**
+     * Age after which a user's bitmap is topped up from the database (progress written by other nodes).
+     */
+    private Duration maxAge = Duration.ofMinutes(10);
+}
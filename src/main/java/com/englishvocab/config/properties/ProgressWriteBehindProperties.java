@@ -0,0 +1,54 @@
+package com.englishvocab.config.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.progress.write-behind")
+public class ProgressWriteBehindProperties {
+
+    /**
+     * Number of per-user partitions; all updates of one user land in the same partition.
+     */
+    private int partitions = 4;
+
+    /**
+     * Maximum pending (user, vocab) entries per partition before the caller flushes inline.
+     */
+    private int maxPendingPerPartition = 5000;
+
+    /**
+     * Rows per JDBC batch when flushing.
+     */
+    private int batchSize = 500;
+
+    /**
+     * Delay between background flushes in milliseconds.
+     */
+    private long flushIntervalMs = 1000;
+
+    /**
+     * Consecutive failed flushes of a partition before its updates are dropped from memory;
+     * their sessions stay progress_pending and are picked up by the replay.
+     */
+    private int maxFlushAttempts = 5;
+
+    /**
+     * Delay between scans for sessions whose progress is still pending, in milliseconds.
+     */
+    private long replayIntervalMs = 60000;
+
+    /**
+     * Minimum age of a pending session before it is replayed, in milliseconds. Younger sessions may
+     * still sit in the queue of the node that completed them, so keep this well above
+     * flushIntervalMs * maxFlushAttempts.
+     */
+    private long replayAfterMs = 120000;
+
+    /**
+     * Failed replays of one session before it is logged and skipped until the next restart.
+     */
+    private int maxReplayAttempts = 3;
+}
@@ -0,0 +1,39 @@
+package com.englishvocab.config.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.review.pregeneration")
+public class ReviewPregenerationProperties {
+
+    /**
+     * Build the user's next review in the background so starting a review is a lookup.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Worker threads generating reviews.
+     */
+    private int threads = 2;
+
+    /**
+     * Generation requests waiting for a worker; further requests are dropped
+     * and the review is generated on the request path instead.
+     */
+    private int queueCapacity = 200;
+
+    /**
+     * Due words from which opening the review dashboard triggers pre-generation.
+     */
+    private long dueThreshold = 5;
+
+    /**
+     * Age after which a pre-generated review is discarded instead of served.
+     */
+    private Duration maxAge = Duration.ofMinutes(30);
+}
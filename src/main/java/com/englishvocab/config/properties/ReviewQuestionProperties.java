@@ -0,0 +1,39 @@
+package com.englishvocab.config.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.review.questions")
+public class ReviewQuestionProperties {
+
+    /**
+     * PERSISTED writes every question to review_items; EPHEMERAL keeps the question set
+     * in a TTL-bound store and persists only the answers (review_item_results with vocab and type).
+     */
+    private Mode mode = Mode.PERSISTED;
+
+    /**
+     * Where ephemeral question sets live: MEMORY (single node) or REDIS (shared by all nodes).
+     */
+    private Store store = Store.MEMORY;
+
+    /**
+     * Lifetime of an ephemeral question set, from generation until the attempt is finished.
+     */
+    private Duration ttl = Duration.ofHours(2);
+
+    public enum Mode {
+        PERSISTED,
+        EPHEMERAL
+    }
+
+    public enum Store {
+        MEMORY,
+        REDIS
+    }
+}
@@ -0,0 +1,34 @@
+package com.englishvocab.config.properties;
+
+import com.englishvocab.service.srs.SrsAlgorithm;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.srs")
+public class SrsProperties {
+
+    /**
+     * Spaced-repetition algorithm used for new answers and bulk rescheduling.
+     */
+    private SrsAlgorithm algorithm = SrsAlgorithm.LEITNER;
+
+    private Reschedule reschedule = new Reschedule();
+
+    @Getter
+    @Setter
+    public static class Reschedule {
+
+        /**
+         * Progress ids per chunk; each chunk is read, recomputed and written in one transaction.
+         */
+        private int chunkSize = 5000;
+
+        /**
+         * Chunks processed concurrently (0 = number of available processors).
+         */
+        private int parallelism = 0;
+    }
+}
@@ -0,0 +1,21 @@
+package com.englishvocab.config.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.search.suggest")
+public class VocabSuggestProperties {
+
+    /**
+     * Upper bound for the {@code limit} parameter of the suggest endpoint.
+     */
+    private int maxResults = 20;
+
+    /**
+     * Maximum number of users whose custom-vocabulary prefix indexes are kept; the least recently used one is dropped first.
+     */
+    private int maxCustomUsers = 2000;
+}
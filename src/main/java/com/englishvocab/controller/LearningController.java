@@ -1,9 +1,11 @@
 package com.englishvocab.controller;
 
+import com.englishvocab.dto.SessionAnswerBatchRequest;
 import com.englishvocab.dto.SessionResultDTO;
 import com.englishvocab.dto.SessionResultRequest;
 import com.englishvocab.dto.SessionVocabularyDTO;
 import com.englishvocab.dto.VocabWithProgressDTO;
+import com.englishvocab.diagnostic.DiagnosticTrace;
 import com.englishvocab.entity.Dictionary;
 import com.englishvocab.entity.LearningSession;
 import com.englishvocab.entity.SessionVocabulary;
@@ -20,6 +22,7 @@ import com.englishvocab.service.UserProgressService;
 import com.englishvocab.service.VocabularyService;
 import com.englishvocab.service.UserVocabListService;
 import com.englishvocab.service.ReviewService;
+import com.englishvocab.service.ReviewPregenerator;
 import com.englishvocab.dto.ReviewAnswerResult;
 import com.englishvocab.dto.ReviewStatsDTO;
 import com.englishvocab.dto.ReviewResultDTO;
@@ -76,6 +79,7 @@ public class LearningController {
     private final UserRepository userRepository;
     private final UserVocabListService userVocabListService;
     private final ReviewService reviewService;
+    private final ReviewPregenerator reviewPregenerator;
 
     /**
      * 📝 ALPHABETICAL LEARNING MODE
@@ -152,34 +156,19 @@ public class LearningController {
                 vocabularies = vocabularyService.findByDictionaryOrderByWordAsc(dictionaryId, pageable);
             }
 
-            // Calculate total based on applied filters
-            long total;
-            if (requestedLetters != null && !requestedLetters.isEmpty() && level != null && !level.isEmpty()) {
-                // Count with both filters
-                total = vocabularyService.countByDictionaryAndWordStartingWithAndLevel(dictionaryId, requestedLetters, level);
-            } else if (requestedLetters != null && !requestedLetters.isEmpty()) {
-                // Count with letter filter only
-                total = vocabularyService.countByDictionaryAndWordStartingWith(dictionaryId, requestedLetters);
-            } else if (level != null && !level.isEmpty()) {
-                // Count with level filter only
-                total = vocabularyService.countByDictionaryAndLevel(dictionaryId, level);
-            } else {
-                // Count all
-                total = vocabularyService.countByDictionary(dictionary.getDictionaryId());
-            }
+            // Total theo filter lấy từ count query của Page
+            long total = vocabularies.getTotalElements();
 
-            long learned = userProgressService.countLearnedWordsInDictionary(user, dictionary);
-            long review = userProgressService.countWordsForReviewInDictionary(user, dictionary);
+            // Learned/review/letter counts trong một query aggregate
+            UserProgressService.DictionaryProgressSummary progressSummary =
+                userProgressService.getDictionaryProgressSummary(user, dictionary);
+            long learned = progressSummary.getLearnedWords();
+            long review = progressSummary.getWordsToReview();
             long inProgress = Math.max(total - learned - review, 0);
             double percent = total == 0 ? 0 : (learned * 100.0 / total);
 
             // Tạo DTO với progress information cho mỗi vocab
-            List<VocabWithProgressDTO> vocabsWithProgress = vocabularies.getContent().stream()
-                .map(vocab -> {
-                    UserVocabProgress progress = userProgressService.findUserProgress(user, vocab);
-                    return VocabWithProgressDTO.of(vocab, progress);
-                })
-                .collect(Collectors.toList());
+            List<VocabWithProgressDTO> vocabsWithProgress = toVocabsWithProgress(user, vocabularies.getContent());
 
             model.addAttribute("inProgressCount", inProgress);
             model.addAttribute("progressPercent", percent);
@@ -194,8 +183,7 @@ public class LearningController {
             model.addAttribute("letters", letters);
             model.addAttribute("activeLetterWindow", activeLetterWindow != null ? activeLetterWindow : List.of());
             model.addAttribute("lettersDisplay", lettersDisplay);
-            Map<String, Long> letterCounts = vocabularyService.getVocabCountByFirstLetter(dictionaryId);
-            model.addAttribute("letterCounts", letterCounts);
+            model.addAttribute("letterCounts", progressSummary.getLetterCounts());
             model.addAttribute("level", level);
             model.addAttribute("pageTitle", "Học từ vựng: " + dictionary.getName() + " (A-Z)");
             model.addAttribute("learningMode", "alphabetical");
@@ -304,12 +292,7 @@ public class LearningController {
             model.addAttribute("userLists", userVocabListService.getListSummaries(user));
             
             // Tạo DTO với progress information cho mỗi vocab
-            List<VocabWithProgressDTO> vocabsWithProgress = vocabularies.getContent().stream()
-                .map(vocab -> {
-                    UserVocabProgress progress = userProgressService.findUserProgress(user, vocab);
-                    return VocabWithProgressDTO.of(vocab, progress);
-                })
-                .collect(Collectors.toList());
+            List<VocabWithProgressDTO> vocabsWithProgress = toVocabsWithProgress(user, vocabularies.getContent());
             
             // Add vocabulary data to model
             model.addAttribute("vocabularies", vocabsWithProgress);
@@ -528,6 +511,45 @@ public class LearningController {
         }
     }
     
+    /**
+     * 📦 RECORD ANSWER BATCH API
+     * Ghi nhận nhiều câu trả lời một lần; client gom thẻ rồi gửi mỗi N thẻ hoặc khi rời trang.
+     * Gửi lại cùng một lô (retry) là an toàn: câu có số thứ tự đã ghi nhận bị bỏ qua.
+     */
+    @PostMapping("/session/answers")
+    @ResponseBody
+    public ResponseEntity<?> recordAnswers(
+            @RequestBody SessionAnswerBatchRequest request,
+            Authentication authentication) {
+
+        try {
+            String userEmail = getCurrentUserId(authentication);
+            
+            List<SessionAnswerBatchRequest.SequencedAnswer> answers =
+                request.getAnswers() != null ? request.getAnswers() : List.of();
+            LearningSession session = learningService.recordAnswers(request.getSessionId(), answers);
+
+            log.debug("User {} recorded {} answers in session {}", 
+                userEmail, answers.size(), request.getSessionId());
+
+            return ResponseEntity.ok().body(Map.of(
+                "success", true,
+                "correctCount", session.getCorrectCount(),
+                "wrongCount", session.getWrongCount(),
+                "skipCount", session.getSkipCount(),
+                "progress", session.getProgress(),
+                "lastSeq", session.getLastAnswerSeq() != null ? session.getLastAnswerSeq() : 0
+            ));
+
+        } catch (RuntimeException e) {
+            log.error("Error recording answer batch", e);
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", e.getMessage()
+            ));
+        }
+    }
+    
     /**
      * ⏸️ PAUSE SESSION API
      */
@@ -652,6 +674,17 @@ public class LearningController {
         }
     }
 
+    /**
+     * Ghép progress của user vào các vocab trong trang (một query cho cả trang)
+     */
+    private List<VocabWithProgressDTO> toVocabsWithProgress(User user, List<Vocab> vocabs) {
+        Map<Integer, UserVocabProgress> progressByVocabId = userProgressService.findUserProgressByVocabIds(
+            user, vocabs.stream().map(Vocab::getVocabId).toList());
+        return vocabs.stream()
+            .map(vocab -> VocabWithProgressDTO.of(vocab, progressByVocabId.get(vocab.getVocabId())))
+            .collect(Collectors.toList());
+    }
+
     /**
      * Helper method to get current user ID from Authentication
      */
@@ -691,16 +724,18 @@ public class LearningController {
     @GetMapping("/review")
     public String reviewDashboard(Authentication authentication, Model model) {
         try {
-            log.info("Loading review dashboard for user: {}", authentication.getName());
+            DiagnosticTrace.record("Loading review dashboard for user: {}", authentication.getName());
             
             User user = getCurrentUser(authentication);
-            log.info("Found user: {} with ID: {}", user.getEmail(), user.getId());
+            DiagnosticTrace.record("Found user: {} with ID: {}", user.getEmail(), user.getId());
             
-            log.info("Getting review stats...");
+            DiagnosticTrace.record("Getting review stats...");
             ReviewStatsDTO stats;
             try {
                 stats = reviewService.getReviewStats(user);
-                log.info("Review stats: {}", stats);
+                DiagnosticTrace.record("Review stats: {}", stats);
+                // Đủ từ đến hạn: tạo sẵn lượt ôn tập trước khi user bấm bắt đầu
+                reviewPregenerator.warmUp(user, stats.getTotalReviewCount());
             } catch (Exception e) {
                 log.error("Error getting review stats", e);
                 // Create default stats
@@ -710,7 +745,7 @@ public class LearningController {
                     .difficultCount(0)
                     .totalReviewCount(0)
                     .build();
-                log.info("Using default stats: {}", stats);
+                DiagnosticTrace.record("Using default stats: {}", stats);
             }
             
             // Calculate estimated time based on review count
@@ -800,6 +835,7 @@ public class LearningController {
             
         } catch (Exception e) {
             log.error("Error loading review dashboard", e);
+            DiagnosticTrace.markFailed();
             return "redirect:/dashboard";
         }
     }
@@ -811,31 +847,36 @@ public class LearningController {
     @PostMapping("/review/start")
     public String startReview(Authentication authentication) {
         try {
-            log.info("Starting review session for user: {}", authentication.getName());
+            DiagnosticTrace.record("Starting review session for user: {}", authentication.getName());
             
             User user = getCurrentUser(authentication);
-            log.info("Found user: {} with ID: {}", user.getEmail(), user.getId());
-            
-            List<VocabWithProgressDTO> words = reviewService.getReviewWords(user, 15);
-            log.info("Found {} words for review", words.size());
+            DiagnosticTrace.record("Found user: {} with ID: {}", user.getEmail(), user.getId());
             
-            if (words.isEmpty()) {
-                log.warn("No words available for review for user {}", user.getEmail());
-                return "redirect:/learn/review?status=no_words&message=Chưa có từ nào để ôn tập. Hãy học từ vựng mới để bắt đầu ôn tập";
+            // Dùng review đã tạo sẵn ở background nếu có
+            Reviews review = reviewPregenerator.take(user).orElse(null);
+            if (review == null) {
+                List<VocabWithProgressDTO> words = reviewService.getReviewWords(user, ReviewService.REVIEW_WORD_COUNT);
+                DiagnosticTrace.record("Found {} words for review", words.size());
+                
+                if (words.isEmpty()) {
+                    log.warn("No words available for review for user {}", user.getEmail());
+                    return "redirect:/learn/review?status=no_words&message=Chưa có từ nào để ôn tập. Hãy học từ vựng mới để bắt đầu ôn tập";
+                }
+                
+                DiagnosticTrace.record("Creating vocabulary review with {} words", words.size());
+                review = reviewService.createVocabularyReview(user, words);
             }
+            DiagnosticTrace.record("Using review with ID: {}", review.getReviewId());
             
-            log.info("Creating vocabulary review with {} words", words.size());
-            Reviews review = reviewService.createVocabularyReview(user, words);
-            log.info("Created review with ID: {}", review.getReviewId());
-            
-            log.info("Starting review attempt");
+            DiagnosticTrace.record("Starting review attempt");
             ReviewAttempts attempt = reviewService.startReviewAttempt(user, review);
-            log.info("Created attempt with ID: {}", attempt.getReviewAttemptId());
+            DiagnosticTrace.record("Created attempt with ID: {}", attempt.getReviewAttemptId());
             
             return "redirect:/learn/review/session?reviewId=" + review.getReviewId() + "&attemptId=" + attempt.getReviewAttemptId();
             
         } catch (Exception e) {
             log.error("Error starting review session for user: {}", authentication.getName(), e);
+            DiagnosticTrace.markFailed();
             return "redirect:/learn/review?error=start_failed";
         }
     }
@@ -851,7 +892,7 @@ public class LearningController {
                                Model model) {
         try {
             Reviews review = reviewService.getReviewById(reviewId);
-            List<ReviewItems> questions = reviewService.getReviewQuestions(reviewId);
+            List<ReviewItems> questions = reviewService.getReviewQuestions(reviewId, attemptId);
             
             if (questionIndex >= questions.size()) {
                 return "redirect:/learn/review/results?attemptId=" + attemptId;
@@ -860,10 +901,9 @@ public class LearningController {
             ReviewItems currentQuestion = questions.get(questionIndex);
             
             // Debug logging
-            log.info("Loading question {} of {} for reviewId: {}", questionIndex + 1, questions.size(), reviewId);
-            log.info("Current question: id={}, type={}, word={}", 
-                currentQuestion.getReviewItemId(), currentQuestion.getType(),
-                currentQuestion.getVocab() != null ? currentQuestion.getVocab().getWord() : "NULL");
+            DiagnosticTrace.record("Loading question {} of {} for reviewId: {}", questionIndex + 1, questions.size(), reviewId);
+            DiagnosticTrace.record("Current question: id={}, type={}", 
+                currentQuestion.getReviewItemId(), currentQuestion.getType());
             
             model.addAttribute("review", review);
             model.addAttribute("attemptId", attemptId);
@@ -875,6 +915,7 @@ public class LearningController {
             
         } catch (Exception e) {
             log.error("Error loading review session", e);
+            DiagnosticTrace.markFailed();
             return "redirect:/learn/review?error=session_failed";
         }
     }
@@ -920,6 +961,7 @@ public class LearningController {
             
         } catch (Exception e) {
             log.error("Error loading review results", e);
+            DiagnosticTrace.markFailed();
             return "redirect:/learn/review?error=results_failed";
         }
     }
@@ -0,0 +1,84 @@
+package com.englishvocab.controller;
+
+import com.englishvocab.security.CustomUserPrincipal;
+import com.englishvocab.service.CatalogCache;
+import com.englishvocab.service.CatalogSnapshot;
+import com.englishvocab.service.search.MeaningIndex;
+import com.englishvocab.service.search.VocabSuggestIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST API gợi ý từ vựng: theo tiền tố của từ (autocomplete) và theo nghĩa tiếng Việt không dấu
+ */
+@RestController
+@RequestMapping("/api/vocab")
+@RequiredArgsConstructor
+public class VocabSuggestApiController {
+
+    private final VocabSuggestIndex vocabSuggestIndex;
+    private final MeaningIndex meaningIndex;
+    private final CatalogCache catalogCache;
+
+    /**
+     * Gợi ý từ bắt đầu bằng {@code q}: từ vựng cá nhân của user trước, rồi từ hệ thống
+     * (lọc theo từ điển nếu có {@code dictionaryId})
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<Map<String, Object>> suggest(
+            @RequestParam(value = "q", required = false) String query,
+            @RequestParam(required = false) Integer dictionaryId,
+            @RequestParam(defaultValue = "10") int limit,
+            Authentication authentication) {
+
+        String userId = authentication != null && authentication.getPrincipal() instanceof CustomUserPrincipal principal
+            ? principal.getId() : null;
+        List<VocabSuggestIndex.Suggestion> suggestions = vocabSuggestIndex.suggest(userId, query, dictionaryId, limit);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("query", query);
+        response.put("suggestions", suggestions);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Tra từ theo nghĩa tiếng Việt (có dấu hoặc không dấu), token cuối được khớp theo tiền tố
+     */
+    @GetMapping("/by-meaning")
+    public ResponseEntity<Map<String, Object>> byMeaning(
+            @RequestParam(value = "q", required = false) String query,
+            @RequestParam(required = false) Integer dictionaryId,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        CatalogSnapshot catalog = catalogCache.get();
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (MeaningIndex.Match match : meaningIndex.lookup(query, dictionaryId, Math.min(limit, 50))) {
+            int row = catalog.rowOf(match.vocabId());
+            if (row < 0) {
+                continue; // Snapshot chưa nạp lại sau khi thêm từ
+            }
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("vocabId", match.vocabId());
+            item.put("word", catalog.word(row));
+            item.put("meaning", catalog.meaning(row));
+            item.put("dictionaryId", match.dictionaryId());
+            item.put("score", match.score());
+            results.add(item);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("query", query);
+        response.put("results", results);
+        return ResponseEntity.ok(response);
+    }
+}
@@ -166,15 +166,14 @@ public class VocabularyController {
             // Get vocabulary with filters
             Page<Vocab> vocabularies;
             if (search != null && !search.trim().isEmpty()) {
-                List<Vocab> searchResults = vocabularyService.searchByWordInDictionary(dictionaryId, search.trim());
-                model.addAttribute("vocabularies", searchResults);
+                vocabularies = vocabularyService.search(search.trim(), dictionaryId, pageable);
                 model.addAttribute("isSearch", true);
                 model.addAttribute("searchKeyword", search.trim());
             } else {
                 vocabularies = vocabularyService.findAllWithFilter(dictionaryId, levelFilter, pageable);
-                model.addAttribute("vocabularies", vocabularies);
                 model.addAttribute("isSearch", false);
             }
+            model.addAttribute("vocabularies", vocabularies);
             
             // Get user's progress for these words
             // TODO: Add progress indicators for each word
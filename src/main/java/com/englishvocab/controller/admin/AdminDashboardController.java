@@ -5,12 +5,17 @@ import com.englishvocab.service.DictionaryService;
 import com.englishvocab.service.TopicsService;
 import com.englishvocab.service.UserService;
 import com.englishvocab.service.VocabularyService;
+import com.englishvocab.service.search.VocabSuggestIndex;
+import com.englishvocab.service.session.ExpiredSessionSweeper;
+import com.englishvocab.service.srs.SrsRescheduleJob;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 @Controller
 @RequestMapping("/admin")
@@ -23,6 +28,9 @@ public class AdminDashboardController {
     private final VocabularyService vocabularyService;
     private final TopicsService topicsService;
     private final UserVocabProgressRepository userVocabProgressRepository;
+    private final SrsRescheduleJob srsRescheduleJob;
+    private final ExpiredSessionSweeper expiredSessionSweeper;
+    private final VocabSuggestIndex vocabSuggestIndex;
 
     @GetMapping("/dashboard")
     public String dashboard(Model model) {
@@ -48,10 +56,28 @@ public class AdminDashboardController {
         model.addAttribute("dictionaryActivePercent", dictionaryActivePercent);
         model.addAttribute("recentUsers", userService.getRecentUsers(5));
         model.addAttribute("topTopics", topicsService.getTopicsWithVocabCount(5));
+        model.addAttribute("srsRescheduleRunning", srsRescheduleJob.isRunning());
+        model.addAttribute("srsRescheduleResult", srsRescheduleJob.getLastResult());
+        model.addAttribute("sessionSweepResult", expiredSessionSweeper.getLastResult());
+        model.addAttribute("suggestFootprint", vocabSuggestIndex.footprint());
 
         return "admin/dashboard";
     }
 
+    /**
+     * Lên lịch lại toàn bộ progress theo thuật toán SRS hiện tại (chạy nền)
+     */
+    @PostMapping("/srs/reschedule")
+    public String rescheduleProgress(RedirectAttributes redirectAttributes) {
+        if (srsRescheduleJob.start()) {
+            redirectAttributes.addFlashAttribute("successMessage",
+                "Đã bắt đầu lên lịch lại progress, tải lại trang để xem kết quả");
+        } else {
+            redirectAttributes.addFlashAttribute("errorMessage", "Job lên lịch lại progress đang chạy");
+        }
+        return "redirect:/admin/dashboard";
+    }
+
     private int percentage(long portion, long total) {
         if (total <= 0) {
             return 0;
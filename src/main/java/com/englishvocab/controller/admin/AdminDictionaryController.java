@@ -1,8 +1,10 @@
 package com.englishvocab.controller.admin;
 
+import com.englishvocab.dto.VocabImportResult;
 import com.englishvocab.entity.Dictionary;
 import com.englishvocab.entity.Vocab;
 import com.englishvocab.service.DictionaryService;
+import com.englishvocab.service.VocabImportService;
 import com.englishvocab.service.VocabularyService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -15,8 +17,11 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @Controller
@@ -28,6 +33,7 @@ public class AdminDictionaryController {
     
     private final DictionaryService dictionaryService;
     private final VocabularyService vocabularyService;
+    private final VocabImportService vocabImportService;
     
     /**
      * Trang danh sách từ điển
@@ -209,6 +215,40 @@ public class AdminDictionaryController {
         }
     }
     
+    /**
+     * Import hàng loạt từ vựng từ file CSV/JSONL
+     */
+    @PostMapping("/{id}/import")
+    public String importVocabulary(@PathVariable Integer id,
+                                   @RequestParam("file") MultipartFile file,
+                                   @RequestParam(required = false) String format,
+                                   RedirectAttributes redirectAttributes) {
+        if (file.isEmpty()) {
+            redirectAttributes.addFlashAttribute("errorMessage", "Vui lòng chọn file để import");
+            return "redirect:/admin/dictionaries/" + id;
+        }
+
+        try (InputStream input = file.getInputStream()) {
+            VocabImportService.ImportFormat importFormat =
+                VocabImportService.ImportFormat.resolve(format, file.getOriginalFilename());
+            VocabImportResult result = vocabImportService.importVocabulary(id, input, importFormat);
+
+            redirectAttributes.addFlashAttribute("successMessage", String.format(
+                "Đã import %d từ mới (%d trùng, %d lỗi) từ %d dòng trong %d ms (%d dòng/giây)",
+                result.getImported(), result.getDuplicates(), result.getInvalid(),
+                result.getTotalRows(), result.getElapsedMs(), result.getRowsPerSecond()));
+            if (!result.getErrors().isEmpty()) {
+                redirectAttributes.addFlashAttribute("errorMessage", String.join("; ", result.getErrors()));
+            }
+
+        } catch (IOException | RuntimeException e) {
+            log.error("Lỗi khi import từ vựng vào từ điển {}", id, e);
+            redirectAttributes.addFlashAttribute("errorMessage", "Import thất bại: " + e.getMessage());
+        }
+
+        return "redirect:/admin/dictionaries/" + id;
+    }
+    
     /**
      * Xóa từ điển
      */
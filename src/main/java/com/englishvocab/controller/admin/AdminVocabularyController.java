@@ -55,22 +55,16 @@ public class AdminVocabularyController {
             
             Page<Vocab> vocabularies;
             if (search != null && !search.trim().isEmpty()) {
-                // Search mode
-                List<Vocab> searchResults;
-                if (dictionaryId != null) {
-                    searchResults = vocabularyService.searchByWordInDictionary(dictionaryId, search.trim());
-                } else {
-                    searchResults = vocabularyService.searchByWord(search.trim());
-                }
-                model.addAttribute("vocabularies", searchResults);
+                // Search mode (ranked, paginated)
+                vocabularies = vocabularyService.search(search.trim(), dictionaryId, pageable);
                 model.addAttribute("isSearch", true);
                 model.addAttribute("searchKeyword", search.trim());
             } else {
                 // Normal pagination mode
                 vocabularies = vocabularyService.findAllWithFilter(dictionaryId, levelFilter, pageable);
-                model.addAttribute("vocabularies", vocabularies);
                 model.addAttribute("isSearch", false);
             }
+            model.addAttribute("vocabularies", vocabularies);
             
             // Statistics
             VocabularyService.VocabStats stats = vocabularyService.getStatistics();
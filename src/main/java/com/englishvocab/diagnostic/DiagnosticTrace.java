@@ -0,0 +1,114 @@
+package com.englishvocab.diagnostic;
+
+import org.slf4j.Logger;
+import org.slf4j.helpers.MessageFormatter;
+
+/**
+ * Bộ đệm vòng chứa chi tiết chẩn đoán của request hiện tại.
+ *
+ * {@link #record} chỉ lưu template và tham số (không format chuỗi); khi đầy, sự kiện
+ * cũ nhất bị ghi đè. Nội dung chỉ được format và ghi log khi request lỗi hoặc được
+ * lấy mẫu (xem {@link DiagnosticTraceFilter}). Ngoài một request đang được trace
+ * (job nền, thread pool) {@link #record} không làm gì.
+ *
+ * Tham số được giữ theo tham chiếu, nên đối tượng bị sửa sau đó sẽ hiện giá trị mới.
+ */
+public final class DiagnosticTrace {
+
+    private static final ThreadLocal<DiagnosticTrace> CURRENT = new ThreadLocal<>();
+
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private final long startedAt = System.nanoTime();
+    private final long[] times;
+    private final String[] templates;
+    private final Object[][] args;
+    private long recorded;
+    private boolean failed;
+
+    private DiagnosticTrace(int capacity) {
+        this.times = new long[capacity];
+        this.templates = new String[capacity];
+        this.args = new Object[capacity][];
+    }
+
+    /**
+     * Ghi một sự kiện vào trace của request hiện tại (nếu có)
+     */
+    public static void record(String template, Object... arguments) {
+        DiagnosticTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.add(template, arguments);
+        }
+    }
+
+    /**
+     * Đánh dấu request hiện tại là lỗi dù response không có status lỗi
+     * (ví dụ controller bắt exception rồi redirect)
+     */
+    public static void markFailed() {
+        DiagnosticTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.failed = true;
+        }
+    }
+
+    static DiagnosticTrace begin(int capacity) {
+        DiagnosticTrace trace = new DiagnosticTrace(Math.max(1, capacity));
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * Tổng số sự kiện đã ghi (kể cả sự kiện bị ghi đè)
+     */
+    long recorded() {
+        return recorded;
+    }
+
+    /**
+     * Số sự kiện bị ghi đè vì bộ đệm đầy
+     */
+    long overwritten() {
+        return Math.max(0, recorded - templates.length);
+    }
+
+    /**
+     * Format và ghi các sự kiện còn trong bộ đệm, cũ nhất trước
+     */
+    void dump(Logger log, boolean failed, String header) {
+        int retained = (int) Math.min(recorded, templates.length);
+        int first = (int) ((recorded - retained) % templates.length);
+        StringBuilder out = new StringBuilder(header);
+        if (overwritten() > 0) {
+            out.append(" (").append(overwritten()).append(" earlier events overwritten)");
+        }
+        for (int i = 0; i < retained; i++) {
+            int index = (first + i) % templates.length;
+            out.append(System.lineSeparator())
+                .append(String.format("  +%.1fms ", (times[index] - startedAt) / 1_000_000.0))
+                .append(MessageFormatter.arrayFormat(templates[index], args[index]).getMessage());
+        }
+        if (failed) {
+            log.warn(out.toString());
+        } else {
+            log.info(out.toString());
+        }
+    }
+
+    private void add(String template, Object[] arguments) {
+        int index = (int) (recorded % templates.length);
+        times[index] = System.nanoTime();
+        templates[index] = template;
+        args[index] = arguments != null ? arguments : NO_ARGS;
+        recorded++;
+    }
+}
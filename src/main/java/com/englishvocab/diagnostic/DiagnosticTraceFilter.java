@@ -0,0 +1,75 @@
+package com.englishvocab.diagnostic;
+
+import com.englishvocab.config.properties.DiagnosticTraceProperties;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mở một {@link DiagnosticTrace} cho mỗi request được trace.
+ *
+ * Request lỗi (ném exception, trả status >= 400 hoặc gọi {@link DiagnosticTrace#markFailed()})
+ * được ghi log WARN kèm toàn bộ trace, request được lấy mẫu theo {@code sample-rate} được ghi
+ * INFO; các request còn lại bỏ trace mà không format gì. Số sự kiện bị bỏ được cộng dồn và báo trong lần ghi log tiếp theo.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DiagnosticTraceFilter extends OncePerRequestFilter {
+
+    private final DiagnosticTraceProperties properties;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    // Sự kiện đã ghi nhưng không được log kể từ lần log trace gần nhất
+    private final AtomicLong suppressed = new AtomicLong();
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!properties.isEnabled()) {
+            return true;
+        }
+        String path = request.getServletPath();
+        return properties.getPaths().stream().noneMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        DiagnosticTrace trace = DiagnosticTrace.begin(properties.getCapacity());
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = response.getStatus() >= 400 || trace.isFailed();
+        } finally {
+            DiagnosticTrace.end();
+            complete(trace, request, response, failed);
+        }
+    }
+
+    private void complete(DiagnosticTrace trace, HttpServletRequest request,
+                          HttpServletResponse response, boolean failed) {
+        if (trace.recorded() == 0) {
+            return;
+        }
+        boolean sampled = !failed && properties.getSampleRate() > 0
+            && ThreadLocalRandom.current().nextDouble() < properties.getSampleRate();
+        if (!failed && !sampled) {
+            suppressed.addAndGet(trace.recorded());
+            return;
+        }
+        String header = String.format("%s trace for %s %s (status %d, %d events; %d events suppressed since last trace)",
+            failed ? "Failed request" : "Sampled request", request.getMethod(), request.getRequestURI(),
+            response.getStatus(), trace.recorded(), suppressed.getAndSet(0));
+        trace.dump(log, failed, header);
+    }
+}
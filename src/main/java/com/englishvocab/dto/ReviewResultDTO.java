@@ -1,5 +1,6 @@
 package com.englishvocab.dto;
 
+import com.englishvocab.entity.ReviewAttemptSummary;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -19,6 +20,16 @@ public class ReviewResultDTO {
     private List<String> needReviewWords;
     private Duration duration;
     
+    public static ReviewResultDTO from(ReviewAttemptSummary summary) {
+        return ReviewResultDTO.builder()
+            .totalCorrect(summary.getTotalCorrect())
+            .totalQuestions(summary.getTotalQuestions())
+            .masteredWords(summary.getMasteredWordList())
+            .needReviewWords(summary.getNeedReviewWordList())
+            .duration(summary.getDurationSec() != null ? Duration.ofSeconds(summary.getDurationSec()) : null)
+            .build();
+    }
+    
     public double getPercentageScore() {
         if (totalQuestions == 0) return 0.0;
         return (totalCorrect * 100.0) / totalQuestions;
@@ -13,5 +13,6 @@ public class ReviewStatsDTO {
     private long overdueCount;
     private long todayCount;
     private long difficultCount;
+    private long dueSoonCount; // Đến hạn trong 1 giờ tới
     private long totalReviewCount;
 }
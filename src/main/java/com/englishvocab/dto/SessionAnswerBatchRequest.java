@@ -0,0 +1,34 @@
+package com.englishvocab.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO cho request ghi nhận nhiều câu trả lời flashcard một lần.
+ * Mỗi câu trả lời mang số thứ tự tăng dần do client đánh; câu có số thứ tự
+ * không lớn hơn số đã ghi nhận của session bị bỏ qua (client gửi lại khi retry).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SessionAnswerBatchRequest {
+    
+    private String sessionId; // UUID
+    private List<SequencedAnswer> answers; // Theo thứ tự trả lời
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class SequencedAnswer {
+        private Long seq; // Số thứ tự của câu trả lời trong session (client đánh, tăng dần)
+        private Integer vocabId;
+        private String answerType; // "CORRECT", "WRONG", "SKIP"
+        private Integer timeSpent; // Thời gian trả lời từ này (giây)
+    }
+}
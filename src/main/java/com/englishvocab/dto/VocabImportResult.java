@@ -0,0 +1,45 @@
+package com.englishvocab.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Kết quả import hàng loạt từ vựng vào một từ điển
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VocabImportResult {
+
+    private Integer dictionaryId;
+
+    /**
+     * Thống kê
+     */
+    private long totalRows;        // Số dòng dữ liệu đã đọc
+    private long imported;         // Số từ đã thêm
+    private long duplicates;       // Số từ bị bỏ qua do đã tồn tại (trong DB hoặc trong file)
+    private long invalid;          // Số dòng lỗi
+    private long topicLinks;       // Số liên kết vocab-topic đã thêm
+    private long elapsedMs;
+
+    private Set<String> unknownTopics;  // Topic không tồn tại (bị bỏ qua)
+    private List<String> errors;        // Một số lỗi đầu tiên, dạng "Dòng N: ..."
+
+    /**
+     * Throughput tính theo số dòng đọc được mỗi giây
+     */
+    public long getRowsPerSecond() {
+        return elapsedMs > 0 ? totalRows * 1000 / elapsedMs : totalRows;
+    }
+
+    public boolean hasErrors() {
+        return invalid > 0;
+    }
+}
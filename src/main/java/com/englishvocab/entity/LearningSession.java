@@ -21,7 +21,11 @@ import java.util.UUID;
  * Mỗi session là một lượt học từ vựng với danh sách từ cụ thể
  */
 @Entity
-@Table(name = "learning_sessions")
+@Table(name = "learning_sessions", indexes = {
+    @Index(name = "idx_ls_user_started", columnList = "user_id, started_at"),
+    @Index(name = "idx_ls_status_completed", columnList = "status, completed_at"),
+    @Index(name = "idx_ls_status_expires", columnList = "status, expires_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -93,6 +97,12 @@ public class LearningSession {
     @Column(name = "expires_at")
     LocalDateTime expiresAt; // Session timeout
     
+    @Column(name = "last_answer_seq")
+    Long lastAnswerSeq; // Số thứ tự (client đánh) của câu trả lời cuối đã ghi nhận; câu gửi lại có số nhỏ hơn bị bỏ qua
+    
+    @Column(name = "progress_pending")
+    Boolean progressPending; // true khi kết quả session chưa được ghi vào user_vocab_progress (write-behind)
+    
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     LocalDateTime createdAt;
@@ -0,0 +1,77 @@
+package com.englishvocab.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Kết quả của một lượt ôn tập, được tính một lần khi nộp bài và không bao giờ sửa.
+ * Danh sách từ lưu dạng text, mỗi từ một dòng.
+ */
+@Entity
+@Immutable
+@Table(name = "review_attempt_summaries", indexes = {
+    @Index(name = "idx_ras_user_submitted", columnList = "user_id, submitted_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = lombok.AccessLevel.PRIVATE)
+public class ReviewAttemptSummary {
+
+    private static final String WORD_SEPARATOR = "\n";
+
+    @Id
+    @Column(name = "review_attempt_id")
+    Integer reviewAttemptId;
+
+    @Column(name = "user_id", nullable = false)
+    String userId;
+
+    @Column(name = "total_correct", nullable = false)
+    Integer totalCorrect;
+
+    @Column(name = "total_questions", nullable = false)
+    Integer totalQuestions;
+
+    @Column(name = "mastered_words", columnDefinition = "TEXT")
+    String masteredWords;
+
+    @Column(name = "need_review_words", columnDefinition = "TEXT")
+    String needReviewWords;
+
+    @Column(name = "duration_sec")
+    Integer durationSec;
+
+    @Column(name = "submitted_at", nullable = false)
+    LocalDateTime submittedAt;
+
+    /**
+     * Convenience methods
+     */
+    public static String joinWords(List<String> words) {
+        return String.join(WORD_SEPARATOR, words);
+    }
+
+    public List<String> getMasteredWordList() {
+        return splitWords(masteredWords);
+    }
+
+    public List<String> getNeedReviewWordList() {
+        return splitWords(needReviewWords);
+    }
+
+    private static List<String> splitWords(String words) {
+        if (words == null || words.isEmpty()) return List.of();
+        return Arrays.asList(words.split(WORD_SEPARATOR));
+    }
+}
@@ -24,10 +24,19 @@ public class ReviewItemResults {
     @Column(name = "review_item_result_id")
     Integer reviewItemResultId;
     
+    // Null khi bộ câu hỏi không được lưu DB (app.review.questions.mode=EPHEMERAL)
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "review_item_id", nullable = false)
+    @JoinColumn(name = "review_item_id")
     ReviewItems reviewItem;
     
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "vocab_id")
+    Vocab vocab;
+    
+    @Column(name = "question_type", length = 50)
+    @Enumerated(EnumType.STRING)
+    ReviewItems.Type questionType;
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "review_attempt_id", nullable = false)
     ReviewAttempts reviewAttempt;
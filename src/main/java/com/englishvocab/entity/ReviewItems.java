@@ -20,8 +20,10 @@ import java.util.List;
 @FieldDefaults(level = lombok.AccessLevel.PRIVATE)
 public class ReviewItems {
     
+    // Sequence (pooled) thay vì IDENTITY để Hibernate có thể batch insert 15 câu hỏi mỗi review
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "review_items_seq")
+    @SequenceGenerator(name = "review_items_seq", sequenceName = "review_items_seq", allocationSize = 50)
     @Column(name = "review_item_id")
     Integer reviewItemId;
     
@@ -12,7 +12,12 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "user_vocab_progress")
+@Table(name = "user_vocab_progress", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_uvp_user_vocab", columnNames = {"user_id", "vocab_id"})
+}, indexes = {
+    @Index(name = "idx_uvp_user_next_review", columnList = "user_id, next_review_at"),
+    @Index(name = "idx_uvp_user_box", columnList = "user_id, box")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -62,6 +67,14 @@ public class UserVocabProgress {
     @Builder.Default
     Integer wrongCount = 0;
     
+    @Column(name = "ease_factor", nullable = false, columnDefinition = "double precision default 2.5")
+    @Builder.Default
+    Double easeFactor = 2.5; // SM-2 ease factor (>= 1.3)
+    
+    @Column(name = "interval_days", nullable = false, columnDefinition = "integer default 0")
+    @Builder.Default
+    Integer intervalDays = 0; // Khoảng cách (ngày) tới lần review tiếp theo
+    
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     LocalDateTime createdAt;
@@ -78,58 +91,6 @@ public class UserVocabProgress {
         DIFFICULT   // Khó nhớ
     }
     
-    /**
-     * Simple Leitner Algorithm Methods
-     */
-    public void markCorrect() {
-        this.streak++;
-        this.lastReviewed = LocalDateTime.now();
-        
-        // Move to higher box (max 5)
-        if (this.box < 5) {
-            this.box++;
-        }
-        
-        // Calculate next review date based on box
-        this.nextReviewAt = calculateNextReviewDate();
-        
-        // Update status
-        if (this.box >= 4) {
-            this.status = Status.MASTERED;
-        } else {
-            this.status = Status.REVIEWING;
-        }
-    }
-    
-    public void markIncorrect() {
-        this.streak = 0;
-        this.wrongCount++;
-        this.lastReviewed = LocalDateTime.now();
-        
-        // Move back to box 1 (daily review)
-        this.box = 1;
-        this.nextReviewAt = LocalDateTime.now().plusDays(1);
-        
-        // Update status
-        if (this.wrongCount >= 3) {
-            this.status = Status.DIFFICULT;
-        } else {
-            this.status = Status.LEARNING;
-        }
-    }
-    
-    public LocalDateTime calculateNextReviewDate() {
-        LocalDateTime now = LocalDateTime.now();
-        return switch (this.box) {
-            case 1 -> now.plusDays(1);      // Box 1: Daily
-            case 2 -> now.plusDays(3);      // Box 2: Every 3 days
-            case 3 -> now.plusDays(7);      // Box 3: Weekly
-            case 4 -> now.plusDays(14);     // Box 4: Bi-weekly
-            case 5 -> now.plusDays(30);     // Box 5: Monthly
-            default -> now.plusDays(1);
-        };
-    }
-    
     public boolean isDueForReview() {
         return nextReviewAt != null && LocalDateTime.now().isAfter(nextReviewAt);
     }
@@ -11,13 +11,16 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "vocab")
+@Table(name = "vocab", indexes = {
+    @Index(name = "idx_vocab_dictionary_id", columnList = "dictionary_id, vocab_id")
+})
 @Data
 @ToString(exclude = {"dictionary", "senses", "vocabTopics", "userProgress", "listVocabs"})
 @NoArgsConstructor
@@ -62,6 +65,7 @@ public class Vocab {
     
     // Relationships
     @OneToMany(mappedBy = "vocab", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @BatchSize(size = 100) // Trang danh sách đọc senses của mọi dòng: nạp theo lô thay vì N+1
     List<Senses> senses;
     
     @OneToMany(mappedBy = "vocab", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
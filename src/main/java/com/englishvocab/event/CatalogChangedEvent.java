@@ -0,0 +1,24 @@
+package com.englishvocab.event;
+
+/**
+ * Sự kiện phát ra khi admin thay đổi từ điển hoặc chủ đề.
+ * Thay đổi của từ vựng dùng {@link VocabChangedEvent}.
+ *
+ * @param kind loại dữ liệu bị thay đổi
+ * @param id   id của từ điển/chủ đề
+ */
+public record CatalogChangedEvent(Kind kind, Integer id) {
+
+    public enum Kind {
+        DICTIONARY,
+        TOPIC
+    }
+
+    public static CatalogChangedEvent dictionary(Integer dictionaryId) {
+        return new CatalogChangedEvent(Kind.DICTIONARY, dictionaryId);
+    }
+
+    public static CatalogChangedEvent topic(Integer topicId) {
+        return new CatalogChangedEvent(Kind.TOPIC, topicId);
+    }
+}
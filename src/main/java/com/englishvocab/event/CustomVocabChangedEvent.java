@@ -0,0 +1,9 @@
+package com.englishvocab.event;
+
+/**
+ * Sự kiện phát ra khi user thêm, sửa hoặc xóa từ vựng cá nhân.
+ *
+ * @param userId user sở hữu từ vựng
+ */
+public record CustomVocabChangedEvent(String userId) {
+}
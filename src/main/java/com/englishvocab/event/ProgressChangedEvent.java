@@ -0,0 +1,26 @@
+package com.englishvocab.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Sự kiện phát ra khi lịch ôn tập (next_review_at) của user_vocab_progress thay đổi.
+ * Hàng đợi từ đến hạn trong bộ nhớ/Redis lắng nghe sự kiện này để cập nhật.
+ *
+ * @param userId       user sở hữu progress (null = toàn bộ progress được lên lịch lại)
+ * @param vocabId      từ vựng bị thay đổi
+ * @param nextReviewAt lịch ôn mới (null = không còn lịch ôn)
+ */
+public record ProgressChangedEvent(String userId, Integer vocabId, LocalDateTime nextReviewAt) {
+
+    public static ProgressChangedEvent scheduled(String userId, Integer vocabId, LocalDateTime nextReviewAt) {
+        return new ProgressChangedEvent(userId, vocabId, nextReviewAt);
+    }
+
+    public static ProgressChangedEvent allRescheduled() {
+        return new ProgressChangedEvent(null, null, null);
+    }
+
+    public boolean isBulk() {
+        return userId == null;
+    }
+}
@@ -0,0 +1,10 @@
+package com.englishvocab.event;
+
+/**
+ * Sự kiện phát ra khi kết quả một lượt ôn tập được tính (user đã nộp bài).
+ *
+ * @param userId    user làm bài
+ * @param attemptId lượt làm bài
+ */
+public record ReviewCompletedEvent(String userId, Integer attemptId) {
+}
@@ -0,0 +1,30 @@
+package com.englishvocab.event;
+
+/**
+ * Sự kiện phát ra khi dữ liệu từ vựng (vocab, senses) thay đổi.
+ * Các cache/index trong bộ nhớ lắng nghe sự kiện này để làm mới dữ liệu.
+ *
+ * @param type         loại thay đổi
+ * @param dictionaryId từ điển chứa từ vựng (có thể null)
+ * @param vocabId      từ vựng bị thay đổi (null với thay đổi hàng loạt)
+ */
+public record VocabChangedEvent(Type type, Integer dictionaryId, Integer vocabId) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    public static VocabChangedEvent created(Integer dictionaryId, Integer vocabId) {
+        return new VocabChangedEvent(Type.CREATED, dictionaryId, vocabId);
+    }
+
+    public static VocabChangedEvent updated(Integer dictionaryId, Integer vocabId) {
+        return new VocabChangedEvent(Type.UPDATED, dictionaryId, vocabId);
+    }
+
+    public static VocabChangedEvent deleted(Integer dictionaryId, Integer vocabId) {
+        return new VocabChangedEvent(Type.DELETED, dictionaryId, vocabId);
+    }
+}
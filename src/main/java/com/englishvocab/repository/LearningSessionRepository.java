@@ -2,12 +2,18 @@ package com.englishvocab.repository;
 
 import com.englishvocab.entity.LearningSession;
 import com.englishvocab.entity.User;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,6 +25,13 @@ public interface LearningSessionRepository extends JpaRepository<LearningSession
      */
     Optional<LearningSession> findBySessionUuid(String sessionUuid);
     
+    /**
+     * Tìm session theo UUID và khóa hàng (SELECT ... FOR UPDATE) tới hết transaction
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT ls FROM LearningSession ls WHERE ls.sessionUuid = :sessionUuid")
+    Optional<LearningSession> findBySessionUuidForUpdate(@Param("sessionUuid") String sessionUuid);
+    
     /**
      * Tìm session theo UUID và user (security check)
      */
@@ -57,11 +70,36 @@ public interface LearningSessionRepository extends JpaRepository<LearningSession
     List<LearningSession> findExpiredSessions(@Param("now") LocalDateTime now);
     
     /**
-     * Thống kê session của user
+     * Lịch sử session của user (phân trang, dùng index user_id + started_at)
+     */
+    Page<LearningSession> findByUserOrderByStartedAtDesc(User user, Pageable pageable);
+    
+    /**
+     * Thống kê session của user (một query aggregate)
      */
-    @Query("SELECT COUNT(s), SUM(s.correctCount), SUM(s.wrongCount), SUM(s.timeSpentSec) " +
-           "FROM LearningSession s WHERE s.user = :user AND s.status = 'COMPLETED'")
-    Object[] getSessionStatistics(@Param("user") User user);
+    @Query("SELECT COUNT(s) AS totalSessions, " +
+           "COALESCE(SUM(CASE WHEN s.status = 'COMPLETED' THEN 1 ELSE 0 END), 0) AS completedSessions, " +
+           "COALESCE(SUM(s.targetWords), 0) AS totalVocabularies, " +
+           "COALESCE(SUM(s.correctCount), 0) AS totalCorrect, " +
+           "COALESCE(SUM(s.wrongCount), 0) AS totalWrong, " +
+           "COALESCE(SUM(s.timeSpentSec), 0) AS totalTimeSpentSec " +
+           "FROM LearningSession s WHERE s.user = :user")
+    SessionStatistics getSessionStatistics(@Param("user") User user);
+    
+    /**
+     * Id các session COMPLETED trước mốc thời gian (theo chunk) để dọn dẹp.
+     * Bỏ qua session còn progress chưa ghi.
+     */
+    @Query("SELECT s.sessionId FROM LearningSession s WHERE s.status = 'COMPLETED' AND s.completedAt < :cutoff " +
+           "AND (s.progressPending IS NULL OR s.progressPending = false) ORDER BY s.sessionId")
+    List<Long> findCompletedSessionIdsBefore(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+    
+    /**
+     * Xóa hàng loạt session theo id (session_vocabularies phải được xóa trước)
+     */
+    @Modifying
+    @Query("DELETE FROM LearningSession s WHERE s.sessionId IN :sessionIds")
+    int deleteBySessionIds(@Param("sessionIds") Collection<Long> sessionIds);
     
     /**
      * Lấy session gần đây của user
@@ -74,4 +112,29 @@ public interface LearningSessionRepository extends JpaRepository<LearningSession
     @Query("SELECT CASE WHEN COUNT(s) > 0 THEN true ELSE false END " +
            "FROM LearningSession s WHERE s.user = :user AND s.status = 'ACTIVE'")
     boolean hasActiveSession(@Param("user") User user);
+    
+    /**
+     * Session đã hoàn thành nhưng progress chưa được ghi (dùng để replay khi khởi động)
+     */
+    @Query("SELECT s.sessionId FROM LearningSession s WHERE s.progressPending = true")
+    List<Long> findProgressPendingSessionIds();
+    
+    /**
+     * Đánh dấu progress của các session đã được ghi
+     */
+    @Modifying
+    @Query("UPDATE LearningSession s SET s.progressPending = false WHERE s.sessionId IN :sessionIds")
+    int markProgressApplied(@Param("sessionIds") Collection<Long> sessionIds);
+    
+    /**
+     * Kết quả aggregate của getSessionStatistics
+     */
+    interface SessionStatistics {
+        long getTotalSessions();
+        long getCompletedSessions();
+        long getTotalVocabularies();
+        long getTotalCorrect();
+        long getTotalWrong();
+        long getTotalTimeSpentSec();
+    }
 }
@@ -0,0 +1,31 @@
+package com.englishvocab.repository;
+
+import com.englishvocab.entity.ReviewAttemptSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ReviewAttemptSummaryRepository extends JpaRepository<ReviewAttemptSummary, Integer> {
+
+    /**
+     * Find the latest submitted attempt summary of a user (idx_ras_user_submitted)
+     */
+    Optional<ReviewAttemptSummary> findFirstByUserIdOrderBySubmittedAtDesc(String userId);
+
+    /**
+     * Insert the summary unless the attempt already has one (concurrent submit).
+     * Returns 1 if this call wrote it, 0 if another request got there first.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO review_attempt_summaries (review_attempt_id, user_id, total_correct, " +
+           "total_questions, mastered_words, need_review_words, duration_sec, submitted_at) " +
+           "VALUES (:#{#s.reviewAttemptId}, :#{#s.userId}, :#{#s.totalCorrect}, :#{#s.totalQuestions}, " +
+           ":#{#s.masteredWords}, :#{#s.needReviewWords}, :#{#s.durationSec}, :#{#s.submittedAt}) " +
+           "ON CONFLICT (review_attempt_id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("s") ReviewAttemptSummary summary);
+}
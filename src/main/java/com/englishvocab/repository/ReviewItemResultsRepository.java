@@ -23,6 +23,15 @@ public interface ReviewItemResultsRepository extends JpaRepository<ReviewItemRes
      */
     List<ReviewItemResults> findByReviewAttemptReviewAttemptId(Integer reviewAttemptId);
     
+    /**
+     * Answered words of an attempt in answer order, as [isCorrect, word] rows.
+     * One query instead of walking result -> item -> vocab lazily.
+     */
+    @Query("SELECT rir.isCorrect, COALESCE(v.word, iv.word, cv.name) FROM ReviewItemResults rir " +
+           "LEFT JOIN rir.vocab v LEFT JOIN rir.reviewItem ri LEFT JOIN ri.vocab iv LEFT JOIN ri.customVocab cv " +
+           "WHERE rir.reviewAttempt.reviewAttemptId = :attemptId ORDER BY rir.reviewItemResultId")
+    List<Object[]> findAnsweredWordsByAttemptId(@Param("attemptId") Integer attemptId);
+    
     /**
      * Find results by review item
      */
@@ -70,6 +70,28 @@ public interface ReviewItemsRepository extends JpaRepository<ReviewItems, Intege
     @Query("SELECT ri FROM ReviewItems ri WHERE ri.review = :review AND ri.sessionOrder = :sessionOrder")
     java.util.Optional<ReviewItems> findByReviewAndSessionOrder(@Param("review") Reviews review, @Param("sessionOrder") Integer sessionOrder);
     
+    /**
+     * Ngữ cảnh xử lý một câu trả lời trong 1 query: item (kèm vocab + senses)
+     * và user_id của attempt; item phải thuộc review của attempt. Mỗi phần tử: [ReviewItems, String userId]
+     */
+    @Query("SELECT ri, ra.user.id FROM ReviewItems ri " +
+           "LEFT JOIN FETCH ri.vocab v " +
+           "LEFT JOIN FETCH v.senses " +
+           "JOIN ReviewAttempts ra ON ra.reviewAttemptId = :attemptId AND ri.review = ra.review " +
+           "WHERE ri.reviewItemId = :itemId")
+    List<Object[]> findAnswerContext(@Param("attemptId") Integer attemptId, @Param("itemId") Integer itemId);
+    
+    /**
+     * Như findAnswerContext nhưng tìm item theo sessionOrder trong review của attempt
+     */
+    @Query("SELECT ri, ra.user.id FROM ReviewItems ri " +
+           "LEFT JOIN FETCH ri.vocab v " +
+           "LEFT JOIN FETCH v.senses " +
+           "JOIN ReviewAttempts ra ON ra.reviewAttemptId = :attemptId AND ri.review = ra.review " +
+           "WHERE ri.sessionOrder = :sessionOrder")
+    List<Object[]> findAnswerContextBySessionOrder(@Param("attemptId") Integer attemptId,
+                                                   @Param("sessionOrder") Integer sessionOrder);
+    
     /**
      * Find vocabulary review items (for review feature)
      */
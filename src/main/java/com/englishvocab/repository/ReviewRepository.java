@@ -51,6 +51,13 @@ public interface ReviewRepository extends JpaRepository<Reviews, Integer> {
      */
     long countByReviewType(Reviews.ReviewType reviewType);
     
+    /**
+     * Id các review theo status tạo trước một thời điểm (dọn review pre-generate không dùng tới)
+     */
+    @Query("SELECT r.reviewId FROM Reviews r WHERE r.status = :status AND r.createdAt < :before")
+    List<Integer> findIdsByStatusAndCreatedAtBefore(@Param("status") Reviews.Status status,
+                                                    @Param("before") LocalDateTime before);
+    
     /**
      * Find reviews by title containing
      */
@@ -4,10 +4,12 @@ import com.englishvocab.entity.LearningSession;
 import com.englishvocab.entity.SessionVocabulary;
 import com.englishvocab.entity.Vocab;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -59,8 +61,29 @@ public interface SessionVocabularyRepository extends JpaRepository<SessionVocabu
     @Query("SELECT sv FROM SessionVocabulary sv WHERE sv.session = :session AND sv.userAnswer = 'CORRECT' ORDER BY sv.orderIndex ASC")
     List<SessionVocabulary> findCorrectAnswersInSession(@Param("session") LearningSession session);
     
+    /**
+     * Câu trả lời của các session theo thứ tự trả lời: [sessionId, userId, vocabId, userAnswer]
+     */
+    @Query("SELECT sv.session.sessionId, sv.session.user.id, sv.vocab.vocabId, sv.userAnswer " +
+           "FROM SessionVocabulary sv WHERE sv.session.sessionId IN :sessionIds AND sv.userAnswer IS NOT NULL " +
+           "ORDER BY sv.session.sessionId, sv.answeredAt, sv.orderIndex")
+    List<Object[]> findAnswersBySessionIds(@Param("sessionIds") Collection<Long> sessionIds);
+    
+    /**
+     * Từ của một session: [vocabId, sessionVocabId]
+     */
+    @Query("SELECT sv.vocab.vocabId, sv.sessionVocabId FROM SessionVocabulary sv WHERE sv.session.sessionId = :sessionId")
+    List<Object[]> findVocabIdsBySessionId(@Param("sessionId") Long sessionId);
+    
     /**
      * Xóa tất cả vocabulary của session
      */
     void deleteBySession(LearningSession session);
+    
+    /**
+     * Xóa hàng loạt vocabulary của nhiều session (một câu DELETE)
+     */
+    @Modifying
+    @Query("DELETE FROM SessionVocabulary sv WHERE sv.session.sessionId IN :sessionIds")
+    int deleteBySessionIds(@Param("sessionIds") Collection<Long> sessionIds);
 }
@@ -4,12 +4,14 @@ import com.englishvocab.entity.Dictionary;
 import com.englishvocab.entity.User;
 import com.englishvocab.entity.UserVocabProgress;
 import com.englishvocab.entity.Vocab;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -58,6 +60,67 @@ public interface UserVocabProgressRepository extends JpaRepository<UserVocabProg
     @Query("SELECT COUNT(uvp) FROM UserVocabProgress uvp WHERE uvp.user = :user AND uvp.nextReviewAt <= :now")
     long countDueForReview(@Param("user") User user, @Param("now") LocalDateTime now);
 
+    /**
+     * Đếm từ quá hạn ôn tập (nextReviewAt < now)
+     */
+    @Query("SELECT COUNT(uvp) FROM UserVocabProgress uvp WHERE uvp.user = :user AND uvp.nextReviewAt < :now")
+    long countOverdue(@Param("user") User user, @Param("now") LocalDateTime now);
+
+    /**
+     * Đếm từ có lịch ôn trong khoảng [from, to)
+     */
+    @Query("SELECT COUNT(uvp) FROM UserVocabProgress uvp WHERE uvp.user = :user " +
+           "AND uvp.nextReviewAt >= :from AND uvp.nextReviewAt < :to")
+    long countScheduledBetween(@Param("user") User user,
+                               @Param("from") LocalDateTime from,
+                               @Param("to") LocalDateTime to);
+
+    /**
+     * Top-N progress id cần ôn gấp nhất (quá hạn, đến hạn hôm nay hoặc box 1).
+     * Điểm ưu tiên tính trong DB:
+     * overdueDays * 10 + wrongCount * 5 + (6 - box) * 2 + daysSinceLastReview
+     */
+    @Query(value = "SELECT uvp.vocab_progress_id FROM user_vocab_progress uvp " +
+           "WHERE uvp.user_id = :userId " +
+           "AND (uvp.next_review_at < :tomorrow OR uvp.box = 1) " +
+           "ORDER BY (CASE WHEN uvp.next_review_at < :now " +
+           "          THEN FLOOR(EXTRACT(EPOCH FROM (CAST(:now AS timestamp) - uvp.next_review_at)) / 86400) * 10 " +
+           "          ELSE 0 END) " +
+           "  + uvp.wrong_count * 5 + (6 - uvp.box) * 2 " +
+           "  + COALESCE(FLOOR(EXTRACT(EPOCH FROM (CAST(:now AS timestamp) - uvp.last_reviewed)) / 86400), 0) DESC, " +
+           "  uvp.vocab_progress_id " +
+           "LIMIT :limit", nativeQuery = true)
+    List<Integer> findUrgentReviewIds(@Param("userId") String userId,
+                                      @Param("now") LocalDateTime now,
+                                      @Param("tomorrow") LocalDateTime tomorrow,
+                                      @Param("limit") int limit);
+
+    /**
+     * Load progress theo danh sách id, kèm vocab và senses (tránh N+1 khi render/tạo câu hỏi)
+     */
+    @Query("SELECT uvp FROM UserVocabProgress uvp " +
+           "JOIN FETCH uvp.vocab v " +
+           "LEFT JOIN FETCH v.senses " +
+           "WHERE uvp.vocabProgressId IN :ids")
+    List<UserVocabProgress> findWithVocabByIdIn(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Id progress của từ đã học gần đây (box 2-4), mới ôn nhất trước.
+     * Chỉ lấy id để LIMIT chạy trong DB; vocab và senses được nạp bằng {@link #findWithVocabByIdIn}.
+     */
+    @Query("SELECT uvp.vocabProgressId FROM UserVocabProgress uvp " +
+           "WHERE uvp.user = :user AND uvp.box BETWEEN 2 AND 4 " +
+           "ORDER BY uvp.lastReviewed DESC NULLS LAST, uvp.vocabProgressId")
+    List<Integer> findRecentLearnedIds(@Param("user") User user, Pageable pageable);
+
+    /**
+     * Lịch ôn hiện tại của user cho nhiều vocab: [vocabId, nextReviewAt]
+     */
+    @Query("SELECT uvp.vocab.vocabId, uvp.nextReviewAt " +
+           "FROM UserVocabProgress uvp WHERE uvp.user.id = :userId AND uvp.vocab.vocabId IN :vocabIds")
+    List<Object[]> findNextReviewAtByUserIdAndVocabIds(@Param("userId") String userId,
+                                                       @Param("vocabIds") Collection<Integer> vocabIds);
+
     /**
      * Đếm từ đã học của user trong 1 cuốn từ điển
      */
@@ -69,6 +132,27 @@ public interface UserVocabProgressRepository extends JpaRepository<UserVocabProg
     @Query("SELECT COUNT(uvp) FROM UserVocabProgress uvp WHERE uvp.user = :user AND uvp.nextReviewAt <= :now AND uvp.vocab.dictionary = :dictionary")
     long countDueForReviewInDictionary(@Param("user") User user, @Param("now") LocalDateTime now, @Param("dictionary") Dictionary dictionary);
 
+    /**
+     * Progress của user cho các vocab trong một trang (một query thay vì một query mỗi dòng)
+     */
+    @Query("SELECT uvp FROM UserVocabProgress uvp WHERE uvp.user = :user AND uvp.vocab.vocabId IN :vocabIds")
+    List<UserVocabProgress> findByUserAndVocabIdIn(@Param("user") User user,
+                                                   @Param("vocabIds") Collection<Integer> vocabIds);
+
+    /**
+     * Thống kê theo chữ cái đầu trong 1 cuốn từ điển, một lần quét:
+     * [letter, vocabCount, learnedCount, dueCount]
+     */
+    @Query(value = "SELECT LOWER(SUBSTRING(v.word, 1, 1)) AS letter, COUNT(*) AS vocab_count, " +
+           "COUNT(p.vocab_id) AS learned_count, " +
+           "COUNT(p.vocab_id) FILTER (WHERE p.next_review_at <= :now) AS due_count " +
+           "FROM vocab v LEFT JOIN user_vocab_progress p ON p.vocab_id = v.vocab_id AND p.user_id = :userId " +
+           "WHERE v.dictionary_id = :dictionaryId " +
+           "GROUP BY LOWER(SUBSTRING(v.word, 1, 1))", nativeQuery = true)
+    List<Object[]> getLetterProgressInDictionary(@Param("userId") String userId,
+                                                 @Param("dictionaryId") Integer dictionaryId,
+                                                 @Param("now") LocalDateTime now);
+
     /**
      * Tìm từ khó nhớ (wrong count cao)
      */
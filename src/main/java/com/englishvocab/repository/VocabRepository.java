@@ -9,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,10 +27,22 @@ public interface VocabRepository extends JpaRepository<Vocab, Integer> {
     Page<Vocab> findByDictionary(Dictionary dictionary, Pageable pageable);
     
     /**
-     * Get random meanings from database excluding a specific meaning
+     * Nạp vocab kèm dictionary và senses (fetch join) theo danh sách id
      */
-    @Query(value = "SELECT s.meaning_vi FROM vocab v JOIN senses s ON v.vocab_id = s.vocab_id WHERE s.meaning_vi != :excludeMeaning ORDER BY RANDOM() LIMIT :limit", nativeQuery = true)
-    List<String> findRandomMeaningsExcluding(@Param("excludeMeaning") String excludeMeaning, @Param("limit") int limit);
+    @Query("SELECT DISTINCT v FROM Vocab v JOIN FETCH v.dictionary LEFT JOIN FETCH v.senses WHERE v.vocabId IN :ids")
+    List<Vocab> findAllWithSensesByIdIn(@Param("ids") Collection<Integer> ids);
+    
+    /**
+     * Lấy (dictionaryId, level, pos, meaningVi) của toàn bộ nghĩa để dựng pool đáp án nhiễu
+     */
+    @Query("SELECT v.dictionary.dictionaryId, v.level, v.pos, s.meaningVi FROM Vocab v JOIN v.senses s")
+    List<Object[]> findMeaningsForDistractors();
+    
+    /**
+     * Lấy toàn bộ word của một từ điển (dùng để loại trùng khi import hàng loạt)
+     */
+    @Query("SELECT v.word FROM Vocab v WHERE v.dictionary.dictionaryId = :dictionaryId")
+    List<String> findWordsByDictionaryId(@Param("dictionaryId") Integer dictionaryId);
     
     /**
      * Tìm từ vựng theo dictionary, sắp xếp theo alphabet A-Z
@@ -58,11 +71,6 @@ public interface VocabRepository extends JpaRepository<Vocab, Integer> {
      */
     long countByDictionaryAndLevel(Dictionary dictionary, Vocab.Level level);
     
-    /**
-     * Đếm từ vựng theo từ điển và từ bắt đầu bằng chữ cái
-     */
-    long countByDictionaryAndWordStartingWithIgnoreCase(Dictionary dictionary, String letter);
-    
     /**
      * Tìm từ vựng theo từ điển, từ bắt đầu bằng chữ cái, và level
      */
@@ -76,29 +84,6 @@ public interface VocabRepository extends JpaRepository<Vocab, Integer> {
         @Param("level") Vocab.Level level, 
         Pageable pageable);
     
-    /**
-     * Đếm từ vựng theo từ điển, từ bắt đầu bằng chữ cái, và level
-     */
-    @Query("SELECT COUNT(v) FROM Vocab v WHERE v.dictionary = :dictionary " +
-           "AND (LOWER(SUBSTRING(v.word, 1, 1)) IN :letters) " +
-           "AND v.level = :level")
-    long countByDictionaryAndWordStartingWithAndLevel(
-        @Param("dictionary") Dictionary dictionary, 
-        @Param("letters") List<String> letters, 
-        @Param("level") Vocab.Level level);
-    
-    /**
-     * Tìm từ vựng theo word (search)
-     */
-    @Query("SELECT v FROM Vocab v WHERE LOWER(v.word) LIKE LOWER(CONCAT('%', :keyword, '%'))")
-    List<Vocab> findByWordContainingIgnoreCase(@Param("keyword") String keyword);
-    
-    /**
-     * Tìm từ vựng theo dictionary và word search
-     */
-    @Query("SELECT v FROM Vocab v WHERE v.dictionary = :dictionary AND LOWER(v.word) LIKE LOWER(CONCAT('%', :keyword, '%'))")
-    List<Vocab> findByDictionaryAndWordContainingIgnoreCase(@Param("dictionary") Dictionary dictionary, @Param("keyword") String keyword);
-    
     /**
      * Tìm từ vựng random theo dictionary (for quiz)
      */
@@ -148,12 +133,6 @@ public interface VocabRepository extends JpaRepository<Vocab, Integer> {
     @Query("SELECT v FROM Vocab v WHERE v.dictionary = :dictionary AND LOWER(v.word) LIKE LOWER(CONCAT(:startLetter, '%'))")
     Page<Vocab> findByDictionaryAndWordStartingWith(@Param("dictionary") Dictionary dictionary, @Param("startLetter") String startLetter, Pageable pageable);
     
-    /**
-     * Tìm từ vựng theo dictionary và word containing (pagination)
-     */
-    @Query("SELECT v FROM Vocab v WHERE v.dictionary = :dictionary AND LOWER(v.word) LIKE LOWER(CONCAT('%', :keyword, '%'))")
-    Page<Vocab> findByDictionaryAndWordContainingIgnoreCase(@Param("dictionary") Dictionary dictionary, @Param("keyword") String keyword, Pageable pageable);
-
     /**
      * Tìm từ vựng theo dictionary và word bắt đầu bằng tập chữ cái (pagination)
      */
@@ -162,12 +141,6 @@ public interface VocabRepository extends JpaRepository<Vocab, Integer> {
                                                       @Param("startLetters") List<String> startLetters,
                                                       Pageable pageable);
 
-    /**
-     * Đếm số lượng từ vựng theo chữ cái đầu tiên trong dictionary
-     */
-    @Query("SELECT LOWER(SUBSTRING(v.word, 1, 1)) AS prefix, COUNT(v) FROM Vocab v WHERE v.dictionary = :dictionary GROUP BY LOWER(SUBSTRING(v.word, 1, 1))")
-    List<Object[]> countByDictionaryGroupedByFirstLetter(@Param("dictionary") Dictionary dictionary);
-    
     /**
      * Tìm từ vựng theo dictionary và topics
      */
@@ -0,0 +1,105 @@
+package com.englishvocab.service;
+
+import com.englishvocab.entity.Dictionary;
+import com.englishvocab.entity.Topics;
+import com.englishvocab.entity.Vocab;
+import com.englishvocab.event.CatalogChangedEvent;
+import com.englishvocab.event.VocabChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Giữ {@link CatalogSnapshot} hiện tại trong JVM.
+ *
+ * Snapshot được nạp lười (3 query) và thay thế nguyên khối sau khi admin sửa
+ * từ vựng, từ điển hoặc chủ đề, nên người đọc luôn thấy một phiên bản nhất quán.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogCache {
+
+    private static final String DICTIONARIES_SQL = "SELECT dictionary_id, name, status FROM dictionaries";
+
+    private static final String TOPICS_SQL = "SELECT topic_id, name, status FROM topics";
+
+    // Nghĩa chính = sense có sense_id nhỏ nhất
+    private static final String VOCAB_SQL =
+        "SELECT v.vocab_id, v.dictionary_id, v.word, v.pos, v.ipa, v.level, s.meaning_vi FROM vocab v " +
+        "LEFT JOIN (SELECT DISTINCT ON (vocab_id) vocab_id, meaning_vi FROM senses ORDER BY vocab_id, sense_id) s " +
+        "ON s.vocab_id = v.vocab_id ORDER BY v.vocab_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile CatalogSnapshot snapshot;
+
+    /**
+     * Snapshot hiện tại (nạp từ DB nếu đã bị đánh dấu cũ)
+     */
+    public CatalogSnapshot get() {
+        CatalogSnapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    long loadedVersion = version.get();
+                    current = load(loadedVersion);
+                    // Không cache nếu dữ liệu đã đổi trong lúc đang nạp
+                    if (version.get() == loadedVersion) {
+                        snapshot = current;
+                    }
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Đánh dấu snapshot cũ; lần đọc tiếp theo sẽ nạp lại từ DB.
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+        snapshot = null;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onVocabChanged(VocabChangedEvent event) {
+        invalidate();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        invalidate();
+    }
+
+    private CatalogSnapshot load(long loadedVersion) {
+        long startedAt = System.currentTimeMillis();
+        CatalogSnapshot.Builder builder = CatalogSnapshot.builder();
+
+        jdbcTemplate.query(DICTIONARIES_SQL, rs -> {
+            String status = rs.getString(3);
+            builder.dictionary(rs.getInt(1), rs.getString(2), status != null ? Dictionary.Status.valueOf(status) : null);
+        });
+        jdbcTemplate.query(TOPICS_SQL, rs -> {
+            String status = rs.getString(3);
+            builder.topic(rs.getInt(1), rs.getString(2), status != null ? Topics.Status.valueOf(status) : null);
+        });
+        jdbcTemplate.query(VOCAB_SQL, rs -> {
+            String level = rs.getString(6);
+            builder.vocab(rs.getInt(1), rs.getInt(2), rs.getString(3), rs.getString(4), rs.getString(5),
+                    level != null ? Vocab.Level.valueOf(level) : null, rs.getString(7));
+        });
+
+        CatalogSnapshot loaded = builder.build(loadedVersion);
+        log.info("Loaded catalog snapshot v{}: {} vocab in {} ms",
+                loadedVersion, loaded.size(), System.currentTimeMillis() - startedAt);
+        return loaded;
+    }
+}
@@ -0,0 +1,403 @@
+package com.englishvocab.service;
+
+import com.englishvocab.entity.Dictionary;
+import com.englishvocab.entity.Topics;
+import com.englishvocab.entity.Vocab;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.IntPredicate;
+import java.util.random.RandomGenerator;
+
+/**
+ * Ảnh chụp bất biến của dữ liệu catalog (từ điển, chủ đề, từ vựng, nghĩa chính).
+ *
+ * Từ vựng được lưu theo cột trong các mảng song song, sắp theo vocab_id tăng dần
+ * (row = vị trí trong mảng). Mỗi từ điển có thứ tự theo word, khoảng row theo chữ
+ * cái đầu và số lượng theo level, nên các truy vấn phân trang chỉ duyệt mảng int mà
+ * không cần DB. Số lượng theo chữ cái/level/topic do {@link FacetCounts} phục vụ.
+ */
+public final class CatalogSnapshot {
+
+    private static final int[] EMPTY = new int[0];
+    private static final Vocab.Level[] LEVELS = Vocab.Level.values();
+
+    private final long version;
+
+    // Cột từ vựng, row i tương ứng vocabIds[i]
+    private final int[] vocabIds;
+    private final int[] dictionaryIds;
+    private final byte[] levels;
+    private final String[] words;
+    private final String[] pos;
+    private final String[] ipa;
+    private final String[] meanings;
+
+    private final Map<Integer, DictionaryEntry> dictionaries;
+    private final Map<Integer, TopicEntry> topics;
+    private final Map<Integer, DictionaryPostings> postings;
+
+    public record DictionaryEntry(Integer id, String name, Dictionary.Status status) {
+    }
+
+    public record TopicEntry(Integer id, String name, Topics.Status status) {
+    }
+
+    private CatalogSnapshot(long version, Builder builder, Map<Integer, DictionaryPostings> postings) {
+        this.version = version;
+        this.vocabIds = Arrays.copyOf(builder.vocabIds, builder.size);
+        this.dictionaryIds = Arrays.copyOf(builder.dictionaryIds, builder.size);
+        this.levels = Arrays.copyOf(builder.levels, builder.size);
+        this.words = Arrays.copyOf(builder.words, builder.size);
+        this.pos = Arrays.copyOf(builder.pos, builder.size);
+        this.ipa = Arrays.copyOf(builder.ipa, builder.size);
+        this.meanings = Arrays.copyOf(builder.meanings, builder.size);
+        this.dictionaries = Map.copyOf(builder.dictionaries);
+        this.topics = Map.copyOf(builder.topics);
+        this.postings = postings;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    // ===== DICTIONARIES & TOPICS =====
+
+    public DictionaryEntry dictionary(Integer dictionaryId) {
+        return dictionaryId != null ? dictionaries.get(dictionaryId) : null;
+    }
+
+    /**
+     * Kiểm tra từ điển tồn tại (cùng thông báo lỗi với VocabularyService)
+     */
+    public DictionaryEntry requireDictionary(Integer dictionaryId) {
+        DictionaryEntry entry = dictionary(dictionaryId);
+        if (entry == null) {
+            throw new RuntimeException("Dictionary not found: " + dictionaryId);
+        }
+        return entry;
+    }
+
+    public Collection<TopicEntry> topics() {
+        return topics.values();
+    }
+
+    // ===== VOCAB ROWS =====
+
+    public int size() {
+        return vocabIds.length;
+    }
+
+    /**
+     * Row của vocab, -1 nếu không có trong snapshot
+     */
+    public int rowOf(int vocabId) {
+        int row = Arrays.binarySearch(vocabIds, vocabId);
+        return row >= 0 ? row : -1;
+    }
+
+    public int vocabId(int row) {
+        return vocabIds[row];
+    }
+
+    public int dictionaryId(int row) {
+        return dictionaryIds[row];
+    }
+
+    public Vocab.Level level(int row) {
+        return LEVELS[levels[row]];
+    }
+
+    public String word(int row) {
+        return words[row];
+    }
+
+    public String pos(int row) {
+        return pos[row];
+    }
+
+    public String ipa(int row) {
+        return ipa[row];
+    }
+
+    /**
+     * Nghĩa tiếng Việt của sense đầu tiên (có thể null)
+     */
+    public String meaning(int row) {
+        return meanings[row];
+    }
+
+    // ===== COUNTS =====
+
+    public long count() {
+        return vocabIds.length;
+    }
+
+    public long count(Vocab.Level level) {
+        long total = 0;
+        for (DictionaryPostings p : postings.values()) {
+            total += p.levelCounts[level.ordinal()];
+        }
+        return total;
+    }
+
+    public long count(Integer dictionaryId) {
+        return postingsOf(dictionaryId).byWord.length;
+    }
+
+    public long count(Integer dictionaryId, Vocab.Level level) {
+        return postingsOf(dictionaryId).levelCounts[level.ordinal()];
+    }
+
+    /**
+     * Đếm từ bắt đầu bằng một trong các chữ cái (không phân biệt hoa thường), lọc level nếu có
+     */
+    public long count(Integer dictionaryId, Collection<String> letters, Vocab.Level level) {
+        DictionaryPostings p = postingsOf(dictionaryId);
+        long total = 0;
+        for (String letter : normalizeLetters(letters)) {
+            int[] range = p.letterRanges.get(letter);
+            if (range == null) continue;
+            if (level == null) {
+                total += range[1] - range[0];
+                continue;
+            }
+            for (int i = range[0]; i < range[1]; i++) {
+                if (levels[p.byWord[i]] == level.ordinal()) total++;
+            }
+        }
+        return total;
+    }
+
+    // ===== ORDERED ACCESS =====
+
+    /**
+     * Vocab id của một trang theo thứ tự word (không phân biệt hoa thường).
+     * {@code letters} null/rỗng nghĩa là không lọc chữ cái, {@code level} null là không lọc level.
+     */
+    public List<Integer> pageIds(Integer dictionaryId, Collection<String> letters, Vocab.Level level,
+                                 long offset, int limit) {
+        DictionaryPostings p = postingsOf(dictionaryId);
+        List<int[]> ranges = new ArrayList<>();
+        if (letters == null || letters.isEmpty()) {
+            ranges.add(new int[]{0, p.byWord.length});
+        } else {
+            for (String letter : normalizeLetters(letters)) {
+                int[] range = p.letterRanges.get(letter);
+                if (range != null) ranges.add(range);
+            }
+        }
+
+        List<Integer> ids = new ArrayList<>(Math.max(Math.min(limit, p.byWord.length), 0));
+        long skipped = 0;
+        for (int[] range : ranges) {
+            for (int i = range[0]; i < range[1] && ids.size() < limit; i++) {
+                int row = p.byWord[i];
+                if (level != null && levels[row] != level.ordinal()) continue;
+                if (skipped < offset) {
+                    skipped++;
+                    continue;
+                }
+                ids.add(vocabIds[row]);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Vocab id đầu tiên theo thứ tự vocab_id (thứ tự được thêm vào từ điển), bỏ qua {@code excludeIds}.
+     * Chi phí O(count + số id bị loại), không phụ thuộc kích thước từ điển.
+     */
+    public List<Integer> firstIds(Integer dictionaryId, int count, Set<Integer> excludeIds) {
+        return firstIds(dictionaryId, count, excludeIds::contains);
+    }
+
+    /**
+     * Như {@link #firstIds(Integer, int, Set)}, với id bị loại cho bởi một predicate (vd. bitmap)
+     */
+    public List<Integer> firstIds(Integer dictionaryId, int count, IntPredicate excluded) {
+        DictionaryPostings p = postingsOf(dictionaryId);
+        List<Integer> ids = new ArrayList<>(Math.max(Math.min(count, p.byId.length), 0));
+        for (int i = 0; i < p.byId.length && ids.size() < count; i++) {
+            int vocabId = vocabIds[p.byId[i]];
+            if (!excluded.test(vocabId)) {
+                ids.add(vocabId);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Lấy ngẫu nhiên tối đa {@code count} vocab id khác nhau của từ điển, không nằm trong {@code excludeIds}.
+     * Dùng thuật toán Floyd trên mảng row của từ điển: O(count + số id bị loại), không duyệt cả từ điển.
+     */
+    public List<Integer> sampleIds(Integer dictionaryId, int count, Set<Integer> excludeIds, RandomGenerator random) {
+        DictionaryPostings p = postingsOf(dictionaryId);
+        int n = p.byId.length;
+        // Lấy dư đúng bằng số id bị loại để vẫn đủ count sau khi lọc
+        int k = (int) Math.min(n, (long) Math.max(count, 0) + excludeIds.size());
+
+        Set<Integer> positions = new HashSet<>(k * 2);
+        List<Integer> ids = new ArrayList<>(k);
+        for (int j = n - k; j < n; j++) {
+            int t = random.nextInt(j + 1);
+            int position = positions.contains(t) ? j : t;
+            positions.add(position);
+            int vocabId = vocabIds[p.byId[position]];
+            if (!excludeIds.contains(vocabId)) {
+                ids.add(vocabId);
+            }
+        }
+
+        // Thứ tự Floyd không đều, xáo trộn lại (Fisher-Yates) trước khi cắt
+        for (int i = ids.size() - 1; i > 0; i--) {
+            Collections.swap(ids, i, random.nextInt(i + 1));
+        }
+        return ids.size() > count ? new ArrayList<>(ids.subList(0, count)) : ids;
+    }
+
+    private DictionaryPostings postingsOf(Integer dictionaryId) {
+        requireDictionary(dictionaryId);
+        return postings.getOrDefault(dictionaryId, DictionaryPostings.EMPTY_POSTINGS);
+    }
+
+    /**
+     * Chữ cái đầu, chữ thường, không trùng, theo thứ tự (giống thứ tự word)
+     */
+    private static Collection<String> normalizeLetters(Collection<String> letters) {
+        if (letters == null) return List.of();
+        TreeSet<String> normalized = new TreeSet<>();
+        for (String letter : letters) {
+            if (letter != null && !letter.isBlank()) {
+                normalized.add(letter.substring(0, 1).toLowerCase(Locale.ROOT));
+            }
+        }
+        return normalized;
+    }
+
+    private static final class DictionaryPostings {
+        static final DictionaryPostings EMPTY_POSTINGS =
+                new DictionaryPostings(EMPTY, EMPTY, Map.of(), new int[LEVELS.length]);
+
+        final int[] byId;                        // rows theo thứ tự vocab_id
+        final int[] byWord;                      // rows theo thứ tự word
+        final Map<String, int[]> letterRanges;   // chữ cái đầu -> [start, end) trong byWord
+        final int[] levelCounts;                 // theo Vocab.Level.ordinal()
+
+        DictionaryPostings(int[] byId, int[] byWord, Map<String, int[]> letterRanges, int[] levelCounts) {
+            this.byId = byId;
+            this.byWord = byWord;
+            this.letterRanges = letterRanges;
+            this.levelCounts = levelCounts;
+        }
+    }
+
+    // ===== BUILDER =====
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Gom dữ liệu khi nạp từ DB. Vocab phải được thêm theo vocab_id tăng dần.
+     */
+    public static final class Builder {
+        private int size;
+        private int[] vocabIds = new int[1024];
+        private int[] dictionaryIds = new int[1024];
+        private byte[] levels = new byte[1024];
+        private String[] words = new String[1024];
+        private String[] pos = new String[1024];
+        private String[] ipa = new String[1024];
+        private String[] meanings = new String[1024];
+        private final Map<Integer, DictionaryEntry> dictionaries = new HashMap<>();
+        private final Map<Integer, TopicEntry> topics = new HashMap<>();
+
+        private Builder() {
+        }
+
+        public Builder dictionary(Integer id, String name, Dictionary.Status status) {
+            dictionaries.put(id, new DictionaryEntry(id, name, status));
+            return this;
+        }
+
+        public Builder topic(Integer id, String name, Topics.Status status) {
+            topics.put(id, new TopicEntry(id, name, status));
+            return this;
+        }
+
+        public Builder vocab(int vocabId, int dictionaryId, String word, String pos, String ipa,
+                             Vocab.Level level, String meaning) {
+            if (size > 0 && vocabId <= vocabIds[size - 1]) {
+                throw new IllegalArgumentException("Vocab phải được thêm theo vocab_id tăng dần");
+            }
+            if (size == vocabIds.length) {
+                int capacity = size * 2;
+                vocabIds = Arrays.copyOf(vocabIds, capacity);
+                dictionaryIds = Arrays.copyOf(dictionaryIds, capacity);
+                levels = Arrays.copyOf(levels, capacity);
+                words = Arrays.copyOf(words, capacity);
+                this.pos = Arrays.copyOf(this.pos, capacity);
+                this.ipa = Arrays.copyOf(this.ipa, capacity);
+                meanings = Arrays.copyOf(meanings, capacity);
+            }
+            vocabIds[size] = vocabId;
+            dictionaryIds[size] = dictionaryId;
+            levels[size] = (byte) (level != null ? level : Vocab.Level.BEGINNER).ordinal();
+            words[size] = word;
+            this.pos[size] = pos;
+            this.ipa[size] = ipa;
+            meanings[size] = meaning;
+            size++;
+            return this;
+        }
+
+        public CatalogSnapshot build(long version) {
+            String[] sortKeys = new String[size];
+            Map<Integer, List<Integer>> rowsByDictionary = new HashMap<>();
+            for (int row = 0; row < size; row++) {
+                sortKeys[row] = words[row] != null ? words[row].toLowerCase(Locale.ROOT) : "";
+                rowsByDictionary.computeIfAbsent(dictionaryIds[row], k -> new ArrayList<>()).add(row);
+            }
+            Comparator<Integer> byWord = Comparator.<Integer, String>comparing(row -> sortKeys[row])
+                    .thenComparing(row -> words[row] != null ? words[row] : "");
+
+            Map<Integer, DictionaryPostings> postings = new HashMap<>();
+            rowsByDictionary.forEach((dictionaryId, rows) -> {
+                // Row được thêm theo vocab_id tăng dần nên danh sách ban đầu đã theo thứ tự id
+                int[] idOrdered = rows.stream().mapToInt(Integer::intValue).toArray();
+                rows.sort(byWord);
+                int[] ordered = new int[rows.size()];
+                int[] levelCounts = new int[LEVELS.length];
+                Map<String, int[]> letterRanges = new HashMap<>();
+                for (int i = 0; i < ordered.length; i++) {
+                    int row = rows.get(i);
+                    ordered[i] = row;
+                    levelCounts[levels[row]]++;
+                    if (!sortKeys[row].isEmpty()) {
+                        String letter = sortKeys[row].substring(0, 1);
+                        int[] range = letterRanges.get(letter);
+                        if (range == null) {
+                            letterRanges.put(letter, new int[]{i, i + 1});
+                        } else {
+                            range[1] = i + 1; // Cùng chữ cái đầu luôn liền nhau trong thứ tự word
+                        }
+                    }
+                }
+                postings.put(dictionaryId, new DictionaryPostings(idOrdered, ordered, letterRanges, levelCounts));
+            });
+
+            return new CatalogSnapshot(version, this, Collections.unmodifiableMap(postings));
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.englishvocab.service;
+
+import com.englishvocab.config.properties.CatalogSyncProperties;
+import com.englishvocab.event.CatalogChangedEvent;
+import com.englishvocab.event.VocabChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Đồng bộ các cache/index catalog trong bộ nhớ ({@link CatalogCache}, {@link DistractorPool},
+ * {@link FacetCounts}, VocabSuggestIndex, MeaningIndex) giữa các node.
+ *
+ * {@link VocabChangedEvent} và {@link CatalogChangedEvent} đã commit được gửi qua Redis pub/sub
+ * (app.catalog.sync.redis); node nhận phát lại sự kiện trong JVM của mình như thể thay đổi xảy ra
+ * tại chỗ. Sự kiện nhận từ node khác không được gửi tiếp. Với app.catalog.sync.max-age, mỗi node
+ * tự bỏ toàn bộ cache theo chu kỳ (sự kiện thay đổi hàng loạt), phòng khi mất thông báo.
+ */
+@Component
+@Slf4j
+public class CatalogSync implements MessageListener {
+
+    private static final String VOCAB = "V";
+    private static final String CATALOG = "C";
+    private static final String SEPARATOR = "|";
+
+    // Đang phát lại sự kiện từ node khác (hoặc từ chu kỳ max-age) trên thread này
+    private static final ThreadLocal<Boolean> REPLAYING = ThreadLocal.withInitial(() -> false);
+
+    private final CatalogSyncProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectProvider<StringRedisTemplate> redisTemplate;
+    private final TaskScheduler taskScheduler;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public CatalogSync(CatalogSyncProperties properties, ApplicationEventPublisher eventPublisher,
+                       ObjectProvider<StringRedisTemplate> redisTemplate, TaskScheduler taskScheduler) {
+        this.properties = properties;
+        this.eventPublisher = eventPublisher;
+        this.redisTemplate = redisTemplate;
+        this.taskScheduler = taskScheduler;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleReload() {
+        if (properties.getMaxAge().isPositive()) {
+            taskScheduler.scheduleWithFixedDelay(this::reload, Instant.now().plus(properties.getMaxAge()),
+                properties.getMaxAge());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onVocabChanged(VocabChangedEvent event) {
+        send(String.join(SEPARATOR, VOCAB, event.type().name(), format(event.dictionaryId()), format(event.vocabId())));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        send(String.join(SEPARATOR, CATALOG, event.kind().name(), format(event.id())));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\" + SEPARATOR, -1);
+        if (parts.length < 3 || nodeId.equals(parts[0])) {
+            return; // Thông báo của chính node này
+        }
+        try {
+            Object event = switch (parts[1]) {
+                case VOCAB -> new VocabChangedEvent(VocabChangedEvent.Type.valueOf(parts[2]), parse(parts[3]), parse(parts[4]));
+                case CATALOG -> new CatalogChangedEvent(CatalogChangedEvent.Kind.valueOf(parts[2]), parse(parts[3]));
+                default -> null;
+            };
+            if (event != null) {
+                replay(event);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Ignoring catalog change notification '{}': {}", String.join(SEPARATOR, parts), e.getMessage());
+        }
+    }
+
+    private void reload() {
+        try {
+            replay(new VocabChangedEvent(VocabChangedEvent.Type.UPDATED, null, null));
+            log.debug("Catalog caches dropped after max age {}", properties.getMaxAge());
+        } catch (RuntimeException e) {
+            log.warn("Catalog cache reload failed: {}", e.getMessage());
+        }
+    }
+
+    private void replay(Object event) {
+        REPLAYING.set(true);
+        try {
+            eventPublisher.publishEvent(event);
+        } finally {
+            REPLAYING.remove();
+        }
+    }
+
+    private void send(String payload) {
+        if (!properties.isRedis() || REPLAYING.get()) {
+            return;
+        }
+        try {
+            redisTemplate.getObject().convertAndSend(properties.getChannel(), nodeId + SEPARATOR + payload);
+        } catch (RuntimeException e) {
+            // Node khác vẫn làm mới theo max-age
+            log.warn("Failed to publish catalog change {}: {}", payload, e.getMessage());
+        }
+    }
+
+    private static String format(Integer value) {
+        return value != null ? value.toString() : "";
+    }
+
+    private static Integer parse(String value) {
+        return value.isEmpty() ? null : Integer.valueOf(value);
+    }
+}
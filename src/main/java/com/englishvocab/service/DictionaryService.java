@@ -2,11 +2,13 @@ package com.englishvocab.service;
 
 import com.englishvocab.dto.DictionaryStatsDTO;
 import com.englishvocab.entity.Dictionary;
+import com.englishvocab.event.CatalogChangedEvent;
 import com.englishvocab.repository.DictionaryRepository;
 import com.englishvocab.repository.DictVocabListRepository;
 import com.englishvocab.repository.VocabRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -25,6 +27,7 @@ public class DictionaryService {
     private final DictionaryRepository dictionaryRepository;
     private final VocabRepository vocabRepository;
     private final DictVocabListRepository dictVocabListRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     /**
      * Lấy tất cả từ điển
@@ -95,6 +98,7 @@ public class DictionaryService {
         }
         
         Dictionary saved = dictionaryRepository.save(dictionary);
+        eventPublisher.publishEvent(CatalogChangedEvent.dictionary(saved.getDictionaryId()));
         log.info("Đã tạo từ điển với ID: {}", saved.getDictionaryId());
         return saved;
     }
@@ -136,6 +140,7 @@ public class DictionaryService {
         existing.setDescription(updatedDictionary.getDescription());
         
         Dictionary saved = dictionaryRepository.save(existing);
+        eventPublisher.publishEvent(CatalogChangedEvent.dictionary(id));
         log.info("Đã cập nhật từ điển: {}", saved.getName());
         return saved;
     }
@@ -160,6 +165,7 @@ public class DictionaryService {
             dictionaryRepository.delete(dictionary);
             log.info("Đã xóa từ điển: {}", dictionary.getName());
         }
+        eventPublisher.publishEvent(CatalogChangedEvent.dictionary(id));
     }
     
     /**
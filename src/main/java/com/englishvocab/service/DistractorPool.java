@@ -0,0 +1,150 @@
+package com.englishvocab.service;
+
+import com.englishvocab.entity.Vocab;
+import com.englishvocab.event.VocabChangedEvent;
+import com.englishvocab.repository.VocabRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool nghĩa tiếng Việt dùng làm đáp án nhiễu (distractor) cho câu hỏi trắc nghiệm.
+ *
+ * Nghĩa được nhóm theo (dictionary, level, pos) và giữ trong các mảng bất biến,
+ * nên việc lấy mẫu là O(1) và không cần truy vấn DB. Pool được nạp lại lười
+ * (một query) sau khi VocabularyService tạo/sửa/xóa từ vựng.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DistractorPool {
+
+    private static final String[] EMPTY = new String[0];
+
+    private final VocabRepository vocabRepository;
+
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * Lấy tối đa {@code count} nghĩa khác {@code excludeMeaning}, ưu tiên các từ
+     * cùng từ điển, cùng level và cùng từ loại với {@code target}.
+     */
+    public List<String> sample(Vocab target, String excludeMeaning, int count) {
+        List<String> result = new ArrayList<>(count);
+        if (count <= 0) {
+            return result;
+        }
+
+        Snapshot current = current();
+        Integer dictionaryId = target != null && target.getDictionary() != null
+                ? target.getDictionary().getDictionaryId() : null;
+
+        if (dictionaryId != null) {
+            fill(result, current.bucket(bucketKey(dictionaryId, target.getLevel(), target.getPos())), excludeMeaning, count);
+            fill(result, current.byDictionary().getOrDefault(dictionaryId, EMPTY), excludeMeaning, count);
+        }
+        fill(result, current.all(), excludeMeaning, count);
+        return result;
+    }
+
+    /**
+     * Đánh dấu pool cũ; lần lấy mẫu tiếp theo sẽ nạp lại từ DB.
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+        snapshot = null;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onVocabChanged(VocabChangedEvent event) {
+        invalidate();
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    long loadedVersion = version.get();
+                    current = load();
+                    // Không cache nếu dữ liệu đã đổi trong lúc đang nạp
+                    if (version.get() == loadedVersion) {
+                        snapshot = current;
+                    }
+                }
+            }
+        }
+        return current;
+    }
+
+    private Snapshot load() {
+        Map<String, Set<String>> buckets = new HashMap<>();
+        Map<Integer, Set<String>> dictionaries = new HashMap<>();
+        Set<String> all = new LinkedHashSet<>();
+
+        for (Object[] row : vocabRepository.findMeaningsForDistractors()) {
+            Integer dictionaryId = (Integer) row[0];
+            Vocab.Level level = (Vocab.Level) row[1];
+            String pos = (String) row[2];
+            String meaning = (String) row[3];
+            if (meaning == null || meaning.isBlank()) {
+                continue;
+            }
+            buckets.computeIfAbsent(bucketKey(dictionaryId, level, pos), k -> new LinkedHashSet<>()).add(meaning);
+            dictionaries.computeIfAbsent(dictionaryId, k -> new LinkedHashSet<>()).add(meaning);
+            all.add(meaning);
+        }
+
+        Map<String, String[]> bucketArrays = new HashMap<>(buckets.size() * 2);
+        buckets.forEach((key, meanings) -> bucketArrays.put(key, meanings.toArray(EMPTY)));
+        Map<Integer, String[]> dictionaryArrays = new HashMap<>(dictionaries.size() * 2);
+        dictionaries.forEach((key, meanings) -> dictionaryArrays.put(key, meanings.toArray(EMPTY)));
+
+        log.info("Loaded distractor pool: {} meanings in {} buckets", all.size(), bucketArrays.size());
+        return new Snapshot(bucketArrays, dictionaryArrays, all.toArray(EMPTY));
+    }
+
+    /**
+     * Bổ sung nghĩa ngẫu nhiên từ {@code pool} vào {@code result} cho đến khi đủ {@code count}.
+     * Số lần thử có giới hạn để không lặp vô hạn khi pool nhỏ.
+     */
+    private static void fill(List<String> result, String[] pool, String excludeMeaning, int count) {
+        if (pool.length == 0 || result.size() >= count) {
+            return;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int attempts = count * 4;
+        while (result.size() < count && attempts-- > 0) {
+            String candidate = pool[random.nextInt(pool.length)];
+            if (!candidate.equals(excludeMeaning) && !result.contains(candidate)) {
+                result.add(candidate);
+            }
+        }
+    }
+
+    private static String bucketKey(Integer dictionaryId, Vocab.Level level, String pos) {
+        String normalizedPos = pos == null ? "" : pos.trim().toLowerCase(Locale.ROOT);
+        return dictionaryId + "|" + (level != null ? level.name() : "") + "|" + normalizedPos;
+    }
+
+    private record Snapshot(Map<String, String[]> buckets, Map<Integer, String[]> byDictionary, String[] all) {
+
+        String[] bucket(String key) {
+            return buckets.getOrDefault(key, EMPTY);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.englishvocab.service;
+
+import com.englishvocab.entity.Topics;
+import com.englishvocab.entity.Vocab;
+import com.englishvocab.event.CatalogChangedEvent;
+import com.englishvocab.event.VocabChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Số từ vựng theo mọi tổ hợp (từ điển, chữ cái đầu, level, topic), giữ trong bộ nhớ.
+ *
+ * Mỗi từ cộng 1 vào 4 × (số topic + 1) ô: chữ cái đầu và level mỗi chiều có thêm giá trị
+ * "bất kỳ", topic là từng topic của từ hoặc "bất kỳ". Nhờ vậy mọi tổ hợp lọc đều là một
+ * lần tra map. Sau khi nạp lười (3 query), thay đổi một từ (kể cả gán/gỡ topic) chỉ trừ
+ * các ô cũ và cộng các ô mới theo {@link VocabChangedEvent} sau commit, không nạp lại toàn
+ * bộ như {@link CatalogSnapshot}; import hàng loạt và thay đổi từ điển/chủ đề thì nạp lại.
+ * Số đếm và từ được chia theo từ điển; ghi tuần tự dưới một khóa trên bản sao chỉ chép shard
+ * của từ điển bị đổi rồi thay tham chiếu volatile, đọc không khóa.
+ */
+@Component
+@Slf4j
+public class FacetCounts {
+
+    private static final String VOCAB_SQL = "SELECT vocab_id, dictionary_id, word, level FROM vocab";
+    private static final String ONE_VOCAB_SQL = VOCAB_SQL + " WHERE vocab_id = ?";
+    private static final String VOCAB_TOPICS_SQL = "SELECT vocab_id, topic_id FROM vocab_topics";
+    private static final String ONE_VOCAB_TOPICS_SQL = "SELECT topic_id FROM vocab_topics WHERE vocab_id = ?";
+    private static final String TOPICS_SQL = "SELECT topic_id, status FROM topics";
+
+    private static final char ANY_LETTER = 0;
+    private static final int ANY_LEVEL = -1;
+    private static final int ANY_TOPIC = -1;
+    private static final int[] NO_TOPICS = new int[0];
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile State state;
+
+    public FacetCounts(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Số từ của từ điển khớp các bộ lọc; tham số null nghĩa là không lọc chiều đó
+     */
+    public long count(Integer dictionaryId, String letter, Vocab.Level level, Integer topicId) {
+        Map<Key, Long> counts = state().counts(dictionaryId);
+        return counts.getOrDefault(key(letter, level, topicId), 0L);
+    }
+
+    /**
+     * Số từ bắt đầu bằng một trong các chữ cái (không phân biệt hoa thường), lọc level nếu có
+     */
+    public long count(Integer dictionaryId, Collection<String> letters, Vocab.Level level) {
+        Map<Key, Long> counts = state().counts(dictionaryId);
+        long total = 0;
+        for (String letter : normalizeLetters(letters)) {
+            total += counts.getOrDefault(key(letter, level, null), 0L);
+        }
+        return total;
+    }
+
+    /**
+     * Số từ theo chữ cái đầu (chữ thường)
+     */
+    public Map<String, Long> letterCounts(Integer dictionaryId) {
+        Map<String, Long> letters = new HashMap<>();
+        state().counts(dictionaryId).forEach((key, count) -> {
+            if (key.letter() != ANY_LETTER && key.level() == ANY_LEVEL && key.topicId() == ANY_TOPIC && count > 0) {
+                letters.put(String.valueOf(key.letter()), count);
+            }
+        });
+        return letters;
+    }
+
+    /**
+     * Số từ theo từng topic ACTIVE trong từ điển, lọc level nếu có (topic không có từ nào vẫn có mặt với giá trị 0)
+     */
+    public Map<Integer, Long> topicCounts(Integer dictionaryId, Vocab.Level level) {
+        State current = state();
+        Map<Key, Long> counts = current.counts(dictionaryId);
+        Map<Integer, Long> topics = new HashMap<>();
+        for (Integer topicId : current.activeTopics) {
+            topics.put(topicId, counts.getOrDefault(key(null, level, topicId), 0L));
+        }
+        return topics;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onVocabChanged(VocabChangedEvent event) {
+        synchronized (this) {
+            State current = state;
+            if (current == null) {
+                return; // Chưa nạp: lần nạp đầu sẽ đọc dữ liệu mới
+            }
+            if (event.vocabId() == null) {
+                state = null;
+                return;
+            }
+            int vocabId = event.vocabId();
+            // Sửa trên bản sao rồi đổi tham chiếu: reader không thấy trạng thái đã trừ ô cũ mà chưa cộng ô mới
+            State next = current.copy();
+            next.remove(vocabId);
+            if (event.type() != VocabChangedEvent.Type.DELETED) {
+                int[] topicIds = jdbcTemplate.queryForList(ONE_VOCAB_TOPICS_SQL, Integer.class, vocabId).stream()
+                    .mapToInt(Integer::intValue).toArray();
+                jdbcTemplate.query(ONE_VOCAB_SQL, rs -> {
+                    next.add(vocabId, new Doc(rs.getInt(2), letterOf(rs.getString(3)), levelOf(rs.getString(4)), topicIds));
+                }, vocabId);
+            }
+            state = next;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        synchronized (this) {
+            state = null; // Xóa từ điển/chủ đề kéo theo từ và liên kết topic, trạng thái topic có thể đổi
+        }
+    }
+
+    private State state() {
+        State current = state;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (state == null) {
+                state = load();
+            }
+            return state;
+        }
+    }
+
+    private State load() {
+        long startedAt = System.currentTimeMillis();
+        Map<Integer, List<Integer>> topicsByVocab = new HashMap<>();
+        jdbcTemplate.query(VOCAB_TOPICS_SQL, rs -> {
+            topicsByVocab.computeIfAbsent(rs.getInt(1), k -> new ArrayList<>()).add(rs.getInt(2));
+        });
+        State loaded = new State();
+        jdbcTemplate.query(TOPICS_SQL, rs -> {
+            if (Topics.Status.ACTIVE.name().equals(rs.getString(2))) {
+                loaded.activeTopics.add(rs.getInt(1));
+            }
+        });
+        jdbcTemplate.query(VOCAB_SQL, rs -> {
+            List<Integer> topicIds = topicsByVocab.get(rs.getInt(1));
+            loaded.add(rs.getInt(1), new Doc(rs.getInt(2), letterOf(rs.getString(3)), levelOf(rs.getString(4)),
+                topicIds != null ? topicIds.stream().mapToInt(Integer::intValue).toArray() : NO_TOPICS));
+        });
+        log.info("Loaded facet counts: {} vocab, {} cells in {} ms", loaded.size(),
+            loaded.cells(), System.currentTimeMillis() - startedAt);
+        return loaded;
+    }
+
+    private static Key key(String letter, Vocab.Level level, Integer topicId) {
+        return new Key(letter != null && !letter.isEmpty() ? Character.toLowerCase(letter.charAt(0)) : ANY_LETTER,
+            level != null ? level.ordinal() : ANY_LEVEL,
+            topicId != null ? topicId : ANY_TOPIC);
+    }
+
+    /**
+     * Chữ cái đầu, chữ thường (giống {@link CatalogSnapshot}); ANY_LETTER nếu word rỗng
+     */
+    private static char letterOf(String word) {
+        return word != null && !word.isEmpty() ? word.toLowerCase(Locale.ROOT).charAt(0) : ANY_LETTER;
+    }
+
+    /**
+     * Level null được tính là BEGINNER (giống {@link CatalogSnapshot})
+     */
+    private static int levelOf(String level) {
+        return (level != null ? Vocab.Level.valueOf(level) : Vocab.Level.BEGINNER).ordinal();
+    }
+
+    private static Collection<String> normalizeLetters(Collection<String> letters) {
+        if (letters == null) return List.of();
+        TreeSet<String> normalized = new TreeSet<>();
+        for (String letter : letters) {
+            if (letter != null && !letter.isBlank()) {
+                normalized.add(letter.substring(0, 1).toLowerCase(Locale.ROOT));
+            }
+        }
+        return normalized;
+    }
+
+    private record Key(char letter, int level, int topicId) {
+    }
+
+    private record Doc(int dictionaryId, char letter, int level, int[] topicIds) {
+    }
+
+    private static final class State {
+        final Map<Integer, Shard> shards;
+        final Set<Integer> activeTopics;
+        // Từ điển có shard riêng của State này (shard của các từ điển khác dùng chung với bản gốc)
+        private final Set<Integer> owned = new HashSet<>();
+
+        State() {
+            this(new HashMap<>(), new HashSet<>());
+        }
+
+        private State(Map<Integer, Shard> shards, Set<Integer> activeTopics) {
+            this.shards = shards;
+            this.activeTopics = activeTopics;
+        }
+
+        /**
+         * Bản sao để sửa: chỉ chép map theo từ điển, shard của một từ điển chỉ được chép khi bị sửa
+         */
+        State copy() {
+            return new State(new HashMap<>(shards), activeTopics);
+        }
+
+        Map<Key, Long> counts(Integer dictionaryId) {
+            Shard shard = dictionaryId != null ? shards.get(dictionaryId) : null;
+            return shard != null ? shard.counts : Map.of();
+        }
+
+        void add(int vocabId, Doc doc) {
+            Shard shard = writable(doc.dictionaryId());
+            shard.docs.put(vocabId, doc);
+            shard.apply(doc, 1);
+        }
+
+        void remove(int vocabId) {
+            // Từ có thể đã đổi từ điển: tìm trong các shard (số từ điển nhỏ)
+            for (Map.Entry<Integer, Shard> entry : shards.entrySet()) {
+                if (entry.getValue().docs.containsKey(vocabId)) {
+                    Shard shard = writable(entry.getKey());
+                    shard.apply(shard.docs.remove(vocabId), -1);
+                    return;
+                }
+            }
+        }
+
+        int size() {
+            return shards.values().stream().mapToInt(shard -> shard.docs.size()).sum();
+        }
+
+        long cells() {
+            return shards.values().stream().mapToLong(shard -> shard.counts.size()).sum();
+        }
+
+        private Shard writable(int dictionaryId) {
+            Shard shard = shards.get(dictionaryId);
+            if (owned.add(dictionaryId)) {
+                shard = shard != null ? shard.copy() : new Shard(new HashMap<>(), new HashMap<>());
+                shards.put(dictionaryId, shard);
+            }
+            return shard;
+        }
+    }
+
+    /**
+     * Số đếm và từ của một từ điển
+     */
+    private record Shard(Map<Key, Long> counts, Map<Integer, Doc> docs) {
+
+        Shard copy() {
+            return new Shard(new HashMap<>(counts), new HashMap<>(docs));
+        }
+
+        void apply(Doc doc, long delta) {
+            char[] letters = doc.letter() != ANY_LETTER ? new char[]{doc.letter(), ANY_LETTER} : new char[]{ANY_LETTER};
+            for (char letter : letters) {
+                for (int level : new int[]{doc.level(), ANY_LEVEL}) {
+                    counts.merge(new Key(letter, level, ANY_TOPIC), delta, Long::sum);
+                    for (int topicId : doc.topicIds()) {
+                        counts.merge(new Key(letter, level, topicId), delta, Long::sum);
+                    }
+                }
+            }
+        }
+    }
+}
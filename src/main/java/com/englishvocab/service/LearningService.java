@@ -1,17 +1,23 @@
 package com.englishvocab.service;
 
 import com.englishvocab.dto.SessionResultDTO;
+import com.englishvocab.dto.SessionAnswerBatchRequest;
 import com.englishvocab.dto.SessionResultRequest;
 import com.englishvocab.entity.*;
 import com.englishvocab.repository.LearningSessionRepository;
 import com.englishvocab.repository.SessionVocabularyRepository;
+import com.englishvocab.service.session.ActiveSessionState;
+import com.englishvocab.service.session.ActiveSessions;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -30,10 +36,14 @@ public class LearningService {
     private final SessionVocabularyRepository sessionVocabRepository;
     private final VocabularyService vocabularyService;
     private final UserProgressService userProgressService;
+    private final SessionCandidatePlanner sessionCandidatePlanner;
+    private final ProgressWriteBehindQueue progressWriteBehindQueue;
+    private final ActiveSessions activeSessions;
+    private final TransactionTemplate transactionTemplate;
     
     private static final int SESSION_TIMEOUT_MINUTES = 30;
     private static final int SESSION_CLEANUP_DAYS = 30;
-    private static final int BATCH_SIZE = 100;
+    private static final int SESSION_CLEANUP_CHUNK_SIZE = 1000;
 
     // ==================== SESSION CREATION ====================
     
@@ -174,8 +184,8 @@ public class LearningService {
 
         switch (learningMode.toLowerCase()) {
             case "review":
-                // Ưu tiên từ cần review
-                selected = userProgressService.getVocabulariesDueForReview(user, dictionary, maxVocabularies);
+                // Từ cần review, rồi từ chưa học, rồi ngẫu nhiên (một query)
+                selected = sessionCandidatePlanner.plan(user, dictionary, maxVocabularies);
                 break;
 
             case "new":
@@ -238,8 +248,13 @@ public class LearningService {
         
         // Only fill with random if not alphabetical/topics mode or no filters
         if (!isAlphabetical && !isTopics && selected.size() < maxVocabularies) {
+            // Bỏ qua các từ đã chọn để không bị lặp trong session
+            Set<Integer> selectedIds = selected.stream()
+                .map(Vocab::getVocabId)
+                .collect(Collectors.toSet());
             List<Vocab> additional = vocabularyService.getRandomVocabularies(
-                dictionary, maxVocabularies - selected.size());
+                dictionary, maxVocabularies - selected.size(), selectedIds);
+            selected = new ArrayList<>(selected);
             selected.addAll(additional);
         }
 
@@ -272,6 +287,7 @@ public class LearningService {
      * Get session by UUID
      */
     public LearningSession getSessionByUuid(String sessionUuid) {
+        activeSessions.flush(sessionUuid);
         return sessionRepository.findBySessionUuid(sessionUuid)
             .orElseThrow(() -> new RuntimeException("Session không tồn tại"));
     }
@@ -279,10 +295,22 @@ public class LearningService {
     // ==================== SESSION ACTIONS ====================
 
     /**
-     * Record câu trả lời của user
+     * Record câu trả lời của user.
+     * Session đang học được ghi nhận trong ActiveSessions (không chạm DB) và ghi xuống DB
+     * tại checkpoint; session đã kết thúc (hoặc khi tắt tính năng) được ghi thẳng DB.
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public LearningSession recordAnswer(String sessionUuid, Integer vocabularyId, 
                             SessionVocabulary.AnswerType answer, Integer timeSpentSec) {
+        ActiveSessionState state = activeSessions.recordAnswer(sessionUuid, vocabularyId, answer, timeSpentSec);
+        if (state != null) {
+            return state.toSessionView();
+        }
+        return transactionTemplate.execute(status -> recordAnswerInDatabase(sessionUuid, vocabularyId, answer, timeSpentSec));
+    }
+    
+    private LearningSession recordAnswerInDatabase(String sessionUuid, Integer vocabularyId, 
+                            SessionVocabulary.AnswerType answer, Integer timeSpentSec) {
         LearningSession session = sessionRepository.findBySessionUuid(sessionUuid)
             .orElseThrow(() -> new RuntimeException("Session không tồn tại"));
 
@@ -320,10 +348,74 @@ public class LearningService {
         return session;
     }
 
+    /**
+     * Record một lô câu trả lời (client gom nhiều thẻ rồi gửi một lần).
+     * Các câu được áp dụng theo số thứ tự trong cùng một thao tác nguyên tử: cả lô bị từ chối
+     * nếu có từ không thuộc session, câu có số thứ tự đã ghi nhận (client retry) bị bỏ qua.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public LearningSession recordAnswers(String sessionUuid, List<SessionAnswerBatchRequest.SequencedAnswer> batch) {
+        long now = System.currentTimeMillis();
+        List<ActiveSessionState.SequencedAnswer> answers = batch.stream()
+            .map(item -> new ActiveSessionState.SequencedAnswer(item.getSeq(), item.getVocabId(),
+                new ActiveSessionState.Answer(SessionVocabulary.AnswerType.valueOf(item.getAnswerType()),
+                    item.getTimeSpent(), now)))
+            .sorted(Comparator.comparingLong(ActiveSessionState.SequencedAnswer::sequence))
+            .toList();
+        if (answers.isEmpty()) {
+            return getSessionByUuid(sessionUuid);
+        }
+        ActiveSessionState state = activeSessions.recordAnswers(sessionUuid, answers);
+        if (state != null) {
+            return state.toSessionView();
+        }
+        return transactionTemplate.execute(status -> recordAnswersInDatabase(sessionUuid, answers));
+    }
+    
+    private LearningSession recordAnswersInDatabase(String sessionUuid, List<ActiveSessionState.SequencedAnswer> answers) {
+        // Khóa session: hai batch đồng thời (gửi lại, visibilitychange) không cùng đọc một last_answer_seq
+        LearningSession session = sessionRepository.findBySessionUuidForUpdate(sessionUuid)
+            .orElseThrow(() -> new RuntimeException("Session không tồn tại"));
+        if (session.isExpired()) {
+            throw new RuntimeException("Session đã hết hạn");
+        }
+        
+        Map<Integer, SessionVocabulary> byVocabId = sessionVocabRepository.findBySessionOrderByOrderIndex(session).stream()
+            .collect(Collectors.toMap(sv -> sv.getVocab().getVocabId(), sv -> sv, (a, b) -> a));
+        if (answers.stream().anyMatch(answer -> !byVocabId.containsKey(answer.vocabId()))) {
+            throw new RuntimeException("Vocabulary không thuộc session này");
+        }
+        
+        long lastSequence = session.getLastAnswerSeq() != null ? session.getLastAnswerSeq() : 0;
+        Set<SessionVocabulary> changed = new LinkedHashSet<>();
+        for (ActiveSessionState.SequencedAnswer item : answers) {
+            if (item.sequence() <= lastSequence) {
+                continue; // Đã ghi nhận (client gửi lại)
+            }
+            SessionVocabulary sessionVocab = byVocabId.get(item.vocabId());
+            sessionVocab.recordAnswer(item.answer().type(), item.answer().timeSpentSec());
+            changed.add(sessionVocab);
+            switch (item.answer().type()) {
+                case CORRECT -> session.incrementCorrect();
+                case WRONG -> session.incrementWrong();
+                case SKIP -> session.incrementSkip();
+            }
+            if (item.answer().timeSpentSec() != null && item.answer().timeSpentSec() > 0) {
+                session.setTimeSpentSec(Optional.ofNullable(session.getTimeSpentSec()).orElse(0) + item.answer().timeSpentSec());
+            }
+            lastSequence = item.sequence();
+        }
+        session.setLastAnswerSeq(lastSequence);
+        
+        sessionVocabRepository.saveAll(changed);
+        return sessionRepository.save(session);
+    }
+
     /**
      * Pause session
      */
     public LearningSession pauseSession(String sessionUuid) {
+        activeSessions.evict(sessionUuid);
         LearningSession session = sessionRepository.findBySessionUuid(sessionUuid)
             .orElseThrow(() -> new RuntimeException("Session không tồn tại"));
 
@@ -336,6 +428,7 @@ public class LearningService {
      * Resume session
      */
     public LearningSession resumeSession(String sessionUuid) {
+        activeSessions.evict(sessionUuid);
         LearningSession session = sessionRepository.findBySessionUuid(sessionUuid)
             .orElseThrow(() -> new RuntimeException("Session không tồn tại"));
 
@@ -348,6 +441,7 @@ public class LearningService {
      * Cancel session
      */
     public void cancelSession(String sessionUuid) {
+        activeSessions.evict(sessionUuid);
         LearningSession session = sessionRepository.findBySessionUuid(sessionUuid)
             .orElseThrow(() -> new RuntimeException("Session không tồn tại"));
 
@@ -357,66 +451,58 @@ public class LearningService {
     }
 
     /**
-     * Complete session và batch update progress
+     * Complete session; progress được ghi bất đồng bộ qua write-behind queue
      * Evict from cache khi complete
      */
     public SessionResultDTO completeSession(String sessionUuid, SessionResultRequest request) {
+        activeSessions.evict(sessionUuid);
         LearningSession session = sessionRepository.findBySessionUuid(sessionUuid)
             .orElseThrow(() -> new RuntimeException("Session không tồn tại"));
-
+        
         // ⚠️ KHÔNG xử lý lại answers ở đây vì frontend đã gọi recordAnswer() real-time
         // Chỉ cập nhật thời gian tổng từ request nếu có
         if (request != null && request.getDuration() != null && request.getDuration() > 0) {
             session.setTimeSpentSec(request.getDuration());
         }
-
+        
+        // Complete lại một session đã hoàn thành không được cộng progress lần nữa
+        boolean alreadyCompleted = session.isCompleted();
+        
         // Complete session
         session.complete();
+        if (!alreadyCompleted) {
+            session.setProgressPending(true);
+        }
         sessionRepository.save(session);
-
-        // Batch update user progress (Option B - batch update)
-        updateUserProgressFromSession(session);
-
+        
         // Get session vocabularies for result
         List<SessionVocabulary> sessionVocabs = sessionVocabRepository.findBySessionOrderByOrderIndex(session);
-
+        
+        // Queue user progress (write-behind, flushed in JDBC batches)
+        if (!alreadyCompleted) {
+            queueUserProgressFromSession(session, sessionVocabs);
+        }
+        
         // Generate result DTO
         SessionResultDTO result = SessionResultDTO.fromSession(session, sessionVocabs);
-
+        
         return result;
     }
-
+    
     /**
-     * Batch update user progress từ session (Option B)
+     * Đưa kết quả session vào write-behind queue (enqueue sau khi transaction commit)
      */
-    private void updateUserProgressFromSession(LearningSession session) {
-        List<SessionVocabulary> sessionVocabs = sessionVocabRepository
-            .findBySessionOrderByOrderIndex(session);
-
-        // Process theo batch để tránh memory issue
-        for (int i = 0; i < sessionVocabs.size(); i += BATCH_SIZE) {
-            int end = Math.min(i + BATCH_SIZE, sessionVocabs.size());
-            List<SessionVocabulary> batch = sessionVocabs.subList(i, end);
-
-            for (SessionVocabulary sv : batch) {
-                if (sv.getUserAnswer() == null) continue; // Skip unanswered
-
-                boolean correct = sv.getUserAnswer() == SessionVocabulary.AnswerType.CORRECT;
-                userProgressService.updateProgress(
-                    session.getUser(), 
-                    sv.getVocab(), 
-                    correct
-                );
-            }
-        }
+    private void queueUserProgressFromSession(LearningSession session, List<SessionVocabulary> sessionVocabs) {
+        progressWriteBehindQueue.enqueueSession(session.getSessionId(), session.getUser().getId(), sessionVocabs);
     }
-
+    
     // ==================== SESSION QUERIES ====================
 
     /**
      * Lấy danh sách vocabularies trong session với pagination
      */
     public Page<SessionVocabulary> getSessionVocabularies(String sessionUuid, Pageable pageable) {
+        activeSessions.flush(sessionUuid);
         LearningSession session = sessionRepository.findBySessionUuid(sessionUuid)
             .orElseThrow(() -> new RuntimeException("Session không tồn tại"));
 
@@ -448,6 +534,7 @@ public class LearningService {
      * Lấy vocabularies chưa trả lời
      */
     public List<SessionVocabulary> getUnansweredVocabularies(String sessionUuid) {
+        activeSessions.flush(sessionUuid);
         LearningSession session = sessionRepository.findBySessionUuid(sessionUuid)
             .orElseThrow(() -> new RuntimeException("Session không tồn tại"));
 
@@ -458,6 +545,7 @@ public class LearningService {
      * Lấy vocabularies trả lời sai
      */
     public List<SessionVocabulary> getWrongAnswers(String sessionUuid) {
+        activeSessions.flush(sessionUuid);
         LearningSession session = sessionRepository.findBySessionUuid(sessionUuid)
             .orElseThrow(() -> new RuntimeException("Session không tồn tại"));
 
@@ -468,6 +556,7 @@ public class LearningService {
      * Lấy session statistics
      */
     public Map<String, Object> getSessionStatistics(String sessionUuid) {
+        activeSessions.flush(sessionUuid);
         LearningSession session = sessionRepository.findBySessionUuid(sessionUuid)
             .orElseThrow(() -> new RuntimeException("Session không tồn tại"));
 
@@ -503,6 +592,7 @@ public class LearningService {
 
     @Transactional(readOnly = true)
     public SessionResultDTO getSessionResult(String sessionUuid) {
+        activeSessions.flush(sessionUuid);
         LearningSession session = sessionRepository.findBySessionUuid(sessionUuid)
             .orElseThrow(() -> new RuntimeException("Session không tồn tại"));
 
@@ -514,56 +604,36 @@ public class LearningService {
 
     // ==================== SCHEDULED TASKS ====================
 
-    /**
-     * Auto-complete expired sessions (Option A - auto save)
-     * Chạy mỗi 5 phút
-     */
-    @Scheduled(fixedRate = 300000) // 5 minutes
-    public void autoCompleteExpiredSessions() {
-        List<LearningSession> expiredSessions = sessionRepository
-            .findExpiredSessions(LocalDateTime.now());
-
-        expiredSessions.forEach(session -> {
-            try {
-                session.complete();
-                sessionRepository.save(session);
-                updateUserProgressFromSession(session);
-            } catch (Exception e) {
-                log.error("Failed to auto-complete session {}: {}",
-                    session.getSessionUuid(), e.getMessage());
-            }
-        });
-
-        if (!expiredSessions.isEmpty()) {
-            log.info("Auto-completed {} expired sessions", expiredSessions.size());
-        }
-    }
-
     /**
      * Cleanup old completed sessions
      * Chạy mỗi ngày lúc 2:00 AM
      */
     @Scheduled(cron = "0 0 2 * * *")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void cleanupOldSessions() {
         LocalDateTime cutoffDate = LocalDateTime.now().minusDays(SESSION_CLEANUP_DAYS);
-        
-        // Find old sessions
-        List<LearningSession> oldSessions = sessionRepository.findAll().stream()
-            .filter(s -> s.getStatus() == LearningSession.Status.COMPLETED)
-            .filter(s -> s.getCompletedAt() != null && s.getCompletedAt().isBefore(cutoffDate))
-            .collect(Collectors.toList());
-
-        // Delete session vocabularies first (foreign key)
-        for (LearningSession session : oldSessions) {
-            sessionVocabRepository.deleteBySession(session);
+        Pageable chunk = PageRequest.of(0, SESSION_CLEANUP_CHUNK_SIZE);
+
+        // Mỗi chunk một transaction ngắn: xóa session_vocabularies trước (foreign key), rồi tới sessions
+        int deleted = 0;
+        while (true) {
+            Integer chunkDeleted = transactionTemplate.execute(status -> {
+                List<Long> sessionIds = sessionRepository.findCompletedSessionIdsBefore(cutoffDate, chunk);
+                if (sessionIds.isEmpty()) {
+                    return 0;
+                }
+                sessionVocabRepository.deleteBySessionIds(sessionIds);
+                return sessionRepository.deleteBySessionIds(sessionIds);
+            });
+            if (chunkDeleted == null || chunkDeleted == 0) {
+                break;
+            }
+            deleted += chunkDeleted;
         }
 
-        // Delete sessions
-        sessionRepository.deleteAll(oldSessions);
-
-        if (!oldSessions.isEmpty()) {
+        if (deleted > 0) {
             log.info("Cleaned up {} completed sessions older than {} days",
-                oldSessions.size(), SESSION_CLEANUP_DAYS);
+                deleted, SESSION_CLEANUP_DAYS);
         }
     }
 
@@ -573,54 +643,27 @@ public class LearningService {
      * Lấy lịch sử sessions của user
      */
     public Page<LearningSession> getUserSessionHistory(User user, Pageable pageable) {
-        // Manual implementation vì repository chưa có method này
-        List<LearningSession> allSessions = sessionRepository.findAll().stream()
-            .filter(s -> s.getUser().equals(user))
-            .sorted((s1, s2) -> s2.getStartedAt().compareTo(s1.getStartedAt()))
-            .collect(Collectors.toList());
-
-        int start = (int) pageable.getOffset();
-        int end = Math.min(start + pageable.getPageSize(), allSessions.size());
-        
-        List<LearningSession> pageContent = start >= allSessions.size() ? 
-            new ArrayList<>() : allSessions.subList(start, end);
-
-        return new org.springframework.data.domain.PageImpl<>(
-            pageContent, pageable, allSessions.size());
+        return sessionRepository.findByUserOrderByStartedAtDesc(user, pageable);
     }
 
     /**
      * Lấy session statistics của user
      */
+    @Transactional(readOnly = true)
     public Map<String, Object> getUserLearningStatistics(User user) {
-        List<LearningSession> allSessions = sessionRepository.findAll().stream()
-            .filter(s -> s.getUser().equals(user))
-            .collect(Collectors.toList());
-
-        long totalSessions = allSessions.size();
-        long completedSessions = allSessions.stream()
-            .filter(s -> s.getStatus() == LearningSession.Status.COMPLETED)
-            .count();
-
-        int totalVocabularies = allSessions.stream()
-            .mapToInt(LearningSession::getTargetWords)
-            .sum();
-
-        int totalCorrect = allSessions.stream()
-            .mapToInt(LearningSession::getCorrectCount)
-            .sum();
+        LearningSessionRepository.SessionStatistics statistics = sessionRepository.getSessionStatistics(user);
 
-        int totalWrong = allSessions.stream()
-            .mapToInt(LearningSession::getWrongCount)
-            .sum();
+        int totalVocabularies = (int) statistics.getTotalVocabularies();
+        int totalCorrect = (int) statistics.getTotalCorrect();
+        int totalWrong = (int) statistics.getTotalWrong();
 
         Map<String, Object> stats = new HashMap<>();
-        stats.put("totalSessions", totalSessions);
-        stats.put("completedSessions", completedSessions);
+        stats.put("totalSessions", statistics.getTotalSessions());
+        stats.put("completedSessions", statistics.getCompletedSessions());
         stats.put("totalVocabularies", totalVocabularies);
         stats.put("totalCorrect", totalCorrect);
         stats.put("totalWrong", totalWrong);
-        stats.put("overallAccuracy", totalVocabularies > 0 ?
+        stats.put("overallAccuracy", totalCorrect + totalWrong > 0 ?
             (double) totalCorrect / (totalCorrect + totalWrong) * 100 : 0.0);
 
         return stats;
@@ -0,0 +1,473 @@
+package com.englishvocab.service;
+
+import com.englishvocab.config.properties.ProgressWriteBehindProperties;
+import com.englishvocab.entity.SessionVocabulary;
+import com.englishvocab.event.ProgressChangedEvent;
+import com.englishvocab.repository.LearningSessionRepository;
+import com.englishvocab.repository.SessionVocabularyRepository;
+import com.englishvocab.repository.UserVocabProgressRepository;
+import com.englishvocab.service.srs.ProgressUpsert;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hàng đợi write-behind cho UserVocabProgress.
+ *
+ * Kết quả của session được gom theo (user, vocab) trong các partition theo user,
+ * rồi ghi xuống DB bằng JDBC batch upsert ở background; mỗi câu trả lời được áp lên hàng
+ * hiện có ngay trong SQL nên không ghi đè câu trả lời ghi bởi request khác. Session được đánh dấu
+ * progress_pending cho tới khi batch chứa nó commit; mỗi câu trả lời nhớ session của nó, flush khóa
+ * các session còn pending trước khi ghi và bỏ câu trả lời của session đã được ghi (replay từ node
+ * khác khi flush bị trễ), nên không câu trả lời nào được áp hai lần. Batch flush lỗi quá số lần cho phép
+ * bị bỏ khỏi bộ nhớ; các session của nó (cùng session của node đã crash) vẫn pending và được
+ * replay từ session_vocabularies: lúc khởi động và định kỳ, mỗi chunk được nhận bằng
+ * FOR UPDATE SKIP LOCKED và ghi trong cùng transaction, nên nhiều node không replay trùng.
+ */
+@Component
+@Slf4j
+public class ProgressWriteBehindQueue {
+
+    /**
+     * Session pending đủ lâu (node hoàn thành nó đã crash hoặc đã bỏ batch), khóa lại để replay
+     */
+    private static final String CLAIM_PENDING_SQL =
+        "SELECT session_id FROM learning_sessions " +
+        "WHERE progress_pending = true AND completed_at < :cutoff AND session_id > :afterId " +
+        "ORDER BY session_id LIMIT :limit FOR UPDATE SKIP LOCKED";
+
+    /**
+     * Khóa các session của batch flush còn chờ ghi; session đã được replay (progress_pending = false) bị loại
+     */
+    private static final String LOCK_PENDING_SQL =
+        "SELECT session_id FROM learning_sessions WHERE session_id IN (:sessionIds) AND progress_pending = true " +
+        "ORDER BY session_id FOR UPDATE";
+
+    private static final String CLAIM_SESSION_SQL =
+        "SELECT session_id FROM learning_sessions WHERE session_id = :sessionId AND progress_pending = true " +
+        "FOR UPDATE SKIP LOCKED";
+
+    private final ProgressWriteBehindProperties properties;
+    private final ProgressUpsert progressUpsert;
+    private final UserVocabProgressRepository progressRepository;
+    private final LearningSessionRepository sessionRepository;
+    private final SessionVocabularyRepository sessionVocabRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Partition[] partitions;
+    private final AtomicBoolean replaying = new AtomicBoolean();
+    // Số lần replay lỗi theo session; đạt giới hạn thì session bị bỏ qua tới khi khởi động lại
+    private final Map<Long, Integer> replayFailures = new ConcurrentHashMap<>();
+
+    public ProgressWriteBehindQueue(ProgressWriteBehindProperties properties,
+                                    ProgressUpsert progressUpsert,
+                                    UserVocabProgressRepository progressRepository,
+                                    LearningSessionRepository sessionRepository,
+                                    SessionVocabularyRepository sessionVocabRepository,
+                                    NamedParameterJdbcTemplate jdbcTemplate,
+                                    ApplicationEventPublisher eventPublisher,
+                                    PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.progressUpsert = progressUpsert;
+        this.progressRepository = progressRepository;
+        this.sessionRepository = sessionRepository;
+        this.sessionVocabRepository = sessionVocabRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Flush có thể chạy trong afterCommit của transaction khác
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.partitions = new Partition[Math.max(1, properties.getPartitions())];
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new Partition();
+        }
+    }
+
+    /**
+     * Đưa các câu trả lời của một session vào hàng đợi.
+     * Nếu đang trong transaction, chỉ enqueue sau khi commit.
+     */
+    public void enqueueSession(Long sessionId, String userId, List<SessionVocabulary> sessionVocabs) {
+        List<Answer> answers = new ArrayList<>(sessionVocabs.size());
+        for (SessionVocabulary sv : sessionVocabs) {
+            if (sv.getUserAnswer() == null) continue; // Skip unanswered
+            answers.add(new Answer(sv.getVocab().getVocabId(),
+                sv.getUserAnswer() == SessionVocabulary.AnswerType.CORRECT));
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(sessionId, userId, answers);
+                }
+            });
+        } else {
+            enqueue(sessionId, userId, answers);
+        }
+    }
+
+    /**
+     * Đưa nhiều session (sessionId → userId) vào hàng đợi, câu trả lời được đọc bằng một query.
+     * Nếu đang trong transaction, chỉ enqueue sau khi commit.
+     */
+    public void enqueueSessions(Map<Long, String> sessionUsers) {
+        if (sessionUsers.isEmpty()) {
+            return;
+        }
+        Map<Long, List<Answer>> sessionAnswers = new HashMap<>();
+        for (Object[] row : sessionVocabRepository.findAnswersBySessionIds(sessionUsers.keySet())) {
+            sessionAnswers.computeIfAbsent((Long) row[0], k -> new ArrayList<>())
+                .add(new Answer((Integer) row[2], row[3] == SessionVocabulary.AnswerType.CORRECT));
+        }
+
+        // Session không có câu trả lời vẫn được enqueue để flush đánh dấu đã xử lý
+        Runnable enqueueAll = () -> sessionUsers.forEach((sessionId, userId) ->
+            enqueue(sessionId, userId, sessionAnswers.getOrDefault(sessionId, List.of())));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueueAll.run();
+                }
+            });
+        } else {
+            enqueueAll.run();
+        }
+    }
+
+    /**
+     * Số (user, vocab) đang chờ ghi
+     */
+    public int pendingCount() {
+        int total = 0;
+        for (Partition partition : partitions) {
+            synchronized (partition) {
+                total += partition.pending.size();
+            }
+        }
+        return total;
+    }
+
+    @Scheduled(fixedDelayString = "${app.progress.write-behind.flush-interval-ms:1000}")
+    public void flushAll() {
+        for (Partition partition : partitions) {
+            flush(partition);
+        }
+    }
+
+    /**
+     * Replay các session đã complete nhưng progress chưa được ghi (crash/restart, batch bị bỏ).
+     * Chỉ nhận session pending lâu hơn replay-after-ms: session mới hơn có thể còn trong hàng đợi của node khác.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.progress.write-behind.replay-interval-ms:60000}",
+               initialDelayString = "${app.progress.write-behind.replay-interval-ms:60000}")
+    public void replayPendingSessions() {
+        if (!replaying.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(properties.getReplayAfterMs()));
+            int limit = Math.max(1, properties.getBatchSize());
+            long afterId = 0;
+            int replayed = 0;
+            while (true) {
+                long from = afterId;
+                List<Long> claimed = new ArrayList<>();
+                RuntimeException[] failure = new RuntimeException[1];
+                transactionTemplate.executeWithoutResult(status -> {
+                    claimed.addAll(jdbcTemplate.queryForList(CLAIM_PENDING_SQL, new MapSqlParameterSource()
+                        .addValue("cutoff", cutoff)
+                        .addValue("afterId", from)
+                        .addValue("limit", limit), Long.class));
+                    List<Long> sessionIds = claimed.stream().filter(id -> !isDeadLetter(id)).toList();
+                    try {
+                        replay(sessionIds);
+                    } catch (RuntimeException e) {
+                        failure[0] = e;
+                        status.setRollbackOnly();
+                    }
+                });
+                if (claimed.isEmpty()) {
+                    break;
+                }
+                if (failure[0] == null) {
+                    replayed += (int) claimed.stream().filter(id -> !isDeadLetter(id)).count();
+                } else {
+                    // Tách chunk lỗi thành từng session để tìm session hỏng
+                    log.warn("Failed to replay {} pending sessions, retrying one by one: {}",
+                        claimed.size(), failure[0].getMessage());
+                    for (Long sessionId : claimed) {
+                        if (!isDeadLetter(sessionId) && replayOne(sessionId)) {
+                            replayed++;
+                        }
+                    }
+                }
+                afterId = claimed.get(claimed.size() - 1);
+            }
+            if (replayed > 0) {
+                log.info("Replayed progress of {} pending sessions", replayed);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to replay pending sessions, will retry: {}", e.getMessage());
+        } finally {
+            replaying.set(false);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushAll();
+    }
+
+    private boolean replayOne(Long sessionId) {
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                List<Long> claimed = jdbcTemplate.queryForList(CLAIM_SESSION_SQL,
+                    new MapSqlParameterSource("sessionId", sessionId), Long.class);
+                replay(claimed);
+                return !claimed.isEmpty();
+            }));
+        } catch (RuntimeException e) {
+            int failures = replayFailures.merge(sessionId, 1, Integer::sum);
+            if (failures >= properties.getMaxReplayAttempts()) {
+                log.error("Giving up replaying progress of session {} after {} attempts, skipped until restart: {}",
+                    sessionId, failures, e.getMessage());
+            } else {
+                log.warn("Failed to replay progress of session {} (attempt {}): {}", sessionId, failures, e.getMessage());
+            }
+            return false;
+        }
+    }
+
+    private boolean isDeadLetter(Long sessionId) {
+        return replayFailures.getOrDefault(sessionId, 0) >= properties.getMaxReplayAttempts();
+    }
+
+    /**
+     * Ghi progress của các session đã được khóa trong transaction hiện tại, theo thứ tự trả lời
+     */
+    private void replay(List<Long> sessionIds) {
+        if (sessionIds.isEmpty()) {
+            return;
+        }
+        Map<ProgressKey, PendingProgress> pending = new LinkedHashMap<>();
+        for (Object[] row : sessionVocabRepository.findAnswersBySessionIds(sessionIds)) {
+            pending.computeIfAbsent(new ProgressKey((String) row[1], (Integer) row[2]), k -> new PendingProgress())
+                .add((Long) row[0], row[3] == SessionVocabulary.AnswerType.CORRECT);
+        }
+        // Session không có câu trả lời nào vẫn được đánh dấu đã xử lý
+        write(pending, new HashSet<>(sessionIds));
+    }
+
+    private void enqueue(Long sessionId, String userId, List<Answer> answers) {
+        Partition partition = partitionFor(userId);
+        boolean overflow;
+        synchronized (partition) {
+            for (Answer answer : answers) {
+                partition.pending
+                    .computeIfAbsent(new ProgressKey(userId, answer.vocabId()), k -> new PendingProgress())
+                    .add(sessionId, answer.correct());
+            }
+            partition.sessionIds.add(sessionId);
+            overflow = partition.pending.size() >= properties.getMaxPendingPerPartition();
+        }
+        // Back-pressure: partition đầy thì thread gọi tự flush thay vì bỏ bớt dữ liệu
+        if (overflow) {
+            flush(partition);
+        }
+    }
+
+    private void flush(Partition partition) {
+        partition.flushLock.lock();
+        try {
+            Map<ProgressKey, PendingProgress> drained;
+            Set<Long> sessionIds;
+            synchronized (partition) {
+                if (partition.pending.isEmpty() && partition.sessionIds.isEmpty()) {
+                    return;
+                }
+                drained = partition.pending;
+                sessionIds = partition.sessionIds;
+                partition.pending = new LinkedHashMap<>();
+                partition.sessionIds = new HashSet<>();
+            }
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(drained, sessionIds));
+                partition.failures = 0;
+                log.debug("Flushed {} progress updates ({} sessions)", drained.size(), sessionIds.size());
+            } catch (RuntimeException e) {
+                if (++partition.failures < properties.getMaxFlushAttempts()) {
+                    log.warn("Failed to flush {} progress updates (attempt {}), will retry: {}",
+                        drained.size(), partition.failures, e.getMessage());
+                    requeue(partition, drained, sessionIds);
+                } else {
+                    // Session vẫn progress_pending trong DB nên được replay sau replay-after-ms
+                    log.error("Dropping {} progress updates of sessions {} after {} failed flushes, left for replay: {}",
+                        drained.size(), sessionIds, partition.failures, e.getMessage());
+                    partition.failures = 0;
+                }
+            }
+        } finally {
+            partition.flushLock.unlock();
+        }
+    }
+
+    private void write(Map<ProgressKey, PendingProgress> drained, Set<Long> sessionIds) {
+        LocalDateTime now = LocalDateTime.now();
+        int batchSize = Math.max(1, properties.getBatchSize());
+
+        // Chỉ ghi câu trả lời của session còn pending, khóa tới khi commit
+        Set<Long> claimed = lockPending(sessionIds, batchSize);
+        Map<ProgressKey, PendingProgress> applicable = new LinkedHashMap<>();
+        drained.forEach((key, pending) -> {
+            PendingProgress kept = pending.retain(claimed);
+            if (kept.count > 0) {
+                applicable.put(key, kept);
+            }
+        });
+        if (claimed.size() < sessionIds.size()) {
+            log.debug("Skipped {} sessions whose progress was already applied", sessionIds.size() - claimed.size());
+        }
+
+        // Vòng thứ i ghi câu trả lời thứ i của mọi (user, vocab) còn câu trả lời, giữ đúng thứ tự trả lời
+        int rounds = applicable.values().stream().mapToInt(pending -> pending.count).max().orElse(0);
+        for (int round = 0; round < rounds; round++) {
+            List<SqlParameterSource> batch = new ArrayList<>(applicable.size());
+            for (Map.Entry<ProgressKey, PendingProgress> entry : applicable.entrySet()) {
+                PendingProgress pending = entry.getValue();
+                if (round < pending.count) {
+                    batch.add(progressUpsert.params(entry.getKey().userId(), entry.getKey().vocabId(),
+                        pending.outcomes.get(round), now));
+                }
+            }
+            for (int i = 0; i < batch.size(); i += batchSize) {
+                progressUpsert.applyBatch(batch.subList(i, Math.min(i + batchSize, batch.size()))
+                    .toArray(new SqlParameterSource[0]));
+            }
+        }
+
+        Map<String, Set<Integer>> byUser = new LinkedHashMap<>();
+        applicable.keySet().forEach(key ->
+            byUser.computeIfAbsent(key.userId(), k -> new HashSet<>()).add(key.vocabId()));
+        List<ProgressChangedEvent> events = new ArrayList<>(applicable.size());
+        byUser.forEach((userId, vocabIds) -> {
+            for (Object[] row : progressRepository.findNextReviewAtByUserIdAndVocabIds(userId, vocabIds)) {
+                events.add(ProgressChangedEvent.scheduled(userId, (Integer) row[0], (LocalDateTime) row[1]));
+            }
+        });
+
+        if (!claimed.isEmpty()) {
+            sessionRepository.markProgressApplied(claimed);
+        }
+        // Phát trong transaction để listener chỉ chạy sau khi batch commit
+        events.forEach(eventPublisher::publishEvent);
+    }
+
+    private Set<Long> lockPending(Set<Long> sessionIds, int chunkSize) {
+        Set<Long> claimed = new HashSet<>(sessionIds.size());
+        List<Long> sorted = sessionIds.stream().sorted().toList();
+        for (int i = 0; i < sorted.size(); i += chunkSize) {
+            claimed.addAll(jdbcTemplate.queryForList(LOCK_PENDING_SQL,
+                new MapSqlParameterSource("sessionIds", sorted.subList(i, Math.min(i + chunkSize, sorted.size()))),
+                Long.class));
+        }
+        return claimed;
+    }
+
+    /**
+     * Trả batch lỗi về partition, giữ thứ tự: câu trả lời cũ đứng trước câu trả lời mới
+     */
+    private void requeue(Partition partition, Map<ProgressKey, PendingProgress> drained, Set<Long> sessionIds) {
+        synchronized (partition) {
+            partition.pending.forEach((key, newer) ->
+                drained.computeIfAbsent(key, k -> new PendingProgress()).append(newer));
+            partition.pending = drained;
+            partition.sessionIds.addAll(sessionIds);
+        }
+    }
+
+    private Partition partitionFor(String userId) {
+        return partitions[Math.floorMod(userId.hashCode(), partitions.length)];
+    }
+
+    private static final class Partition {
+        final ReentrantLock flushLock = new ReentrantLock();
+        // Số lần flush lỗi liên tiếp, chỉ đọc/ghi khi giữ flushLock
+        int failures;
+        Map<ProgressKey, PendingProgress> pending = new LinkedHashMap<>();
+        Set<Long> sessionIds = new HashSet<>();
+    }
+
+    /**
+     * Chuỗi kết quả (đúng/sai) theo thứ tự của một (user, vocab) chưa được ghi, kèm session của từng kết quả
+     */
+    private static final class PendingProgress {
+        final BitSet outcomes = new BitSet();
+        long[] sessionIds = new long[1];
+        int count;
+
+        void add(long sessionId, boolean correct) {
+            if (count == sessionIds.length) {
+                sessionIds = Arrays.copyOf(sessionIds, count * 2);
+            }
+            sessionIds[count] = sessionId;
+            outcomes.set(count++, correct);
+        }
+
+        void append(PendingProgress other) {
+            for (int i = 0; i < other.count; i++) {
+                add(other.sessionIds[i], other.outcomes.get(i));
+            }
+        }
+
+        /**
+         * Các kết quả thuộc những session trong {@code sessions}, giữ thứ tự
+         */
+        PendingProgress retain(Set<Long> sessions) {
+            PendingProgress kept = new PendingProgress();
+            for (int i = 0; i < count; i++) {
+                if (sessions.contains(sessionIds[i])) {
+                    kept.add(sessionIds[i], outcomes.get(i));
+                }
+            }
+            return kept;
+        }
+    }
+
+    private record ProgressKey(String userId, Integer vocabId) {
+    }
+
+    private record Answer(Integer vocabId, boolean correct) {
+    }
+}
@@ -0,0 +1,236 @@
+package com.englishvocab.service;
+
+import com.englishvocab.config.properties.ReviewPregenerationProperties;
+import com.englishvocab.dto.VocabWithProgressDTO;
+import com.englishvocab.entity.Reviews;
+import com.englishvocab.entity.User;
+import com.englishvocab.event.ProgressChangedEvent;
+import com.englishvocab.event.ReviewCompletedEvent;
+import com.englishvocab.repository.ReviewRepository;
+import com.englishvocab.repository.UserRepository;
+import com.englishvocab.service.review.ReviewQuestionStore;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tạo sẵn lượt ôn tập tiếp theo của user ở background.
+ *
+ * Review được tạo (chọn từ, sinh câu hỏi, ghi DB) trên một pool có giới hạn khi user
+ * nộp bài hoặc khi dashboard thấy số từ đến hạn vượt ngưỡng, và được lưu ở trạng thái
+ * DRAFT. Bắt đầu ôn tập chỉ cần lấy review có sẵn và chuyển sang ACTIVE. Review sẵn
+ * bị bỏ khi progress của user thay đổi (danh sách từ có thể đã khác) hoặc quá cũ.
+ */
+@Component
+@Slf4j
+public class ReviewPregenerator {
+
+    private final ReviewPregenerationProperties properties;
+    private final ReviewService reviewService;
+    private final ReviewRepository reviewRepository;
+    private final UserRepository userRepository;
+    private final ReviewQuestionStore questionStore;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor executor;
+
+    // Review sẵn sàng theo user
+    private final Map<String, Prepared> prepared = new ConcurrentHashMap<>();
+    // Lần tạo đang chạy theo user; bị thay token khi review sắp tạo đã cũ
+    private final Map<String, Long> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong tokens = new AtomicLong();
+
+    public ReviewPregenerator(ReviewPregenerationProperties properties,
+                              ReviewService reviewService,
+                              ReviewRepository reviewRepository,
+                              UserRepository userRepository,
+                              ReviewQuestionStore questionStore,
+                              PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.reviewService = reviewService;
+        this.reviewRepository = reviewRepository;
+        this.userRepository = userRepository;
+        this.questionStore = questionStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        int threads = Math.max(1, properties.getThreads());
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity())), runnable -> {
+                Thread thread = new Thread(runnable, "review-pregen-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Lấy review đã tạo sẵn cho user (và chuyển sang ACTIVE), nếu còn dùng được
+     */
+    public Optional<Reviews> take(User user) {
+        Prepared entry = prepared.remove(user.getId());
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (entry.isExpired(properties.getMaxAge().toMillis())) {
+            deleteDrafts(List.of(entry.reviewId()));
+            return Optional.empty();
+        }
+        Reviews review = transactionTemplate.execute(status -> reviewRepository.findById(entry.reviewId())
+            .map(draft -> {
+                draft.setStatus(Reviews.Status.ACTIVE);
+                return reviewRepository.save(draft);
+            })
+            .orElse(null));
+        log.debug("Serving pre-generated review {} to user {}", entry.reviewId(), user.getId());
+        return Optional.ofNullable(review);
+    }
+
+    /**
+     * Tạo sẵn review khi số từ đến hạn của user đạt ngưỡng
+     */
+    public void warmUp(User user, long dueCount) {
+        if (dueCount >= properties.getDueThreshold()) {
+            schedule(user.getId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewCompleted(ReviewCompletedEvent event) {
+        schedule(event.userId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProgressChanged(ProgressChangedEvent event) {
+        if (event.isBulk()) {
+            inFlight.clear();
+            List<Integer> reviewIds = new ArrayList<>();
+            prepared.keySet().forEach(userId -> {
+                Prepared entry = prepared.remove(userId);
+                if (entry != null) {
+                    reviewIds.add(entry.reviewId());
+                }
+            });
+            deleteDraftsAsync(reviewIds);
+        } else {
+            inFlight.remove(event.userId());
+            Prepared entry = prepared.remove(event.userId());
+            if (entry != null) {
+                deleteDraftsAsync(List.of(entry.reviewId()));
+            }
+        }
+    }
+
+    /**
+     * Xóa review DRAFT không được dùng (bị bỏ trước khi xóa kịp, hoặc còn lại sau restart)
+     */
+    @Scheduled(fixedDelayString = "${app.review.pregeneration.cleanup-interval-ms:3600000}")
+    public void cleanupExpiredDrafts() {
+        LocalDateTime before = LocalDateTime.now().minus(properties.getMaxAge());
+        List<Integer> reviewIds = reviewRepository.findIdsByStatusAndCreatedAtBefore(Reviews.Status.DRAFT, before);
+        if (!reviewIds.isEmpty()) {
+            deleteDrafts(reviewIds);
+            log.info("Deleted {} unused pre-generated reviews", reviewIds.size());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void schedule(String userId) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Prepared entry = prepared.get(userId);
+        if (entry != null && !entry.isExpired(properties.getMaxAge().toMillis())) {
+            return;
+        }
+        long token = tokens.incrementAndGet();
+        if (inFlight.putIfAbsent(userId, token) != null) {
+            return;
+        }
+        try {
+            executor.execute(() -> generate(userId, token));
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(userId, token);
+            log.debug("Review pre-generation queue full, skipping user {}", userId);
+        }
+    }
+
+    private void generate(String userId, long token) {
+        try {
+            Integer reviewId = transactionTemplate.execute(status -> {
+                User user = userRepository.findById(userId).orElse(null);
+                if (user == null) {
+                    return null;
+                }
+                List<VocabWithProgressDTO> words = reviewService.getReviewWords(user, ReviewService.REVIEW_WORD_COUNT);
+                if (words.isEmpty()) {
+                    return null;
+                }
+                return reviewService.createVocabularyReview(user, words, Reviews.Status.DRAFT).getReviewId();
+            });
+            if (reviewId == null) {
+                inFlight.remove(userId, token);
+                return;
+            }
+            // Progress đổi trong lúc tạo: review này đã cũ
+            if (!inFlight.remove(userId, token)) {
+                deleteDrafts(List.of(reviewId));
+                return;
+            }
+            Prepared previous = prepared.put(userId, new Prepared(reviewId, System.currentTimeMillis()));
+            if (previous != null) {
+                deleteDrafts(List.of(previous.reviewId()));
+            }
+        } catch (RuntimeException e) {
+            inFlight.remove(userId, token);
+            log.warn("Failed to pre-generate review for user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    private void deleteDraftsAsync(List<Integer> reviewIds) {
+        if (reviewIds.isEmpty()) {
+            return;
+        }
+        try {
+            executor.execute(() -> deleteDrafts(reviewIds));
+        } catch (RejectedExecutionException e) {
+            // Job dọn định kỳ sẽ xóa sau
+        }
+    }
+
+    private void deleteDrafts(List<Integer> reviewIds) {
+        // Bộ câu hỏi tạm (chế độ EPHEMERAL) của draft
+        reviewIds.forEach(reviewId -> questionStore.remove(ReviewQuestionStore.reviewKey(reviewId)));
+        try {
+            transactionTemplate.executeWithoutResult(status -> reviewRepository.deleteAllById(reviewIds));
+        } catch (RuntimeException e) {
+            log.warn("Failed to delete pre-generated reviews {}: {}", reviewIds, e.getMessage());
+        }
+    }
+
+    private record Prepared(Integer reviewId, long createdAt) {
+
+        boolean isExpired(long maxAgeMillis) {
+            return System.currentTimeMillis() - createdAt > maxAgeMillis;
+        }
+    }
+}
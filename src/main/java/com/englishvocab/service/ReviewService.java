@@ -5,9 +5,19 @@ import com.englishvocab.dto.ReviewResultDTO;
 import com.englishvocab.dto.ReviewStatsDTO;
 import com.englishvocab.dto.VocabWithProgressDTO;
 import com.englishvocab.entity.*;
+import com.englishvocab.event.ProgressChangedEvent;
+import com.englishvocab.event.ReviewCompletedEvent;
 import com.englishvocab.repository.*;
+import com.englishvocab.config.properties.ReviewQuestionProperties;
+import com.englishvocab.diagnostic.DiagnosticTrace;
+import com.englishvocab.service.due.DueQueue;
+import com.englishvocab.service.review.ReviewQuestionSet;
+import com.englishvocab.service.review.ReviewQuestionStore;
+import com.englishvocab.service.srs.ProgressUpsert;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -29,131 +39,97 @@ public class ReviewService {
     private final ReviewItemsRepository reviewItemsRepository;
     private final ReviewAttemptsRepository reviewAttemptsRepository;
     private final ReviewItemResultsRepository reviewItemResultsRepository;
+    private final ReviewAttemptSummaryRepository reviewAttemptSummaryRepository;
     private final VocabRepository vocabRepository;
+    private final DistractorPool distractorPool;
+    private final ProgressUpsert progressUpsert;
+    private final DueQueue dueQueue;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ReviewQuestionProperties questionProperties;
+    private final ReviewQuestionStore questionStore;
+    
+    // Số từ của một lượt ôn tập (5 trắc nghiệm + 5 đúng/sai + 5 điền từ)
+    public static final int REVIEW_WORD_COUNT = 15;
+    
+    private static final List<String> FALLBACK_MEANINGS = List.of(
+        "từ đồng nghĩa", "từ trái nghĩa", "nghĩa gần giống",
+        "nghĩa khác", "từ liên quan", "nghĩa tương tự"
+    );
     
     /**
-     * Get review statistics for dashboard
+     * Get review statistics for dashboard.
+     * Overdue/today/next-hour counts are range counts on the user's due queue.
      */
     public ReviewStatsDTO getReviewStats(User user) {
-        List<UserVocabProgress> allProgress = progressRepository.findByUser(user);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime startOfToday = now.toLocalDate().atStartOfDay();
         
-        long overdueCount = allProgress.stream()
-            .filter(p -> p.getNextReviewAt() != null && 
-                        LocalDateTime.now().isAfter(p.getNextReviewAt()))
-            .count();
-            
-        long todayCount = allProgress.stream()
-            .filter(p -> p.getNextReviewAt() != null && 
-                        p.getNextReviewAt().toLocalDate().equals(LocalDateTime.now().toLocalDate()))
-            .count();
-            
-        long difficultCount = allProgress.stream()
-            .filter(p -> p.getStatus() == UserVocabProgress.Status.DIFFICULT)
-            .count();
+        long overdueCount = dueQueue.countBetween(user.getId(), null, now);
+        long todayCount = dueQueue.countBetween(user.getId(), startOfToday, startOfToday.plusDays(1));
+        long dueSoonCount = dueQueue.countBetween(user.getId(), now, now.plusHours(1));
+        long difficultCount = progressRepository.countByUserAndStatus(user, UserVocabProgress.Status.DIFFICULT);
             
         return ReviewStatsDTO.builder()
             .overdueCount(overdueCount)
             .todayCount(todayCount)
             .difficultCount(difficultCount)
+            .dueSoonCount(dueSoonCount)
             .totalReviewCount(overdueCount + todayCount)
             .build();
     }
     
     /**
-     * Get words that need review most urgently (overdue/today)
+     * Get words that need review most urgently (overdue/today/box 1).
+     * Filtering, priority ordering and limit run in the database; only the
+     * top-N rows are loaded, with vocab and senses fetched in one query.
      */
     public List<VocabWithProgressDTO> getUrgentReviewWords(User user, int limit) {
-        List<UserVocabProgress> allProgress = progressRepository.findByUser(user);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime startOfTomorrow = now.toLocalDate().plusDays(1).atStartOfDay();
         
-        if (allProgress.isEmpty()) {
-            log.info("No progress records found for user: {}", user.getEmail());
+        List<Integer> ids = progressRepository.findUrgentReviewIds(user.getId(), now, startOfTomorrow, limit);
+        if (ids.isEmpty()) {
+            log.debug("No urgent review words for user: {}", user.getEmail());
             return new ArrayList<>();
         }
         
-        log.info("Found {} progress records for user: {}", allProgress.size(), user.getEmail());
+        Map<Integer, UserVocabProgress> byId = progressRepository.findWithVocabByIdIn(ids).stream()
+            .collect(Collectors.toMap(UserVocabProgress::getVocabProgressId, p -> p, (a, b) -> a));
         
-        // Debug: Log all vocab words
-        for (UserVocabProgress progress : allProgress) {
-            if (progress.getVocab() != null) {
-                log.info("Progress vocab: {} - box: {}, nextReview: {}", 
-                    progress.getVocab().getWord(), progress.getBox(), progress.getNextReviewAt());
-            }
-        }
-        
-        // Get words that need review (overdue or due today)
-        List<UserVocabProgress> urgentWords = allProgress.stream()
-            .filter(progress -> {
-                // Include words that are overdue
-                if (progress.getNextReviewAt() != null && 
-                    LocalDateTime.now().isAfter(progress.getNextReviewAt())) {
-                    return true;
-                }
-                // Include words that are due today
-                if (progress.getNextReviewAt() != null && 
-                    progress.getNextReviewAt().toLocalDate().equals(LocalDateTime.now().toLocalDate())) {
-                    return true;
-                }
-                // Include words that have never been reviewed (box = 1)
-                if (progress.getBox() == 1) {
-                    return true;
-                }
-                return false;
-            })
-            .sorted(priorityComparator)
-            .limit(limit)
-            .collect(Collectors.toList());
-        
-        log.info("Found {} urgent words for review", urgentWords.size());
-        for (UserVocabProgress progress : urgentWords) {
-            if (progress.getVocab() != null) {
-                log.info("Urgent word: {} - box: {}", progress.getVocab().getWord(), progress.getBox());
+        // Keep the priority order computed by the database
+        List<VocabWithProgressDTO> result = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            UserVocabProgress progress = byId.get(id);
+            if (progress != null) {
+                result.add(VocabWithProgressDTO.of(progress.getVocab(), progress));
             }
         }
         
-        List<VocabWithProgressDTO> result = urgentWords.stream()
-            .map(progress -> {
-                VocabWithProgressDTO dto = VocabWithProgressDTO.of(progress.getVocab(), progress);
-                log.info("Created DTO for word: {} (vocab_id: {})", 
-                    dto.getWord(), progress.getVocab() != null ? progress.getVocab().getVocabId() : "NULL");
-                return dto;
-            })
-            .collect(Collectors.toList());
-            
-        log.info("Final result contains {} DTOs", result.size());
-        for (VocabWithProgressDTO dto : result) {
-            log.info("Final DTO word: {} (vocab_id: {})", 
-                dto.getWord(), dto.getVocab() != null ? dto.getVocab().getVocabId() : "NULL");
-        }
-        
+        log.debug("Found {} urgent words for user: {}", result.size(), user.getEmail());
         return result;
     }
     
     /**
-     * Get recently learned words (box 2-4) for practice
+     * Get recently learned words (box 2-4) for practice.
+     * The page of ids is selected in the database, then vocab and senses are fetched in one query.
      */
     public List<VocabWithProgressDTO> getRecentLearnedWords(User user, int limit) {
-        List<UserVocabProgress> allProgress = progressRepository.findByUser(user);
-        
-        if (allProgress.isEmpty()) {
+        List<Integer> ids = progressRepository.findRecentLearnedIds(user, PageRequest.of(0, limit));
+        if (ids.isEmpty()) {
             return new ArrayList<>();
         }
         
-        // Get words that have been learned recently (box 2-4)
-        List<UserVocabProgress> recentWords = allProgress.stream()
-            .filter(progress -> progress.getBox() >= 2 && progress.getBox() <= 4)
-            .sorted((p1, p2) -> {
-                // Sort by last reviewed date (most recent first)
-                if (p1.getLastReviewed() == null && p2.getLastReviewed() == null) return 0;
-                if (p1.getLastReviewed() == null) return 1;
-                if (p2.getLastReviewed() == null) return -1;
-                return p2.getLastReviewed().compareTo(p1.getLastReviewed());
-            })
-            .limit(limit)
-            .collect(Collectors.toList());
-        
-        return recentWords.stream()
-            .map(progress -> VocabWithProgressDTO.of(progress.getVocab(), progress))
-            .collect(Collectors.toList());
+        Map<Integer, UserVocabProgress> byId = progressRepository.findWithVocabByIdIn(ids).stream()
+            .collect(Collectors.toMap(UserVocabProgress::getVocabProgressId, p -> p, (a, b) -> a));
+        
+        List<VocabWithProgressDTO> result = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            UserVocabProgress progress = byId.get(id);
+            if (progress != null) {
+                result.add(VocabWithProgressDTO.of(progress.getVocab(), progress));
+            }
+        }
+        return result;
     }
     
     /**
@@ -177,109 +153,72 @@ public class ReviewService {
     }
     
     /**
-     * Create a vocabulary review session
+     * Create a vocabulary review session.
+     * The review row is written once and all questions are inserted with a single
+     * batched saveAll; question order is carried by sessionOrder, not insert order.
      */
     public Reviews createVocabularyReview(User user, List<VocabWithProgressDTO> words) {
-        log.info("Creating review session with {} words", words.size());
-        for (VocabWithProgressDTO word : words) {
-            log.info("Review word: {} (vocab_id: {})", 
-                word.getWord(), word.getVocab() != null ? word.getVocab().getVocabId() : "NULL");
-        }
-        
+        return createVocabularyReview(user, words, Reviews.Status.ACTIVE);
+    }
+    
+    /**
+     * Create a vocabulary review with the given status
+     * (DRAFT for reviews pre-generated in the background until the user starts them).
+     * In EPHEMERAL mode only the review row is written; the questions go to the question store.
+     */
+    public Reviews createVocabularyReview(User user, List<VocabWithProgressDTO> words, Reviews.Status status) {
         Reviews review = Reviews.builder()
             .title("Ôn tập từ vựng - " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")))
-            .status(Reviews.Status.ACTIVE)
+            .status(status)
             .reviewType(Reviews.ReviewType.VOCABULARY_REVIEW)
             .timeLimitSec(1080) // 18 phút
-            .numItems(15)
             .passScore(70)
             .build();
-            
-        review = reviewRepository.save(review);
         
-        // Create 15 review questions (5 Multiple Choice + 5 True/False + 5 Fill in Blank)
-        createReviewQuestions(review, words);
+        // Create up to 15 review questions (5 Multiple Choice + 5 True/False + 5 Fill in Blank)
+        List<ReviewItems> questions = createReviewQuestions(review, words);
+        review.setNumItems(questions.size());
+        
+        review = reviewRepository.save(review);
+        if (isEphemeral()) {
+            questionStore.put(ReviewQuestionStore.reviewKey(review.getReviewId()),
+                ReviewQuestionSet.of(user.getId(), review.getReviewId(), questions));
+        } else {
+            reviewItemsRepository.saveAll(questions);
+        }
         
+        log.info("Created review {} with {} questions for user: {}", 
+            review.getReviewId(), questions.size(), user.getEmail());
         return review;
     }
     
     /**
-     * Create review questions for 3 modes
+     * Create review questions for 3 modes (not persisted)
      */
-    private void createReviewQuestions(Reviews review, List<VocabWithProgressDTO> words) {
-        try {
-            log.info("Creating review questions for review ID: {} with {} words", review.getReviewId(), words.size());
-            
-            List<ReviewItems> questions = new ArrayList<>();
-            int wordCount = words.size();
-            
-            // Calculate questions per type based on available words
-            int multipleChoiceCount = Math.min(5, wordCount);
-            int trueFalseCount = Math.min(5, Math.max(0, wordCount - 5));
-            int fillInBlankCount = Math.min(5, Math.max(0, wordCount - 10));
-            
-            log.info("Question distribution: MC={}, TF={}, FB={}", multipleChoiceCount, trueFalseCount, fillInBlankCount);
-            
-            // Multiple Choice questions
-            for (int i = 0; i < multipleChoiceCount; i++) {
-                VocabWithProgressDTO word = words.get(i);
-                log.info("Creating MC question for word: {} (vocab_id: {})", 
-                    word.getWord(), word.getVocab() != null ? word.getVocab().getVocabId() : "NULL");
-                ReviewItems question = createMultipleChoiceQuestion(review, word);
-                question.setSessionOrder(i);
-                questions.add(question);
-            }
-            
-            // True/False questions
-            for (int i = multipleChoiceCount; i < multipleChoiceCount + trueFalseCount; i++) {
-                VocabWithProgressDTO word = words.get(i);
-                log.info("Creating TF question for word: {} (vocab_id: {})", 
-                    word.getWord(), word.getVocab() != null ? word.getVocab().getVocabId() : "NULL");
-                ReviewItems question = createTrueFalseQuestion(review, word);
-                question.setSessionOrder(i);
-                questions.add(question);
-            }
-            
-            // Fill in Blank questions
-            for (int i = multipleChoiceCount + trueFalseCount; i < multipleChoiceCount + trueFalseCount + fillInBlankCount; i++) {
-                VocabWithProgressDTO word = words.get(i);
-                log.info("Creating FB question for word: {} (vocab_id: {})", 
-                    word.getWord(), word.getVocab() != null ? word.getVocab().getVocabId() : "NULL");
-                ReviewItems question = createFillInBlankQuestion(review, word);
-                question.setSessionOrder(i);
-                questions.add(question);
-            }
-            
-            log.info("Created {} questions, saving to database", questions.size());
-            
-            // Debug: Log question types
-            for (int i = 0; i < questions.size(); i++) {
-                ReviewItems question = questions.get(i);
-                log.info("Question {}: type={}, word={}, answer={}", 
-                    i + 1, question.getType(), 
-                    question.getVocab() != null ? question.getVocab().getWord() : "NULL",
-                    question.getAnswer());
-            }
-            
-            // Update review with actual number of items
-            review.setNumItems(questions.size());
-            reviewRepository.save(review);
-            
-            // Save questions one by one to ensure order
-            for (int i = 0; i < questions.size(); i++) {
-                ReviewItems question = questions.get(i);
-                question = reviewItemsRepository.save(question);
-                questions.set(i, question); // Update with saved entity
-                log.info("Saved question {}: id={}, type={}, word={}", 
-                    i + 1, question.getReviewItemId(), question.getType(),
-                    question.getVocab() != null ? question.getVocab().getWord() : "NULL");
+    private List<ReviewItems> createReviewQuestions(Reviews review, List<VocabWithProgressDTO> words) {
+        List<ReviewItems> questions = new ArrayList<>();
+        int wordCount = words.size();
+        
+        // Calculate questions per type based on available words
+        int multipleChoiceCount = Math.min(5, wordCount);
+        int trueFalseCount = Math.min(5, Math.max(0, wordCount - 5));
+        int fillInBlankCount = Math.min(5, Math.max(0, wordCount - 10));
+        
+        for (int i = 0; i < multipleChoiceCount + trueFalseCount + fillInBlankCount; i++) {
+            VocabWithProgressDTO word = words.get(i);
+            ReviewItems question;
+            if (i < multipleChoiceCount) {
+                question = createMultipleChoiceQuestion(review, word);
+            } else if (i < multipleChoiceCount + trueFalseCount) {
+                question = createTrueFalseQuestion(review, word);
+            } else {
+                question = createFillInBlankQuestion(review, word);
             }
-            log.info("Successfully saved {} review questions", questions.size());
-            
-        } catch (Exception e) {
-            log.error("Error creating review questions for review ID: {}", review.getReviewId(), e);
-            throw e;
+            question.setSessionOrder(i);
+            questions.add(question);
         }
+        
+        return questions;
     }
     
     /**
@@ -289,10 +228,10 @@ public class ReviewService {
         // Get correct meaning - force load senses to avoid lazy loading issues
         String correctMeaning = getCorrectMeaning(word.getVocab());
         
-        log.info("Creating MC question for word: {} with meaning: {}", word.getWord(), correctMeaning);
+        DiagnosticTrace.record("Creating MC question for word: {} with meaning: {}", word.getWord(), correctMeaning);
         
-        // Get 3 wrong meanings from database
-        List<String> wrongMeanings = getRandomMeanings(correctMeaning, 3);
+        // Get 3 wrong meanings from the distractor pool (same dictionary/level/POS first)
+        List<String> wrongMeanings = getRandomMeanings(word.getVocab(), correctMeaning, 3);
         
         // Create 4 options: 1 correct + 3 wrong (without A/B/C/D prefix)
         List<String> options = new ArrayList<>();
@@ -305,8 +244,8 @@ public class ReviewService {
         // Find correct answer index after shuffling
         int correctIndex = options.indexOf(correctMeaning);
         
-        log.info("MC question options: {} (correct at index: {})", options, correctIndex);
-        log.info("MC question - word: {}, correctMeaning: {}, correctIndex: {}", 
+        DiagnosticTrace.record("MC question options: {} (correct at index: {})", options, correctIndex);
+        DiagnosticTrace.record("MC question - word: {}, correctMeaning: {}, correctIndex: {}", 
             word.getWord(), correctMeaning, correctIndex);
         
         return ReviewItems.builder()
@@ -338,7 +277,7 @@ public class ReviewService {
             answer = "TRUE";
         } else {
             // Case 2: Word + wrong meaning -> User should answer FALSE
-            String wrongMeaning = getRandomMeaning(correctMeaning);
+            String wrongMeaning = getRandomMeaning(word.getVocab(), correctMeaning);
             prompt = word.getWord() + " có nghĩa là " + wrongMeaning;
             answer = "FALSE";
         }
@@ -373,51 +312,28 @@ public class ReviewService {
     }
     
     /**
-     * Get random meanings from database (excluding the correct answer)
+     * Get random meanings from the in-memory distractor pool (excluding the correct answer)
      */
-    private List<String> getRandomMeanings(String correctMeaning, int count) {
-        try {
-            // Get random meanings from database, excluding the correct one
-            List<String> randomMeanings = vocabRepository.findRandomMeaningsExcluding(correctMeaning, count * 2);
-            
-            // If we don't have enough from database, fill with fallback meanings
-            if (randomMeanings.size() < count) {
-                List<String> fallbackMeanings = Arrays.asList(
-                    "từ đồng nghĩa", "từ trái nghĩa", "nghĩa gần giống",
-                    "nghĩa khác", "từ liên quan", "nghĩa tương tự"
-                );
-                
-                // Add fallback meanings that aren't already included
-                for (String fallback : fallbackMeanings) {
-                    if (!randomMeanings.contains(fallback) && randomMeanings.size() < count) {
-                        randomMeanings.add(fallback);
-                    }
+    private List<String> getRandomMeanings(Vocab vocab, String correctMeaning, int count) {
+        List<String> randomMeanings = distractorPool.sample(vocab, correctMeaning, count);
+        
+        // If the pool doesn't have enough meanings, fill with fallback meanings
+        if (randomMeanings.size() < count) {
+            for (String fallback : FALLBACK_MEANINGS) {
+                if (!randomMeanings.contains(fallback) && randomMeanings.size() < count) {
+                    randomMeanings.add(fallback);
                 }
             }
-            
-            // Shuffle and return the requested count
-            Collections.shuffle(randomMeanings);
-            return randomMeanings.subList(0, Math.min(count, randomMeanings.size()));
-            
-        } catch (Exception e) {
-            log.warn("Error getting random meanings from database, using fallback: {}", e.getMessage());
-            
-            // Fallback to hardcoded meanings
-            List<String> fallbackMeanings = Arrays.asList(
-                "từ đồng nghĩa", "từ trái nghĩa", "nghĩa gần giống",
-                "nghĩa khác", "từ liên quan", "nghĩa tương tự"
-            );
-            
-            Collections.shuffle(fallbackMeanings);
-            return fallbackMeanings.subList(0, Math.min(count, fallbackMeanings.size()));
         }
+        
+        return randomMeanings;
     }
     
     /**
      * Get a single random meaning (for True/False questions)
      */
-    private String getRandomMeaning(String correctMeaning) {
-        List<String> randomMeanings = getRandomMeanings(correctMeaning, 1);
+    private String getRandomMeaning(Vocab vocab, String correctMeaning) {
+        List<String> randomMeanings = getRandomMeanings(vocab, correctMeaning, 1);
         return randomMeanings.isEmpty() ? "nghĩa khác" : randomMeanings.get(0);
     }
     
@@ -433,7 +349,7 @@ public class ReviewService {
             // Force load senses by accessing the collection
             if (vocab.getSenses() != null && !vocab.getSenses().isEmpty()) {
                 String meaning = vocab.getSenses().get(0).getMeaningVi();
-                log.info("Loaded meaning for vocab {}: {}", vocab.getWord(), meaning);
+                DiagnosticTrace.record("Loaded meaning for vocab {}: {}", vocab.getWord(), meaning);
                 return meaning;
             } else {
                 log.warn("No senses found for vocab: {}", vocab.getWord());
@@ -446,115 +362,96 @@ public class ReviewService {
     }
     
     /**
-     * Generate wrong answers for multiple choice (legacy method - deprecated)
-     * @deprecated Use getRandomMeanings() instead
-     */
-    @Deprecated
-    private List<String> generateWrongAnswers(String correctAnswer) {
-        return getRandomMeanings(correctAnswer, 3);
-    }
-    
-    /**
-     * Start review attempt
+     * Start review attempt (an ephemeral question set is re-keyed from the review to the attempt)
      */
     public ReviewAttempts startReviewAttempt(User user, Reviews review) {
-        return reviewAttemptsRepository.save(ReviewAttempts.builder()
+        ReviewAttempts attempt = reviewAttemptsRepository.save(ReviewAttempts.builder()
             .user(user)
             .review(review)
             .attemptType(ReviewAttempts.AttemptType.REVIEW)
             .startedAt(LocalDateTime.now())
             .maxScore(review.getNumItems())
             .build());
+        if (isEphemeral()) {
+            ReviewQuestionSet questionSet = questionStore.remove(ReviewQuestionStore.reviewKey(review.getReviewId()));
+            if (questionSet != null) {
+                questionStore.put(ReviewQuestionStore.attemptKey(attempt.getReviewAttemptId()), questionSet);
+            }
+        }
+        return attempt;
     }
     
     /**
      * Process answer and update progress
      */
     public void processAnswer(Integer attemptId, Integer itemId, String userAnswer) {
-        ReviewAttempts attempt = reviewAttemptsRepository.findById(attemptId)
-            .orElseThrow(() -> new RuntimeException("Attempt not found"));
-            
-        ReviewItems item = reviewItemsRepository.findById(itemId)
-            .orElseThrow(() -> new RuntimeException("Item not found"));
-            
-        boolean isCorrect = checkAnswer(item, userAnswer);
-        
-        // Save result
-        reviewItemResultsRepository.save(ReviewItemResults.builder()
-            .reviewItem(item)
-            .reviewAttempt(attempt)
-            .isCorrect(isCorrect)
-            .score(isCorrect ? 1 : 0)
-            .userAnswer(userAnswer)
-            .build());
-            
-        // Update UserVocabProgress
-        if (item.getVocab() != null) {
-            log.info("Updating progress for vocab: {} (vocab_id: {})", 
-                item.getVocab().getWord(), item.getVocab().getVocabId());
-            updateUserProgress(attempt.getUser(), item.getVocab(), isCorrect);
-        } else {
-            log.warn("Item vocab is NULL for itemId: {}", itemId);
-        }
+        processAnswerWithResult(attemptId, itemId, userAnswer);
     }
     
     /**
-     * Process answer and return detailed result
+     * Process answer and return detailed result.
+     * Item, vocab and senses are read in one query (or the item comes from the
+     * ephemeral question set of the attempt); the result row is inserted and
+     * progress is upserted with a single statement.
      */
     public ReviewAnswerResult processAnswerWithResult(Integer attemptId, Integer itemId, String userAnswer) {
-        ReviewAttempts attempt = reviewAttemptsRepository.findById(attemptId)
-            .orElseThrow(() -> new RuntimeException("Attempt not found"));
-            
-        // Try to find ReviewItems by ID first, then by sessionOrder as fallback
-        ReviewItems item = reviewItemsRepository.findById(itemId)
-            .orElseGet(() -> {
-                log.warn("ReviewItems not found by ID: {}, trying to find by sessionOrder", itemId);
-                // If itemId looks like a sessionOrder (1-15), try to find by sessionOrder
-                if (itemId >= 1 && itemId <= 15) {
-                    return reviewItemsRepository.findByReviewAndSessionOrder(attempt.getReview(), itemId - 1)
-                        .orElseThrow(() -> new RuntimeException("Item not found by sessionOrder: " + (itemId - 1)));
-                }
+        ReviewItems item;
+        String userId;
+        String word;
+        String meaning;
+        
+        ReviewQuestionSet questionSet = null;
+        if (isEphemeral()) {
+            // Không có review_items để tra lại: bộ câu hỏi hết TTL thì attempt không thể tiếp tục
+            questionSet = questionStore.get(ReviewQuestionStore.attemptKey(attemptId));
+            if (questionSet == null) {
+                throw new RuntimeException("Question set expired for attempt: " + attemptId);
+            }
+        }
+        if (questionSet != null) {
+            ReviewQuestionSet.Question question = questionSet.question(itemId);
+            if (question == null) {
                 throw new RuntimeException("Item not found by ID: " + itemId);
-            });
-            
-        log.info("Processing answer for itemId: {}, actualReviewItemId: {}, word: {}, type: {}, answer: {}, userAnswer: {}", 
-            itemId, 
-            item.getReviewItemId(),
-            item.getVocab() != null ? item.getVocab().getWord() : "NULL",
-            item.getType(),
-            item.getAnswer(),
-            userAnswer);
+            }
+            item = questionSet.toItem(itemId);
+            userId = questionSet.userId();
+            word = question.word();
+            meaning = question.meaning();
+        } else {
+            Object[] context = findAnswerContext(attemptId, itemId);
+            item = (ReviewItems) context[0];
+            userId = (String) context[1];
+            word = item.getVocab() != null ? item.getVocab().getWord() : "Unknown";
+            meaning = item.getVocab() != null ? item.getVocab().getPrimaryMeaning() : "Unknown";
+        }
             
         boolean isCorrect = checkAnswer(item, userAnswer);
         
-        // Save result
+        // Save result (attempt and vocab are only referenced, not loaded)
+        Integer vocabId = item.getVocab() != null ? item.getVocab().getVocabId() : null;
         reviewItemResultsRepository.save(ReviewItemResults.builder()
-            .reviewItem(item)
-            .reviewAttempt(attempt)
+            .reviewItem(questionSet != null ? null : item)
+            .vocab(vocabId != null ? vocabRepository.getReferenceById(vocabId) : null)
+            .questionType(item.getType())
+            .reviewAttempt(reviewAttemptsRepository.getReferenceById(attemptId))
             .isCorrect(isCorrect)
             .score(isCorrect ? 1 : 0)
             .userAnswer(userAnswer)
             .build());
             
         // Update UserVocabProgress
-        if (item.getVocab() != null) {
-            log.info("Updating progress for vocab: {} (vocab_id: {})", 
-                item.getVocab().getWord(), item.getVocab().getVocabId());
-            updateUserProgress(attempt.getUser(), item.getVocab(), isCorrect);
+        if (vocabId != null) {
+            updateUserProgress(userId, vocabId, word, isCorrect);
         } else {
             log.warn("Item vocab is NULL for itemId: {}", itemId);
         }
         
-        // Prepare result details based on question type
-        String word = item.getVocab() != null ? item.getVocab().getWord() : "Unknown";
-        String meaning = item.getVocab() != null ? item.getVocab().getPrimaryMeaning() : "Unknown";
-        
-        log.info("Processing result for itemId: {}, word: {}, type: {}, answer: {}", 
+        DiagnosticTrace.record("Processing result for itemId: {}, word: {}, type: {}, answer: {}", 
             itemId, word, item.getType(), item.getAnswer());
         
         return switch (item.getType()) {
             case MULTIPLE_CHOICE -> {
-                log.info("Processing MULTIPLE_CHOICE case for itemId: {}", itemId);
+                DiagnosticTrace.record("Processing MULTIPLE_CHOICE case for itemId: {}", itemId);
                 String[] options = item.getOptionsArray();
                 int correctIndex;
                 try {
@@ -569,20 +466,20 @@ public class ReviewService {
                     }
                 }
                 String correctText = options[correctIndex];
-                log.info("MC Result - word: {}, options: {}, correctIndex: {}, correctText: {}", 
-                    word, java.util.Arrays.toString(options), correctIndex, correctText);
+                DiagnosticTrace.record("MC Result - word: {}, options: {}, correctIndex: {}, correctText: {}", 
+                    word, options, correctIndex, correctText);
                 yield ReviewAnswerResult.multipleChoice(isCorrect, userAnswer, correctIndex, correctText, word, meaning);
             }
             case TRUE_FALSE -> {
-                log.info("Processing TRUE_FALSE case for itemId: {}", itemId);
+                DiagnosticTrace.record("Processing TRUE_FALSE case for itemId: {}", itemId);
                 String correctAnswer = item.getAnswer();
-                log.info("TF Result - word: {}, correctAnswer: {}", word, correctAnswer);
+                DiagnosticTrace.record("TF Result - word: {}, correctAnswer: {}", word, correctAnswer);
                 yield ReviewAnswerResult.trueFalse(isCorrect, userAnswer, correctAnswer, word, meaning);
             }
             case FILL_IN_BLANK -> {
-                log.info("Processing FILL_IN_BLANK case for itemId: {}", itemId);
+                DiagnosticTrace.record("Processing FILL_IN_BLANK case for itemId: {}", itemId);
                 String correctWord = item.getAnswer();
-                log.info("FB Result - word: {}, correctWord: {}", word, correctWord);
+                DiagnosticTrace.record("FB Result - word: {}, correctWord: {}", word, correctWord);
                 yield ReviewAnswerResult.fillInBlank(isCorrect, userAnswer, correctWord, word, meaning);
             }
             default -> {
@@ -614,9 +511,8 @@ public class ReviewService {
                     // User answer is index (0-3), compare with stored answer index
                     int userIndex = Integer.parseInt(userAnswer.trim());
                     int correctIndex = Integer.parseInt(item.getAnswer());
-                    log.info("MC Answer Check - word: {}, userIndex: {}, correctIndex: {}, match: {}", 
-                        item.getVocab() != null ? item.getVocab().getWord() : "NULL", 
-                        userIndex, correctIndex, userIndex == correctIndex);
+                    DiagnosticTrace.record("MC Answer Check - itemId: {}, userIndex: {}, correctIndex: {}, match: {}", 
+                        item.getReviewItemId(), userIndex, correctIndex, userIndex == correctIndex);
                     yield userIndex == correctIndex;
                 } catch (NumberFormatException e) {
                     // Fallback: direct comparison (for backward compatibility)
@@ -632,142 +528,95 @@ public class ReviewService {
     }
     
     /**
-     * Update UserVocabProgress based on answer
+     * Load the answer context; falls back to sessionOrder when itemId looks like
+     * a 1-based position (1-15) rather than a review item id
      */
-    private void updateUserProgress(User user, Vocab vocab, boolean isCorrect) {
-        try {
-            log.info("updateUserProgress called for user: {}, vocab: {} (vocab_id: {}), isCorrect: {}", 
-                user.getEmail(), vocab.getWord(), vocab.getVocabId(), isCorrect);
-                
-            // Find existing progress for this vocab
-            UserVocabProgress progress = progressRepository.findByUserAndVocab(user, vocab)
-                .orElse(null);
-                
-            if (progress == null) {
-                // Create new progress if doesn't exist
-                log.info("Creating new progress for vocab: {} (vocab_id: {})", vocab.getWord(), vocab.getVocabId());
-                progress = UserVocabProgress.builder()
-                    .user(user)
-                    .vocab(vocab)
-                    .box(1)
-                    .streak(0)
-                    .wrongCount(0)
-                    .status(UserVocabProgress.Status.LEARNING)
-                    .lastReviewed(LocalDateTime.now())
-                    .nextReviewAt(LocalDateTime.now().plusDays(1))
-                    .build();
-            } else {
-                log.info("Found existing progress for vocab: {} (vocab_id: {}), current box: {}", 
-                    vocab.getWord(), vocab.getVocabId(), progress.getBox());
+    private Object[] findAnswerContext(Integer attemptId, Integer itemId) {
+        List<Object[]> rows = reviewItemsRepository.findAnswerContext(attemptId, itemId);
+        if (rows.isEmpty() && itemId >= 1 && itemId <= 15) {
+            log.warn("ReviewItems not found by ID: {}, trying to find by sessionOrder", itemId);
+            rows = reviewItemsRepository.findAnswerContextBySessionOrder(attemptId, itemId - 1);
+            if (rows.isEmpty()) {
+                throw new RuntimeException("Item not found by sessionOrder: " + (itemId - 1));
             }
-            
-            if (isCorrect) {
-                progress.setStreak(progress.getStreak() + 1);
-                progress.setBox(Math.min(progress.getBox() + 1, 5)); // Max box 5
-                if (progress.getBox() >= 3) {
-                    progress.setStatus(UserVocabProgress.Status.MASTERED);
-                } else {
-                    progress.setStatus(UserVocabProgress.Status.LEARNING);
-                }
-            } else {
-                progress.setWrongCount(progress.getWrongCount() + 1);
-                progress.setStreak(0);
-                progress.setBox(Math.max(progress.getBox() - 1, 1)); // Min box 1
-                progress.setStatus(UserVocabProgress.Status.REVIEWING);
-            }
-            
-            progress.setLastReviewed(LocalDateTime.now());
-            progress.setNextReviewAt(LocalDateTime.now().plusDays(progress.getBox()));
-            
-            progressRepository.save(progress);
-            log.info("Updated progress for vocab {}: correct={}, box={}, streak={}", 
-                vocab.getWord(), isCorrect, progress.getBox(), progress.getStreak());
-                
-        } catch (Exception e) {
-            log.error("Error updating progress for vocab {}: {}", vocab.getWord(), e.getMessage());
         }
+        if (rows.isEmpty()) {
+            throw new RuntimeException("Item not found by ID: " + itemId);
+        }
+        return rows.get(0);
+    }
+    
+    /**
+     * Update UserVocabProgress based on answer.
+     * The new state is computed by the upsert from the row as it is at write time,
+     * so concurrent answers for the same word are applied one after another.
+     */
+    private void updateUserProgress(String userId, Integer vocabId, String word, boolean isCorrect) {
+        LocalDateTime nextReviewAt = progressUpsert.apply(userId, vocabId, isCorrect, LocalDateTime.now());
+        eventPublisher.publishEvent(ProgressChangedEvent.scheduled(userId, vocabId, nextReviewAt));
+        log.debug("Updated progress for vocab {}: correct={}, nextReviewAt={}", word, isCorrect, nextReviewAt);
     }
     
     /**
-     * Calculate review results
+     * Submit an attempt: compute its results once and store them as an immutable summary.
+     * Later calls (reloading the results page) return the stored summary without writing.
      */
     public ReviewResultDTO calculateReviewResults(Integer attemptId) {
+        Optional<ReviewAttemptSummary> existing = reviewAttemptSummaryRepository.findById(attemptId);
+        if (existing.isPresent()) {
+            return ReviewResultDTO.from(existing.get());
+        }
+        
         ReviewAttempts attempt = reviewAttemptsRepository.findById(attemptId)
             .orElseThrow(() -> new RuntimeException("Attempt not found"));
-            
-        List<ReviewItemResults> results = reviewItemResultsRepository.findByReviewAttempt(attempt);
         
         List<String> masteredWords = new ArrayList<>();
         List<String> needReviewWords = new ArrayList<>();
         
-        for (ReviewItemResults result : results) {
-            String word;
-            if (result.getReviewItem().getVocab() != null) {
-                word = result.getReviewItem().getVocab().getWord();
-            } else if (result.getReviewItem().getCustomVocab() != null) {
-                word = result.getReviewItem().getCustomVocab().getName();
-            } else {
-                word = "Unknown";
-            }
-            
-            if (result.getIsCorrect()) {
+        for (Object[] row : reviewItemResultsRepository.findAnsweredWordsByAttemptId(attemptId)) {
+            String word = row[1] != null ? (String) row[1] : "Unknown";
+            if (Boolean.TRUE.equals(row[0])) {
                 masteredWords.add(word);
             } else {
                 needReviewWords.add(word);
             }
         }
         
-        // Update attempt
-        attempt.setSubmittedAt(LocalDateTime.now());
-        attempt.setScore(masteredWords.size());
-        if (attempt.getStartedAt() != null) {
-            attempt.setDurationSec((int) Duration.between(attempt.getStartedAt(), LocalDateTime.now()).getSeconds());
-        }
-        reviewAttemptsRepository.save(attempt);
-        
-        return ReviewResultDTO.builder()
+        LocalDateTime now = LocalDateTime.now();
+        // Không để null: tham số null của native query không có kiểu
+        int durationSec = attempt.getStartedAt() != null
+            ? (int) Duration.between(attempt.getStartedAt(), now).getSeconds()
+            : attempt.getDurationSec() != null ? attempt.getDurationSec() : 0;
+        ReviewAttemptSummary summary = ReviewAttemptSummary.builder()
+            .reviewAttemptId(attemptId)
+            .userId(attempt.getUser().getId())
             .totalCorrect(masteredWords.size())
             .totalQuestions(attempt.getMaxScore())
-            .masteredWords(masteredWords)
-            .needReviewWords(needReviewWords)
-            .duration(Duration.between(attempt.getStartedAt(), LocalDateTime.now()))
+            .masteredWords(ReviewAttemptSummary.joinWords(masteredWords))
+            .needReviewWords(ReviewAttemptSummary.joinWords(needReviewWords))
+            .durationSec(durationSec)
+            .submittedAt(now)
             .build();
-    }
-    
-    /**
-     * Priority comparator for review words
-     */
-    private final Comparator<UserVocabProgress> priorityComparator = (p1, p2) -> {
-        // Calculate priority scores
-        int score1 = calculatePriorityScore(p1);
-        int score2 = calculatePriorityScore(p2);
-        return Integer.compare(score2, score1); // Higher score = higher priority
-    };
-    
-    private int calculatePriorityScore(UserVocabProgress progress) {
-        int score = 0;
-        
-        // Overdue days (higher = more urgent)
-        if (progress.getNextReviewAt() != null && LocalDateTime.now().isAfter(progress.getNextReviewAt())) {
-            long overdueDays = java.time.temporal.ChronoUnit.DAYS.between(
-                progress.getNextReviewAt(), LocalDateTime.now());
-            score += (int) (overdueDays * 10);
+        // Submit đồng thời (double click, hai tab): chỉ request ghi được summary mới cập nhật attempt
+        if (reviewAttemptSummaryRepository.insertIfAbsent(summary) == 0) {
+            return reviewAttemptSummaryRepository.findById(attemptId)
+                .map(ReviewResultDTO::from)
+                .orElseThrow(() -> new RuntimeException("Attempt summary not found"));
         }
         
-        // Wrong count (higher = more urgent)
-        score += progress.getWrongCount() * 5;
-        
-        // Lower box = more urgent
-        score += (6 - progress.getBox()) * 2;
+        // Update attempt
+        attempt.setSubmittedAt(now);
+        attempt.setScore(masteredWords.size());
+        attempt.setDurationSec(durationSec);
+        reviewAttemptsRepository.save(attempt);
         
-        // Days since last review
-        if (progress.getLastReviewed() != null) {
-            long daysSinceReview = java.time.temporal.ChronoUnit.DAYS.between(
-                progress.getLastReviewed(), LocalDateTime.now());
-            score += (int) daysSinceReview;
+        // Bộ câu hỏi tạm không còn cần sau khi nộp bài
+        if (isEphemeral()) {
+            questionStore.remove(ReviewQuestionStore.attemptKey(attemptId));
         }
+        eventPublisher.publishEvent(new ReviewCompletedEvent(attempt.getUser().getId(), attemptId));
         
-        return score;
+        return ReviewResultDTO.from(summary);
     }
     
     /**
@@ -785,22 +634,38 @@ public class ReviewService {
             .orElseThrow(() -> new RuntimeException("Review not found"));
     }
     
+    /**
+     * Get review questions of an attempt: the ephemeral question set if there is one,
+     * otherwise the persisted review items
+     */
+    public List<ReviewItems> getReviewQuestions(Integer reviewId, Integer attemptId) {
+        if (isEphemeral()) {
+            ReviewQuestionSet questionSet = questionStore.get(ReviewQuestionStore.attemptKey(attemptId));
+            if (questionSet != null) {
+                return questionSet.toItems();
+            }
+        }
+        return getReviewQuestions(reviewId);
+    }
+    
     /**
      * Get review questions by review ID
      */
     public List<ReviewItems> getReviewQuestions(Integer reviewId) {
         // Get questions and sort by creation order (not by ID)
         List<ReviewItems> questions = reviewItemsRepository.findByReviewOrderByCreatedAtAsc(reviewId);
-        log.info("Retrieved {} questions for reviewId: {}", questions.size(), reviewId);
+        DiagnosticTrace.record("Retrieved {} questions for reviewId: {}", questions.size(), reviewId);
         for (int i = 0; i < questions.size(); i++) {
             ReviewItems q = questions.get(i);
-            log.info("Question {}: id={}, type={}, word={}", 
-                i, q.getReviewItemId(), q.getType(), 
-                q.getVocab() != null ? q.getVocab().getWord() : "NULL");
+            DiagnosticTrace.record("Question {}: id={}, type={}", i, q.getReviewItemId(), q.getType());
         }
         return questions;
     }
     
+    private boolean isEphemeral() {
+        return questionProperties.getMode() == ReviewQuestionProperties.Mode.EPHEMERAL;
+    }
+    
     /**
      * Get last review date for user
      */
@@ -826,23 +691,22 @@ public class ReviewService {
     }
     
     /**
-     * Get review results by attempt ID
+     * Get review results by attempt ID (null if the attempt has not been submitted)
      */
+    @Transactional(readOnly = true)
     public ReviewResultDTO getReviewResults(Integer attemptId) {
-        return calculateReviewResults(attemptId);
+        return reviewAttemptSummaryRepository.findById(attemptId)
+            .map(ReviewResultDTO::from)
+            .orElse(null);
     }
     
     /**
-     * Get last review result for user
+     * Get last review result for user: the latest submitted attempt summary
      */
+    @Transactional(readOnly = true)
     public ReviewResultDTO getLastReviewResult(User user) {
-        Optional<ReviewAttempts> lastAttempt = reviewAttemptsRepository
-            .findTopByUserOrderByStartedAtDesc(user);
-            
-        if (lastAttempt.isPresent()) {
-            return getReviewResults(lastAttempt.get().getReviewAttemptId());
-        }
-        
-        return null;
+        return reviewAttemptSummaryRepository.findFirstByUserIdOrderBySubmittedAtDesc(user.getId())
+            .map(ReviewResultDTO::from)
+            .orElse(null);
     }
 }
@@ -0,0 +1,87 @@
+package com.englishvocab.service;
+
+import com.englishvocab.entity.Dictionary;
+import com.englishvocab.entity.User;
+import com.englishvocab.entity.Vocab;
+import com.englishvocab.repository.VocabRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Chọn từ cho session ôn tập theo độ ưu tiên Review > New > Random bằng một câu SQL.
+ *
+ * Mỗi nhánh có LIMIT riêng và đi theo index (user_id, next_review_at) hoặc
+ * (dictionary_id, vocab_id), nên chi phí bị chặn bởi số từ cần lấy chứ không phụ thuộc
+ * lịch sử học của user. Nhánh random là một dải vocab_id liên tiếp bắt đầu từ một id ngẫu
+ * nhiên (quay vòng về đầu từ điển); nó chỉ được dùng khi từ điển không còn đủ từ đến hạn
+ * và từ chưa học. Vocab và senses được nạp sau đó bằng một query fetch join.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SessionCandidatePlanner {
+
+    private static final String CANDIDATES_SQL =
+        "SELECT vocab_id FROM (" +
+        " (SELECT p.vocab_id, 0 AS tier, p.next_review_at AS due_at FROM user_vocab_progress p" +
+        "  JOIN vocab v ON v.vocab_id = p.vocab_id" +
+        "  WHERE p.user_id = :userId AND p.next_review_at <= :now AND v.dictionary_id = :dictionaryId" +
+        "  ORDER BY p.next_review_at, p.vocab_id LIMIT :limit)" +
+        " UNION ALL" +
+        " (SELECT v.vocab_id, 1, NULL FROM vocab v WHERE v.dictionary_id = :dictionaryId AND NOT EXISTS" +
+        "  (SELECT 1 FROM user_vocab_progress p WHERE p.user_id = :userId AND p.vocab_id = v.vocab_id)" +
+        "  ORDER BY v.vocab_id LIMIT :limit)" +
+        " UNION ALL" +
+        " (SELECT v.vocab_id, 2, NULL FROM vocab v WHERE v.dictionary_id = :dictionaryId AND v.vocab_id >= :pivot" +
+        "  ORDER BY v.vocab_id LIMIT :limit)" +
+        " UNION ALL" +
+        " (SELECT v.vocab_id, 3, NULL FROM vocab v WHERE v.dictionary_id = :dictionaryId AND v.vocab_id < :pivot" +
+        "  ORDER BY v.vocab_id LIMIT :limit)" +
+        ") candidates " +
+        "GROUP BY vocab_id ORDER BY MIN(tier), MIN(due_at) NULLS LAST, vocab_id LIMIT :limit";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final VocabRepository vocabRepository;
+    private final CatalogCache catalogCache;
+
+    /**
+     * Tối đa {@code limit} từ của từ điển: đến hạn ôn (hạn sớm nhất trước), rồi chưa học, rồi ngẫu nhiên
+     */
+    public List<Vocab> plan(User user, Dictionary dictionary, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        // Điểm bắt đầu của nhánh random: một vocab id ngẫu nhiên của từ điển
+        List<Integer> pivot = catalogCache.get().sampleIds(
+            dictionary.getDictionaryId(), 1, Set.of(), ThreadLocalRandom.current());
+
+        List<Integer> ids = jdbcTemplate.queryForList(CANDIDATES_SQL, new MapSqlParameterSource()
+            .addValue("userId", user.getId())
+            .addValue("dictionaryId", dictionary.getDictionaryId())
+            .addValue("now", LocalDateTime.now())
+            .addValue("pivot", pivot.isEmpty() ? 0 : pivot.get(0))
+            .addValue("limit", limit), Integer.class);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Integer, Vocab> byId = new HashMap<>(ids.size() * 2);
+        for (Vocab vocab : vocabRepository.findAllWithSensesByIdIn(ids)) {
+            byId.put(vocab.getVocabId(), vocab);
+        }
+        log.debug("Planned {} session candidates for user {} in dictionary {}",
+            ids.size(), user.getId(), dictionary.getDictionaryId());
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+}
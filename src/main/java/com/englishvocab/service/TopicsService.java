@@ -1,9 +1,11 @@
 package com.englishvocab.service;
 
 import com.englishvocab.entity.Topics;
+import com.englishvocab.event.CatalogChangedEvent;
 import com.englishvocab.repository.TopicsRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -19,6 +21,7 @@ import java.util.Optional;
 public class TopicsService {
     
     private final TopicsRepository topicsRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     /**
      * Lấy tất cả chủ đề
@@ -89,6 +92,7 @@ public class TopicsService {
         }
         
         Topics saved = topicsRepository.save(topic);
+        eventPublisher.publishEvent(CatalogChangedEvent.topic(saved.getTopicId()));
         log.info("Đã tạo chủ đề với ID: {}", saved.getTopicId());
         return saved;
     }
@@ -118,6 +122,7 @@ public class TopicsService {
         existing.setStatus(updatedTopic.getStatus());
         
         Topics saved = topicsRepository.save(existing);
+        eventPublisher.publishEvent(CatalogChangedEvent.topic(id));
         log.info("Đã cập nhật chủ đề: {}", saved.getName());
         return saved;
     }
@@ -149,6 +154,7 @@ public class TopicsService {
             topic.setStatus(Topics.Status.INACTIVE);
             topicsRepository.save(topic);
         }
+        eventPublisher.publishEvent(CatalogChangedEvent.topic(id));
     }
     
     /**
@@ -163,6 +169,7 @@ public class TopicsService {
             
         topic.setStatus(newStatus);
         Topics saved = topicsRepository.save(topic);
+        eventPublisher.publishEvent(CatalogChangedEvent.topic(id));
         
         log.info("Đã chuyển trạng thái chủ đề '{}' thành: {}", saved.getName(), newStatus);
         return saved;
@@ -2,9 +2,11 @@ package com.englishvocab.service;
 
 import com.englishvocab.entity.User;
 import com.englishvocab.entity.UserCustomVocab;
+import com.englishvocab.event.CustomVocabChangedEvent;
 import com.englishvocab.repository.UserCustomVocabRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -23,6 +25,7 @@ import java.util.Optional;
 public class UserCustomVocabService {
     
     private final UserCustomVocabRepository userCustomVocabRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     /**
      * Lấy tất cả từ vựng cá nhân của user
@@ -112,6 +115,7 @@ public class UserCustomVocabService {
             }
             
             UserCustomVocab saved = userCustomVocabRepository.save(customVocab);
+            eventPublisher.publishEvent(new CustomVocabChangedEvent(customVocab.getUser().getId()));
             log.info("User {} created custom vocabulary: {}", 
                     customVocab.getUser().getUsername(), customVocab.getName());
             
@@ -150,6 +154,7 @@ public class UserCustomVocabService {
             existingVocab.setMeaningVi(updatedVocab.getMeaningVi() != null ? updatedVocab.getMeaningVi().trim() : null);
             
             UserCustomVocab updated = userCustomVocabRepository.save(existingVocab);
+            eventPublisher.publishEvent(new CustomVocabChangedEvent(existingVocab.getUser().getId()));
             log.info("User {} updated custom vocabulary: {} (ID: {})", 
                     updatedVocab.getUser().getUsername(), updatedVocab.getName(), id);
             
@@ -172,6 +177,7 @@ public class UserCustomVocabService {
             // We might want to keep the record but mark as deleted instead of hard delete
             
             userCustomVocabRepository.delete(vocab);
+            eventPublisher.publishEvent(new CustomVocabChangedEvent(vocab.getUser().getId()));
             log.info("User {} deleted custom vocabulary: {} (ID: {})", 
                     vocab.getUser().getUsername(), vocab.getName(), id);
             
@@ -4,17 +4,27 @@ import com.englishvocab.entity.Dictionary;
 import com.englishvocab.entity.User;
 import com.englishvocab.entity.Vocab;
 import com.englishvocab.entity.UserVocabProgress;
+import com.englishvocab.event.ProgressChangedEvent;
 import com.englishvocab.repository.UserVocabProgressRepository;
 import com.englishvocab.repository.VocabRepository;
+import com.englishvocab.service.due.DueQueue;
+import com.englishvocab.service.learned.LearnedVocabIndex;
+import com.englishvocab.service.srs.SrsScheduler;
+import com.englishvocab.service.srs.SrsState;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -28,9 +38,11 @@ public class UserProgressService {
     
     private final UserVocabProgressRepository progressRepository;
     private final VocabRepository vocabRepository;
-    
-    // SRS intervals in days for each box (Simple Leitner System)
-    private static final int[] SRS_INTERVALS = {1, 3, 7, 14, 30}; // Box 1-5
+    private final VocabularyService vocabularyService;
+    private final SrsScheduler srsScheduler;
+    private final DueQueue dueQueue;
+    private final LearnedVocabIndex learnedVocabIndex;
+    private final ApplicationEventPublisher eventPublisher;
     
     /**
      * Lấy progress của user với phân trang
@@ -77,7 +89,7 @@ public class UserProgressService {
      */
     @Transactional(readOnly = true)
     public long countWordsForReview(User user) {
-        return progressRepository.countDueForReview(user, LocalDateTime.now());
+        return dueQueue.countDue(user.getId(), LocalDateTime.now());
     }
     
     /**
@@ -89,14 +101,20 @@ public class UserProgressService {
     }
     
     /**
-     * Lấy từ cần review với limit
+     * Lấy từ cần review với limit (N từ đầu hàng đợi, chỉ load các progress đó)
      */
     @Transactional(readOnly = true)
     public List<UserVocabProgress> getWordsForReview(User user, int limit) {
-        return progressRepository.findDueForReview(user, LocalDateTime.now())
-                .stream()
-                .limit(limit)
-                .toList();
+        List<Integer> vocabIds = dueQueue.nextDue(user.getId(), LocalDateTime.now(), limit);
+        Map<Integer, UserVocabProgress> progressByVocabId = findUserProgressByVocabIds(user, vocabIds);
+        List<UserVocabProgress> result = new ArrayList<>(vocabIds.size());
+        for (Integer vocabId : vocabIds) {
+            UserVocabProgress progress = progressByVocabId.get(vocabId);
+            if (progress != null) {
+                result.add(progress);
+            }
+        }
+        return result;
     }
     
     /**
@@ -111,18 +129,13 @@ public class UserProgressService {
                 return existingProgress.get();
             }
             
-            // Create new progress
+            // Create new progress (box 1, next review in 1 day)
             UserVocabProgress progress = UserVocabProgress.builder()
                     .user(user)
                     .vocab(vocab)
-                    .box(1) // Start at box 1
-                    .status(UserVocabProgress.Status.LEARNING)
                     .firstLearned(LocalDateTime.now())
-                    .lastReviewed(LocalDateTime.now())
-                    .nextReviewAt(calculateNextReview(1)) // Next review in 1 day
-                    .streak(0)
-                    .wrongCount(0)
                     .build();
+            applyState(progress, srsScheduler.normalize(SrsState.INITIAL));
             
             UserVocabProgress saved = progressRepository.save(progress);
             log.info("User {} started learning vocab: {} (Box 1)", user.getUsername(), vocab.getWord());
@@ -143,24 +156,8 @@ public class UserProgressService {
             UserVocabProgress progress = progressRepository.findByUserAndVocab(user, vocab)
                     .orElseThrow(() -> new RuntimeException("Không tìm thấy progress cho từ này"));
             
-            // Update progress
-            progress.setLastReviewed(LocalDateTime.now());
-            progress.setStreak(progress.getStreak() + 1);
-            
-            // Move to next box (max 5)
             int currentBox = progress.getBox();
-            if (currentBox < 5) {
-                progress.setBox(currentBox + 1);
-            }
-            
-            // Calculate next review
-            progress.setNextReviewAt(calculateNextReview(progress.getBox()));
-            
-            // Check for mastery (Box 5 with streak >= 3)
-            if (progress.getBox() == 5 && progress.getStreak() >= 3) {
-                progress.setStatus(UserVocabProgress.Status.MASTERED);
-                log.info("User {} mastered vocab: {}", user.getUsername(), vocab.getWord());
-            }
+            applyState(progress, srsScheduler.review(SrsState.of(progress), true));
             
             UserVocabProgress updated = progressRepository.save(progress);
             log.info("User {} answered correctly: {} (Box {} -> {})", 
@@ -183,26 +180,12 @@ public class UserProgressService {
             UserVocabProgress progress = progressRepository.findByUserAndVocab(user, vocab)
                     .orElseThrow(() -> new RuntimeException("Không tìm thấy progress cho từ này"));
             
-            // Update progress
-            progress.setLastReviewed(LocalDateTime.now());
-            progress.setStreak(0); // Reset streak
-            progress.setWrongCount(progress.getWrongCount() + 1);
-            
-            // Move back to box 1 (restart SRS)
             int currentBox = progress.getBox();
-            progress.setBox(1);
-            
-            // Next review in 1 day
-            progress.setNextReviewAt(calculateNextReview(1));
-            
-            // Set status back to learning
-            if (progress.getStatus() == UserVocabProgress.Status.MASTERED) {
-                progress.setStatus(UserVocabProgress.Status.LEARNING);
-            }
+            applyState(progress, srsScheduler.review(SrsState.of(progress), false));
             
             UserVocabProgress updated = progressRepository.save(progress);
-            log.info("User {} answered incorrectly: {} (Box {} -> 1)", 
-                    user.getUsername(), vocab.getWord(), currentBox);
+            log.info("User {} answered incorrectly: {} (Box {} -> {})", 
+                    user.getUsername(), vocab.getWord(), currentBox, progress.getBox());
             
             return updated;
             
@@ -272,12 +255,7 @@ public class UserProgressService {
                     .orElseThrow(() -> new RuntimeException("Không tìm thấy progress cho từ này"));
             
             // Reset to initial state
-            progress.setBox(1);
-            progress.setStatus(UserVocabProgress.Status.LEARNING);
-            progress.setStreak(0);
-            progress.setWrongCount(0);
-            progress.setLastReviewed(LocalDateTime.now());
-            progress.setNextReviewAt(calculateNextReview(1));
+            applyState(progress, srsScheduler.normalize(SrsState.INITIAL));
             
             UserVocabProgress updated = progressRepository.save(progress);
             log.info("User {} reset progress for vocab: {}", user.getUsername(), vocab.getWord());
@@ -294,14 +272,15 @@ public class UserProgressService {
     // ===== PRIVATE HELPER METHODS =====
     
     /**
-     * Tính toán thời gian review tiếp theo dựa trên SRS
+     * Ghi trạng thái SRS mới vào progress và lên lịch review tiếp theo
      */
-    private LocalDateTime calculateNextReview(int box) {
-        if (box < 1 || box > 5) {
-            box = 1; // Default to box 1
-        }
-        int daysToAdd = SRS_INTERVALS[box - 1];
-        return LocalDateTime.now().plusDays(daysToAdd);
+    private void applyState(UserVocabProgress progress, long state) {
+        LocalDateTime now = LocalDateTime.now();
+        SrsState.applyTo(state, progress);
+        progress.setLastReviewed(now);
+        progress.setNextReviewAt(now.plusDays(SrsState.intervalDays(state)));
+        eventPublisher.publishEvent(ProgressChangedEvent.scheduled(
+                progress.getUser().getId(), progress.getVocab().getVocabId(), progress.getNextReviewAt()));
     }
     
     /**
@@ -347,38 +326,13 @@ public class UserProgressService {
     // ==================== HELPER METHODS FOR LEARNING SERVICE ====================
     
     /**
-     * Lấy vocabularies cần review từ dictionary
-     */
-    @Transactional(readOnly = true)
-    public List<Vocab> getVocabulariesDueForReview(User user, com.englishvocab.entity.Dictionary dictionary, Integer limit) {
-        List<UserVocabProgress> dueForReview = progressRepository.findDueForReview(user, LocalDateTime.now());
-        
-        return dueForReview.stream()
-                .filter(p -> p.getVocab().getDictionary().equals(dictionary))
-                .map(UserVocabProgress::getVocab)
-                .limit(limit != null ? limit : Long.MAX_VALUE)
-                .toList();
-    }
-    
-    /**
-     * Lấy vocabularies chưa học từ dictionary
+     * Lấy vocabularies chưa học từ dictionary (theo thứ tự được thêm vào từ điển)
      */
     @Transactional(readOnly = true)
     public List<Vocab> getNewVocabularies(User user, com.englishvocab.entity.Dictionary dictionary, Integer limit) {
-        // Get all vocabs from dictionary
-        List<Vocab> allVocabs = vocabRepository.findByDictionary(dictionary);
-        
-        // Get learned vocabs
-        List<UserVocabProgress> learnedProgress = progressRepository.findByUser(user);
-        List<Integer> learnedVocabIds = learnedProgress.stream()
-                .map(p -> p.getVocab().getVocabId())
-                .toList();
-        
-        // Filter out learned vocabs
-        return allVocabs.stream()
-                .filter(v -> !learnedVocabIds.contains(v.getVocabId()))
-                .limit(limit != null ? limit : Long.MAX_VALUE)
-                .toList();
+        int count = limit != null && limit > 0 ? limit : Integer.MAX_VALUE;
+        return vocabularyService.findByIdInOrder(
+                learnedVocabIndex.firstUnlearned(user.getId(), dictionary.getDictionaryId(), count));
     }
     
     /**
@@ -392,49 +346,15 @@ public class UserProgressService {
                         UserVocabProgress newProgress = UserVocabProgress.builder()
                                 .user(user)
                                 .vocab(vocab)
-                                .box(1)
-                                .status(UserVocabProgress.Status.LEARNING)
                                 .firstLearned(LocalDateTime.now())
-                                .streak(0)
-                                .wrongCount(0)
                                 .build();
                         return newProgress;
                     });
             
             // Update based on answer
-            progress.setLastReviewed(LocalDateTime.now());
-            
-            if (correct) {
-                // Correct answer - move up
-                progress.setStreak(progress.getStreak() + 1);
-                
-                int currentBox = progress.getBox();
-                if (currentBox < 5) {
-                    progress.setBox(currentBox + 1);
-                    log.debug("User {} moved vocab {} to box {}", 
-                        user.getUsername(), vocab.getWord(), progress.getBox());
-                }
-                
-                // Update status based on box
-                if (progress.getBox() >= 4) {
-                    progress.setStatus(UserVocabProgress.Status.MASTERED);
-                } else {
-                    progress.setStatus(UserVocabProgress.Status.LEARNING);
-                }
-                
-            } else {
-                // Wrong answer - move down to box 1
-                progress.setStreak(0);
-                progress.setBox(1);
-                progress.setWrongCount(progress.getWrongCount() + 1);
-                progress.setStatus(UserVocabProgress.Status.LEARNING);
-                
-                log.debug("User {} got vocab {} wrong, moved to box 1", 
-                    user.getUsername(), vocab.getWord());
-            }
-            
-            // Calculate next review
-            progress.setNextReviewAt(calculateNextReview(progress.getBox()));
+            applyState(progress, srsScheduler.review(SrsState.of(progress), correct));
+            log.debug("User {} answered vocab {} {}, now in box {}", 
+                user.getUsername(), vocab.getWord(), correct ? "correctly" : "wrong", progress.getBox());
             
             // Save
             progressRepository.save(progress);
@@ -458,6 +378,42 @@ public class UserProgressService {
         return progressRepository.countDueForReviewInDictionary(user, LocalDateTime.now(), dictionary);
     }
     
+    /**
+     * Progress của user cho nhiều vocab, key là vocabId (vocab chưa học không có trong map)
+     */
+    @Transactional(readOnly = true)
+    public Map<Integer, UserVocabProgress> findUserProgressByVocabIds(User user, Collection<Integer> vocabIds) {
+        if (vocabIds == null || vocabIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Integer, UserVocabProgress> progressByVocabId = new HashMap<>();
+        for (UserVocabProgress progress : progressRepository.findByUserAndVocabIdIn(user, vocabIds)) {
+            progressByVocabId.put(progress.getVocab().getVocabId(), progress);
+        }
+        return progressByVocabId;
+    }
+
+    /**
+     * Số từ đã học, số từ cần review và số từ theo chữ cái đầu của 1 cuốn từ điển (một query)
+     */
+    @Transactional(readOnly = true)
+    public DictionaryProgressSummary getDictionaryProgressSummary(User user, Dictionary dictionary) {
+        long learned = 0;
+        long review = 0;
+        Map<String, Long> letterCounts = new HashMap<>();
+        for (Object[] row : progressRepository.getLetterProgressInDictionary(
+                user.getId(), dictionary.getDictionaryId(), LocalDateTime.now())) {
+            letterCounts.put((String) row[0], ((Number) row[1]).longValue());
+            learned += ((Number) row[2]).longValue();
+            review += ((Number) row[3]).longValue();
+        }
+        return DictionaryProgressSummary.builder()
+                .learnedWords(learned)
+                .wordsToReview(review)
+                .letterCounts(letterCounts)
+                .build();
+    }
+    
     // ===== DATA TRANSFER OBJECTS =====
     
     /**
@@ -474,4 +430,15 @@ public class UserProgressService {
         private int currentStreak;
         private List<Object[]> boxStatistics;
     }
+    
+    /**
+     * DTO cho thống kê progress trong 1 cuốn từ điển
+     */
+    @lombok.Data
+    @lombok.Builder
+    public static class DictionaryProgressSummary {
+        private long learnedWords;
+        private long wordsToReview;
+        private Map<String, Long> letterCounts;
+    }
 }
@@ -0,0 +1,575 @@
+package com.englishvocab.service;
+
+import com.englishvocab.dto.VocabImportResult;
+import com.englishvocab.entity.Dictionary;
+import com.englishvocab.entity.Topics;
+import com.englishvocab.entity.Vocab;
+import com.englishvocab.event.VocabChangedEvent;
+import com.englishvocab.repository.DictionaryRepository;
+import com.englishvocab.repository.TopicsRepository;
+import com.englishvocab.repository.VocabRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Import hàng loạt từ vựng (CSV hoặc JSONL) vào một từ điển.
+ *
+ * File được đọc từng dòng nên bộ nhớ không phụ thuộc kích thước file; chỉ giữ
+ * tập từ đã có trong từ điển để loại trùng. Mỗi lô được ghi bằng một câu INSERT
+ * ... SELECT FROM unnest(array) cho mỗi bảng (vocab, senses, vocab_topics) và
+ * commit trong transaction riêng.
+ *
+ * Cột/khóa hỗ trợ: word, pos, ipa, level, meaning_vi (hoặc meaning), definition,
+ * topics (tên topic, phân cách bằng '|' hoặc ';').
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VocabImportService {
+
+    private static final int IMPORT_BATCH_SIZE = 1000;
+    private static final int MAX_REPORTED_ERRORS = 20;
+
+    private static final String INSERT_VOCAB_SQL =
+        "INSERT INTO vocab (dictionary_id, word, pos, ipa, level, created_at) " +
+        "SELECT ?, t.word, t.pos, t.ipa, t.level, now() " +
+        "FROM unnest(?::text[], ?::text[], ?::text[], ?::text[]) AS t(word, pos, ipa, level) " +
+        "RETURNING vocab_id, word";
+
+    private static final String INSERT_SENSES_SQL =
+        "INSERT INTO senses (vocab_id, meaning_vi, definition) " +
+        "SELECT * FROM unnest(?::int[], ?::text[], ?::text[])";
+
+    private static final String INSERT_VOCAB_TOPICS_SQL =
+        "INSERT INTO vocab_topics (vocab_id, topic_id) " +
+        "SELECT * FROM unnest(?::int[], ?::int[]) ON CONFLICT DO NOTHING";
+
+    private final DictionaryRepository dictionaryRepository;
+    private final VocabRepository vocabRepository;
+    private final TopicsRepository topicsRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+
+    public enum ImportFormat {
+        CSV, JSONL;
+
+        /**
+         * Xác định định dạng từ tham số (ưu tiên) hoặc phần mở rộng của tên file
+         */
+        public static ImportFormat resolve(String format, String filename) {
+            if (format != null && !format.isBlank()) {
+                return ImportFormat.valueOf(format.trim().toUpperCase(Locale.ROOT));
+            }
+            String name = filename != null ? filename.toLowerCase(Locale.ROOT) : "";
+            return name.endsWith(".jsonl") || name.endsWith(".ndjson") ? JSONL : CSV;
+        }
+    }
+
+    /**
+     * Import từ vựng từ stream vào từ điển. Các lô đã ghi vẫn được giữ nếu
+     * import dừng giữa chừng do lỗi đọc file hoặc lỗi DB.
+     */
+    public VocabImportResult importVocabulary(Integer dictionaryId, InputStream input, ImportFormat format) {
+        Dictionary dictionary = dictionaryRepository.findById(dictionaryId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy từ điển với ID: " + dictionaryId));
+        if (dictionary.getStatus() != Dictionary.Status.ACTIVE) {
+            throw new RuntimeException("Không thể thêm từ vào từ điển không hoạt động");
+        }
+
+        long startedAt = System.currentTimeMillis();
+        Set<String> existingWords = new HashSet<>(vocabRepository.findWordsByDictionaryId(dictionaryId));
+        Map<String, Integer> topicIds = new HashMap<>();
+        for (Topics topic : topicsRepository.findAll()) {
+            topicIds.put(normalizeTopic(topic.getName()), topic.getTopicId());
+        }
+
+        ImportState state = new ImportState(dictionaryId, existingWords, topicIds);
+        log.info("Bắt đầu import {} vào từ điển {} ({} từ đã có)", format, dictionary.getName(), existingWords.size());
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            RowReader rows = format == ImportFormat.JSONL ? new JsonLinesRowReader(reader, objectMapper) : new CsvRowReader(reader);
+            ImportRow row;
+            boolean written = true;
+            while (written && (row = rows.next()) != null) {
+                state.totalRows++;
+                accept(state, row);
+                if (state.batch.size() >= IMPORT_BATCH_SIZE) {
+                    written = flush(state, startedAt);
+                }
+            }
+            if (written) {
+                flush(state, startedAt);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            state.error(0, "Không đọc được file: " + e.getMessage());
+        } finally {
+            if (state.imported > 0) {
+                eventPublisher.publishEvent(VocabChangedEvent.created(dictionaryId, null));
+            }
+        }
+
+        VocabImportResult result = state.toResult(System.currentTimeMillis() - startedAt);
+        log.info("Import từ điển {} xong: {} dòng, {} từ mới, {} trùng, {} lỗi trong {} ms ({} dòng/giây)",
+                dictionary.getName(), result.getTotalRows(), result.getImported(), result.getDuplicates(),
+                result.getInvalid(), result.getElapsedMs(), result.getRowsPerSecond());
+        return result;
+    }
+
+    private void accept(ImportState state, ImportRow row) {
+        String word = trimToNull(row.word());
+        String pos = trimToNull(row.pos());
+        String ipa = trimToNull(row.ipa());
+        String meaningVi = trimToNull(row.meaningVi());
+        String definition = trimToNull(row.definition());
+
+        // Cùng ràng buộc với Vocab/Senses entity
+        String error = null;
+        if (row.parseError() != null) {
+            error = row.parseError();
+        } else if (word == null) {
+            error = "Từ vựng không được để trống";
+        } else if (word.length() > 100) {
+            error = "Từ vựng không được vượt quá 100 ký tự";
+        } else if (pos == null) {
+            error = "Từ loại không được để trống";
+        } else if (pos.length() > 20) {
+            error = "Từ loại không được vượt quá 20 ký tự";
+        } else if (ipa != null && ipa.length() > 100) {
+            error = "Phiên âm không được vượt quá 100 ký tự";
+        } else if (meaningVi == null) {
+            error = "Nghĩa tiếng Việt không được để trống";
+        } else if (meaningVi.length() > 50) {
+            error = "Nghĩa tiếng Việt không được vượt quá 50 ký tự";
+        } else if (definition != null && definition.length() > 100) {
+            error = "Định nghĩa không được vượt quá 100 ký tự";
+        }
+
+        Vocab.Level level = Vocab.Level.BEGINNER;
+        if (error == null && trimToNull(row.level()) != null) {
+            try {
+                level = Vocab.Level.valueOf(row.level().trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                error = "Level không hợp lệ: " + row.level();
+            }
+        }
+
+        if (error != null) {
+            state.invalid++;
+            state.error(row.lineNumber(), error);
+            return;
+        }
+
+        // Loại trùng với từ đã có trong từ điển và với các dòng trước trong file
+        if (!state.existingWords.add(word)) {
+            state.duplicates++;
+            return;
+        }
+
+        Set<Integer> topics = new LinkedHashSet<>();
+        if (row.topics() != null) {
+            for (String name : row.topics().split("[|;]")) {
+                String normalized = normalizeTopic(name);
+                if (normalized.isEmpty()) continue;
+                Integer topicId = state.topicIds.get(normalized);
+                if (topicId != null) {
+                    topics.add(topicId);
+                } else {
+                    state.unknownTopics.add(name.trim());
+                }
+            }
+        }
+
+        state.batch.add(new PendingVocab(row.lineNumber(), word, pos, ipa, level.name(), meaningVi, definition, topics));
+    }
+
+    /**
+     * Ghi lô đang chờ trong transaction riêng
+     *
+     * @return false nếu lô lỗi DB (đã rollback, được ghi vào lỗi của kết quả) - import dừng tại đó
+     */
+    private boolean flush(ImportState state, long startedAt) {
+        if (state.batch.isEmpty()) {
+            return true;
+        }
+        List<PendingVocab> batch = state.batch;
+        state.batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+
+        Long topicLinks;
+        try {
+            topicLinks = transactionTemplate.execute(status -> writeBatch(state.dictionaryId, batch));
+        } catch (DataAccessException e) {
+            long firstLine = batch.get(0).lineNumber();
+            long lastLine = batch.get(batch.size() - 1).lineNumber();
+            log.error("Import từ điển {}: ghi lô dòng {}-{} thất bại, dừng import: {}",
+                    state.dictionaryId, firstLine, lastLine, e.getMessage());
+            state.error(0, "Không ghi được lô dòng " + firstLine + "-" + lastLine + ", import dừng tại đây: "
+                    + e.getMostSpecificCause().getMessage());
+            return false;
+        }
+        state.imported += batch.size();
+        state.topicLinks += topicLinks != null ? topicLinks : 0;
+
+        long elapsed = Math.max(System.currentTimeMillis() - startedAt, 1);
+        log.info("Import từ điển {}: đã đọc {} dòng, đã thêm {} từ ({} dòng/giây)",
+                state.dictionaryId, state.totalRows, state.imported, state.totalRows * 1000 / elapsed);
+        return true;
+    }
+
+    private long writeBatch(Integer dictionaryId, List<PendingVocab> batch) {
+        int size = batch.size();
+        String[] words = new String[size];
+        String[] pos = new String[size];
+        String[] ipa = new String[size];
+        String[] levels = new String[size];
+        for (int i = 0; i < size; i++) {
+            PendingVocab vocab = batch.get(i);
+            words[i] = vocab.word();
+            pos[i] = vocab.pos();
+            ipa[i] = vocab.ipa();
+            levels[i] = vocab.level();
+        }
+
+        // Từ là duy nhất trong lô nên map id theo word thay vì dựa vào thứ tự RETURNING
+        Map<String, Integer> vocabIds = new HashMap<>(size * 2);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_VOCAB_SQL);
+            ps.setInt(1, dictionaryId);
+            ps.setArray(2, textArray(connection, words));
+            ps.setArray(3, textArray(connection, pos));
+            ps.setArray(4, textArray(connection, ipa));
+            ps.setArray(5, textArray(connection, levels));
+            return ps;
+        }, rs -> {
+            vocabIds.put(rs.getString(2), rs.getInt(1));
+        });
+
+        Integer[] senseVocabIds = new Integer[size];
+        String[] meanings = new String[size];
+        String[] definitions = new String[size];
+        List<Integer> linkVocabIds = new ArrayList<>();
+        List<Integer> linkTopicIds = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            PendingVocab vocab = batch.get(i);
+            Integer vocabId = vocabIds.get(vocab.word());
+            senseVocabIds[i] = vocabId;
+            meanings[i] = vocab.meaningVi();
+            definitions[i] = vocab.definition();
+            for (Integer topicId : vocab.topicIds()) {
+                linkVocabIds.add(vocabId);
+                linkTopicIds.add(topicId);
+            }
+        }
+
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_SENSES_SQL);
+            ps.setArray(1, connection.createArrayOf("integer", senseVocabIds));
+            ps.setArray(2, textArray(connection, meanings));
+            ps.setArray(3, textArray(connection, definitions));
+            return ps;
+        });
+
+        if (linkVocabIds.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_VOCAB_TOPICS_SQL);
+            ps.setArray(1, connection.createArrayOf("integer", linkVocabIds.toArray(new Integer[0])));
+            ps.setArray(2, connection.createArrayOf("integer", linkTopicIds.toArray(new Integer[0])));
+            return ps;
+        });
+    }
+
+    private static Array textArray(Connection connection, String[] values) throws SQLException {
+        return connection.createArrayOf("text", values);
+    }
+
+    private static String normalizeTopic(String name) {
+        return name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) return null;
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    // ===== PARSERS =====
+
+    private record ImportRow(long lineNumber, String word, String pos, String ipa, String level,
+                             String meaningVi, String definition, String topics, String parseError) {
+
+        ImportRow(long lineNumber, String word, String pos, String ipa, String level,
+                  String meaningVi, String definition, String topics) {
+            this(lineNumber, word, pos, ipa, level, meaningVi, definition, topics, null);
+        }
+
+        static ImportRow malformed(long lineNumber, String parseError) {
+            return new ImportRow(lineNumber, null, null, null, null, null, null, null, parseError);
+        }
+    }
+
+    private interface RowReader {
+        /**
+         * Dòng dữ liệu tiếp theo, null khi hết file
+         */
+        ImportRow next() throws IOException;
+    }
+
+    /**
+     * CSV có dòng header (RFC 4180: giá trị trong dấu nháy kép có thể chứa dấu phẩy,
+     * xuống dòng và "" để biểu diễn dấu nháy).
+     */
+    private static final class CsvRowReader implements RowReader {
+        private final BufferedReader reader;
+        private Map<String, Integer> columns;
+        private long lineNumber;
+        private int peeked = -2;
+
+        CsvRowReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            if (columns == null) {
+                List<String> header = readRecord();
+                if (header == null) {
+                    return null;
+                }
+                columns = new HashMap<>();
+                for (int i = 0; i < header.size(); i++) {
+                    String name = header.get(i).trim().toLowerCase(Locale.ROOT).replace("\uFEFF", "");
+                    columns.putIfAbsent(name, i);
+                }
+                if (!columns.containsKey("word")) {
+                    throw new RuntimeException("File CSV phải có dòng header với cột 'word'");
+                }
+            }
+
+            List<String> record;
+            do {
+                record = readRecord();
+                if (record == null) {
+                    return null;
+                }
+            } while (record.size() == 1 && record.get(0).isBlank()); // Bỏ dòng trống
+
+            long recordLine = lineNumber;
+            return new ImportRow(recordLine,
+                    get(record, "word"),
+                    get(record, "pos"),
+                    get(record, "ipa"),
+                    get(record, "level"),
+                    get(record, "meaning_vi", "meaning"),
+                    get(record, "definition"),
+                    get(record, "topics"));
+        }
+
+        private String get(List<String> record, String... names) {
+            for (String name : names) {
+                Integer index = columns.get(name);
+                if (index != null && index < record.size()) {
+                    return record.get(index);
+                }
+            }
+            return null;
+        }
+
+        private List<String> readRecord() throws IOException {
+            int c = read();
+            if (c == -1) {
+                return null;
+            }
+            lineNumber++;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        break;
+                    } else if (c == '"') {
+                        if (peek() == '"') {
+                            read();
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        if (c == '\n') lineNumber++;
+                        field.append((char) c);
+                    }
+                } else if (c == -1 || c == '\n') {
+                    break;
+                } else if (c == '\r') {
+                    if (peek() == '\n') read();
+                    break;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+
+        private int read() throws IOException {
+            if (peeked != -2) {
+                int c = peeked;
+                peeked = -2;
+                return c;
+            }
+            return reader.read();
+        }
+
+        private int peek() throws IOException {
+            if (peeked == -2) {
+                peeked = reader.read();
+            }
+            return peeked;
+        }
+    }
+
+    /**
+     * Mỗi dòng là một JSON object
+     */
+    private static final class JsonLinesRowReader implements RowReader {
+        private final BufferedReader reader;
+        private final ObjectMapper objectMapper;
+        private long lineNumber;
+
+        JsonLinesRowReader(BufferedReader reader, ObjectMapper objectMapper) {
+            this.reader = reader;
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) continue;
+
+                JsonNode node;
+                try {
+                    node = objectMapper.readTree(line);
+                } catch (IOException e) {
+                    // Dòng JSON lỗi được tính là dòng không hợp lệ, không dừng cả file
+                    return ImportRow.malformed(lineNumber, "JSON không hợp lệ");
+                }
+                return new ImportRow(lineNumber,
+                        text(node, "word"),
+                        text(node, "pos"),
+                        text(node, "ipa"),
+                        text(node, "level"),
+                        text(node, "meaning_vi", "meaningVi", "meaning"),
+                        text(node, "definition"),
+                        topics(node));
+            }
+            return null;
+        }
+
+        private static String text(JsonNode node, String... names) {
+            for (String name : names) {
+                JsonNode value = node.get(name);
+                if (value != null && !value.isNull()) {
+                    return value.asText();
+                }
+            }
+            return null;
+        }
+
+        private static String topics(JsonNode node) {
+            JsonNode value = node.get("topics");
+            if (value == null || value.isNull()) {
+                return null;
+            }
+            if (!value.isArray()) {
+                return value.asText();
+            }
+            List<String> names = new ArrayList<>();
+            value.forEach(topic -> names.add(topic.asText()));
+            return String.join("|", names);
+        }
+    }
+
+    // ===== STATE =====
+
+    private record PendingVocab(long lineNumber, String word, String pos, String ipa, String level,
+                                String meaningVi, String definition, Set<Integer> topicIds) {
+    }
+
+    private static final class ImportState {
+        final Integer dictionaryId;
+        final Set<String> existingWords;
+        final Map<String, Integer> topicIds;
+        final Set<String> unknownTopics = new LinkedHashSet<>();
+        final List<String> errors = new ArrayList<>();
+        List<PendingVocab> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+        long totalRows;
+        long imported;
+        long duplicates;
+        long invalid;
+        long topicLinks;
+
+        ImportState(Integer dictionaryId, Set<String> existingWords, Map<String, Integer> topicIds) {
+            this.dictionaryId = dictionaryId;
+            this.existingWords = existingWords;
+            this.topicIds = topicIds;
+        }
+
+        void error(long lineNumber, String message) {
+            // Lỗi làm dừng import (không gắn với một dòng) luôn được báo
+            if (lineNumber <= 0 || errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(lineNumber > 0 ? "Dòng " + lineNumber + ": " + message : message);
+            }
+        }
+
+        VocabImportResult toResult(long elapsedMs) {
+            return VocabImportResult.builder()
+                    .dictionaryId(dictionaryId)
+                    .totalRows(totalRows)
+                    .imported(imported)
+                    .duplicates(duplicates)
+                    .invalid(invalid)
+                    .topicLinks(topicLinks)
+                    .elapsedMs(elapsedMs)
+                    .unknownTopics(unknownTopics)
+                    .errors(errors)
+                    .build();
+        }
+    }
+}
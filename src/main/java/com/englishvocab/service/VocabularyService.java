@@ -5,14 +5,18 @@ import com.englishvocab.entity.Dictionary;
 import com.englishvocab.entity.Senses;
 import com.englishvocab.entity.Topics;
 import com.englishvocab.entity.VocabTopics;
+import com.englishvocab.event.VocabChangedEvent;
 import com.englishvocab.repository.VocabRepository;
 import com.englishvocab.repository.DictionaryRepository;
 import com.englishvocab.repository.SensesRepository;
 import com.englishvocab.repository.VocabTopicsRepository;
 import com.englishvocab.repository.TopicsRepository;
+import com.englishvocab.service.search.VocabSearchService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -21,9 +25,10 @@ import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 @Service
@@ -37,6 +42,10 @@ public class VocabularyService {
     private final SensesRepository sensesRepository;
     private final VocabTopicsRepository vocabTopicsRepository;
     private final TopicsRepository topicsRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CatalogCache catalogCache;
+    private final FacetCounts facetCounts;
+    private final VocabSearchService vocabSearchService;
     
     /**
      * Lấy tất cả từ vựng
@@ -89,26 +98,14 @@ public class VocabularyService {
     }
     
     /**
-     * Tìm kiếm từ vựng theo word
+     * Tìm kiếm từ vựng theo word, nghĩa hoặc định nghĩa (xếp hạng, phân trang);
+     * {@code dictionaryId} null là tìm trong mọi từ điển
      */
-    public List<Vocab> searchByWord(String keyword) {
-        if (keyword == null || keyword.trim().isEmpty()) {
-            return findAll();
+    public Page<Vocab> search(String keyword, Integer dictionaryId, Pageable pageable) {
+        if (dictionaryId != null && !dictionaryRepository.existsById(dictionaryId)) {
+            throw new RuntimeException("Không tìm thấy từ điển với ID: " + dictionaryId);
         }
-        return vocabRepository.findByWordContainingIgnoreCase(keyword.trim());
-    }
-    
-    /**
-     * Tìm kiếm từ vựng theo word trong dictionary
-     */
-    public List<Vocab> searchByWordInDictionary(Integer dictionaryId, String keyword) {
-        Dictionary dictionary = dictionaryRepository.findById(dictionaryId)
-                .orElseThrow(() -> new RuntimeException("Không tìm thấy từ điển với ID: " + dictionaryId));
-        
-        if (keyword == null || keyword.trim().isEmpty()) {
-            return vocabRepository.findByDictionary(dictionary);
-        }
-        return vocabRepository.findByDictionaryAndWordContainingIgnoreCase(dictionary, keyword.trim());
+        return vocabSearchService.search(keyword, dictionaryId, pageable);
     }
     
     /**
@@ -136,6 +133,7 @@ public class VocabularyService {
         }
         
         Vocab saved = vocabRepository.save(vocab);
+        eventPublisher.publishEvent(VocabChangedEvent.created(dictionary.getDictionaryId(), saved.getVocabId()));
         log.info("Đã tạo từ vựng với ID: {}", saved.getVocabId());
         return saved;
     }
@@ -202,6 +200,7 @@ public class VocabularyService {
         existing.setDictionary(dictionary);
         
         Vocab saved = vocabRepository.save(existing);
+        eventPublisher.publishEvent(VocabChangedEvent.updated(dictionary.getDictionaryId(), saved.getVocabId()));
         log.info("Đã cập nhật từ vựng: {}", saved.getWord());
         return saved;
     }
@@ -225,6 +224,7 @@ public class VocabularyService {
         }
         
         vocabRepository.delete(vocab);
+        eventPublisher.publishEvent(VocabChangedEvent.deleted(vocab.getDictionary().getDictionaryId(), id));
         log.info("Đã xóa từ vựng: {}", vocab.getWord());
     }
     
@@ -241,32 +241,28 @@ public class VocabularyService {
     }
     
     /**
-     * Lấy vocabularies từ dictionary (giới hạn số lượng)
+     * Lấy vocabularies từ dictionary (giới hạn số lượng), theo thứ tự A-Z
      */
     public List<Vocab> getVocabulariesByDictionary(com.englishvocab.entity.Dictionary dictionary, Integer limit) {
-        List<Vocab> allVocabs = vocabRepository.findByDictionary(dictionary);
-        
-        if (limit != null && limit > 0 && allVocabs.size() > limit) {
-            return allVocabs.subList(0, limit);
-        }
-        
-        return allVocabs;
+        return findByIdInOrder(catalogCache.get().pageIds(
+                dictionary.getDictionaryId(), null, null, 0, limitOrAll(limit)));
     }
     
     /**
      * Lấy random vocabularies từ dictionary
      */
     public List<Vocab> getRandomVocabularies(com.englishvocab.entity.Dictionary dictionary, Integer limit) {
-        List<Vocab> allVocabs = vocabRepository.findByDictionary(dictionary);
-        
-        // Shuffle để random
-        java.util.Collections.shuffle(allVocabs);
-        
-        if (limit != null && limit > 0 && allVocabs.size() > limit) {
-            return allVocabs.subList(0, limit);
-        }
-        
-        return allVocabs;
+        return getRandomVocabularies(dictionary, limit, Set.of());
+    }
+    
+    /**
+     * Lấy random vocabularies từ dictionary, bỏ qua các từ đã chọn.
+     * Lấy mẫu trên mảng id của catalog snapshot nên chi phí chỉ phụ thuộc {@code limit}.
+     */
+    public List<Vocab> getRandomVocabularies(com.englishvocab.entity.Dictionary dictionary, Integer limit,
+                                             Set<Integer> excludeIds) {
+        return findByIdInOrder(catalogCache.get().sampleIds(
+                dictionary.getDictionaryId(), limitOrAll(limit), excludeIds, ThreadLocalRandom.current()));
     }
     
     /**
@@ -275,16 +271,8 @@ public class VocabularyService {
     public List<Vocab> getVocabulariesByDictionaryAndLevel(com.englishvocab.entity.Dictionary dictionary, 
                                                            String level, Integer limit) {
         Vocab.Level vocabLevel = Vocab.Level.valueOf(level.toUpperCase());
-        List<Vocab> allVocabs = vocabRepository.findByDictionaryAndLevel(dictionary, vocabLevel);
-        
-        // Sort by word alphabetically for alphabetical mode
-        allVocabs.sort(java.util.Comparator.comparing(Vocab::getWord));
-        
-        if (limit != null && limit > 0 && allVocabs.size() > limit) {
-            return allVocabs.subList(0, limit);
-        }
-        
-        return allVocabs;
+        return findByIdInOrder(catalogCache.get().pageIds(
+                dictionary.getDictionaryId(), null, vocabLevel, 0, limitOrAll(limit)));
     }
     
     /**
@@ -292,19 +280,8 @@ public class VocabularyService {
      */
     public List<Vocab> getVocabulariesByDictionaryAndLetter(com.englishvocab.entity.Dictionary dictionary, 
                                                             String startLetter, Integer limit) {
-        List<Vocab> allVocabs = vocabRepository.findByDictionaryOrderByWordAsc(dictionary);
-        
-        // Filter by first letter
-        String lowerLetter = startLetter.toLowerCase();
-        List<Vocab> filtered = allVocabs.stream()
-            .filter(v -> v.getWord().toLowerCase().startsWith(lowerLetter))
-            .collect(java.util.stream.Collectors.toList());
-        
-        if (limit != null && limit > 0 && filtered.size() > limit) {
-            return filtered.subList(0, limit);
-        }
-        
-        return filtered;
+        return findByIdInOrder(catalogCache.get().pageIds(
+                dictionary.getDictionaryId(), List.of(startLetter), null, 0, limitOrAll(limit)));
     }
     
     /**
@@ -313,20 +290,12 @@ public class VocabularyService {
     public List<Vocab> getVocabulariesByDictionaryAndLevelAndLetter(com.englishvocab.entity.Dictionary dictionary, 
                                                                     String level, String startLetter, Integer limit) {
         Vocab.Level vocabLevel = Vocab.Level.valueOf(level.toUpperCase());
-        List<Vocab> allVocabs = vocabRepository.findByDictionaryAndLevel(dictionary, vocabLevel);
-        
-        // Filter by first letter
-        String lowerLetter = startLetter.toLowerCase();
-        List<Vocab> filtered = allVocabs.stream()
-            .filter(v -> v.getWord().toLowerCase().startsWith(lowerLetter))
-            .sorted(java.util.Comparator.comparing(Vocab::getWord))
-            .collect(java.util.stream.Collectors.toList());
-        
-        if (limit != null && limit > 0 && filtered.size() > limit) {
-            return filtered.subList(0, limit);
-        }
-        
-        return filtered;
+        return findByIdInOrder(catalogCache.get().pageIds(
+                dictionary.getDictionaryId(), List.of(startLetter), vocabLevel, 0, limitOrAll(limit)));
+    }
+    
+    private static int limitOrAll(Integer limit) {
+        return limit != null && limit > 0 ? limit : Integer.MAX_VALUE;
     }
     
     /**
@@ -358,10 +327,11 @@ public class VocabularyService {
      * Thống kê từ vựng
      */
     public VocabStats getStatistics() {
-        long total = vocabRepository.count();
-        long beginner = vocabRepository.countByLevel(Vocab.Level.BEGINNER);
-        long intermediate = vocabRepository.countByLevel(Vocab.Level.INTERMEDIATE);
-        long advanced = vocabRepository.countByLevel(Vocab.Level.ADVANCED);
+        CatalogSnapshot catalog = catalogCache.get();
+        long total = catalog.count();
+        long beginner = catalog.count(Vocab.Level.BEGINNER);
+        long intermediate = catalog.count(Vocab.Level.INTERMEDIATE);
+        long advanced = catalog.count(Vocab.Level.ADVANCED);
         
         return VocabStats.builder()
                 .total(total)
@@ -378,10 +348,11 @@ public class VocabularyService {
         Dictionary dictionary = dictionaryRepository.findById(dictionaryId)
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy từ điển với ID: " + dictionaryId));
         
-        long total = vocabRepository.countByDictionary(dictionary);
-        long beginner = vocabRepository.countByDictionaryAndLevel(dictionary, Vocab.Level.BEGINNER);
-        long intermediate = vocabRepository.countByDictionaryAndLevel(dictionary, Vocab.Level.INTERMEDIATE);
-        long advanced = vocabRepository.countByDictionaryAndLevel(dictionary, Vocab.Level.ADVANCED);
+        CatalogSnapshot catalog = catalogCache.get();
+        long total = catalog.count(dictionaryId);
+        long beginner = catalog.count(dictionaryId, Vocab.Level.BEGINNER);
+        long intermediate = catalog.count(dictionaryId, Vocab.Level.INTERMEDIATE);
+        long advanced = catalog.count(dictionaryId, Vocab.Level.ADVANCED);
         
         return VocabStatsByDictionary.builder()
                 .dictionary(dictionary)
@@ -393,9 +364,11 @@ public class VocabularyService {
     }
 
     public int countByDictionary(Integer dictionaryId) {
-        Dictionary dictionary = dictionaryRepository.findById(dictionaryId)
-                .orElseThrow(() -> new RuntimeException("Không tìm thấy từ điển với ID: " + dictionaryId));
-        return (int) vocabRepository.countByDictionary(dictionary);
+        CatalogSnapshot catalog = catalogCache.get();
+        if (catalog.dictionary(dictionaryId) == null) {
+            throw new RuntimeException("Không tìm thấy từ điển với ID: " + dictionaryId);
+        }
+        return (int) catalog.count(dictionaryId);
     }
     
     /**
@@ -489,6 +462,7 @@ public class VocabularyService {
             log.debug("Assigned topic '{}' to vocab '{}'", topic.getName(), vocab.getWord());
         }
         
+        eventPublisher.publishEvent(VocabChangedEvent.updated(vocab.getDictionary().getDictionaryId(), vocabId));
         log.info("Successfully assigned {} topics to vocab: {}", topicIds.size(), vocab.getWord());
     }
     
@@ -508,6 +482,7 @@ public class VocabularyService {
      */
     public void removeTopicFromVocab(Integer vocabId, Integer topicId) {
         vocabTopicsRepository.deleteByVocabIdAndTopicId(vocabId, topicId);
+        eventPublisher.publishEvent(VocabChangedEvent.updated(null, vocabId));
         log.info("Removed topic {} from vocab {}", topicId, vocabId);
     }
     
@@ -524,9 +499,7 @@ public class VocabularyService {
      * Find vocabulary by dictionary with alphabetical ordering
      */
     public Page<Vocab> findByDictionaryOrderByWordAsc(Integer dictionaryId, Pageable pageable) {
-        Dictionary dictionary = dictionaryRepository.findById(dictionaryId)
-                .orElseThrow(() -> new RuntimeException("Dictionary not found: " + dictionaryId));
-        return vocabRepository.findByDictionaryOrderByWordAsc(dictionary, pageable);
+        return findPageFromCatalog(dictionaryId, null, null, pageable);
     }
     
     /**
@@ -543,53 +516,33 @@ public class VocabularyService {
      */
     public Page<Vocab> findByDictionaryAndWordStartingWith(Integer dictionaryId, Collection<String> startLetters,
                                                            Pageable pageable) {
-        Dictionary dictionary = dictionaryRepository.findById(dictionaryId)
-                .orElseThrow(() -> new RuntimeException("Dictionary not found: " + dictionaryId));
-
-    List<String> normalizedLetters = startLetters.stream()
-        .filter(letter -> letter != null && !letter.isBlank())
-        .map(letter -> letter.substring(0, 1).toLowerCase(Locale.ROOT))
-        .distinct()
-        .sorted()
-        .collect(Collectors.toList());
-
-        if (normalizedLetters.isEmpty()) {
+        if (startLetters.stream().allMatch(letter -> letter == null || letter.isBlank())) {
             return Page.empty(pageable);
         }
-
-        return vocabRepository.findByDictionaryAndWordStartingWithIn(dictionary, normalizedLetters, pageable);
+        return findPageFromCatalog(dictionaryId, startLetters, null, pageable);
     }
     
     /**
      * Find vocabulary by dictionary and level
      */
     public Page<Vocab> findByDictionaryAndLevel(Integer dictionaryId, String level, Pageable pageable) {
-        Dictionary dictionary = dictionaryRepository.findById(dictionaryId)
-                .orElseThrow(() -> new RuntimeException("Dictionary not found: " + dictionaryId));
         Vocab.Level vocabLevel = Vocab.Level.valueOf(level.toUpperCase());
-        return vocabRepository.findByDictionaryAndLevel(dictionary, vocabLevel, pageable);
+        return findPageFromCatalog(dictionaryId, null, vocabLevel, pageable);
     }
     
     /**
      * Count vocabulary by dictionary and level
      */
     public long countByDictionaryAndLevel(Integer dictionaryId, String level) {
-        Dictionary dictionary = dictionaryRepository.findById(dictionaryId)
-                .orElseThrow(() -> new RuntimeException("Dictionary not found: " + dictionaryId));
         Vocab.Level vocabLevel = Vocab.Level.valueOf(level.toUpperCase());
-        return vocabRepository.countByDictionaryAndLevel(dictionary, vocabLevel);
+        return facetCounts.count(dictionaryId, null, vocabLevel, null);
     }
     
     /**
      * Count vocabulary by dictionary and word starting with letters
      */
     public long countByDictionaryAndWordStartingWith(Integer dictionaryId, List<String> letters) {
-        Dictionary dictionary = dictionaryRepository.findById(dictionaryId)
-                .orElseThrow(() -> new RuntimeException("Dictionary not found: " + dictionaryId));
-        
-        return letters.stream()
-                .mapToLong(letter -> vocabRepository.countByDictionaryAndWordStartingWithIgnoreCase(dictionary, letter))
-                .sum();
+        return facetCounts.count(dictionaryId, letters, null);
     }
     
     /**
@@ -597,22 +550,44 @@ public class VocabularyService {
      */
     public Page<Vocab> findByDictionaryAndWordStartingWithAndLevel(Integer dictionaryId, List<String> letters, 
                                                                     String level, Pageable pageable) {
-        Dictionary dictionary = dictionaryRepository.findById(dictionaryId)
-                .orElseThrow(() -> new RuntimeException("Dictionary not found: " + dictionaryId));
         Vocab.Level vocabLevel = Vocab.Level.valueOf(level.toUpperCase());
-        
-        return vocabRepository.findByDictionaryAndWordStartingWithAndLevel(dictionary, letters, vocabLevel, pageable);
+        return findPageFromCatalog(dictionaryId, letters, vocabLevel, pageable);
     }
     
     /**
      * Count vocabulary by dictionary, word starting with letters, and level
      */
     public long countByDictionaryAndWordStartingWithAndLevel(Integer dictionaryId, List<String> letters, String level) {
-        Dictionary dictionary = dictionaryRepository.findById(dictionaryId)
-                .orElseThrow(() -> new RuntimeException("Dictionary not found: " + dictionaryId));
         Vocab.Level vocabLevel = Vocab.Level.valueOf(level.toUpperCase());
-        
-        return vocabRepository.countByDictionaryAndWordStartingWithAndLevel(dictionary, letters, vocabLevel);
+        return facetCounts.count(dictionaryId, letters, vocabLevel);
+    }
+    
+    /**
+     * Trang từ vựng theo thứ tự word: id và tổng số lấy từ catalog snapshot,
+     * entity của trang được nạp bằng một query theo khóa chính.
+     */
+    private Page<Vocab> findPageFromCatalog(Integer dictionaryId, Collection<String> letters,
+                                            Vocab.Level level, Pageable pageable) {
+        CatalogSnapshot catalog = catalogCache.get();
+        long total = letters != null
+                ? catalog.count(dictionaryId, letters, level)
+                : (level != null ? catalog.count(dictionaryId, level) : catalog.count(dictionaryId));
+        List<Integer> ids = catalog.pageIds(dictionaryId, letters, level, pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(findByIdInOrder(ids), pageable, total);
+    }
+    
+    /**
+     * Nạp vocab theo danh sách id, giữ nguyên thứ tự của danh sách
+     */
+    public List<Vocab> findByIdInOrder(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Integer, Vocab> byId = new HashMap<>(ids.size() * 2);
+        for (Vocab vocab : vocabRepository.findAllById(ids)) {
+            byId.put(vocab.getVocabId(), vocab);
+        }
+        return ids.stream().map(byId::get).filter(java.util.Objects::nonNull).collect(Collectors.toList());
     }
     
     /**
@@ -626,7 +601,7 @@ public class VocabularyService {
         // For now, implement basic filtering
         // TODO: Add more sophisticated filtering logic
         if (search != null && !search.isEmpty()) {
-            return vocabRepository.findByDictionaryAndWordContainingIgnoreCase(dictionary, search, pageable);
+            return vocabSearchService.search(search, dictionaryId, pageable);
         }
         
         if (level != null && !level.isEmpty()) {
@@ -646,21 +621,7 @@ public class VocabularyService {
      * Get vocabulary count by topics for a dictionary
      */
     public Map<Integer, Long> getVocabCountByTopicsForDictionary(Integer dictionaryId) {
-        Dictionary dictionary = dictionaryRepository.findById(dictionaryId)
-                .orElseThrow(() -> new RuntimeException("Dictionary not found: " + dictionaryId));
-        
-        Map<Integer, Long> topicCounts = new HashMap<>();
-        
-        // Get all active topics
-        List<Topics> topics = topicsRepository.findByStatus(Topics.Status.ACTIVE);
-        
-        for (Topics topic : topics) {
-            // Count vocabulary for this topic in this dictionary
-            long count = vocabTopicsRepository.countByTopicIdAndVocabDictionary(topic.getTopicId(), dictionary);
-            topicCounts.put(topic.getTopicId(), count);
-        }
-        
-        return topicCounts;
+        return facetCounts.topicCounts(dictionaryId, null);
     }
     
     /**
@@ -668,40 +629,14 @@ public class VocabularyService {
      * Returns a map with format: topicId -> count for specific level
      */
     public Map<Integer, Long> getVocabCountByTopicsAndLevelForDictionary(Integer dictionaryId, String level) {
-        Dictionary dictionary = dictionaryRepository.findById(dictionaryId)
-                .orElseThrow(() -> new RuntimeException("Dictionary not found: " + dictionaryId));
-        
         Vocab.Level vocabLevel = Vocab.Level.valueOf(level.toUpperCase());
-        Map<Integer, Long> topicCounts = new HashMap<>();
-        
-        // Get all active topics
-        List<Topics> topics = topicsRepository.findByStatus(Topics.Status.ACTIVE);
-        
-        for (Topics topic : topics) {
-            // Count vocabulary for this topic in this dictionary with level filter
-            long count = vocabRepository.countByDictionaryAndTopicsIdInAndLevel(dictionary, List.of(topic.getTopicId()), vocabLevel);
-            topicCounts.put(topic.getTopicId(), count);
-        }
-        
-        return topicCounts;
+        return facetCounts.topicCounts(dictionaryId, vocabLevel);
     }
 
     /**
      * Get vocabulary counts grouped by their first letter
      */
     public Map<String, Long> getVocabCountByFirstLetter(Integer dictionaryId) {
-        Dictionary dictionary = dictionaryRepository.findById(dictionaryId)
-                .orElseThrow(() -> new RuntimeException("Dictionary not found: " + dictionaryId));
-
-        Map<String, Long> letterCounts = new HashMap<>();
-        List<Object[]> results = vocabRepository.countByDictionaryGroupedByFirstLetter(dictionary);
-
-        for (Object[] row : results) {
-            String letter = (String) row[0];
-            Long count = (Long) row[1];
-            letterCounts.put(letter, count);
-        }
-
-        return letterCounts;
+        return facetCounts.letterCounts(dictionaryId);
     }
 }
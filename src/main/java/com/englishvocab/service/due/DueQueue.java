@@ -0,0 +1,120 @@
+package com.englishvocab.service.due;
+
+import com.englishvocab.event.CatalogChangedEvent;
+import com.englishvocab.event.ProgressChangedEvent;
+import com.englishvocab.event.VocabChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Hàng đợi từ đến hạn ôn tập của từng user, sắp theo next_review_at.
+ *
+ * Hàng đợi của một user được nạp lười từ DB (một query) ở lần đọc đầu tiên, sau đó
+ * được cập nhật theo {@link ProgressChangedEvent} sau mỗi lần ghi progress commit,
+ * nên số từ đến hạn và N từ đến hạn sớm nhất không cần quét user_vocab_progress.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DueQueue {
+
+    private static final String USER_SCHEDULE_SQL =
+        "SELECT vocab_id, next_review_at FROM user_vocab_progress " +
+        "WHERE user_id = ? AND next_review_at IS NOT NULL ORDER BY next_review_at, vocab_id";
+
+    private final DueQueueStore store;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Số từ đến hạn (next_review_at <= now)
+     */
+    public long countDue(String userId, LocalDateTime now) {
+        ensureLoaded(userId);
+        return store.count(userId, Long.MIN_VALUE, toMillis(now) + 1);
+    }
+
+    /**
+     * Số từ có lịch ôn trong [from, to)
+     */
+    public long countBetween(String userId, LocalDateTime from, LocalDateTime to) {
+        ensureLoaded(userId);
+        return store.count(userId, from != null ? toMillis(from) : Long.MIN_VALUE, toMillis(to));
+    }
+
+    /**
+     * Tối đa {@code limit} vocabId đến hạn, hạn sớm nhất trước
+     */
+    public List<Integer> nextDue(String userId, LocalDateTime now, int limit) {
+        ensureLoaded(userId);
+        return store.head(userId, toMillis(now) + 1, limit);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProgressChanged(ProgressChangedEvent event) {
+        if (event.isBulk()) {
+            store.invalidateAll();
+        } else if (event.nextReviewAt() != null) {
+            store.put(event.userId(), event.vocabId(), toMillis(event.nextReviewAt()));
+        } else {
+            store.remove(event.userId(), event.vocabId());
+        }
+    }
+
+    // Xóa từ vựng/từ điển xóa luôn progress (cascade) của mọi user
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onVocabChanged(VocabChangedEvent event) {
+        if (event.type() == VocabChangedEvent.Type.DELETED) {
+            store.invalidateAll();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.kind() == CatalogChangedEvent.Kind.DICTIONARY) {
+            store.invalidateAll();
+        }
+    }
+
+    private void ensureLoaded(String userId) {
+        if (store.isLoaded(userId)) {
+            return;
+        }
+        long startedAt = System.currentTimeMillis();
+        Buffer buffer = new Buffer();
+        jdbcTemplate.query(USER_SCHEDULE_SQL, rs -> {
+            buffer.add(rs.getInt(1), rs.getTimestamp(2));
+        }, userId);
+        store.load(userId, buffer.vocabIds, buffer.dueAt, buffer.size);
+        log.debug("Loaded due queue of user {}: {} words in {} ms",
+            userId, buffer.size, System.currentTimeMillis() - startedAt);
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static final class Buffer {
+        int[] vocabIds = new int[64];
+        long[] dueAt = new long[64];
+        int size;
+
+        void add(int vocabId, Timestamp due) {
+            if (size == vocabIds.length) {
+                vocabIds = Arrays.copyOf(vocabIds, size * 2);
+                dueAt = Arrays.copyOf(dueAt, size * 2);
+            }
+            vocabIds[size] = vocabId;
+            dueAt[size] = due.getTime();
+            size++;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.englishvocab.service.due;
+
+import java.util.List;
+
+/**
+ * Hàng đợi từ đến hạn của từng user: tập có thứ tự vocabId theo thời điểm ôn
+ * (epoch millis). Đếm và lấy N phần tử đầu là O(log n).
+ *
+ * Một user chỉ được đọc sau khi {@link #load} đã nạp toàn bộ lịch từ DB;
+ * {@link #put}/{@link #remove} luôn được áp dụng, kể cả khi user chưa được nạp,
+ * và {@link #load} không ghi đè các entry đã có (ghi mới hơn trong lúc nạp).
+ */
+public interface DueQueueStore {
+
+    boolean isLoaded(String userId);
+
+    /**
+     * Nạp {@code size} phần tử đầu của các mảng (đã sắp xếp theo dueAt, vocabId)
+     * rồi đánh dấu user đã được nạp
+     */
+    void load(String userId, int[] vocabIds, long[] dueAt, int size);
+
+    void put(String userId, int vocabId, long dueAt);
+
+    void remove(String userId, int vocabId);
+
+    /**
+     * Số từ có thời điểm ôn trong [fromInclusive, toExclusive)
+     */
+    long count(String userId, long fromInclusive, long toExclusive);
+
+    /**
+     * Tối đa {@code limit} vocabId có thời điểm ôn trước {@code toExclusive}, sớm nhất trước
+     */
+    List<Integer> head(String userId, long toExclusive, int limit);
+
+    /**
+     * Bỏ hàng đợi của mọi user; lần đọc tiếp theo sẽ nạp lại từ DB
+     */
+    void invalidateAll();
+}
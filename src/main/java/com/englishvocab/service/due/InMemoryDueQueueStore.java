@@ -0,0 +1,199 @@
+package com.englishvocab.service.due;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hàng đợi trong JVM cho một node (và cho test).
+ *
+ * Mỗi user giữ hai mảng song song (dueAt, vocabId) sắp xếp theo (dueAt, vocabId):
+ * đọc là tìm kiếm nhị phân, ghi dịch mảng bằng System.arraycopy. Số user được
+ * giữ bị giới hạn theo LRU; user bị bỏ sẽ được nạp lại từ DB khi cần.
+ */
+public class InMemoryDueQueueStore implements DueQueueStore {
+
+    private final Map<String, UserQueue> queues;
+
+    public InMemoryDueQueueStore(int maxUsers) {
+        int limit = Math.max(1, maxUsers);
+        this.queues = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, UserQueue> eldest) {
+                return size() > limit;
+            }
+        };
+    }
+
+    @Override
+    public boolean isLoaded(String userId) {
+        UserQueue queue = find(userId);
+        if (queue == null) {
+            return false;
+        }
+        synchronized (queue) {
+            return queue.loaded;
+        }
+    }
+
+    @Override
+    public void load(String userId, int[] vocabIds, long[] dueAt, int size) {
+        UserQueue queue = findOrCreate(userId);
+        synchronized (queue) {
+            queue.load(vocabIds, dueAt, size);
+            queue.loaded = true;
+        }
+    }
+
+    @Override
+    public void put(String userId, int vocabId, long dueAt) {
+        UserQueue queue = findOrCreate(userId);
+        synchronized (queue) {
+            queue.put(vocabId, dueAt);
+        }
+    }
+
+    @Override
+    public void remove(String userId, int vocabId) {
+        UserQueue queue = find(userId);
+        if (queue != null) {
+            synchronized (queue) {
+                queue.remove(vocabId);
+            }
+        }
+    }
+
+    @Override
+    public long count(String userId, long fromInclusive, long toExclusive) {
+        UserQueue queue = find(userId);
+        if (queue == null || fromInclusive >= toExclusive) {
+            return 0;
+        }
+        synchronized (queue) {
+            return queue.lowerBound(toExclusive, Integer.MIN_VALUE) - queue.lowerBound(fromInclusive, Integer.MIN_VALUE);
+        }
+    }
+
+    @Override
+    public List<Integer> head(String userId, long toExclusive, int limit) {
+        UserQueue queue = find(userId);
+        if (queue == null || limit <= 0) {
+            return new ArrayList<>();
+        }
+        synchronized (queue) {
+            int end = Math.min(queue.lowerBound(toExclusive, Integer.MIN_VALUE), limit);
+            List<Integer> result = new ArrayList<>(end);
+            for (int i = 0; i < end; i++) {
+                result.add(queue.vocabIds[i]);
+            }
+            return result;
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        synchronized (queues) {
+            queues.clear();
+        }
+    }
+
+    private UserQueue find(String userId) {
+        synchronized (queues) {
+            return queues.get(userId);
+        }
+    }
+
+    private UserQueue findOrCreate(String userId) {
+        synchronized (queues) {
+            return queues.computeIfAbsent(userId, k -> new UserQueue());
+        }
+    }
+
+    /**
+     * Các từ của một user sắp xếp theo (dueAt, vocabId)
+     */
+    private static final class UserQueue {
+        final Map<Integer, Long> dueByVocab = new HashMap<>();
+        long[] dueAt = new long[16];
+        int[] vocabIds = new int[16];
+        int size;
+        boolean loaded;
+
+        /**
+         * Nạp dữ liệu đã sắp xếp bằng cách chép nối tiếp; entry có sẵn được giữ và chèn lại
+         */
+        void load(int[] ids, long[] dues, int count) {
+            Map<Integer, Long> existing = new HashMap<>(dueByVocab);
+            int capacity = Math.max(16, count + existing.size());
+            dueAt = new long[capacity];
+            vocabIds = new int[capacity];
+            size = 0;
+            dueByVocab.clear();
+            for (int i = 0; i < count; i++) {
+                if (!existing.containsKey(ids[i]) && !dueByVocab.containsKey(ids[i])) {
+                    dueAt[size] = dues[i];
+                    vocabIds[size] = ids[i];
+                    dueByVocab.put(ids[i], dues[i]);
+                    size++;
+                }
+            }
+            existing.forEach(this::put);
+        }
+
+        void put(int vocabId, long due) {
+            Long previous = dueByVocab.put(vocabId, due);
+            if (previous != null) {
+                if (previous == due) {
+                    return;
+                }
+                removeAt(lowerBound(previous, vocabId));
+            }
+            insertAt(lowerBound(due, vocabId), due, vocabId);
+        }
+
+        void remove(int vocabId) {
+            Long previous = dueByVocab.remove(vocabId);
+            if (previous != null) {
+                removeAt(lowerBound(previous, vocabId));
+            }
+        }
+
+        /**
+         * Vị trí đầu tiên có (dueAt, vocabId) >= (due, vocabId)
+         */
+        int lowerBound(long due, int vocabId) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (dueAt[mid] < due || (dueAt[mid] == due && vocabIds[mid] < vocabId)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private void insertAt(int index, long due, int vocabId) {
+            if (size == dueAt.length) {
+                dueAt = Arrays.copyOf(dueAt, size * 2);
+                vocabIds = Arrays.copyOf(vocabIds, size * 2);
+            }
+            System.arraycopy(dueAt, index, dueAt, index + 1, size - index);
+            System.arraycopy(vocabIds, index, vocabIds, index + 1, size - index);
+            dueAt[index] = due;
+            vocabIds[index] = vocabId;
+            size++;
+        }
+
+        private void removeAt(int index) {
+            System.arraycopy(dueAt, index + 1, dueAt, index, size - index - 1);
+            System.arraycopy(vocabIds, index + 1, vocabIds, index, size - index - 1);
+            size--;
+        }
+    }
+}
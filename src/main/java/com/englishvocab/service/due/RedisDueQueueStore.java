@@ -0,0 +1,169 @@
+package com.englishvocab.service.due;
+
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Hàng đợi dùng chung giữa các node: mỗi user là một sorted set Redis
+ * (member = vocabId, score = thời điểm ôn tính bằng epoch millis).
+ *
+ * Key có dạng {@code due:<generation>:<userId>}; {@link #invalidateAll()} chỉ tăng
+ * generation, các key cũ tự hết hạn theo TTL. Thao tác đọc dùng generation giữ cục bộ
+ * trong {@code generationTtl} (node khác thấy generation mới chậm nhất sau khoảng đó); thao
+ * tác ghi và load đọc generation và ghi key tương ứng trong cùng một Lua script, nên không
+ * ghi vào key của generation đã bị bỏ. Load dùng ZADD NX nên không ghi đè lịch mới hơn
+ * được ghi trong lúc nạp, và dừng (không đánh dấu đã nạp) nếu generation đổi giữa các chunk.
+ */
+public class RedisDueQueueStore implements DueQueueStore {
+
+    private static final String GENERATION_KEY = "due:generation";
+
+    private static final int LOAD_CHUNK = 1000;
+
+    // ARGV: userId, vocabId, dueAt, ttl millis
+    private static final RedisScript<String> PUT_SCRIPT = RedisScript.of(
+        "local key = 'due:' .. (redis.call('GET', KEYS[1]) or '0') .. ':' .. ARGV[1] " +
+        "redis.call('ZADD', key, ARGV[3], ARGV[2]) " +
+        "redis.call('PEXPIRE', key, ARGV[4]) " +
+        "return 'OK'", String.class);
+
+    // ARGV: userId, vocabId
+    private static final RedisScript<String> REMOVE_SCRIPT = RedisScript.of(
+        "redis.call('ZREM', 'due:' .. (redis.call('GET', KEYS[1]) or '0') .. ':' .. ARGV[1], ARGV[2]) " +
+        "return 'OK'", String.class);
+
+    // ARGV: generation của chunk đầu ('' ở chunk đầu), userId, ttl millis, '1' nếu là chunk cuối, rồi từng cặp score, member.
+    // Trả về generation đã ghi, nil nếu generation đã đổi
+    private static final RedisScript<String> LOAD_SCRIPT = RedisScript.of(
+        "local generation = redis.call('GET', KEYS[1]) or '0' " +
+        "if ARGV[1] ~= '' and ARGV[1] ~= generation then return nil end " +
+        "local key = 'due:' .. generation .. ':' .. ARGV[2] " +
+        "for i = 5, #ARGV, 2 do redis.call('ZADD', key, 'NX', ARGV[i], ARGV[i + 1]) end " +
+        "redis.call('PEXPIRE', key, ARGV[3]) " +
+        "if ARGV[4] == '1' then redis.call('SET', key .. ':loaded', '1', 'PX', ARGV[3]) end " +
+        "return generation", String.class);
+
+    // Tham số script dạng chuỗi: member số nguyên có cùng byte với giá trị JSON mà các lệnh đọc dùng
+    private static final StringRedisSerializer STRING = new StringRedisSerializer();
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final Duration ttl;
+    private final long generationTtlMillis;
+
+    // Generation đọc gần nhất và thời điểm hết hạn (millis); ghi thay nguyên cặp
+    private volatile CachedGeneration cachedGeneration = new CachedGeneration(0, Long.MIN_VALUE);
+
+    public RedisDueQueueStore(RedisTemplate<String, Object> redisTemplate, Duration ttl, Duration generationTtl) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = ttl;
+        this.generationTtlMillis = generationTtl.toMillis();
+    }
+
+    @Override
+    public boolean isLoaded(String userId) {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(loadedKey(userId)));
+    }
+
+    @Override
+    public void load(String userId, int[] vocabIds, long[] dueAt, int size) {
+        String generation = "";
+        int from = 0;
+        do {
+            int to = Math.min(from + LOAD_CHUNK, size);
+            List<Object> args = new ArrayList<>(4 + 2 * (to - from));
+            args.add(generation);
+            args.add(userId);
+            args.add(String.valueOf(ttl.toMillis()));
+            args.add(to == size ? "1" : "0");
+            for (int i = from; i < to; i++) {
+                args.add(String.valueOf(dueAt[i]));
+                args.add(String.valueOf(vocabIds[i]));
+            }
+            generation = execute(LOAD_SCRIPT, args.toArray());
+            if (generation == null) {
+                return; // Bị invalidate trong lúc nạp: lần đọc sau nạp lại vào generation mới
+            }
+            from = to;
+        } while (from < size);
+    }
+
+    @Override
+    public void put(String userId, int vocabId, long dueAt) {
+        execute(PUT_SCRIPT, userId, String.valueOf(vocabId), String.valueOf(dueAt), String.valueOf(ttl.toMillis()));
+    }
+
+    @Override
+    public void remove(String userId, int vocabId) {
+        execute(REMOVE_SCRIPT, userId, String.valueOf(vocabId));
+    }
+
+    @Override
+    public long count(String userId, long fromInclusive, long toExclusive) {
+        if (fromInclusive >= toExclusive) {
+            return 0;
+        }
+        // ZCOUNT là khoảng đóng; score là số nguyên millis nên lùi cận trên 1
+        Long count = redisTemplate.opsForZSet().count(queueKey(userId),
+            fromInclusive == Long.MIN_VALUE ? Double.NEGATIVE_INFINITY : fromInclusive, toExclusive - 1);
+        return count != null ? count : 0;
+    }
+
+    @Override
+    public List<Integer> head(String userId, long toExclusive, int limit) {
+        List<Integer> result = new ArrayList<>();
+        if (limit <= 0) {
+            return result;
+        }
+        Set<Object> members = redisTemplate.opsForZSet()
+            .rangeByScore(queueKey(userId), Double.NEGATIVE_INFINITY, toExclusive - 1, 0, limit);
+        if (members != null) {
+            for (Object member : members) {
+                result.add(((Number) member).intValue());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void invalidateAll() {
+        Long generation = redisTemplate.opsForValue().increment(GENERATION_KEY);
+        if (generation != null) {
+            cachedGeneration = new CachedGeneration(generation, System.currentTimeMillis() + generationTtlMillis);
+        }
+    }
+
+    private String queueKey(String userId) {
+        return "due:" + generation() + ":" + userId;
+    }
+
+    private String loadedKey(String userId) {
+        return queueKey(userId) + ":loaded";
+    }
+
+    private String execute(RedisScript<String> script, Object... args) {
+        return redisTemplate.execute(script, STRING, STRING, List.of(GENERATION_KEY), args);
+    }
+
+    private long generation() {
+        long now = System.currentTimeMillis();
+        CachedGeneration cached = cachedGeneration;
+        if (now < cached.expiresAt()) {
+            return cached.value();
+        }
+        Object value = redisTemplate.opsForValue().get(GENERATION_KEY);
+        long generation = value instanceof Number number ? number.longValue() : 0;
+        // Không lùi về generation cũ hơn giá trị INCR vừa ghi
+        generation = Math.max(generation, cached.value());
+        cachedGeneration = new CachedGeneration(generation, now + generationTtlMillis);
+        return generation;
+    }
+
+    private record CachedGeneration(long value, long expiresAt) {
+    }
+}
@@ -0,0 +1,113 @@
+package com.englishvocab.service.learned;
+
+import com.englishvocab.config.properties.LearnedVocabIndexProperties;
+import com.englishvocab.event.ProgressChangedEvent;
+import com.englishvocab.service.CatalogCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tập vocab id user đã học (có hàng trong user_vocab_progress), dùng để chọn từ mới.
+ *
+ * Bitmap của một user được nạp lười bằng một query ở lần đầu, sau đó được thêm id theo
+ * {@link ProgressChangedEvent} sau mỗi lần ghi progress commit. Progress không bao giờ bị
+ * xóa riêng lẻ nên tập chỉ tăng: nạp lại (khi quá maxAge, để nhận progress ghi ở node khác)
+ * chỉ cần OR thêm id từ DB vào bitmap đang có. Chọn N từ mới duyệt dãy id của từ điển trong
+ * catalog snapshot và bỏ qua id có trong bitmap, không chạm DB.
+ */
+@Component
+@Slf4j
+public class LearnedVocabIndex {
+
+    private static final String USER_LEARNED_SQL = "SELECT vocab_id FROM user_vocab_progress WHERE user_id = ?";
+
+    private static final String FIRST_UNLEARNED_SQL =
+        "SELECT v.vocab_id FROM vocab v WHERE v.dictionary_id = ? AND NOT EXISTS " +
+        "(SELECT 1 FROM user_vocab_progress p WHERE p.user_id = ? AND p.vocab_id = v.vocab_id) " +
+        "ORDER BY v.vocab_id LIMIT ?";
+
+    private final LearnedVocabIndexProperties properties;
+    private final CatalogCache catalogCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, Entry> users;
+
+    public LearnedVocabIndex(LearnedVocabIndexProperties properties,
+                             CatalogCache catalogCache,
+                             JdbcTemplate jdbcTemplate) {
+        this.properties = properties;
+        this.catalogCache = catalogCache;
+        this.jdbcTemplate = jdbcTemplate;
+        int maxUsers = Math.max(1, properties.getMaxUsers());
+        this.users = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxUsers;
+            }
+        };
+    }
+
+    /**
+     * Tối đa {@code count} vocab id đầu tiên (theo vocab_id) của từ điển mà user chưa học
+     */
+    public List<Integer> firstUnlearned(String userId, Integer dictionaryId, int count) {
+        if (!properties.isEnabled()) {
+            return jdbcTemplate.queryForList(FIRST_UNLEARNED_SQL, Integer.class, dictionaryId, userId, count);
+        }
+        Entry entry = entry(userId);
+        synchronized (entry) {
+            return catalogCache.get().firstIds(dictionaryId, count, entry.learned::contains);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProgressChanged(ProgressChangedEvent event) {
+        if (event.isBulk() || !properties.isEnabled()) {
+            return; // Lên lịch lại không tạo/xóa progress
+        }
+        Entry entry;
+        synchronized (users) {
+            entry = users.get(event.userId());
+        }
+        if (entry != null) {
+            synchronized (entry) {
+                entry.learned.add(event.vocabId());
+            }
+        }
+    }
+
+    /**
+     * Bitmap của user, nạp (hoặc bổ sung khi đã cũ) từ DB nếu cần.
+     * Entry được đưa vào map trước khi query nên progress commit trong lúc nạp vẫn được thêm qua event.
+     */
+    private Entry entry(String userId) {
+        Entry entry;
+        synchronized (users) {
+            entry = users.computeIfAbsent(userId, k -> new Entry());
+        }
+        synchronized (entry) {
+            long now = System.currentTimeMillis();
+            if (now - entry.loadedAt > properties.getMaxAge().toMillis()) {
+                long startedAt = System.nanoTime();
+                jdbcTemplate.query(USER_LEARNED_SQL, rs -> {
+                    entry.learned.add(rs.getInt(1));
+                }, userId);
+                entry.loadedAt = now;
+                log.debug("Loaded learned vocab ids of user {}: {} ids, ~{} bytes in {} us",
+                    userId, entry.learned.cardinality(), entry.learned.sizeInBytes(),
+                    (System.nanoTime() - startedAt) / 1000);
+            }
+        }
+        return entry;
+    }
+
+    private static final class Entry {
+        final VocabIdBitmap learned = new VocabIdBitmap();
+        long loadedAt = Long.MIN_VALUE / 2;
+    }
+}
@@ -0,0 +1,172 @@
+package com.englishvocab.service.learned;
+
+import java.util.Arrays;
+
+/**
+ * Tập vocab id (int không âm) nén theo kiểu Roaring.
+ *
+ * Id được chia theo 16 bit cao; mỗi nhóm 65536 id là một container: mảng char đã sắp xếp
+ * khi thưa (tối đa 4096 phần tử, 2 byte/id) hoặc bitmap 8 KB khi dày. Tra cứu là một
+ * binary search trên các key rồi một binary search / phép AND bit trong container.
+ * Không thread-safe: caller tự đồng bộ.
+ */
+public final class VocabIdBitmap {
+
+    private static final int ARRAY_MAX = 4096;
+    private static final int BITMAP_WORDS = 1 << 10;
+
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int size;
+    private int cardinality;
+
+    /**
+     * @return true nếu id chưa có trong tập
+     */
+    public boolean add(int vocabId) {
+        if (vocabId < 0) {
+            throw new IllegalArgumentException("vocabId âm: " + vocabId);
+        }
+        char key = (char) (vocabId >>> 16);
+        int i = Arrays.binarySearch(keys, 0, size, key);
+        if (i < 0) {
+            i = -i - 1;
+            insertContainer(i, key);
+        }
+        Container container = containers[i];
+        int before = container.cardinality();
+        containers[i] = container.add((char) vocabId);
+        if (containers[i].cardinality() == before) {
+            return false;
+        }
+        cardinality++;
+        return true;
+    }
+
+    public boolean contains(int vocabId) {
+        if (vocabId < 0) {
+            return false;
+        }
+        int i = Arrays.binarySearch(keys, 0, size, (char) (vocabId >>> 16));
+        return i >= 0 && containers[i].contains((char) vocabId);
+    }
+
+    public int cardinality() {
+        return cardinality;
+    }
+
+    /**
+     * Ước lượng bộ nhớ của dữ liệu (không tính header đối tượng)
+     */
+    public long sizeInBytes() {
+        long bytes = keys.length * 2L + containers.length * 4L;
+        for (int i = 0; i < size; i++) {
+            bytes += containers[i].sizeInBytes();
+        }
+        return bytes;
+    }
+
+    private void insertContainer(int index, char key) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = new ArrayContainer();
+        size++;
+    }
+
+    private interface Container {
+
+        /**
+         * Thêm giá trị, trả về container chứa kết quả (có thể là container mới khi chuyển dạng)
+         */
+        Container add(char value);
+
+        boolean contains(char value);
+
+        int cardinality();
+
+        long sizeInBytes();
+    }
+
+    private static final class ArrayContainer implements Container {
+        char[] values = new char[4];
+        int cardinality;
+
+        @Override
+        public Container add(char value) {
+            int i = Arrays.binarySearch(values, 0, cardinality, value);
+            if (i >= 0) {
+                return this;
+            }
+            if (cardinality == ARRAY_MAX) {
+                return toBitmap().add(value);
+            }
+            i = -i - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, cardinality + (cardinality >> 1) + 1));
+            }
+            System.arraycopy(values, i, values, i + 1, cardinality - i);
+            values[i] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        public boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public long sizeInBytes() {
+            return values.length * 2L;
+        }
+
+        private BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < cardinality; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapContainer implements Container {
+        final long[] words = new long[BITMAP_WORDS];
+        int cardinality;
+
+        @Override
+        public Container add(char value) {
+            long bit = 1L << value;
+            int word = value >>> 6;
+            if ((words[word] & bit) == 0) {
+                words[word] |= bit;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        public boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public long sizeInBytes() {
+            return BITMAP_WORDS * 8L;
+        }
+    }
+}
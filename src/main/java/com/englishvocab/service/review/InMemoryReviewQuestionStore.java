@@ -0,0 +1,54 @@
+package com.englishvocab.service.review;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bộ câu hỏi giữ trong JVM (một node, hoặc sticky session). Entry hết hạn bị
+ * bỏ khi đọc, và được quét định kỳ lúc ghi.
+ */
+public class InMemoryReviewQuestionStore implements ReviewQuestionStore {
+
+    private static final long PURGE_INTERVAL_MS = 60_000;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+    private volatile long nextPurgeAt;
+
+    public InMemoryReviewQuestionStore(Duration ttl) {
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    @Override
+    public void put(String key, ReviewQuestionSet questionSet) {
+        long now = System.currentTimeMillis();
+        if (now >= nextPurgeAt) {
+            nextPurgeAt = now + PURGE_INTERVAL_MS;
+            entries.values().removeIf(entry -> entry.expiresAt() <= now);
+        }
+        entries.put(key, new Entry(questionSet, now + ttlMillis));
+    }
+
+    @Override
+    public ReviewQuestionSet get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() <= System.currentTimeMillis()) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.questionSet();
+    }
+
+    @Override
+    public ReviewQuestionSet remove(String key) {
+        Entry entry = entries.remove(key);
+        return entry != null && entry.expiresAt() > System.currentTimeMillis() ? entry.questionSet() : null;
+    }
+
+    private record Entry(ReviewQuestionSet questionSet, long expiresAt) {
+    }
+}
@@ -0,0 +1,56 @@
+package com.englishvocab.service.review;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+
+/**
+ * Bộ câu hỏi dùng chung giữa các node: mỗi entry là một chuỗi JSON với TTL,
+ * key {@code review-questions:<key>}.
+ */
+public class RedisReviewQuestionStore implements ReviewQuestionStore {
+
+    private static final String KEY_PREFIX = "review-questions:";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+
+    public RedisReviewQuestionStore(RedisTemplate<String, Object> redisTemplate, ObjectMapper objectMapper, Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+    }
+
+    @Override
+    public void put(String key, ReviewQuestionSet questionSet) {
+        try {
+            redisTemplate.opsForValue().set(KEY_PREFIX + key, objectMapper.writeValueAsString(questionSet), ttl);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize review questions " + key, e);
+        }
+    }
+
+    @Override
+    public ReviewQuestionSet get(String key) {
+        return decode(key, redisTemplate.opsForValue().get(KEY_PREFIX + key));
+    }
+
+    @Override
+    public ReviewQuestionSet remove(String key) {
+        return decode(key, redisTemplate.opsForValue().getAndDelete(KEY_PREFIX + key));
+    }
+
+    private ReviewQuestionSet decode(String key, Object value) {
+        if (!(value instanceof String json)) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, ReviewQuestionSet.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read review questions " + key, e);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.englishvocab.service.review;
+
+import com.englishvocab.entity.ReviewItems;
+import com.englishvocab.entity.Vocab;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bộ câu hỏi của một lượt ôn tập, chỉ sống trong {@link ReviewQuestionStore}
+ * thay vì 15 hàng review_items.
+ *
+ * @param userId    user làm bài
+ * @param reviewId  review chứa bộ câu hỏi
+ * @param questions câu hỏi theo thứ tự; item id của câu thứ i là i + 1
+ */
+public record ReviewQuestionSet(String userId, Integer reviewId, List<Question> questions) {
+
+    /**
+     * Một câu hỏi; {@code options} giữ dạng nối bằng '|' như cột review_items.option
+     */
+    public record Question(Integer vocabId, ReviewItems.Type type, String word, String meaning,
+                           String prompt, String options, String answer) {
+    }
+
+    public static ReviewQuestionSet of(String userId, Integer reviewId, List<ReviewItems> items) {
+        List<Question> questions = new ArrayList<>(items.size());
+        for (ReviewItems item : items) {
+            Vocab vocab = item.getVocab();
+            questions.add(new Question(vocab.getVocabId(), item.getType(), vocab.getWord(),
+                vocab.getPrimaryMeaning(), item.getPrompt(), item.getOption(), item.getAnswer()));
+        }
+        return new ReviewQuestionSet(userId, reviewId, List.copyOf(questions));
+    }
+
+    /**
+     * Câu hỏi theo item id (1-based), null nếu không có
+     */
+    public Question question(Integer itemId) {
+        return itemId != null && itemId >= 1 && itemId <= questions.size() ? questions.get(itemId - 1) : null;
+    }
+
+    /**
+     * Câu hỏi dưới dạng ReviewItems tạm (không persist) để render và chấm điểm như câu hỏi lưu DB
+     */
+    public ReviewItems toItem(Integer itemId) {
+        Question question = question(itemId);
+        if (question == null) {
+            return null;
+        }
+        return ReviewItems.builder()
+            .reviewItemId(itemId)
+            .sessionOrder(itemId - 1)
+            .vocab(Vocab.builder().vocabId(question.vocabId()).word(question.word()).build())
+            .type(question.type())
+            .prompt(question.prompt())
+            .option(question.options())
+            .answer(question.answer())
+            .build();
+    }
+
+    public List<ReviewItems> toItems() {
+        List<ReviewItems> items = new ArrayList<>(questions.size());
+        for (int i = 1; i <= questions.size(); i++) {
+            items.add(toItem(i));
+        }
+        return items;
+    }
+}
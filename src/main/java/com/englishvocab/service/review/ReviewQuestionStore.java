@@ -0,0 +1,25 @@
+package com.englishvocab.service.review;
+
+/**
+ * Nơi giữ bộ câu hỏi tạm của các lượt ôn tập; mỗi entry tự hết hạn sau TTL.
+ * Key là "review:<id>" trước khi bắt đầu làm bài và "attempt:<id>" sau đó.
+ */
+public interface ReviewQuestionStore {
+
+    void put(String key, ReviewQuestionSet questionSet);
+
+    ReviewQuestionSet get(String key);
+
+    /**
+     * Lấy và xóa entry
+     */
+    ReviewQuestionSet remove(String key);
+
+    static String reviewKey(Integer reviewId) {
+        return "review:" + reviewId;
+    }
+
+    static String attemptKey(Integer attemptId) {
+        return "attempt:" + attemptId;
+    }
+}
@@ -0,0 +1,344 @@
+package com.englishvocab.service.search;
+
+import com.englishvocab.event.CatalogChangedEvent;
+import com.englishvocab.event.VocabChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Tra từ tiếng Anh theo nghĩa tiếng Việt gõ không dấu ("tu dien" → dictionary).
+ *
+ * Senses.meaningVi được chuẩn hóa (bỏ dấu, đ → d, chữ thường) rồi tách token; mỗi token có
+ * danh sách sense_id đã sắp xếp. Truy vấn là AND của các token, token cuối khớp theo tiền tố
+ * (đang gõ dở); kết quả gom theo vocab và xếp theo độ phủ token của sense khớp tốt nhất
+ * (số token truy vấn khớp nguyên vẹn / số token của nghĩa). Index được xây lười, cập nhật
+ * theo {@link VocabChangedEvent} của từng từ (đọc lại senses của từ đó); import hàng loạt và
+ * thay đổi từ điển thì xây lại ở lần tra kế tiếp.
+ */
+@Component
+@Slf4j
+public class MeaningIndex {
+
+    // Đọc theo sense_id tăng dần để postings chỉ cần nối vào cuối
+    private static final String SELECT_SENSES =
+        "SELECT s.sense_id, s.vocab_id, v.dictionary_id, s.meaning_vi FROM senses s JOIN vocab v ON v.vocab_id = s.vocab_id";
+    private static final String SENSES_SQL = SELECT_SENSES + " ORDER BY s.sense_id";
+    private static final String VOCAB_SENSES_SQL = SELECT_SENSES + " WHERE s.vocab_id = ? ORDER BY s.sense_id";
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /**
+     * Một vocab khớp truy vấn, {@code score} trong (0, 1]
+     */
+    public record Match(int vocabId, int dictionaryId, double score) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final TreeMap<String, Postings> postings = new TreeMap<>();
+    private final Map<Integer, Sense> senses = new HashMap<>();
+    private final Map<Integer, int[]> sensesByVocab = new HashMap<>();
+    private boolean loaded;
+
+    public MeaningIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Tối đa {@code limit} vocab có nghĩa chứa mọi token của {@code query}, lọc theo từ điển nếu có
+     */
+    public List<Match> lookup(String query, Integer dictionaryId, int limit) {
+        String[] tokens = tokenize(query);
+        if (tokens.length == 0 || limit <= 0) {
+            return List.of();
+        }
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return rank(tokens, dictionaryId, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Chuẩn hóa chuỗi tiếng Việt về dạng không dấu, chữ thường
+     */
+    public static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("")
+            .replace('đ', 'd').replace('Đ', 'D')
+            .toLowerCase(Locale.ROOT);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onVocabChanged(VocabChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                return;
+            }
+            if (event.vocabId() == null) {
+                clear();
+                return;
+            }
+            removeVocab(event.vocabId());
+            if (event.type() != VocabChangedEvent.Type.DELETED) {
+                jdbcTemplate.query(VOCAB_SENSES_SQL, rs -> {
+                    addSense(rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getString(4));
+                }, event.vocabId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.kind() != CatalogChangedEvent.Kind.DICTIONARY) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        lock.readLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+            long startedAt = System.currentTimeMillis();
+            jdbcTemplate.query(SENSES_SQL, rs -> {
+                addSense(rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getString(4));
+            });
+            loaded = true;
+            log.info("Built meaning index: {} senses, {} tokens in {} ms",
+                senses.size(), postings.size(), System.currentTimeMillis() - startedAt);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<Match> rank(String[] tokens, Integer dictionaryId, int limit) {
+        String last = tokens[tokens.length - 1];
+        Set<String> exact = new LinkedHashSet<>(Arrays.asList(tokens));
+
+        // Token đầy đủ: sense phải có đúng token; token cuối: bất kỳ token nào có tiền tố đó
+        int[] candidates = null;
+        for (String token : exact) {
+            if (token.equals(last)) {
+                continue;
+            }
+            Postings list = postings.get(token);
+            if (list == null) {
+                return List.of();
+            }
+            candidates = candidates == null ? list.toArray() : intersect(candidates, list);
+        }
+        int[] prefixMatches = prefixUnion(last);
+        candidates = candidates == null ? prefixMatches : intersect(candidates, prefixMatches);
+
+        Postings lastExact = postings.get(last);
+        Map<Integer, Match> best = new HashMap<>();
+        for (int senseId : candidates) {
+            Sense sense = senses.get(senseId);
+            if (dictionaryId != null && sense.dictionaryId() != dictionaryId) {
+                continue;
+            }
+            int exactMatches = exact.size() - 1 + (lastExact != null && lastExact.contains(senseId) ? 1 : 0);
+            double score = (exactMatches + (exact.size() - exactMatches) * 0.5) / Math.max(sense.tokenCount(), exact.size());
+            best.merge(sense.vocabId(), new Match(sense.vocabId(), sense.dictionaryId(), score),
+                (a, b) -> a.score() >= b.score() ? a : b);
+        }
+        return best.values().stream()
+            .sorted(Comparator.comparingDouble(Match::score).reversed().thenComparingInt(Match::vocabId))
+            .limit(limit)
+            .toList();
+    }
+
+    private int[] prefixUnion(String prefix) {
+        Map<String, Postings> range = postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        if (range.size() == 1) {
+            return range.values().iterator().next().toArray();
+        }
+        int total = 0;
+        for (Postings list : range.values()) {
+            total += list.size;
+        }
+        int[] union = new int[total];
+        int n = 0;
+        for (Postings list : range.values()) {
+            System.arraycopy(list.ids, 0, union, n, list.size);
+            n += list.size;
+        }
+        Arrays.sort(union);
+        return Arrays.stream(union).distinct().toArray();
+    }
+
+    private static int[] intersect(int[] sorted, Postings list) {
+        int[] result = new int[Math.min(sorted.length, list.size)];
+        int n = 0;
+        for (int id : sorted) {
+            if (list.contains(id)) {
+                result[n++] = id;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int n = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    private void addSense(int senseId, int vocabId, int dictionaryId, String meaningVi) {
+        String[] tokens = distinct(tokenize(meaningVi));
+        if (tokens.length == 0) {
+            return;
+        }
+        senses.put(senseId, new Sense(vocabId, dictionaryId, tokens));
+        int[] ids = sensesByVocab.get(vocabId);
+        if (ids == null) {
+            sensesByVocab.put(vocabId, new int[]{senseId});
+        } else {
+            int[] grown = Arrays.copyOf(ids, ids.length + 1);
+            grown[ids.length] = senseId;
+            sensesByVocab.put(vocabId, grown);
+        }
+        for (String token : tokens) {
+            postings.computeIfAbsent(token, k -> new Postings()).add(senseId);
+        }
+    }
+
+    private void removeVocab(int vocabId) {
+        int[] ids = sensesByVocab.remove(vocabId);
+        if (ids == null) {
+            return;
+        }
+        for (int senseId : ids) {
+            Sense sense = senses.remove(senseId);
+            for (String token : sense.tokens()) {
+                Postings list = postings.get(token);
+                if (list != null && list.remove(senseId) && list.size == 0) {
+                    postings.remove(token);
+                }
+            }
+        }
+    }
+
+    private void clear() {
+        postings.clear();
+        senses.clear();
+        sensesByVocab.clear();
+        loaded = false;
+    }
+
+    private static String[] tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return new String[0];
+        }
+        return Arrays.stream(TOKEN_SEPARATOR.split(fold(text)))
+            .filter(token -> !token.isEmpty())
+            .toArray(String[]::new);
+    }
+
+    private static String[] distinct(String[] tokens) {
+        return new LinkedHashSet<>(Arrays.asList(tokens)).toArray(String[]::new);
+    }
+
+    private record Sense(int vocabId, int dictionaryId, String[] tokens) {
+        int tokenCount() {
+            return tokens.length;
+        }
+    }
+
+    /**
+     * Danh sách sense_id tăng dần của một token
+     */
+    private static final class Postings {
+        int[] ids = new int[2];
+        int size;
+
+        boolean contains(int senseId) {
+            return Arrays.binarySearch(ids, 0, size, senseId) >= 0;
+        }
+
+        void add(int senseId) {
+            if (size == 0 || senseId > ids[size - 1]) {
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+                }
+                ids[size++] = senseId;
+                return;
+            }
+            int i = Arrays.binarySearch(ids, 0, size, senseId);
+            if (i >= 0) {
+                return;
+            }
+            i = -i - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            System.arraycopy(ids, i, ids, i + 1, size - i);
+            ids[i] = senseId;
+            size++;
+        }
+
+        boolean remove(int senseId) {
+            int i = Arrays.binarySearch(ids, 0, size, senseId);
+            if (i < 0) {
+                return false;
+            }
+            System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+            size--;
+            return true;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.englishvocab.service.search;
+
+import com.englishvocab.entity.Vocab;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Index tiền tố bất biến cho autocomplete: các từ được sắp xếp (không phân biệt hoa thường)
+ * và nén vào một mảng char liền nhau với mảng offset, kèm các mảng song song id, từ điển, level.
+ *
+ * Tìm theo tiền tố là một binary search cho vị trí đầu rồi quét dải liên tiếp các từ có
+ * cùng tiền tố; top-k được xếp theo: trùng khớp hoàn toàn, level (dễ trước), độ dài từ,
+ * thứ tự chữ cái. Thay đổi một từ tạo index mới bằng một lần chép tuần tự (copy-on-write),
+ * nên reader không cần khóa.
+ */
+public final class PrefixIndex {
+
+    private static final Vocab.Level[] LEVELS = Vocab.Level.values();
+    private static final byte NO_LEVEL = -1;
+    private static final int NO_DICTIONARY = -1;
+
+    private static final Comparator<Entry> ORDER = (a, b) -> {
+        int c = compareIgnoreCase(a.word(), b.word());
+        return c != 0 ? c : Integer.compare(a.id(), b.id());
+    };
+
+    public static final PrefixIndex EMPTY = of(List.of());
+
+    /**
+     * Một từ trong index; {@code dictionaryId} và {@code level} null với từ vựng cá nhân
+     */
+    public record Entry(int id, String word, Integer dictionaryId, Vocab.Level level) {
+    }
+
+    private final char[] chars;
+    private final int[] offsets;
+    private final int[] ids;
+    private final int[] dictionaryIds;
+    private final byte[] levels;
+
+    private PrefixIndex(char[] chars, int[] offsets, int[] ids, int[] dictionaryIds, byte[] levels) {
+        this.chars = chars;
+        this.offsets = offsets;
+        this.ids = ids;
+        this.dictionaryIds = dictionaryIds;
+        this.levels = levels;
+    }
+
+    /**
+     * Xây index từ danh sách từ (từ rỗng bị bỏ qua)
+     */
+    public static PrefixIndex of(Collection<Entry> entries) {
+        List<Entry> sorted = new ArrayList<>(entries.size());
+        int totalChars = 0;
+        for (Entry entry : entries) {
+            Entry normalized = normalize(entry);
+            if (normalized != null) {
+                sorted.add(normalized);
+                totalChars += normalized.word().length();
+            }
+        }
+        sorted.sort(ORDER);
+        Packer packer = new Packer(sorted.size(), totalChars);
+        for (Entry entry : sorted) {
+            packer.append(entry);
+        }
+        return packer.build();
+    }
+
+    /**
+     * Index mới trong đó từ có id {@code entry.id()} được thay bằng {@code entry} (thêm nếu chưa có)
+     */
+    public PrefixIndex with(Entry entry) {
+        Entry normalized = normalize(entry);
+        return normalized != null ? replace(entry.id(), normalized) : without(entry.id());
+    }
+
+    /**
+     * Index mới không còn từ có id {@code id}
+     */
+    public PrefixIndex without(int id) {
+        return indexOf(id) >= 0 ? replace(id, null) : this;
+    }
+
+    /**
+     * Tối đa {@code limit} từ bắt đầu bằng {@code prefix}, lọc theo từ điển nếu {@code dictionaryId} khác null
+     */
+    public List<Entry> suggest(String prefix, Integer dictionaryId, int limit) {
+        if (prefix == null || prefix.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        int dictionaryFilter = dictionaryId != null ? dictionaryId : NO_DICTIONARY;
+        long[] best = new long[limit];
+        int found = 0;
+        for (int i = lowerBound(prefix); i < size() && startsWith(i, prefix); i++) {
+            if (dictionaryFilter != NO_DICTIONARY && dictionaryIds[i] != dictionaryFilter) {
+                continue;
+            }
+            long rank = rank(i, prefix.length());
+            if (found < limit) {
+                found = insert(best, found, rank);
+            } else if (rank < best[limit - 1]) {
+                insert(best, limit - 1, rank);
+            }
+        }
+
+        List<Entry> result = new ArrayList<>(found);
+        for (int k = 0; k < found; k++) {
+            result.add(entry((int) best[k]));
+        }
+        return result;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Bộ nhớ của các mảng dữ liệu (không tính header đối tượng)
+     */
+    public long sizeInBytes() {
+        return chars.length * 2L + offsets.length * 4L + ids.length * 4L + dictionaryIds.length * 4L + levels.length;
+    }
+
+    /**
+     * Khóa xếp hạng: bit cao là "không trùng khớp", rồi level, độ dài, cuối cùng là vị trí (thứ tự chữ cái)
+     */
+    private long rank(int i, int prefixLength) {
+        int length = offsets[i + 1] - offsets[i];
+        long inexact = length == prefixLength ? 0 : 1;
+        long level = levels[i] == NO_LEVEL ? LEVELS.length : levels[i];
+        return inexact << 62 | level << 54 | (long) Math.min(length, 0xFFFF) << 32 | i;
+    }
+
+    /**
+     * Chèn {@code rank} vào mảng tăng dần {@code best[0..count)}, trả về số phần tử mới
+     */
+    private static int insert(long[] best, int count, long rank) {
+        int i = count;
+        while (i > 0 && best[i - 1] > rank) {
+            best[i] = best[i - 1];
+            i--;
+        }
+        best[i] = rank;
+        return count + 1;
+    }
+
+    private PrefixIndex replace(int id, Entry entry) {
+        int extraChars = entry != null ? entry.word().length() : 0;
+        Packer packer = new Packer(size() + 1, chars.length + extraChars);
+        boolean inserted = entry == null;
+        for (int i = 0; i < size(); i++) {
+            if (ids[i] == id) {
+                continue;
+            }
+            if (!inserted && compareTo(entry, i) < 0) {
+                packer.append(entry);
+                inserted = true;
+            }
+            packer.append(this, i);
+        }
+        if (!inserted) {
+            packer.append(entry);
+        }
+        return packer.build();
+    }
+
+    private int indexOf(int id) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Vị trí đầu tiên có từ không nhỏ hơn {@code prefix}
+     */
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareKey(mid, prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private boolean startsWith(int i, String prefix) {
+        int start = offsets[i];
+        if (offsets[i + 1] - start < prefix.length()) {
+            return false;
+        }
+        for (int k = 0; k < prefix.length(); k++) {
+            if (Character.toLowerCase(chars[start + k]) != Character.toLowerCase(prefix.charAt(k))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int compareKey(int i, String other) {
+        int start = offsets[i];
+        int length = offsets[i + 1] - start;
+        int n = Math.min(length, other.length());
+        for (int k = 0; k < n; k++) {
+            int c = Character.toLowerCase(chars[start + k]) - Character.toLowerCase(other.charAt(k));
+            if (c != 0) {
+                return c;
+            }
+        }
+        return length - other.length();
+    }
+
+    private int compareTo(Entry entry, int i) {
+        int c = -compareKey(i, entry.word());
+        return c != 0 ? c : Integer.compare(entry.id(), ids[i]);
+    }
+
+    private Entry entry(int i) {
+        return new Entry(ids[i], new String(chars, offsets[i], offsets[i + 1] - offsets[i]),
+            dictionaryIds[i] != NO_DICTIONARY ? dictionaryIds[i] : null,
+            levels[i] != NO_LEVEL ? LEVELS[levels[i]] : null);
+    }
+
+    private static Entry normalize(Entry entry) {
+        if (entry.word() == null || entry.word().isBlank()) {
+            return null;
+        }
+        String word = entry.word().trim();
+        return word.equals(entry.word()) ? entry : new Entry(entry.id(), word, entry.dictionaryId(), entry.level());
+    }
+
+    private static int compareIgnoreCase(String a, String b) {
+        int n = Math.min(a.length(), b.length());
+        for (int k = 0; k < n; k++) {
+            int c = Character.toLowerCase(a.charAt(k)) - Character.toLowerCase(b.charAt(k));
+            if (c != 0) {
+                return c;
+            }
+        }
+        return a.length() - b.length();
+    }
+
+    /**
+     * Ghi tuần tự các từ (đã đúng thứ tự) vào mảng mới
+     */
+    private static final class Packer {
+        private final char[] chars;
+        private final int[] offsets;
+        private final int[] ids;
+        private final int[] dictionaryIds;
+        private final byte[] levels;
+        private int size;
+        private int length;
+
+        Packer(int capacity, int charCapacity) {
+            chars = new char[charCapacity];
+            offsets = new int[capacity + 1];
+            ids = new int[capacity];
+            dictionaryIds = new int[capacity];
+            levels = new byte[capacity];
+        }
+
+        void append(Entry entry) {
+            String word = entry.word();
+            word.getChars(0, word.length(), chars, length);
+            length += word.length();
+            next(entry.id(),
+                entry.dictionaryId() != null ? entry.dictionaryId() : NO_DICTIONARY,
+                entry.level() != null ? (byte) entry.level().ordinal() : NO_LEVEL);
+        }
+
+        void append(PrefixIndex source, int i) {
+            int start = source.offsets[i];
+            int wordLength = source.offsets[i + 1] - start;
+            System.arraycopy(source.chars, start, chars, length, wordLength);
+            length += wordLength;
+            next(source.ids[i], source.dictionaryIds[i], source.levels[i]);
+        }
+
+        private void next(int id, int dictionaryId, byte level) {
+            ids[size] = id;
+            dictionaryIds[size] = dictionaryId;
+            levels[size] = level;
+            size++;
+            offsets[size] = length;
+        }
+
+        PrefixIndex build() {
+            return new PrefixIndex(
+                length == chars.length ? chars : Arrays.copyOf(chars, length),
+                size + 1 == offsets.length ? offsets : Arrays.copyOf(offsets, size + 1),
+                size == ids.length ? ids : Arrays.copyOf(ids, size),
+                size == dictionaryIds.length ? dictionaryIds : Arrays.copyOf(dictionaryIds, size),
+                size == levels.length ? levels : Arrays.copyOf(levels, size));
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.englishvocab.service.search;
+
+import com.englishvocab.entity.Vocab;
+import com.englishvocab.repository.VocabRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Tìm từ vựng theo chuỗi con của word, nghĩa tiếng Việt hoặc định nghĩa, có xếp hạng và phân trang.
+ *
+ * LIKE '%kw%' trên lower(word) / lower(meaning_vi) được phục vụ bởi index GIN pg_trgm; nghĩa
+ * và định nghĩa còn được khớp theo từ bằng tsvector ('simple', index GIN biểu thức). Điểm:
+ * word trùng khớp > word bắt đầu bằng từ khóa > word chứa từ khóa > khớp nghĩa/định nghĩa,
+ * cộng thêm độ tương tự trigram. Một câu SQL trả về cả trang id lẫn tổng số kết quả.
+ * Nếu không tạo được extension pg_trgm, truy vấn vẫn chạy (không có similarity, quét tuần tự).
+ * Khi SQL không có kết quả (thường là nghĩa gõ không dấu), tra tiếp {@link MeaningIndex}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VocabSearchService {
+
+    private static final String SENSE_TEXT = "to_tsvector('simple', s.meaning_vi || ' ' || coalesce(s.definition, ''))";
+
+    private static final List<String> TRIGRAM_DDL = List.of(
+        "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+        "CREATE INDEX IF NOT EXISTS idx_vocab_word_trgm ON vocab USING gin (lower(word) gin_trgm_ops)",
+        "CREATE INDEX IF NOT EXISTS idx_senses_meaning_trgm ON senses USING gin (lower(meaning_vi) gin_trgm_ops)");
+
+    private static final String FULL_TEXT_DDL =
+        "CREATE INDEX IF NOT EXISTS idx_senses_text_tsv ON senses USING gin (" +
+        "to_tsvector('simple', meaning_vi || ' ' || coalesce(definition, '')))";
+
+    private static final int MEANING_FALLBACK_LIMIT = 200;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final VocabRepository vocabRepository;
+    private final MeaningIndex meaningIndex;
+
+    private volatile boolean trigramAvailable;
+
+    /**
+     * Tạo extension và index tìm kiếm nếu chưa có (schema do Hibernate tạo nên không có migration)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void createSearchIndexes() {
+        try {
+            for (String ddl : TRIGRAM_DDL) {
+                jdbcTemplate.getJdbcTemplate().execute(ddl);
+            }
+            trigramAvailable = true;
+        } catch (RuntimeException e) {
+            log.warn("pg_trgm is not available, vocabulary search falls back to sequential scans: {}", e.getMessage());
+        }
+        try {
+            jdbcTemplate.getJdbcTemplate().execute(FULL_TEXT_DDL);
+        } catch (RuntimeException e) {
+            log.warn("Could not create full-text index on senses: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Tìm từ theo từ khóa, trong một từ điển hoặc toàn bộ ({@code dictionaryId} null)
+     */
+    public Page<Vocab> search(String keyword, Integer dictionaryId, Pageable pageable) {
+        String query = keyword != null ? keyword.trim().toLowerCase(Locale.ROOT) : "";
+        if (query.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        String escaped = escapeLike(query);
+        MapSqlParameterSource params = new MapSqlParameterSource()
+            .addValue("q", query)
+            .addValue("prefix", escaped + "%")
+            .addValue("contains", "%" + escaped + "%")
+            .addValue("dictionaryId", dictionaryId)
+            .addValue("limit", pageable.getPageSize())
+            .addValue("offset", pageable.getOffset());
+
+        String sql = searchSql(dictionaryId != null);
+        List<Integer> ids = new ArrayList<>(pageable.getPageSize());
+        long[] total = {0};
+        jdbcTemplate.query(sql, params, rs -> {
+            ids.add(rs.getInt(1));
+            total[0] = rs.getLong(2);
+        });
+        if (ids.isEmpty() && pageable.getOffset() > 0) {
+            // Trang vượt quá số kết quả: không có hàng để đọc COUNT(*) OVER (), đếm lại từ đầu
+            params.addValue("limit", 1).addValue("offset", 0);
+            jdbcTemplate.query(sql, params, rs -> {
+                total[0] = rs.getLong(2);
+            });
+        }
+        // Chỉ dùng index nghĩa không dấu khi tìm kiếm thường không có kết quả nào
+        if (total[0] == 0) {
+            List<Integer> matches = meaningIndex.lookup(query, dictionaryId, MEANING_FALLBACK_LIMIT).stream()
+                .map(MeaningIndex.Match::vocabId).toList();
+            int from = (int) Math.min(pageable.getOffset(), matches.size());
+            ids.addAll(matches.subList(from, Math.min(from + pageable.getPageSize(), matches.size())));
+            total[0] = matches.size();
+        }
+        if (ids.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, total[0]);
+        }
+
+        Map<Integer, Vocab> byId = new HashMap<>(ids.size() * 2);
+        for (Vocab vocab : vocabRepository.findAllWithSensesByIdIn(ids)) {
+            byId.put(vocab.getVocabId(), vocab);
+        }
+        List<Vocab> content = ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+        return new PageImpl<>(content, pageable, total[0]);
+    }
+
+    private String searchSql(boolean inDictionary) {
+        String dictionaryFilter = inDictionary ? "v.dictionary_id = :dictionaryId AND " : "";
+        String wordSimilarity = trigramAvailable ? "similarity(lower(v.word), :q)" : "0";
+        String meaningSimilarity = trigramAvailable ? "similarity(lower(s.meaning_vi), :q)" : "0";
+        return "SELECT vocab_id, COUNT(*) OVER () AS total FROM (" +
+            " SELECT v.vocab_id, CASE WHEN lower(v.word) = :q THEN 3 WHEN lower(v.word) LIKE :prefix ESCAPE '\\' THEN 2" +
+            "  ELSE 1 END + " + wordSimilarity + " AS score" +
+            " FROM vocab v WHERE " + dictionaryFilter + "lower(v.word) LIKE :contains ESCAPE '\\'" +
+            " UNION ALL" +
+            " SELECT s.vocab_id, ts_rank(" + SENSE_TEXT + ", plainto_tsquery('simple', :q)) + " + meaningSimilarity +
+            "  AS score" +
+            " FROM senses s JOIN vocab v ON v.vocab_id = s.vocab_id WHERE " + dictionaryFilter +
+            " (lower(s.meaning_vi) LIKE :contains ESCAPE '\\' OR " + SENSE_TEXT + " @@ plainto_tsquery('simple', :q))" +
+            ") matches GROUP BY vocab_id ORDER BY MAX(score) DESC, vocab_id LIMIT :limit OFFSET :offset";
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,194 @@
+package com.englishvocab.service.search;
+
+import com.englishvocab.config.properties.VocabSuggestProperties;
+import com.englishvocab.entity.Vocab;
+import com.englishvocab.event.CatalogChangedEvent;
+import com.englishvocab.event.CustomVocabChangedEvent;
+import com.englishvocab.event.VocabChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Gợi ý từ theo tiền tố cho ô tìm kiếm, phục vụ hoàn toàn trong bộ nhớ.
+ *
+ * Index của toàn bộ Vocab.word được xây lười ở request đầu tiên, sau đó cập nhật từng từ
+ * theo {@link VocabChangedEvent} (chỉ đọc lại một hàng); import hàng loạt và thay đổi từ
+ * điển thì xây lại toàn bộ ở request kế tiếp. Xây và cập nhật tuần tự dưới một khóa, reader
+ * chỉ đọc tham chiếu volatile. Từ vựng cá nhân có index riêng theo user (LRU), bị bỏ khi user
+ * thêm/sửa/xóa từ và nạp lại ở lần gợi ý sau.
+ */
+@Component
+@Slf4j
+public class VocabSuggestIndex {
+
+    private static final String VOCAB_SQL = "SELECT vocab_id, word, dictionary_id, level FROM vocab";
+    private static final String ONE_VOCAB_SQL = VOCAB_SQL + " WHERE vocab_id = ?";
+    private static final String CUSTOM_SQL = "SELECT custom_vocab_id, name FROM user_custom_vocab WHERE user_id = ?";
+
+    /**
+     * Một gợi ý; {@code custom} true khi {@code id} là custom_vocab_id của user
+     */
+    public record Suggestion(int id, String word, boolean custom, Integer dictionaryId, Vocab.Level level) {
+    }
+
+    /**
+     * Bộ nhớ đang dùng của index hệ thống và các index từ vựng cá nhân
+     */
+    public record Footprint(int words, long bytes, int customUsers, long customBytes) {
+    }
+
+    private final VocabSuggestProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, PrefixIndex> customIndexes;
+    private long customGeneration;
+
+    private volatile PrefixIndex vocabIndex;
+
+    public VocabSuggestIndex(VocabSuggestProperties properties, JdbcTemplate jdbcTemplate) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        int maxUsers = Math.max(1, properties.getMaxCustomUsers());
+        this.customIndexes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PrefixIndex> eldest) {
+                return size() > maxUsers;
+            }
+        };
+    }
+
+    /**
+     * Tối đa {@code limit} từ bắt đầu bằng {@code query}: từ vựng cá nhân của user trước, rồi từ hệ thống
+     */
+    public List<Suggestion> suggest(String userId, String query, Integer dictionaryId, int limit) {
+        String prefix = query != null ? query.trim().toLowerCase(Locale.ROOT) : "";
+        int max = Math.min(limit, properties.getMaxResults());
+        if (prefix.isEmpty() || max <= 0) {
+            return List.of();
+        }
+
+        List<Suggestion> result = new ArrayList<>(max);
+        Set<String> seen = new HashSet<>();
+        if (userId != null) {
+            for (PrefixIndex.Entry entry : customIndex(userId).suggest(prefix, null, max)) {
+                if (seen.add(entry.word().toLowerCase(Locale.ROOT))) {
+                    result.add(new Suggestion(entry.id(), entry.word(), true, null, null));
+                }
+            }
+        }
+        // Lấy dư số từ cá nhân đã có để bù các từ trùng
+        for (PrefixIndex.Entry entry : vocabIndex().suggest(prefix, dictionaryId, max + result.size())) {
+            if (result.size() >= max) {
+                break;
+            }
+            if (seen.add(entry.word().toLowerCase(Locale.ROOT))) {
+                result.add(new Suggestion(entry.id(), entry.word(), false, entry.dictionaryId(), entry.level()));
+            }
+        }
+        return result;
+    }
+
+    public Footprint footprint() {
+        PrefixIndex current = vocabIndex;
+        int customUsers;
+        long customBytes = 0;
+        synchronized (customIndexes) {
+            customUsers = customIndexes.size();
+            for (PrefixIndex index : customIndexes.values()) {
+                customBytes += index.sizeInBytes();
+            }
+        }
+        return new Footprint(current != null ? current.size() : 0, current != null ? current.sizeInBytes() : 0,
+            customUsers, customBytes);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onVocabChanged(VocabChangedEvent event) {
+        synchronized (this) {
+            PrefixIndex current = vocabIndex;
+            if (current == null) {
+                return; // Chưa xây: lần xây đầu sẽ đọc dữ liệu mới
+            }
+            if (event.vocabId() == null) {
+                vocabIndex = null;
+                return;
+            }
+            if (event.type() == VocabChangedEvent.Type.DELETED) {
+                vocabIndex = current.without(event.vocabId());
+                return;
+            }
+            List<PrefixIndex.Entry> rows = jdbcTemplate.query(ONE_VOCAB_SQL, (rs, rowNum) -> entry(rs.getInt(1),
+                rs.getString(2), rs.getInt(3), rs.getString(4)), event.vocabId());
+            vocabIndex = rows.isEmpty() ? current.without(event.vocabId()) : current.with(rows.get(0));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.kind() == CatalogChangedEvent.Kind.DICTIONARY) {
+            synchronized (this) {
+                vocabIndex = null; // Xóa từ điển có thể xóa kèm các từ của nó
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomVocabChanged(CustomVocabChangedEvent event) {
+        synchronized (customIndexes) {
+            customIndexes.remove(event.userId());
+            customGeneration++;
+        }
+    }
+
+    private PrefixIndex vocabIndex() {
+        PrefixIndex current = vocabIndex;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (vocabIndex == null) {
+                long startedAt = System.currentTimeMillis();
+                List<PrefixIndex.Entry> entries = jdbcTemplate.query(VOCAB_SQL, (rs, rowNum) -> entry(rs.getInt(1),
+                    rs.getString(2), rs.getInt(3), rs.getString(4)));
+                vocabIndex = PrefixIndex.of(entries);
+                log.info("Built vocab suggest index: {} words, {} KB in {} ms", vocabIndex.size(),
+                    vocabIndex.sizeInBytes() / 1024, System.currentTimeMillis() - startedAt);
+            }
+            return vocabIndex;
+        }
+    }
+
+    private PrefixIndex customIndex(String userId) {
+        long generation;
+        synchronized (customIndexes) {
+            PrefixIndex index = customIndexes.get(userId);
+            if (index != null) {
+                return index;
+            }
+            generation = customGeneration;
+        }
+        List<PrefixIndex.Entry> entries = jdbcTemplate.query(CUSTOM_SQL, (rs, rowNum) ->
+            new PrefixIndex.Entry(rs.getInt(1), rs.getString(2), null, null), userId);
+        PrefixIndex index = PrefixIndex.of(entries);
+        synchronized (customIndexes) {
+            // Không cache nếu có thay đổi commit trong lúc đang nạp
+            if (generation == customGeneration) {
+                customIndexes.put(userId, index);
+            }
+        }
+        return index;
+    }
+
+    private static PrefixIndex.Entry entry(int vocabId, String word, int dictionaryId, String level) {
+        return new PrefixIndex.Entry(vocabId, word, dictionaryId, level != null ? Vocab.Level.valueOf(level) : null);
+    }
+}
@@ -0,0 +1,170 @@
+package com.englishvocab.service.session;
+
+import com.englishvocab.entity.LearningSession;
+import com.englishvocab.entity.SessionVocabulary;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trạng thái của một learning session đang học: bộ đếm (giá trị tuyệt đối, không phải
+ * delta), tập từ của session (vocabId → sessionVocabId) và các câu trả lời chưa ghi DB.
+ *
+ * Store trong JVM giữ trực tiếp đối tượng này (đồng bộ trên chính nó); store Redis
+ * dựng lại bản sao từ hash mỗi khi đọc.
+ */
+@Getter
+public class ActiveSessionState {
+
+    private final String sessionUuid;
+    private final Long sessionId;
+    private final String userId;
+    private final int targetWords;
+    private final long expiresAt;
+    int correctCount;
+    int wrongCount;
+    int skipCount;
+    int actualWords;
+    int timeSpentSec;
+    long lastActivityAt;
+    long lastSequence;
+    final Map<Integer, Long> sessionVocabIds;
+    final Map<Integer, Answer> pendingAnswers = new HashMap<>();
+
+    ActiveSessionState(String sessionUuid, Long sessionId, String userId, int targetWords, long expiresAt,
+                       Map<Integer, Long> sessionVocabIds) {
+        this.sessionUuid = sessionUuid;
+        this.sessionId = sessionId;
+        this.userId = userId;
+        this.targetWords = targetWords;
+        this.expiresAt = expiresAt;
+        this.sessionVocabIds = sessionVocabIds;
+    }
+
+    /**
+     * Trạng thái ban đầu từ session trong DB
+     */
+    public static ActiveSessionState of(LearningSession session, Map<Integer, Long> sessionVocabIds) {
+        ActiveSessionState state = new ActiveSessionState(session.getSessionUuid(), session.getSessionId(),
+            session.getUser().getId(), valueOf(session.getTargetWords()), toMillis(session.getExpiresAt()),
+            sessionVocabIds);
+        state.correctCount = valueOf(session.getCorrectCount());
+        state.wrongCount = valueOf(session.getWrongCount());
+        state.skipCount = valueOf(session.getSkipCount());
+        state.actualWords = valueOf(session.getActualWords());
+        state.timeSpentSec = valueOf(session.getTimeSpentSec());
+        state.lastActivityAt = session.getLastActivityAt() != null ? toMillis(session.getLastActivityAt()) : 0;
+        state.lastSequence = session.getLastAnswerSeq() != null ? session.getLastAnswerSeq() : 0;
+        return state;
+    }
+
+    public boolean isExpired(long now) {
+        return expiresAt < now;
+    }
+
+    public boolean contains(int vocabId) {
+        return sessionVocabIds.containsKey(vocabId);
+    }
+
+    public Long sessionVocabId(int vocabId) {
+        return sessionVocabIds.get(vocabId);
+    }
+
+    /**
+     * Ghi nhận câu trả lời: giống LearningService.recordAnswer, mỗi lần gọi đều cộng bộ đếm
+     */
+    void apply(int vocabId, Answer answer) {
+        pendingAnswers.put(vocabId, answer);
+        switch (answer.type()) {
+            case CORRECT -> correctCount++;
+            case WRONG -> wrongCount++;
+            case SKIP -> skipCount++;
+        }
+        actualWords++;
+        if (answer.timeSpentSec() != null && answer.timeSpentSec() > 0) {
+            timeSpentSec += answer.timeSpentSec();
+        }
+        lastActivityAt = answer.answeredAt();
+    }
+
+    /**
+     * Ghi nhận các câu trả lời có số thứ tự lớn hơn số đã ghi nhận (đã sắp xếp tăng dần)
+     */
+    void apply(List<SequencedAnswer> answers) {
+        for (SequencedAnswer answer : answers) {
+            if (answer.sequence() > lastSequence) {
+                apply(answer.vocabId(), answer.answer());
+                lastSequence = answer.sequence();
+            }
+        }
+    }
+
+    /**
+     * Bản sao bộ đếm và tập từ, kèm các câu trả lời được chuyển sang (không sao chép)
+     */
+    ActiveSessionState copy(Map<Integer, Answer> answers) {
+        ActiveSessionState copy = new ActiveSessionState(sessionUuid, sessionId, userId, targetWords, expiresAt,
+            sessionVocabIds);
+        copy.correctCount = correctCount;
+        copy.wrongCount = wrongCount;
+        copy.skipCount = skipCount;
+        copy.actualWords = actualWords;
+        copy.timeSpentSec = timeSpentSec;
+        copy.lastActivityAt = lastActivityAt;
+        copy.lastSequence = lastSequence;
+        copy.pendingAnswers.putAll(answers);
+        return copy;
+    }
+
+    /**
+     * Session tạm (không được quản lý bởi JPA) mang bộ đếm hiện tại, dùng cho response
+     */
+    public LearningSession toSessionView() {
+        return LearningSession.builder()
+            .sessionId(sessionId)
+            .sessionUuid(sessionUuid)
+            .targetWords(targetWords)
+            .correctCount(correctCount)
+            .wrongCount(wrongCount)
+            .skipCount(skipCount)
+            .actualWords(actualWords)
+            .timeSpentSec(timeSpentSec)
+            .lastAnswerSeq(lastSequence)
+            .lastActivityAt(lastActivityAt > 0 ? toDateTime(lastActivityAt) : null)
+            .expiresAt(expiresAt != Long.MAX_VALUE ? toDateTime(expiresAt) : null)
+            .build();
+    }
+
+    static long toMillis(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : Long.MAX_VALUE;
+    }
+
+    static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    private static int valueOf(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    /**
+     * Câu trả lời chưa ghi DB của một từ
+     */
+    public record Answer(SessionVocabulary.AnswerType type, Integer timeSpentSec, long answeredAt) {
+
+        public LocalDateTime answeredAtDateTime() {
+            return toDateTime(answeredAt);
+        }
+    }
+
+    /**
+     * Câu trả lời kèm số thứ tự do client đánh
+     */
+    public record SequencedAnswer(long sequence, int vocabId, Answer answer) {
+    }
+}
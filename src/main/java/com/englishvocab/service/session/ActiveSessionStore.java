@@ -0,0 +1,57 @@
+package com.englishvocab.service.session;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Nơi giữ trạng thái các learning session đang học, theo session UUID.
+ *
+ * Ghi nhận câu trả lời là thao tác nguyên tử trên một session; {@link #drain} lấy ra các
+ * câu trả lời chưa ghi DB cùng bộ đếm hiện tại để {@link ActiveSessions} ghi xuống DB.
+ */
+public interface ActiveSessionStore {
+
+    /**
+     * Bản sao trạng thái (không kèm câu trả lời chờ ghi), null nếu session không có trong store
+     */
+    ActiveSessionState get(String sessionUuid);
+
+    void put(ActiveSessionState state);
+
+    /**
+     * Ghi nhận câu trả lời và trả về bộ đếm sau khi cộng; null nếu session không có trong store.
+     *
+     * @throws RuntimeException nếu session đã hết hạn hoặc từ không thuộc session
+     */
+    ActiveSessionState recordAnswer(String sessionUuid, int vocabId, ActiveSessionState.Answer answer);
+
+    /**
+     * Ghi nhận một lô câu trả lời (sắp xếp theo số thứ tự) một cách nguyên tử: cả lô bị từ chối
+     * nếu có từ không thuộc session; câu có số thứ tự đã ghi nhận bị bỏ qua.
+     * Trả về bộ đếm sau khi ghi nhận; null nếu session không có trong store.
+     *
+     * @throws RuntimeException nếu session đã hết hạn hoặc có từ không thuộc session
+     */
+    ActiveSessionState recordAnswers(String sessionUuid, List<ActiveSessionState.SequencedAnswer> answers, long now);
+
+    /**
+     * Lấy ra các câu trả lời chờ ghi (và bỏ session khỏi store nếu {@code remove});
+     * null nếu session không có trong store
+     */
+    ActiveSessionState drain(String sessionUuid, boolean remove);
+
+    /**
+     * Trả lại các câu trả lời đã lấy ra khi ghi DB thất bại; câu trả lời mới hơn được giữ
+     */
+    void restore(ActiveSessionState drained);
+
+    /**
+     * Các session có câu trả lời chờ ghi
+     */
+    Set<String> dirtySessions();
+
+    /**
+     * Bỏ các session đã hết hạn và không còn gì chờ ghi
+     */
+    void removeExpired(long now);
+}
@@ -0,0 +1,235 @@
+package com.englishvocab.service.session;
+
+import com.englishvocab.config.properties.ActiveSessionProperties;
+import com.englishvocab.entity.LearningSession;
+import com.englishvocab.entity.SessionVocabulary;
+import com.englishvocab.repository.LearningSessionRepository;
+import com.englishvocab.repository.SessionVocabularyRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trạng thái các learning session đang học, giữ ngoài DB.
+ *
+ * Câu trả lời flashcard chỉ cập nhật {@link ActiveSessionStore} (O(1), không chạm DB).
+ * Câu trả lời chờ ghi được ghi xuống session_vocabularies và learning_sessions bằng JDBC
+ * batch tại các checkpoint: định kỳ, trước khi đọc session từ DB ({@link #flush}) và khi
+ * session rời trạng thái đang học - pause, complete, cancel ({@link #evict}), hết hạn
+ * ({@link #evictLocked}, trong transaction đang khóa session).
+ */
+@Component
+@Slf4j
+public class ActiveSessions {
+
+    // Checkpoint muộn (node khác, store cũ) không được ghi vào session đã complete/cancel
+    private static final String UPDATE_ANSWER_SQL =
+        "UPDATE session_vocabularies sv SET user_answer = :answer, time_spent_sec = :timeSpent, answered_at = :answeredAt " +
+        "FROM learning_sessions s WHERE sv.session_vocab_id = :sessionVocabId AND s.session_id = sv.session_id " +
+        "AND s.status IN ('ACTIVE', 'PAUSED') AND (sv.answered_at IS NULL OR sv.answered_at <= :answeredAt)";
+
+    // Bộ đếm chỉ tăng: GREATEST giữ kết quả đúng khi hai checkpoint commit lệch thứ tự
+    private static final String UPDATE_SESSION_SQL =
+        "UPDATE learning_sessions SET correct_count = GREATEST(COALESCE(correct_count, 0), :correct), " +
+        "wrong_count = GREATEST(COALESCE(wrong_count, 0), :wrong), " +
+        "skip_count = GREATEST(COALESCE(skip_count, 0), :skip), " +
+        "actual_words = GREATEST(COALESCE(actual_words, 0), :actualWords), " +
+        "time_spent_sec = GREATEST(COALESCE(time_spent_sec, 0), :timeSpent), " +
+        "last_activity_at = GREATEST(COALESCE(last_activity_at, :lastActivityAt), :lastActivityAt), " +
+        "last_answer_seq = GREATEST(COALESCE(last_answer_seq, 0), :lastSequence), " +
+        "updated_at = :now WHERE session_id = :sessionId AND status IN ('ACTIVE', 'PAUSED')";
+
+    private final ActiveSessionProperties properties;
+    private final ActiveSessionStore store;
+    private final LearningSessionRepository sessionRepository;
+    private final SessionVocabularyRepository sessionVocabRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public ActiveSessions(ActiveSessionProperties properties,
+                          ActiveSessionStore store,
+                          LearningSessionRepository sessionRepository,
+                          SessionVocabularyRepository sessionVocabRepository,
+                          NamedParameterJdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.store = store;
+        this.sessionRepository = sessionRepository;
+        this.sessionVocabRepository = sessionVocabRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Checkpoint commit độc lập với transaction của caller
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Ghi nhận câu trả lời vào store, nạp session từ DB ở câu trả lời đầu tiên.
+     *
+     * @return bộ đếm sau khi ghi nhận, hoặc null nếu session không được giữ trong store
+     *         (tính năng tắt, hoặc session đã kết thúc) - khi đó caller ghi thẳng DB
+     */
+    public ActiveSessionState recordAnswer(String sessionUuid, int vocabId,
+                                           SessionVocabulary.AnswerType type, Integer timeSpentSec) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        ActiveSessionState.Answer answer = new ActiveSessionState.Answer(type, timeSpentSec, System.currentTimeMillis());
+        ActiveSessionState state = store.recordAnswer(sessionUuid, vocabId, answer);
+        if (state == null && load(sessionUuid)) {
+            state = store.recordAnswer(sessionUuid, vocabId, answer);
+        }
+        return state;
+    }
+
+    /**
+     * Ghi nhận một lô câu trả lời có số thứ tự (đã sắp xếp tăng dần); câu đã ghi nhận bị bỏ qua.
+     *
+     * @return bộ đếm sau khi ghi nhận, hoặc null nếu session không được giữ trong store
+     */
+    public ActiveSessionState recordAnswers(String sessionUuid, List<ActiveSessionState.SequencedAnswer> answers) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        ActiveSessionState state = store.recordAnswers(sessionUuid, answers, now);
+        if (state == null && load(sessionUuid)) {
+            state = store.recordAnswers(sessionUuid, answers, now);
+        }
+        return state;
+    }
+
+    /**
+     * Checkpoint một session: ghi các câu trả lời chờ ghi, session vẫn được giữ
+     */
+    public void flush(String sessionUuid) {
+        if (properties.isEnabled()) {
+            write(store.drain(sessionUuid, false));
+        }
+    }
+
+    /**
+     * Ghi các câu trả lời chờ ghi và bỏ session khỏi store (session rời trạng thái đang học)
+     */
+    public void evict(String sessionUuid) {
+        if (properties.isEnabled()) {
+            write(store.drain(sessionUuid, true));
+        }
+    }
+
+    /**
+     * Ghi các câu trả lời chờ ghi của những session mà transaction hiện tại đã khóa rồi bỏ chúng khỏi store.
+     * Ghi trong transaction của caller (checkpoint riêng sẽ phải chờ chính khóa đó), trước khi caller
+     * kết thúc session; transaction rollback thì câu trả lời được trả lại store.
+     */
+    public void evictLocked(Collection<String> sessionUuids) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        for (String sessionUuid : sessionUuids) {
+            ActiveSessionState drained = store.drain(sessionUuid, true);
+            if (drained == null || drained.getPendingAnswers().isEmpty()) {
+                continue;
+            }
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        store.restore(drained);
+                    }
+                }
+            });
+            apply(drained);
+        }
+    }
+
+    /**
+     * Checkpoint định kỳ mọi session có câu trả lời chờ ghi
+     */
+    @Scheduled(fixedDelayString = "${app.learning.active-sessions.checkpoint-interval-ms:10000}")
+    public void checkpoint() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        for (String sessionUuid : store.dirtySessions()) {
+            try {
+                flush(sessionUuid);
+            } catch (RuntimeException e) {
+                log.warn("Checkpoint of session {} failed, will retry: {}", sessionUuid, e.getMessage());
+            }
+        }
+        store.removeExpired(System.currentTimeMillis());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        checkpoint();
+    }
+
+    private boolean load(String sessionUuid) {
+        LearningSession session = sessionRepository.findBySessionUuid(sessionUuid)
+            .orElseThrow(() -> new RuntimeException("Session không tồn tại"));
+        if (session.getStatus() != LearningSession.Status.ACTIVE && session.getStatus() != LearningSession.Status.PAUSED) {
+            return false;
+        }
+        Map<Integer, Long> sessionVocabIds = new HashMap<>();
+        for (Object[] row : sessionVocabRepository.findVocabIdsBySessionId(session.getSessionId())) {
+            sessionVocabIds.put((Integer) row[0], (Long) row[1]);
+        }
+        store.put(ActiveSessionState.of(session, sessionVocabIds));
+        return true;
+    }
+
+    private void write(ActiveSessionState drained) {
+        if (drained == null || drained.getPendingAnswers().isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> apply(drained));
+        } catch (RuntimeException e) {
+            // Trả câu trả lời lại store để checkpoint sau ghi lại
+            store.restore(drained);
+            throw e;
+        }
+    }
+
+    /**
+     * Ghi câu trả lời và bộ đếm của session trong transaction hiện tại
+     */
+    private void apply(ActiveSessionState drained) {
+        List<SqlParameterSource> answers = new ArrayList<>(drained.getPendingAnswers().size());
+        drained.getPendingAnswers().forEach((vocabId, answer) -> answers.add(new MapSqlParameterSource()
+            .addValue("sessionVocabId", drained.sessionVocabId(vocabId))
+            .addValue("answer", answer.type().name())
+            .addValue("timeSpent", answer.timeSpentSec())
+            .addValue("answeredAt", answer.answeredAtDateTime())));
+        MapSqlParameterSource session = new MapSqlParameterSource()
+            .addValue("sessionId", drained.getSessionId())
+            .addValue("correct", drained.getCorrectCount())
+            .addValue("wrong", drained.getWrongCount())
+            .addValue("skip", drained.getSkipCount())
+            .addValue("actualWords", drained.getActualWords())
+            .addValue("timeSpent", drained.getTimeSpentSec())
+            .addValue("lastActivityAt", ActiveSessionState.toDateTime(drained.getLastActivityAt()))
+            .addValue("lastSequence", drained.getLastSequence())
+            .addValue("now", LocalDateTime.now());
+        jdbcTemplate.batchUpdate(UPDATE_ANSWER_SQL, answers.toArray(new SqlParameterSource[0]));
+        jdbcTemplate.update(UPDATE_SESSION_SQL, session);
+        log.debug("Checkpointed {} answers of session {}", answers.size(), drained.getSessionUuid());
+    }
+}
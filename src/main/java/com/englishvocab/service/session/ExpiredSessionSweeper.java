@@ -0,0 +1,201 @@
+package com.englishvocab.service.session;
+
+import com.englishvocab.config.properties.ExpiredSessionSweepProperties;
+import com.englishvocab.service.ProgressWriteBehindQueue;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tự động complete các learning session đã hết hạn (ACTIVE/PAUSED, expires_at đã qua).
+ *
+ * Mỗi worker lặp, một transaction mỗi chunk: khóa một chunk session bằng FOR UPDATE SKIP LOCKED,
+ * ghi các câu trả lời của chúng còn trong active-session store, rồi mới complete chunk và đọc câu
+ * trả lời để đưa progress vào write-behind queue (enqueue sau khi chunk commit). Hàng đang bị khóa
+ * bởi worker/node khác bị bỏ qua, nên nhiều node chạy sweep cùng lúc sẽ chia nhau backlog thay vì
+ * làm trùng. Với store MEMORY chỉ câu trả lời giữ trên node đang sweep được ghi (store REDIS dùng chung).
+ */
+@Component
+@Slf4j
+public class ExpiredSessionSweeper {
+
+    private static final String BACKLOG_SQL =
+        "SELECT COUNT(*) FROM learning_sessions WHERE status IN ('ACTIVE', 'PAUSED') AND expires_at < :now";
+
+    private static final String CLAIM_CHUNK_SQL =
+        "SELECT session_id, session_uuid, user_id FROM learning_sessions " +
+        "WHERE status IN ('ACTIVE', 'PAUSED') AND expires_at < :now " +
+        "ORDER BY expires_at LIMIT :limit FOR UPDATE SKIP LOCKED";
+
+    private static final String COMPLETE_CHUNK_SQL =
+        "UPDATE learning_sessions SET status = 'COMPLETED', completed_at = :now, last_activity_at = :now, " +
+        "progress_pending = true, updated_at = :now WHERE session_id IN (:sessionIds)";
+
+    private final ExpiredSessionSweepProperties properties;
+    private final ActiveSessions activeSessions;
+    private final ProgressWriteBehindQueue progressWriteBehindQueue;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor executor;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile Result lastResult;
+
+    public ExpiredSessionSweeper(ExpiredSessionSweepProperties properties,
+                                 ActiveSessions activeSessions,
+                                 ProgressWriteBehindQueue progressWriteBehindQueue,
+                                 NamedParameterJdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.activeSessions = activeSessions;
+        this.progressWriteBehindQueue = progressWriteBehindQueue;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        int threads = Math.max(1, properties.getParallelism());
+        AtomicInteger threadIndex = new AtomicInteger();
+        // Mỗi sweep chỉ submit đúng số worker, hàng đợi không cần giới hạn riêng
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "session-sweep-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Kết quả lần sweep gần nhất trên node này: backlog lúc bắt đầu (mọi node),
+     * số session node này đã complete và backlog còn lại lúc kết thúc
+     */
+    public record Result(long backlog, long completed, int chunks, long remaining, long elapsedMs) {
+
+        public long throughputPerSec() {
+            return elapsedMs > 0 ? completed * 1000 / elapsedMs : completed;
+        }
+    }
+
+    public Result getLastResult() {
+        return lastResult;
+    }
+
+    /**
+     * Số session đã hết hạn đang chờ complete (mọi node)
+     */
+    public long backlog() {
+        Long count = jdbcTemplate.queryForObject(BACKLOG_SQL,
+            new MapSqlParameterSource("now", LocalDateTime.now()), Long.class);
+        return count != null ? count : 0;
+    }
+
+    @Scheduled(fixedDelayString = "${app.learning.expired-sweep.interval-ms:300000}")
+    public void sweep() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            sweepLocked();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void sweepLocked() {
+        long startedAt = System.currentTimeMillis();
+        long backlog = backlog();
+        if (backlog == 0) {
+            lastResult = new Result(0, 0, 0, 0, 0);
+            return;
+        }
+
+        AtomicLong completed = new AtomicLong();
+        AtomicInteger chunks = new AtomicInteger();
+        int workers = (int) Math.min(Math.max(1, properties.getParallelism()),
+            (backlog + chunkSize() - 1) / chunkSize());
+        List<Future<?>> futures = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            futures.add(executor.submit(() -> drain(completed, chunks)));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException e) {
+            log.error("Expired session sweep failed: {}", e.getCause().getMessage(), e.getCause());
+        }
+
+        Result result = new Result(backlog, completed.get(), chunks.get(), backlog(),
+            System.currentTimeMillis() - startedAt);
+        lastResult = result;
+        if (result.completed() > 0) {
+            log.info("Auto-completed {} expired sessions in {} chunks ({} ms, {}/s), backlog {} -> {}",
+                result.completed(), result.chunks(), result.elapsedMs(), result.throughputPerSec(),
+                result.backlog(), result.remaining());
+        }
+    }
+
+    /**
+     * Nhận và complete chunk cho tới khi không còn session hết hạn chưa bị khóa
+     */
+    private void drain(AtomicLong completed, AtomicInteger chunks) {
+        while (!Thread.currentThread().isInterrupted()) {
+            Map<Long, String> sessionUuids = new LinkedHashMap<>();
+            transactionTemplate.executeWithoutResult(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                Map<Long, String> sessionUsers = new LinkedHashMap<>();
+                jdbcTemplate.query(CLAIM_CHUNK_SQL, new MapSqlParameterSource()
+                    .addValue("now", now)
+                    .addValue("limit", chunkSize()), rs -> {
+                    sessionUuids.put(rs.getLong(1), rs.getString(2));
+                    sessionUsers.put(rs.getLong(1), rs.getString(3));
+                });
+                if (sessionUsers.isEmpty()) {
+                    return;
+                }
+                // Checkpoint chỉ ghi session ACTIVE/PAUSED: ghi câu trả lời còn trong store trước khi complete
+                activeSessions.evictLocked(sessionUuids.values());
+                jdbcTemplate.update(COMPLETE_CHUNK_SQL, new MapSqlParameterSource()
+                    .addValue("now", now)
+                    .addValue("sessionIds", sessionUsers.keySet()));
+                progressWriteBehindQueue.enqueueSessions(sessionUsers);
+            });
+            if (sessionUuids.isEmpty()) {
+                return;
+            }
+            completed.addAndGet(sessionUuids.size());
+            chunks.incrementAndGet();
+        }
+    }
+
+    private int chunkSize() {
+        return Math.max(1, properties.getChunkSize());
+    }
+}
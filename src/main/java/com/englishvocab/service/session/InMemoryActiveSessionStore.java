@@ -0,0 +1,126 @@
+package com.englishvocab.service.session;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Trạng thái session trong JVM cho một node (hoặc nhiều node với sticky session).
+ * Mỗi session đồng bộ trên chính đối tượng trạng thái của nó.
+ */
+public class InMemoryActiveSessionStore implements ActiveSessionStore {
+
+    private final Map<String, ActiveSessionState> sessions = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public ActiveSessionState get(String sessionUuid) {
+        ActiveSessionState state = sessions.get(sessionUuid);
+        if (state == null) {
+            return null;
+        }
+        synchronized (state) {
+            return state.copy(Map.of());
+        }
+    }
+
+    @Override
+    public void put(ActiveSessionState state) {
+        sessions.putIfAbsent(state.getSessionUuid(), state);
+    }
+
+    @Override
+    public ActiveSessionState recordAnswer(String sessionUuid, int vocabId, ActiveSessionState.Answer answer) {
+        ActiveSessionState state = sessions.get(sessionUuid);
+        if (state == null) {
+            return null;
+        }
+        synchronized (state) {
+            // Session vừa bị bỏ khỏi store (drain với remove) trước khi lấy được lock
+            if (sessions.get(sessionUuid) != state) {
+                return null;
+            }
+            if (state.isExpired(answer.answeredAt())) {
+                throw new RuntimeException("Session đã hết hạn");
+            }
+            if (!state.contains(vocabId)) {
+                throw new RuntimeException("Vocabulary không thuộc session này");
+            }
+            state.apply(vocabId, answer);
+            dirty.add(sessionUuid);
+            return state.copy(Map.of());
+        }
+    }
+
+    @Override
+    public ActiveSessionState recordAnswers(String sessionUuid, List<ActiveSessionState.SequencedAnswer> answers, long now) {
+        ActiveSessionState state = sessions.get(sessionUuid);
+        if (state == null) {
+            return null;
+        }
+        synchronized (state) {
+            if (sessions.get(sessionUuid) != state) {
+                return null;
+            }
+            if (state.isExpired(now)) {
+                throw new RuntimeException("Session đã hết hạn");
+            }
+            for (ActiveSessionState.SequencedAnswer answer : answers) {
+                if (!state.contains(answer.vocabId())) {
+                    throw new RuntimeException("Vocabulary không thuộc session này");
+                }
+            }
+            state.apply(answers);
+            if (!state.pendingAnswers.isEmpty()) {
+                dirty.add(sessionUuid);
+            }
+            return state.copy(Map.of());
+        }
+    }
+
+    @Override
+    public ActiveSessionState drain(String sessionUuid, boolean remove) {
+        ActiveSessionState state = sessions.get(sessionUuid);
+        if (state == null) {
+            return null;
+        }
+        synchronized (state) {
+            if (remove && !sessions.remove(sessionUuid, state)) {
+                return null;
+            }
+            dirty.remove(sessionUuid);
+            ActiveSessionState drained = state.copy(state.pendingAnswers);
+            state.pendingAnswers.clear();
+            return drained;
+        }
+    }
+
+    @Override
+    public void restore(ActiveSessionState drained) {
+        ActiveSessionState state = sessions.putIfAbsent(drained.getSessionUuid(), drained);
+        if (state != null) {
+            synchronized (state) {
+                Map<Integer, ActiveSessionState.Answer> newer = new HashMap<>(state.pendingAnswers);
+                state.pendingAnswers.putAll(drained.pendingAnswers);
+                state.pendingAnswers.putAll(newer);
+            }
+        }
+        dirty.add(drained.getSessionUuid());
+    }
+
+    @Override
+    public Set<String> dirtySessions() {
+        return Set.copyOf(dirty);
+    }
+
+    @Override
+    public void removeExpired(long now) {
+        sessions.values().removeIf(state -> {
+            synchronized (state) {
+                return state.isExpired(now) && state.pendingAnswers.isEmpty();
+            }
+        });
+    }
+}
@@ -0,0 +1,282 @@
+package com.englishvocab.service.session;
+
+import com.englishvocab.entity.SessionVocabulary;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Trạng thái session dùng chung giữa các node.
+ *
+ * Mỗi session là hash {@code active-session:<uuid>} (bộ đếm + field {@code v:<vocabId>} cho
+ * từng từ) và hash {@code active-session:<uuid>:answers} (vocabId → câu trả lời chờ ghi).
+ * Ghi nhận và lấy ra câu trả lời chạy bằng Lua script nên nguyên tử giữa các node.
+ */
+public class RedisActiveSessionStore implements ActiveSessionStore {
+
+    private static final String KEY_PREFIX = "active-session:";
+    private static final String DIRTY_KEY = KEY_PREFIX + "dirty";
+    private static final String VOCAB_FIELD_PREFIX = "v:";
+
+    private static final RedisScript<Long> PUT_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end "
+            + "redis.call('HSET', KEYS[1], unpack(ARGV, 2)) "
+            + "redis.call('EXPIRE', KEYS[1], ARGV[1]) "
+            + "return 1", Long.class);
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> RECORD_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('EXISTS', KEYS[1]) == 0 then return {'0'} end "
+            + "if tonumber(redis.call('HGET', KEYS[1], 'expiresAt')) < tonumber(ARGV[4]) then return {'-1'} end "
+            + "if redis.call('HEXISTS', KEYS[1], 'v:' .. ARGV[1]) == 0 then return {'-2'} end "
+            + "redis.call('HSET', KEYS[2], ARGV[1], ARGV[2]) "
+            + "redis.call('HINCRBY', KEYS[1], ARGV[3], 1) "
+            + "redis.call('HINCRBY', KEYS[1], 'actualWords', 1) "
+            + "redis.call('HINCRBY', KEYS[1], 'timeSpentSec', ARGV[5]) "
+            + "redis.call('HSET', KEYS[1], 'lastActivityAt', ARGV[4]) "
+            + "redis.call('EXPIRE', KEYS[1], ARGV[6]) "
+            + "redis.call('EXPIRE', KEYS[2], ARGV[6]) "
+            + "redis.call('SADD', KEYS[3], ARGV[7]) "
+            + "local state = redis.call('HGETALL', KEYS[1]) "
+            + "table.insert(state, 1, '1') "
+            + "return state", List.class);
+
+    // ARGV: now, ttl, uuid, rồi từng nhóm 5 giá trị (seq, vocabId, câu trả lời, bộ đếm, thời gian)
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> RECORD_BATCH_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('EXISTS', KEYS[1]) == 0 then return {'0'} end "
+            + "if tonumber(redis.call('HGET', KEYS[1], 'expiresAt')) < tonumber(ARGV[1]) then return {'-1'} end "
+            + "for i = 4, #ARGV, 5 do "
+            + "  if redis.call('HEXISTS', KEYS[1], 'v:' .. ARGV[i + 1]) == 0 then return {'-2'} end "
+            + "end "
+            + "local last = redis.call('HGET', KEYS[1], 'lastSequence') or '0' "
+            + "local applied = 0 "
+            + "for i = 4, #ARGV, 5 do "
+            + "  if tonumber(ARGV[i]) > tonumber(last) then "
+            + "    redis.call('HSET', KEYS[2], ARGV[i + 1], ARGV[i + 2]) "
+            + "    redis.call('HINCRBY', KEYS[1], ARGV[i + 3], 1) "
+            + "    redis.call('HINCRBY', KEYS[1], 'actualWords', 1) "
+            + "    redis.call('HINCRBY', KEYS[1], 'timeSpentSec', ARGV[i + 4]) "
+            + "    last = ARGV[i] "
+            + "    applied = applied + 1 "
+            + "  end "
+            + "end "
+            + "if applied > 0 then "
+            + "  redis.call('HSET', KEYS[1], 'lastSequence', last, 'lastActivityAt', ARGV[1]) "
+            + "  redis.call('EXPIRE', KEYS[2], ARGV[2]) "
+            + "  redis.call('SADD', KEYS[3], ARGV[3]) "
+            + "end "
+            + "redis.call('EXPIRE', KEYS[1], ARGV[2]) "
+            + "local state = redis.call('HGETALL', KEYS[1]) "
+            + "table.insert(state, 1, '1') "
+            + "return state", List.class);
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> DRAIN_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('EXISTS', KEYS[1]) == 0 then return {} end "
+            + "local state = redis.call('HGETALL', KEYS[1]) "
+            + "local answers = redis.call('HGETALL', KEYS[2]) "
+            + "redis.call('DEL', KEYS[2]) "
+            + "redis.call('SREM', KEYS[3], ARGV[1]) "
+            + "if ARGV[2] == '1' then redis.call('DEL', KEYS[1]) end "
+            + "return {state, answers}", List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration ttl;
+
+    public RedisActiveSessionStore(StringRedisTemplate redisTemplate, Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = ttl;
+    }
+
+    @Override
+    public ActiveSessionState get(String sessionUuid) {
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(stateKey(sessionUuid));
+        if (entries.isEmpty()) {
+            return null;
+        }
+        List<String> flat = new ArrayList<>(entries.size() * 2);
+        entries.forEach((field, value) -> {
+            flat.add((String) field);
+            flat.add((String) value);
+        });
+        return decodeState(sessionUuid, flat, 0);
+    }
+
+    @Override
+    public void put(ActiveSessionState state) {
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(ttl.toSeconds()));
+        addField(args, "sessionId", state.getSessionId());
+        addField(args, "userId", state.getUserId());
+        addField(args, "targetWords", state.getTargetWords());
+        addField(args, "expiresAt", state.getExpiresAt());
+        addField(args, "correctCount", state.correctCount);
+        addField(args, "wrongCount", state.wrongCount);
+        addField(args, "skipCount", state.skipCount);
+        addField(args, "actualWords", state.actualWords);
+        addField(args, "timeSpentSec", state.timeSpentSec);
+        addField(args, "lastActivityAt", state.lastActivityAt);
+        addField(args, "lastSequence", state.lastSequence);
+        state.sessionVocabIds.forEach((vocabId, sessionVocabId) ->
+            addField(args, VOCAB_FIELD_PREFIX + vocabId, sessionVocabId));
+        redisTemplate.execute(PUT_SCRIPT, List.of(stateKey(state.getSessionUuid())), args.toArray());
+    }
+
+    @Override
+    public ActiveSessionState recordAnswer(String sessionUuid, int vocabId, ActiveSessionState.Answer answer) {
+        List<?> result = redisTemplate.execute(RECORD_SCRIPT,
+            List.of(stateKey(sessionUuid), answersKey(sessionUuid), DIRTY_KEY),
+            String.valueOf(vocabId), encodeAnswer(answer), counterField(answer), String.valueOf(answer.answeredAt()),
+            String.valueOf(timeSpent(answer)), String.valueOf(ttl.toSeconds()), sessionUuid);
+        return decodeResult(sessionUuid, result);
+    }
+
+    @Override
+    public ActiveSessionState recordAnswers(String sessionUuid, List<ActiveSessionState.SequencedAnswer> answers, long now) {
+        List<String> args = new ArrayList<>(3 + answers.size() * 5);
+        args.add(String.valueOf(now));
+        args.add(String.valueOf(ttl.toSeconds()));
+        args.add(sessionUuid);
+        for (ActiveSessionState.SequencedAnswer answer : answers) {
+            args.add(String.valueOf(answer.sequence()));
+            args.add(String.valueOf(answer.vocabId()));
+            args.add(encodeAnswer(answer.answer()));
+            args.add(counterField(answer.answer()));
+            args.add(String.valueOf(timeSpent(answer.answer())));
+        }
+        List<?> result = redisTemplate.execute(RECORD_BATCH_SCRIPT,
+            List.of(stateKey(sessionUuid), answersKey(sessionUuid), DIRTY_KEY), args.toArray());
+        return decodeResult(sessionUuid, result);
+    }
+
+    @Override
+    public ActiveSessionState drain(String sessionUuid, boolean remove) {
+        List<?> result = redisTemplate.execute(DRAIN_SCRIPT,
+            List.of(stateKey(sessionUuid), answersKey(sessionUuid), DIRTY_KEY),
+            sessionUuid, remove ? "1" : "0");
+        if (result == null || result.size() < 2) {
+            return null;
+        }
+        ActiveSessionState state = decodeState(sessionUuid, asStrings((List<?>) result.get(0)), 0);
+        List<String> answers = asStrings((List<?>) result.get(1));
+        for (int i = 0; i + 1 < answers.size(); i += 2) {
+            state.pendingAnswers.put(Integer.valueOf(answers.get(i)), decodeAnswer(answers.get(i + 1)));
+        }
+        return state;
+    }
+
+    @Override
+    public void restore(ActiveSessionState drained) {
+        String sessionUuid = drained.getSessionUuid();
+        put(drained);
+        String answersKey = answersKey(sessionUuid);
+        drained.pendingAnswers.forEach((vocabId, answer) ->
+            redisTemplate.opsForHash().putIfAbsent(answersKey, String.valueOf(vocabId), encodeAnswer(answer)));
+        redisTemplate.expire(answersKey, ttl);
+        redisTemplate.opsForSet().add(DIRTY_KEY, sessionUuid);
+    }
+
+    @Override
+    public Set<String> dirtySessions() {
+        Set<String> members = redisTemplate.opsForSet().members(DIRTY_KEY);
+        return members != null ? members : new HashSet<>();
+    }
+
+    @Override
+    public void removeExpired(long now) {
+        // Key tự hết hạn theo TTL
+    }
+
+    private ActiveSessionState decodeResult(String sessionUuid, List<?> result) {
+        String status = result == null || result.isEmpty() ? "0" : (String) result.get(0);
+        return switch (status) {
+            case "-1" -> throw new RuntimeException("Session đã hết hạn");
+            case "-2" -> throw new RuntimeException("Vocabulary không thuộc session này");
+            case "1" -> decodeState(sessionUuid, asStrings(result), 1);
+            default -> null;
+        };
+    }
+
+    private ActiveSessionState decodeState(String sessionUuid, List<String> flat, int offset) {
+        Map<String, String> fields = new HashMap<>();
+        Map<Integer, Long> sessionVocabIds = new HashMap<>();
+        for (int i = offset; i + 1 < flat.size(); i += 2) {
+            String field = flat.get(i);
+            if (field.startsWith(VOCAB_FIELD_PREFIX)) {
+                sessionVocabIds.put(Integer.valueOf(field.substring(VOCAB_FIELD_PREFIX.length())),
+                    Long.valueOf(flat.get(i + 1)));
+            } else {
+                fields.put(field, flat.get(i + 1));
+            }
+        }
+        ActiveSessionState state = new ActiveSessionState(sessionUuid, Long.valueOf(fields.get("sessionId")),
+            fields.get("userId"), intField(fields, "targetWords"), Long.parseLong(fields.get("expiresAt")),
+            sessionVocabIds);
+        state.correctCount = intField(fields, "correctCount");
+        state.wrongCount = intField(fields, "wrongCount");
+        state.skipCount = intField(fields, "skipCount");
+        state.actualWords = intField(fields, "actualWords");
+        state.timeSpentSec = intField(fields, "timeSpentSec");
+        state.lastActivityAt = Long.parseLong(fields.getOrDefault("lastActivityAt", "0"));
+        state.lastSequence = Long.parseLong(fields.getOrDefault("lastSequence", "0"));
+        return state;
+    }
+
+    private static String counterField(ActiveSessionState.Answer answer) {
+        return switch (answer.type()) {
+            case CORRECT -> "correctCount";
+            case WRONG -> "wrongCount";
+            case SKIP -> "skipCount";
+        };
+    }
+
+    private static int timeSpent(ActiveSessionState.Answer answer) {
+        return answer.timeSpentSec() != null && answer.timeSpentSec() > 0 ? answer.timeSpentSec() : 0;
+    }
+
+    private static String encodeAnswer(ActiveSessionState.Answer answer) {
+        return answer.type().name() + "|" + (answer.timeSpentSec() != null ? answer.timeSpentSec() : "")
+            + "|" + answer.answeredAt();
+    }
+
+    private static ActiveSessionState.Answer decodeAnswer(String value) {
+        String[] parts = value.split("\\|", -1);
+        return new ActiveSessionState.Answer(SessionVocabulary.AnswerType.valueOf(parts[0]),
+            parts[1].isEmpty() ? null : Integer.valueOf(parts[1]), Long.parseLong(parts[2]));
+    }
+
+    private static int intField(Map<String, String> fields, String name) {
+        String value = fields.get(name);
+        return value != null ? Integer.parseInt(value) : 0;
+    }
+
+    private static void addField(List<String> args, String field, Object value) {
+        args.add(field);
+        args.add(String.valueOf(value));
+    }
+
+    private static List<String> asStrings(List<?> values) {
+        List<String> result = new ArrayList<>(values.size());
+        for (Object value : values) {
+            result.add(String.valueOf(value));
+        }
+        return result;
+    }
+
+    private static String stateKey(String sessionUuid) {
+        return KEY_PREFIX + sessionUuid;
+    }
+
+    private static String answersKey(String sessionUuid) {
+        return KEY_PREFIX + sessionUuid + ":answers";
+    }
+}
@@ -0,0 +1,107 @@
+package com.englishvocab.service.srs;
+
+import com.englishvocab.entity.UserVocabProgress;
+
+import java.util.Arrays;
+
+/**
+ * Leitner 5 box: đúng lên 1 box, sai về box 1.
+ */
+public class LeitnerScheduler implements SrsScheduler {
+
+    // SRS intervals in days for each box (Box 1-5)
+    static final int[] INTERVALS = {1, 3, 7, 14, 30};
+
+    // Box từ đây trở lên được coi là đã thuộc
+    static final int MASTERED_BOX = 4;
+
+    // Số lần sai từ đây trở lên thì từ bị đánh dấu khó
+    static final int DIFFICULT_WRONG_COUNT = 3;
+
+    @Override
+    public long review(long state, boolean correct) {
+        int box = SrsState.box(state);
+        int streak = SrsState.streak(state);
+        int wrongCount = SrsState.wrongCount(state);
+        if (correct) {
+            box = Math.min(box + 1, SrsState.MAX_BOX);
+            streak++;
+        } else {
+            box = 1;
+            streak = 0;
+            wrongCount++;
+        }
+        return SrsState.pack(box, streak, wrongCount, statusOrdinal(correct, box, wrongCount),
+            SrsState.easePermille(state), intervalForBox(box));
+    }
+
+    @Override
+    public long normalize(long state) {
+        int box = SrsState.box(state);
+        return SrsState.pack(box, SrsState.streak(state), SrsState.wrongCount(state), SrsState.statusOrdinal(state),
+            SrsState.easePermille(state), intervalForBox(box));
+    }
+
+    @Override
+    public SqlTransition sqlTransition() {
+        String correctBox = "LEAST(uvp.box + 1, " + SrsState.MAX_BOX + ")";
+        String box = "CASE WHEN :correct THEN " + correctBox + " ELSE 1 END";
+        return new SqlTransition(box, SqlTransition.STREAK, SqlTransition.WRONG_COUNT,
+            statusSql(correctBox, SqlTransition.WRONG_COUNT), "uvp.ease_factor", intervalForBoxSql(box));
+    }
+
+    @Override
+    public SrsAlgorithm algorithm() {
+        return SrsAlgorithm.LEITNER;
+    }
+
+    static int intervalForBox(int box) {
+        return INTERVALS[Math.min(Math.max(box, 1), INTERVALS.length) - 1];
+    }
+
+    static String intervalForBoxSql(String box) {
+        return "(ARRAY" + Arrays.toString(INTERVALS) + ")[LEAST(GREATEST(" + box + ", 1), " + INTERVALS.length + ")]";
+    }
+
+    /**
+     * Box hiển thị tương ứng với một interval (dùng cho thuật toán không có box)
+     */
+    static int boxForInterval(int intervalDays) {
+        for (int i = 0; i < INTERVALS.length - 1; i++) {
+            if (intervalDays <= INTERVALS[i]) {
+                return i + 1;
+            }
+        }
+        return INTERVALS.length;
+    }
+
+    // Số mốc interval nhỏ hơn interval, cộng 1 (như boxForInterval)
+    static String boxForIntervalSql(String interval) {
+        return "width_bucket((" + interval + ") - 1, ARRAY"
+            + Arrays.toString(Arrays.copyOf(INTERVALS, INTERVALS.length - 1)) + ") + 1";
+    }
+
+    /**
+     * Status sau một câu trả lời: đúng → MASTERED (box đủ cao) hoặc REVIEWING,
+     * sai → DIFFICULT (sai nhiều lần) hoặc LEARNING
+     */
+    static int statusOrdinal(boolean correct, int box, int wrongCount) {
+        UserVocabProgress.Status status;
+        if (correct) {
+            status = box >= MASTERED_BOX ? UserVocabProgress.Status.MASTERED : UserVocabProgress.Status.REVIEWING;
+        } else {
+            status = wrongCount >= DIFFICULT_WRONG_COUNT ? UserVocabProgress.Status.DIFFICULT : UserVocabProgress.Status.LEARNING;
+        }
+        return status.ordinal();
+    }
+
+    /**
+     * Như statusOrdinal; {@code correctBox} là box mới khi trả lời đúng, {@code wrongCount} là số lần sai mới
+     */
+    static String statusSql(String correctBox, String wrongCount) {
+        return "CASE WHEN :correct THEN CASE WHEN " + correctBox + " >= " + MASTERED_BOX
+            + " THEN '" + UserVocabProgress.Status.MASTERED + "' ELSE '" + UserVocabProgress.Status.REVIEWING + "' END"
+            + " WHEN " + wrongCount + " >= " + DIFFICULT_WRONG_COUNT
+            + " THEN '" + UserVocabProgress.Status.DIFFICULT + "' ELSE '" + UserVocabProgress.Status.LEARNING + "' END";
+    }
+}
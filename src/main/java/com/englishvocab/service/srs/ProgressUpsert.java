@@ -0,0 +1,79 @@
+package com.englishvocab.service.srs;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ghi một câu trả lời vào user_vocab_progress bằng một câu INSERT ... ON CONFLICT (user_id, vocab_id).
+ *
+ * Hàng chưa có được insert với trạng thái review(INITIAL, correct) tính sẵn; hàng đã có được
+ * cập nhật bằng {@link SrsScheduler#sqlTransition()} từ chính giá trị đang nằm trong hàng, nên
+ * các câu trả lời ghi đồng thời (request song song, flush write-behind) không ghi đè nhau.
+ * Dựa trên unique constraint uk_uvp_user_vocab; first_learned/created_at chỉ set khi insert.
+ */
+@Component
+public class ProgressUpsert {
+
+    private final SrsScheduler srsScheduler;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final String upsertSql;
+
+    public ProgressUpsert(SrsScheduler srsScheduler, NamedParameterJdbcTemplate jdbcTemplate) {
+        this.srsScheduler = srsScheduler;
+        this.jdbcTemplate = jdbcTemplate;
+        this.upsertSql = upsertSql(srsScheduler.sqlTransition());
+    }
+
+    /**
+     * Ghi một câu trả lời, trả về lịch ôn mới của (user, vocab)
+     */
+    public LocalDateTime apply(String userId, Integer vocabId, boolean correct, LocalDateTime now) {
+        return jdbcTemplate.queryForObject(upsertSql + " RETURNING next_review_at",
+            params(userId, vocabId, correct, now), LocalDateTime.class);
+    }
+
+    /**
+     * Ghi nhiều câu trả lời trong một JDBC batch, theo đúng thứ tự của {@code batch}
+     */
+    public void applyBatch(SqlParameterSource[] batch) {
+        jdbcTemplate.batchUpdate(upsertSql, batch);
+    }
+
+    public SqlParameterSource params(String userId, Integer vocabId, boolean correct, LocalDateTime now) {
+        long initial = srsScheduler.review(SrsState.INITIAL, correct);
+        return new MapSqlParameterSource()
+            .addValue("userId", userId)
+            .addValue("vocabId", vocabId)
+            .addValue("correct", correct)
+            .addValue("box", SrsState.box(initial))
+            .addValue("streak", SrsState.streak(initial))
+            .addValue("wrongCount", SrsState.wrongCount(initial))
+            .addValue("status", SrsState.status(initial).name())
+            .addValue("easeFactor", SrsState.easeFactor(initial))
+            .addValue("intervalDays", SrsState.intervalDays(initial))
+            .addValue("nextReviewAt", now.plusDays(SrsState.intervalDays(initial)))
+            .addValue("now", now);
+    }
+
+    static String upsertSql(SqlTransition next) {
+        return "INSERT INTO user_vocab_progress AS uvp " +
+            "(user_id, vocab_id, box, streak, wrong_count, status, ease_factor, interval_days, " +
+            "first_learned, last_reviewed, next_review_at, created_at, updated_at) " +
+            "VALUES (:userId, :vocabId, :box, :streak, :wrongCount, :status, :easeFactor, :intervalDays, " +
+            ":now, :now, :nextReviewAt, :now, :now) " +
+            "ON CONFLICT (user_id, vocab_id) DO UPDATE SET " +
+            "box = " + next.box() + ", " +
+            "streak = " + next.streak() + ", " +
+            "wrong_count = " + next.wrongCount() + ", " +
+            "status = " + next.status() + ", " +
+            "ease_factor = " + next.easeFactor() + ", " +
+            "interval_days = " + next.intervalDays() + ", " +
+            "last_reviewed = EXCLUDED.last_reviewed, " +
+            "next_review_at = EXCLUDED.last_reviewed + make_interval(days => " + next.intervalDays() + "), " +
+            "updated_at = EXCLUDED.updated_at";
+    }
+}
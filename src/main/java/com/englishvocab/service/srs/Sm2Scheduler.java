@@ -0,0 +1,101 @@
+package com.englishvocab.service.srs;
+
+import java.math.BigDecimal;
+
+/**
+ * SuperMemo-2 với hai mức đánh giá: đúng = q4, sai = q1.
+ *
+ * Interval lần 1 = 1 ngày, lần 2 = 6 ngày, sau đó nhân với ease factor (tối thiểu 1.3).
+ * Box vẫn được cập nhật theo interval để thống kê/hiển thị theo box tiếp tục đúng.
+ */
+public class Sm2Scheduler implements SrsScheduler {
+
+    private static final int CORRECT_QUALITY = 4;
+    private static final int WRONG_QUALITY = 1;
+
+    @Override
+    public long review(long state, boolean correct) {
+        int streak = SrsState.streak(state);
+        int wrongCount = SrsState.wrongCount(state);
+        int ease = nextEase(easeOf(state), correct ? CORRECT_QUALITY : WRONG_QUALITY);
+        int interval;
+        if (correct) {
+            streak++;
+            if (streak == 1) {
+                interval = 1;
+            } else if (streak == 2) {
+                interval = 6;
+            } else {
+                interval = (int) Math.min(Integer.MAX_VALUE, ((long) intervalOf(state) * ease + 500) / 1000);
+            }
+        } else {
+            streak = 0;
+            wrongCount++;
+            interval = 1;
+        }
+        int box = LeitnerScheduler.boxForInterval(interval);
+        return SrsState.pack(box, streak, wrongCount, LeitnerScheduler.statusOrdinal(correct, box, wrongCount),
+            ease, interval);
+    }
+
+    @Override
+    public long normalize(long state) {
+        int interval = intervalOf(state);
+        int box = LeitnerScheduler.boxForInterval(interval);
+        return SrsState.pack(box, SrsState.streak(state), SrsState.wrongCount(state),
+            SrsState.statusOrdinal(state), easeOf(state), interval);
+    }
+
+    @Override
+    public SqlTransition sqlTransition() {
+        String ease = "CASE WHEN uvp.ease_factor > 0 THEN GREATEST(ROUND(uvp.ease_factor::numeric, 3), "
+            + permille(SrsState.MIN_EASE) + ") ELSE " + permille(SrsState.DEFAULT_EASE) + " END";
+        String correctEase = nextEaseSql(ease, CORRECT_QUALITY);
+        String interval = "CASE WHEN uvp.interval_days > 0 THEN uvp.interval_days ELSE "
+            + LeitnerScheduler.intervalForBoxSql("uvp.box") + " END";
+        String correctInterval = "CASE uvp.streak + 1 WHEN 1 THEN 1 WHEN 2 THEN 6 ELSE "
+            + "LEAST(ROUND((" + interval + ") * " + correctEase + "), 65535)::int END";
+        String correctBox = LeitnerScheduler.boxForIntervalSql(correctInterval);
+        return new SqlTransition(
+            "CASE WHEN :correct THEN " + correctBox + " ELSE 1 END",
+            SqlTransition.STREAK,
+            SqlTransition.WRONG_COUNT,
+            LeitnerScheduler.statusSql(correctBox, SqlTransition.WRONG_COUNT),
+            "CASE WHEN :correct THEN " + correctEase + " ELSE " + nextEaseSql(ease, WRONG_QUALITY) + " END",
+            "CASE WHEN :correct THEN " + correctInterval + " ELSE 1 END");
+    }
+
+    @Override
+    public SrsAlgorithm algorithm() {
+        return SrsAlgorithm.SM2;
+    }
+
+    // EF' = EF + (0.1 - (5 - q) * (0.08 + (5 - q) * 0.02)), tính theo phần nghìn
+    private static int nextEase(int ease, int quality) {
+        return Math.max(SrsState.MIN_EASE, ease + easeDelta(quality));
+    }
+
+    private static int easeDelta(int quality) {
+        int miss = 5 - quality;
+        return 100 - miss * (80 + miss * 20);
+    }
+
+    private static String nextEaseSql(String ease, int quality) {
+        return "GREATEST(" + ease + " + " + permille(easeDelta(quality)) + ", " + permille(SrsState.MIN_EASE) + ")";
+    }
+
+    private static String permille(int value) {
+        return BigDecimal.valueOf(value, 3).toPlainString();
+    }
+
+    private static int easeOf(long state) {
+        int ease = SrsState.easePermille(state);
+        return ease > 0 ? Math.max(ease, SrsState.MIN_EASE) : SrsState.DEFAULT_EASE;
+    }
+
+    // Hàng chưa có interval (ghi bởi Leitner) dùng interval của box hiện tại
+    private static int intervalOf(long state) {
+        int interval = SrsState.intervalDays(state);
+        return interval > 0 ? interval : LeitnerScheduler.intervalForBox(SrsState.box(state));
+    }
+}
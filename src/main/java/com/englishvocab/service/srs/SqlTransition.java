@@ -0,0 +1,15 @@
+package com.englishvocab.service.srs;
+
+/**
+ * Một câu trả lời viết bằng SQL: mỗi trường là biểu thức cho giá trị mới của cột,
+ * tính từ hàng user_vocab_progress hiện có (alias {@code uvp}) và tham số boolean {@code :correct}.
+ *
+ * Dùng trong nhánh ON CONFLICT DO UPDATE của {@link ProgressUpsert}, nên mọi biểu thức đọc
+ * giá trị cũ của hàng; phải cho cùng kết quả với {@link SrsScheduler#review(long, boolean)}.
+ */
+public record SqlTransition(String box, String streak, String wrongCount, String status,
+                            String easeFactor, String intervalDays) {
+
+    static final String STREAK = "CASE WHEN :correct THEN uvp.streak + 1 ELSE 0 END";
+    static final String WRONG_COUNT = "uvp.wrong_count + CASE WHEN :correct THEN 0 ELSE 1 END";
+}
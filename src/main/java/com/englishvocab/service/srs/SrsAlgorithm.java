@@ -0,0 +1,13 @@
+package com.englishvocab.service.srs;
+
+public enum SrsAlgorithm {
+    LEITNER,    // 5 box cố định: 1/3/7/14/30 ngày
+    SM2;        // SuperMemo-2: interval nhân với ease factor của từng từ
+
+    public SrsScheduler newScheduler() {
+        return switch (this) {
+            case LEITNER -> new LeitnerScheduler();
+            case SM2 -> new Sm2Scheduler();
+        };
+    }
+}
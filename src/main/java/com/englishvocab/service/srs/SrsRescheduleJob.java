@@ -0,0 +1,264 @@
+package com.englishvocab.service.srs;
+
+import com.englishvocab.config.properties.SrsProperties;
+import com.englishvocab.entity.UserVocabProgress;
+import com.englishvocab.event.ProgressChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Áp thuật toán SRS hiện tại cho toàn bộ user_vocab_progress.
+ *
+ * Bảng được chia theo khoảng vocab_progress_id; mỗi chunk được đọc (FOR UPDATE),
+ * chuẩn hóa bằng {@link SrsScheduler#normalize(long)} trên primitive và ghi lại bằng
+ * một câu UPDATE ... FROM unnest(...) trong transaction riêng. Các chunk chạy song song
+ * trên task executor dùng chung của ứng dụng, tối đa {@code parallelism} chunk cùng lúc.
+ * next_review_at được tính lại từ last_reviewed + interval_days; hàng không đổi không bị ghi.
+ */
+@Service
+@Slf4j
+public class SrsRescheduleJob {
+
+    private static final String ID_RANGE_SQL =
+        "SELECT COALESCE(MIN(vocab_progress_id), 0), COALESCE(MAX(vocab_progress_id), -1) FROM user_vocab_progress";
+
+    private static final String SELECT_CHUNK_SQL =
+        "SELECT vocab_progress_id, box, streak, wrong_count, status, ease_factor, interval_days " +
+        "FROM user_vocab_progress WHERE vocab_progress_id >= ? AND vocab_progress_id < ? FOR UPDATE";
+
+    private static final String UPDATE_CHUNK_SQL =
+        "UPDATE user_vocab_progress p SET box = t.box, status = t.status, ease_factor = t.ease / 1000.0, " +
+        "interval_days = t.interval_days, " +
+        "next_review_at = COALESCE(p.last_reviewed, p.created_at, now()) + make_interval(days => t.interval_days) " +
+        "FROM unnest(?::int[], ?::int[], ?::text[], ?::int[], ?::int[]) AS t(id, box, status, ease, interval_days) " +
+        "WHERE p.vocab_progress_id = t.id AND (p.box <> t.box OR p.status <> t.status " +
+        "OR p.ease_factor <> t.ease / 1000.0 OR p.interval_days <> t.interval_days " +
+        "OR p.next_review_at IS DISTINCT FROM " +
+        "COALESCE(p.last_reviewed, p.created_at, now()) + make_interval(days => t.interval_days))";
+
+    private static final UserVocabProgress.Status[] STATUSES = UserVocabProgress.Status.values();
+
+    private final SrsScheduler srsScheduler;
+    private final SrsProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final AsyncTaskExecutor taskExecutor;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile Result lastResult;
+
+    public SrsRescheduleJob(SrsScheduler srsScheduler,
+                            SrsProperties properties,
+                            JdbcTemplate jdbcTemplate,
+                            ApplicationEventPublisher eventPublisher,
+                            PlatformTransactionManager transactionManager,
+                            @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                            AsyncTaskExecutor taskExecutor) {
+        this.srsScheduler = srsScheduler;
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.taskExecutor = taskExecutor;
+    }
+
+    /**
+     * Kết quả lần chạy gần nhất
+     */
+    public record Result(SrsAlgorithm algorithm, long scanned, long updated, int chunks, long elapsedMs) {
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public Result getLastResult() {
+        return lastResult;
+    }
+
+    /**
+     * Chạy job ở background. Trả về false nếu đang có một lần chạy khác.
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            taskExecutor.execute(() -> {
+                try {
+                    runLocked();
+                } catch (RuntimeException e) {
+                    log.error("SRS reschedule failed", e);
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * Chạy job và chờ kết thúc
+     */
+    public Result run() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("SRS reschedule is already running");
+        }
+        try {
+            return runLocked();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private Result runLocked() {
+        long startedAt = System.currentTimeMillis();
+        long[] range = jdbcTemplate.queryForObject(ID_RANGE_SQL, (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)});
+        long chunkSize = Math.max(1, properties.getReschedule().getChunkSize());
+        int parallelism = properties.getReschedule().getParallelism() > 0
+            ? properties.getReschedule().getParallelism()
+            : Math.min(Runtime.getRuntime().availableProcessors(), 4);
+
+        AtomicLong scanned = new AtomicLong();
+        AtomicLong updated = new AtomicLong();
+        AtomicLong cursor = new AtomicLong(range[0]);
+        AtomicLong chunks = new AtomicLong();
+        AtomicBoolean stopped = new AtomicBoolean();
+        // Mỗi worker lần lượt nhận chunk kế tiếp, nên số chunk chạy cùng lúc không vượt quá parallelism
+        Runnable worker = () -> {
+            long from;
+            while (!stopped.get() && (from = cursor.getAndAdd(chunkSize)) <= range[1]) {
+                long chunkFrom = from;
+                long to = Math.min(from + chunkSize, range[1] + 1);
+                transactionTemplate.executeWithoutResult(status -> rescheduleChunk(chunkFrom, to, scanned, updated));
+                chunks.incrementAndGet();
+            }
+        };
+        List<Future<?>> workers = new ArrayList<>(parallelism);
+        try {
+            for (int i = 0; i < parallelism; i++) {
+                workers.add(taskExecutor.submit(worker));
+            }
+            for (Future<?> future : workers) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("SRS reschedule interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("SRS reschedule failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            // Worker khác dừng ở chunk kế tiếp thay vì tiếp tục sau khi đã có lỗi
+            stopped.set(true);
+            workers.forEach(future -> future.cancel(false));
+            // Kể cả khi lỗi giữa chừng, các chunk đã commit đã đổi next_review_at
+            eventPublisher.publishEvent(ProgressChangedEvent.allRescheduled());
+        }
+
+        Result result = new Result(srsScheduler.algorithm(), scanned.get(), updated.get(), (int) chunks.get(),
+            System.currentTimeMillis() - startedAt);
+        lastResult = result;
+        log.info("SRS reschedule ({}) done: {} rows scanned, {} updated, {} chunks in {} ms",
+            result.algorithm(), result.scanned(), result.updated(), result.chunks(), result.elapsedMs());
+        return result;
+    }
+
+    private void rescheduleChunk(long from, long to, AtomicLong scanned, AtomicLong updated) {
+        ChunkBuffer buffer = new ChunkBuffer((int) (to - from));
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_CHUNK_SQL);
+            ps.setLong(1, from);
+            ps.setLong(2, to);
+            return ps;
+        }, rs -> {
+            long state = SrsState.pack(rs.getInt(2), rs.getInt(3), rs.getInt(4),
+                UserVocabProgress.Status.valueOf(rs.getString(5)).ordinal(),
+                (int) Math.round(rs.getDouble(6) * 1000), rs.getInt(7));
+            buffer.add(rs.getInt(1), srsScheduler.normalize(state));
+        });
+        if (buffer.size == 0) {
+            return;
+        }
+
+        int rows = jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(UPDATE_CHUNK_SQL);
+            ps.setArray(1, connection.createArrayOf("integer", buffer.ids()));
+            ps.setArray(2, connection.createArrayOf("integer", buffer.boxes()));
+            ps.setArray(3, connection.createArrayOf("text", buffer.statuses()));
+            ps.setArray(4, connection.createArrayOf("integer", buffer.eases()));
+            ps.setArray(5, connection.createArrayOf("integer", buffer.intervals()));
+            return ps;
+        });
+        scanned.addAndGet(buffer.size);
+        updated.addAndGet(rows);
+    }
+
+    /**
+     * Các id và trạng thái đã chuẩn hóa của một chunk, giữ ở dạng primitive tới lúc bind
+     */
+    private static final class ChunkBuffer {
+        final int[] ids;
+        final long[] states;
+        int size;
+
+        ChunkBuffer(int capacity) {
+            ids = new int[capacity];
+            states = new long[capacity];
+        }
+
+        void add(int id, long state) {
+            ids[size] = id;
+            states[size] = state;
+            size++;
+        }
+
+        Integer[] ids() {
+            Integer[] values = new Integer[size];
+            for (int i = 0; i < size; i++) values[i] = ids[i];
+            return values;
+        }
+
+        Integer[] boxes() {
+            Integer[] values = new Integer[size];
+            for (int i = 0; i < size; i++) values[i] = SrsState.box(states[i]);
+            return values;
+        }
+
+        String[] statuses() {
+            String[] values = new String[size];
+            for (int i = 0; i < size; i++) values[i] = STATUSES[SrsState.statusOrdinal(states[i])].name();
+            return values;
+        }
+
+        Integer[] eases() {
+            Integer[] values = new Integer[size];
+            for (int i = 0; i < size; i++) values[i] = SrsState.easePermille(states[i]);
+            return values;
+        }
+
+        Integer[] intervals() {
+            Integer[] values = new Integer[size];
+            for (int i = 0; i < size; i++) values[i] = SrsState.intervalDays(states[i]);
+            return values;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.englishvocab.service.srs;
+
+/**
+ * Thuật toán lặp lại ngắt quãng, làm việc trên trạng thái đóng gói của {@link SrsState}.
+ *
+ * Implementation phải stateless và thread-safe: cùng một instance được dùng cho
+ * mọi câu trả lời và cho job reschedule chạy song song.
+ */
+public interface SrsScheduler {
+
+    /**
+     * Trạng thái mới sau một câu trả lời. Số ngày tới lần review tiếp theo
+     * nằm trong {@link SrsState#intervalDays(long)} của kết quả.
+     */
+    long review(long state, boolean correct);
+
+    /**
+     * Chuẩn hóa trạng thái được ghi bởi thuật toán khác (hoặc cấu hình cũ),
+     * dùng khi reschedule hàng loạt. Không tính là một lần review nên status được giữ nguyên.
+     */
+    long normalize(long state);
+
+    /**
+     * {@link #review(long, boolean)} viết bằng SQL, để câu trả lời được áp lên hàng hiện có
+     * ngay trong câu upsert thay vì ghi đè bằng trạng thái đã đọc trước đó.
+     */
+    SqlTransition sqlTransition();
+
+    SrsAlgorithm algorithm();
+}
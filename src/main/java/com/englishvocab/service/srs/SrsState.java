@@ -0,0 +1,110 @@
+package com.englishvocab.service.srs;
+
+import com.englishvocab.entity.UserVocabProgress;
+
+/**
+ * Trạng thái SRS của một (user, vocab) đóng gói trong một {@code long}.
+ *
+ * Bố cục bit (thấp → cao): box 3 | status 3 | streak 14 | wrongCount 14 | ease (‰) 13 | intervalDays 16.
+ * Các giá trị vượt giới hạn được chặn lại khi pack, nên scheduler có thể tính toán
+ * trên primitive mà không cần tạo entity hay LocalDateTime.
+ */
+public final class SrsState {
+
+    public static final int MAX_BOX = 5;
+    public static final int DEFAULT_EASE = 2500;     // 2.5
+    public static final int MIN_EASE = 1300;         // 1.3
+
+    private static final int STATUS_SHIFT = 3;
+    private static final int STREAK_SHIFT = 6;
+    private static final int WRONG_SHIFT = 20;
+    private static final int EASE_SHIFT = 34;
+    private static final int INTERVAL_SHIFT = 47;
+
+    private static final int MAX_COUNTER = (1 << 14) - 1;
+    private static final int MAX_EASE = (1 << 13) - 1;
+    private static final int MAX_INTERVAL = (1 << 16) - 1;
+
+    private static final UserVocabProgress.Status[] STATUSES = UserVocabProgress.Status.values();
+
+    /** Trạng thái của một từ vừa bắt đầu học */
+    public static final long INITIAL = pack(1, 0, 0, UserVocabProgress.Status.LEARNING.ordinal(), DEFAULT_EASE, 0);
+
+    private SrsState() {
+    }
+
+    public static long pack(int box, int streak, int wrongCount, int statusOrdinal, int easePermille, int intervalDays) {
+        return clamp(box, 1, MAX_BOX)
+            | (long) clamp(statusOrdinal, 0, STATUSES.length - 1) << STATUS_SHIFT
+            | (long) clamp(streak, 0, MAX_COUNTER) << STREAK_SHIFT
+            | (long) clamp(wrongCount, 0, MAX_COUNTER) << WRONG_SHIFT
+            | (long) clamp(easePermille, 0, MAX_EASE) << EASE_SHIFT
+            | (long) clamp(intervalDays, 0, MAX_INTERVAL) << INTERVAL_SHIFT;
+    }
+
+    /**
+     * Đóng gói từ các cột của user_vocab_progress (null = giá trị mặc định của từ mới)
+     */
+    public static long of(Integer box, Integer streak, Integer wrongCount, UserVocabProgress.Status status,
+                          Double easeFactor, Integer intervalDays) {
+        return pack(box != null ? box : 1,
+            streak != null ? streak : 0,
+            wrongCount != null ? wrongCount : 0,
+            (status != null ? status : UserVocabProgress.Status.LEARNING).ordinal(),
+            easeFactor != null ? (int) Math.round(easeFactor * 1000) : DEFAULT_EASE,
+            intervalDays != null ? intervalDays : 0);
+    }
+
+    public static long of(UserVocabProgress progress) {
+        return progress == null ? INITIAL : of(progress.getBox(), progress.getStreak(), progress.getWrongCount(),
+            progress.getStatus(), progress.getEaseFactor(), progress.getIntervalDays());
+    }
+
+    /**
+     * Ghi trạng thái vào entity (không đụng tới các mốc thời gian)
+     */
+    public static void applyTo(long state, UserVocabProgress progress) {
+        progress.setBox(box(state));
+        progress.setStreak(streak(state));
+        progress.setWrongCount(wrongCount(state));
+        progress.setStatus(status(state));
+        progress.setEaseFactor(easeFactor(state));
+        progress.setIntervalDays(intervalDays(state));
+    }
+
+    public static int box(long state) {
+        return (int) (state & 0x7);
+    }
+
+    public static int statusOrdinal(long state) {
+        return (int) (state >>> STATUS_SHIFT & 0x7);
+    }
+
+    public static UserVocabProgress.Status status(long state) {
+        return STATUSES[statusOrdinal(state)];
+    }
+
+    public static int streak(long state) {
+        return (int) (state >>> STREAK_SHIFT & MAX_COUNTER);
+    }
+
+    public static int wrongCount(long state) {
+        return (int) (state >>> WRONG_SHIFT & MAX_COUNTER);
+    }
+
+    public static int easePermille(long state) {
+        return (int) (state >>> EASE_SHIFT & MAX_EASE);
+    }
+
+    public static double easeFactor(long state) {
+        return easePermille(state) / 1000.0;
+    }
+
+    public static int intervalDays(long state) {
+        return (int) (state >>> INTERVAL_SHIFT & MAX_INTERVAL);
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,81 @@
+package com.englishvocab.service.srs;
+
+import com.englishvocab.entity.UserVocabProgress;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LeitnerSchedulerTest {
+
+	private final LeitnerScheduler scheduler = new LeitnerScheduler();
+
+	@Test
+	void correctAnswerMovesUpOneBox() {
+		long state = scheduler.review(SrsState.INITIAL, true);
+
+		assertEquals(2, SrsState.box(state));
+		assertEquals(1, SrsState.streak(state));
+		assertEquals(3, SrsState.intervalDays(state));
+		assertEquals(UserVocabProgress.Status.REVIEWING, SrsState.status(state));
+	}
+
+	@Test
+	void reachingMasteredBoxMarksWordMastered() {
+		long state = SrsState.pack(3, 2, 0, UserVocabProgress.Status.REVIEWING.ordinal(), SrsState.DEFAULT_EASE, 7);
+
+		state = scheduler.review(state, true);
+
+		assertEquals(4, SrsState.box(state));
+		assertEquals(14, SrsState.intervalDays(state));
+		assertEquals(UserVocabProgress.Status.MASTERED, SrsState.status(state));
+	}
+
+	@Test
+	void boxStopsAtLastBox() {
+		long state = SrsState.pack(5, 4, 0, UserVocabProgress.Status.MASTERED.ordinal(), SrsState.DEFAULT_EASE, 30);
+
+		state = scheduler.review(state, true);
+
+		assertEquals(5, SrsState.box(state));
+		assertEquals(30, SrsState.intervalDays(state));
+	}
+
+	@Test
+	void wrongAnswerResetsToFirstBox() {
+		long state = SrsState.pack(4, 3, 0, UserVocabProgress.Status.MASTERED.ordinal(), SrsState.DEFAULT_EASE, 14);
+
+		state = scheduler.review(state, false);
+
+		assertEquals(1, SrsState.box(state));
+		assertEquals(0, SrsState.streak(state));
+		assertEquals(1, SrsState.wrongCount(state));
+		assertEquals(1, SrsState.intervalDays(state));
+		assertEquals(UserVocabProgress.Status.LEARNING, SrsState.status(state));
+	}
+
+	@Test
+	void repeatedWrongAnswersMarkWordDifficult() {
+		long state = SrsState.INITIAL;
+		state = scheduler.review(state, false);
+		state = scheduler.review(state, false);
+		assertEquals(UserVocabProgress.Status.LEARNING, SrsState.status(state));
+
+		state = scheduler.review(state, false);
+
+		assertEquals(3, SrsState.wrongCount(state));
+		assertEquals(UserVocabProgress.Status.DIFFICULT, SrsState.status(state));
+	}
+
+	@Test
+	void normalizeKeepsStatusAndRecomputesInterval() {
+		long state = SrsState.pack(3, 0, 5, UserVocabProgress.Status.DIFFICULT.ordinal(), 1960, 40);
+
+		long normalized = scheduler.normalize(state);
+
+		assertEquals(UserVocabProgress.Status.DIFFICULT, SrsState.status(normalized));
+		assertEquals(3, SrsState.box(normalized));
+		assertEquals(7, SrsState.intervalDays(normalized));
+		assertEquals(5, SrsState.wrongCount(normalized));
+		assertEquals(1960, SrsState.easePermille(normalized));
+	}
+}
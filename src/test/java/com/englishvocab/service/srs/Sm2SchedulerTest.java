@@ -0,0 +1,82 @@
+package com.englishvocab.service.srs;
+
+import com.englishvocab.entity.UserVocabProgress;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class Sm2SchedulerTest {
+
+	private final Sm2Scheduler scheduler = new Sm2Scheduler();
+
+	@Test
+	void firstIntervalsAreOneThenSixDays() {
+		long state = scheduler.review(SrsState.INITIAL, true);
+		assertEquals(1, SrsState.intervalDays(state));
+		assertEquals(1, SrsState.box(state));
+		assertEquals(UserVocabProgress.Status.REVIEWING, SrsState.status(state));
+
+		state = scheduler.review(state, true);
+		assertEquals(6, SrsState.intervalDays(state));
+		assertEquals(3, SrsState.box(state));
+	}
+
+	@Test
+	void laterIntervalsGrowByEaseFactor() {
+		long state = SrsState.INITIAL;
+		for (int i = 0; i < 3; i++) {
+			state = scheduler.review(state, true);
+		}
+
+		assertEquals(15, SrsState.intervalDays(state));
+		assertEquals(SrsState.DEFAULT_EASE, SrsState.easePermille(state));
+		assertEquals(5, SrsState.box(state));
+		assertEquals(UserVocabProgress.Status.MASTERED, SrsState.status(state));
+	}
+
+	@Test
+	void wrongAnswerLowersEaseAndRestartsInterval() {
+		long state = SrsState.pack(5, 3, 0, UserVocabProgress.Status.MASTERED.ordinal(), SrsState.DEFAULT_EASE, 15);
+
+		state = scheduler.review(state, false);
+
+		assertEquals(1960, SrsState.easePermille(state));
+		assertEquals(1, SrsState.intervalDays(state));
+		assertEquals(1, SrsState.box(state));
+		assertEquals(0, SrsState.streak(state));
+		assertEquals(UserVocabProgress.Status.LEARNING, SrsState.status(state));
+	}
+
+	@Test
+	void easeNeverDropsBelowMinimum() {
+		long state = SrsState.INITIAL;
+		for (int i = 0; i < 5; i++) {
+			state = scheduler.review(state, false);
+		}
+
+		assertEquals(SrsState.MIN_EASE, SrsState.easePermille(state));
+		assertEquals(UserVocabProgress.Status.DIFFICULT, SrsState.status(state));
+	}
+
+	@Test
+	void leitnerRowWithoutIntervalUsesBoxInterval() {
+		long state = SrsState.pack(3, 2, 0, UserVocabProgress.Status.REVIEWING.ordinal(), 0, 0);
+
+		state = scheduler.review(state, true);
+
+		assertEquals(18, SrsState.intervalDays(state));
+		assertEquals(SrsState.DEFAULT_EASE, SrsState.easePermille(state));
+	}
+
+	@Test
+	void normalizeKeepsStatusAndDerivesBoxFromInterval() {
+		long state = SrsState.pack(1, 0, 4, UserVocabProgress.Status.DIFFICULT.ordinal(), 0, 10);
+
+		long normalized = scheduler.normalize(state);
+
+		assertEquals(UserVocabProgress.Status.DIFFICULT, SrsState.status(normalized));
+		assertEquals(4, SrsState.box(normalized));
+		assertEquals(10, SrsState.intervalDays(normalized));
+		assertEquals(SrsState.DEFAULT_EASE, SrsState.easePermille(normalized));
+	}
+}
@@ -0,0 +1,59 @@
+package com.englishvocab.service.srs;
+
+import com.englishvocab.entity.UserVocabProgress;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SrsStateTest {
+
+	@Test
+	void packRoundTripsEveryField() {
+		long state = SrsState.pack(4, 1234, 567, UserVocabProgress.Status.DIFFICULT.ordinal(), 1960, 365);
+
+		assertEquals(4, SrsState.box(state));
+		assertEquals(1234, SrsState.streak(state));
+		assertEquals(567, SrsState.wrongCount(state));
+		assertEquals(UserVocabProgress.Status.DIFFICULT, SrsState.status(state));
+		assertEquals(1960, SrsState.easePermille(state));
+		assertEquals(1.96, SrsState.easeFactor(state), 1e-9);
+		assertEquals(365, SrsState.intervalDays(state));
+	}
+
+	@Test
+	void packClampsOutOfRangeValues() {
+		long state = SrsState.pack(9, 1 << 20, -3, 42, 1 << 14, 1 << 17);
+
+		assertEquals(SrsState.MAX_BOX, SrsState.box(state));
+		assertEquals((1 << 14) - 1, SrsState.streak(state));
+		assertEquals(0, SrsState.wrongCount(state));
+		assertEquals(UserVocabProgress.Status.values().length - 1, SrsState.statusOrdinal(state));
+		assertEquals((1 << 13) - 1, SrsState.easePermille(state));
+		assertEquals((1 << 16) - 1, SrsState.intervalDays(state));
+	}
+
+	@Test
+	void saturatedFieldsDoNotBleedIntoNeighbours() {
+		long state = SrsState.pack(1, (1 << 14) - 1, 0, 0, (1 << 13) - 1, 0);
+
+		assertEquals(1, SrsState.box(state));
+		assertEquals(0, SrsState.statusOrdinal(state));
+		assertEquals(0, SrsState.wrongCount(state));
+		assertEquals(0, SrsState.intervalDays(state));
+	}
+
+	@Test
+	void missingColumnsDefaultToInitialState() {
+		assertEquals(SrsState.INITIAL, SrsState.of(null, null, null, null, null, null));
+		assertEquals(1, SrsState.box(SrsState.INITIAL));
+		assertEquals(UserVocabProgress.Status.LEARNING, SrsState.status(SrsState.INITIAL));
+		assertEquals(SrsState.DEFAULT_EASE, SrsState.easePermille(SrsState.INITIAL));
+	}
+
+	@Test
+	void easeFactorIsRoundedToPermille() {
+		long state = SrsState.of(2, 1, 0, UserVocabProgress.Status.REVIEWING, 2.3456, 3);
+
+		assertEquals(2346, SrsState.easePermille(state));
+	}
+}